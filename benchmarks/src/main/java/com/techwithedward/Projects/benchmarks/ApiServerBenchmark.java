@@ -0,0 +1,79 @@
+package com.techwithedward.Projects.benchmarks;
+
+import com.techwithedward.Projects.LightweightAPIServer;
+import com.techwithedward.Projects.LightweightAPIServer.ExecutionMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Bursts of concurrent requests against LightweightAPIServer whose handler blocks for blockMillis,
+// standing in for a database or downstream HTTP call. Compares the fixed thread pool with one
+// virtual thread per exchange, unbounded and with a concurrency limit; ms per burst.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ApiServerBenchmark {
+    // fixed-N: pool of N platform threads; virtual: no limit; virtual-N: at most N handlers at once
+    @Param({"fixed-10", "fixed-200", "virtual", "virtual-256"})
+    String executor;
+
+    @Param({"100", "1000"})
+    int requests;
+
+    @Param({"20"})
+    int blockMillis;
+
+    private LightweightAPIServer server;
+    private ExecutorService clientThreads;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String[] spec = executor.split("-");
+        ExecutionMode mode = spec[0].equals("fixed") ? ExecutionMode.FIXED_POOL : ExecutionMode.VIRTUAL_THREADS;
+        int concurrency = spec.length > 1 ? Integer.parseInt(spec[1]) : 0;
+        server = new LightweightAPIServer(0, mode, concurrency);
+        server.setRequestLogging(false);
+        server.get("/block", (req, res) -> {
+            try {
+                Thread.sleep(blockMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            res.send("ok");
+        });
+        server.start();
+
+        clientThreads = Executors.newVirtualThreadPerTaskExecutor();
+        client = HttpClient.newBuilder().executor(clientThreads).version(HttpClient.Version.HTTP_1_1).build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/block")).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop();
+        clientThreads.shutdownNow();
+    }
+
+    @Benchmark
+    public int burst() {
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[requests];
+        for (int i = 0; i < requests; i++) {
+            responses[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+        }
+        CompletableFuture.allOf(responses).join();
+        return responses.length;
+    }
+}
@@ -0,0 +1,21 @@
+package com.techwithedward.Projects.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Entry point of benchmarks.jar: org.openjdk.jmh.Main with JSON results in jmh-result.json
+// unless -rf/-rff say otherwise, so runs can be compared by tools. Takes the usual JMH options,
+// e.g. a benchmark regex and -p rows=10000,1000000.
+public final class BenchmarkMain {
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(List.of(args));
+        // Either option means the caller chose the output; JMH fills in the other from its defaults
+        if (!options.contains("-rf") && !options.contains("-rff")) {
+            options.addAll(List.of("-rf", "json", "-rff", "jmh-result.json"));
+        }
+        org.openjdk.jmh.Main.main(options.toArray(String[]::new));
+    }
+}
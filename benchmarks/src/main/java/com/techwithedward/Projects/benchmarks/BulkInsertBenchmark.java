@@ -0,0 +1,61 @@
+package com.techwithedward.Projects.benchmarks;
+
+import com.techwithedward.Projects.InMemoryDB;
+import com.techwithedward.Projects.Database.BulkLoader;
+import com.techwithedward.Projects.Database.IndexType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Time to fill an empty table: COPY from a CSV file against one INSERT per row, with and
+// without an index on id. Each measurement loads a fresh database once.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = Fixtures.HEAP)
+public class BulkInsertBenchmark {
+    @Param({"10000", "100000", "1000000", "10000000"})
+    int rows;
+
+    @Param({"false", "true"})
+    boolean indexed;
+
+    private InMemoryDB db;
+    private Path csv;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        csv = Fixtures.csv(rows);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        db = Fixtures.newDatabase(1);
+        db.createTable("t", Fixtures.COLUMNS);
+        if (indexed) {
+            db.createIndex("t", "id", IndexType.ORDERED);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        db.close();
+    }
+
+    @Benchmark
+    public long copy() throws IOException {
+        return db.copy("t", csv, BulkLoader.Format.CSV, false);
+    }
+
+    @Benchmark
+    public long insertLoop() {
+        for (int id = 0; id < rows; id++) {
+            db.insert("t", Fixtures.row(id));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,74 @@
+package com.techwithedward.Projects.benchmarks;
+
+import com.techwithedward.Projects.InMemoryDB;
+import com.techwithedward.Projects.Database.BulkLoader;
+import com.techwithedward.Projects.Database.ScanConfig;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+// Shared table layout and data for the benchmarks. Rows are a pure function of their id, so every
+// benchmark and every run sees the same data. Tables are filled through COPY from a CSV file that
+// is generated once per size into the temp directory and reused by later runs.
+final class Fixtures {
+    // Forked benchmark JVMs: 10M-row tables need a large heap
+    static final String HEAP = "-XX:MaxRAMPercentage=75";
+
+    static final String[] COLUMNS = {"id:INT", "category:INT", "score:DOUBLE", "name:STRING"};
+    static final int CATEGORIES = 100;
+
+    private Fixtures() {
+    }
+
+    // A database that prints nothing, so console output is not what gets measured
+    static InMemoryDB newDatabase(int commitShards) {
+        InMemoryDB db = new InMemoryDB(ScanConfig.defaults(), commitShards).start();
+        db.setConsole(new PrintStream(OutputStream.nullOutputStream()));
+        return db;
+    }
+
+    // Creates the table and loads rows with ids 0..rows-1
+    static void load(InMemoryDB db, String table, int rows) throws IOException {
+        db.createTable(table, COLUMNS);
+        db.copy(table, csv(rows), BulkLoader.Format.CSV, false);
+    }
+
+    static String[] row(int id) {
+        return new String[]{Integer.toString(id), Integer.toString(category(id)), Double.toString(score(id)), name(id)};
+    }
+
+    static int category(int id) {
+        return id % CATEGORIES;
+    }
+
+    // Spread evenly over [0, 100), so score > 99 selects about 1% of the rows
+    static double score(int id) {
+        return (id * 7919L % 10_000) / 100.0;
+    }
+
+    static String name(int id) {
+        return "name" + id;
+    }
+
+    static Path csv(int rows) throws IOException {
+        Path file = Path.of(System.getProperty("java.io.tmpdir"), "inmemorydb-bench-" + rows + ".csv");
+        if (Files.exists(file)) {
+            return file;
+        }
+        // Written aside and moved into place, so an interrupted run never leaves a short file behind
+        Path partial = Files.createTempFile(file.getParent(), "inmemorydb-bench-", ".partial");
+        try (BufferedWriter out = Files.newBufferedWriter(partial)) {
+            for (int id = 0; id < rows; id++) {
+                out.write(String.join(",", row(id)));
+                out.newLine();
+            }
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return file;
+    }
+}
@@ -0,0 +1,110 @@
+package com.techwithedward.Projects.benchmarks;
+
+import com.techwithedward.Projects.InMemoryDB;
+import com.techwithedward.Projects.Database.Cursor;
+import com.techwithedward.Projects.Database.IndexType;
+import com.techwithedward.Projects.Database.PreparedStatement;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Point reads mixed with single-row updates at 1, 4 and 16 threads. The rows are spread over
+// one or several tables and each thread works on one of them, so with several tables and
+// commit lock stripes the writers of different tables commit in parallel; with one stripe
+// (or one table) every commit queues behind the same lock.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Fixtures.HEAP)
+public class MixedBenchmark {
+    @State(Scope.Benchmark)
+    public static class Shared {
+        // Across all tables
+        @Param({"10000", "100000", "1000000", "10000000"})
+        int rows;
+
+        @Param({"1", "16"})
+        int tables;
+
+        @Param({"1", "64"})
+        int commitShards;
+
+        @Param({"90", "50"})
+        int readPercent;
+
+        InMemoryDB db;
+        PreparedStatement[] reads;
+        PreparedStatement[] writes;
+        int rowsPerTable;
+        final AtomicInteger nextThread = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            db = Fixtures.newDatabase(commitShards);
+            rowsPerTable = Math.max(1, rows / tables);
+            reads = new PreparedStatement[tables];
+            writes = new PreparedStatement[tables];
+            for (int i = 0; i < tables; i++) {
+                String table = "t" + i;
+                Fixtures.load(db, table, rowsPerTable);
+                db.createIndex(table, "id", IndexType.ORDERED);
+                reads[i] = db.prepare("SELECT * FROM " + table + " WHERE id = ?");
+                writes[i] = db.prepare("UPDATE " + table + " SET score = ? WHERE id = ?");
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            db.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Worker {
+        int table;
+        SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void setUp(Shared shared) {
+            int thread = shared.nextThread.getAndIncrement();
+            table = thread % shared.tables;
+            random = new SplittableRandom(thread);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void threads1(Shared shared, Worker worker, Blackhole bh) {
+        operation(shared, worker, bh);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void threads4(Shared shared, Worker worker, Blackhole bh) {
+        operation(shared, worker, bh);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void threads16(Shared shared, Worker worker, Blackhole bh) {
+        operation(shared, worker, bh);
+    }
+
+    private static void operation(Shared shared, Worker worker, Blackhole bh) {
+        int id = worker.random.nextInt(shared.rowsPerTable);
+        if (worker.random.nextInt(100) < shared.readPercent) {
+            try (Cursor cursor = shared.reads[worker.table].query(id)) {
+                while (cursor.hasNext()) {
+                    bh.consume(cursor.next());
+                }
+            }
+        } else {
+            bh.consume(shared.writes[worker.table].update(worker.random.nextInt(10_000) / 100.0, id));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.techwithedward.Projects.benchmarks;
+
+import com.techwithedward.Projects.InMemoryDB;
+import com.techwithedward.Projects.Database.Cursor;
+import com.techwithedward.Projects.Database.IndexType;
+import com.techwithedward.Projects.Database.PreparedStatement;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// SELECT * WHERE id = ? for a random existing id, with no index on id (a full scan per lookup)
+// and with a hash or ordered index
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Fixtures.HEAP)
+public class PointLookupBenchmark {
+    @Param({"10000", "100000", "1000000", "10000000"})
+    int rows;
+
+    @Param({"NONE", "HASH", "ORDERED"})
+    String index;
+
+    private InMemoryDB db;
+    private PreparedStatement lookup;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        db = Fixtures.newDatabase(1);
+        Fixtures.load(db, "t", rows);
+        if (!index.equals("NONE")) {
+            db.createIndex("t", "id", IndexType.valueOf(index));
+        }
+        lookup = db.prepare("SELECT * FROM t WHERE id = ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        db.close();
+    }
+
+    @Benchmark
+    public void lookup(Blackhole bh) {
+        try (Cursor cursor = lookup.query(ThreadLocalRandom.current().nextInt(rows))) {
+            while (cursor.hasNext()) {
+                bh.consume(cursor.next());
+            }
+        }
+    }
+}
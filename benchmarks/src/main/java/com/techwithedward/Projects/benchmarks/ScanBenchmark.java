@@ -0,0 +1,61 @@
+package com.techwithedward.Projects.benchmarks;
+
+import com.techwithedward.Projects.InMemoryDB;
+import com.techwithedward.Projects.Database.Cursor;
+import com.techwithedward.Projects.Database.PreparedStatement;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Full-scan SELECTs on an unindexed table: one that keeps about 1% of the rows, and one that
+// returns every row
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Fixtures.HEAP)
+public class ScanBenchmark {
+    @Param({"10000", "100000", "1000000", "10000000"})
+    int rows;
+
+    private InMemoryDB db;
+    private PreparedStatement filtered;
+    private PreparedStatement all;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        db = Fixtures.newDatabase(1);
+        Fixtures.load(db, "t", rows);
+        filtered = db.prepare("SELECT id, score FROM t WHERE score > ?");
+        all = db.prepare("SELECT * FROM t");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        db.close();
+    }
+
+    @Benchmark
+    public long selectiveScan(Blackhole bh) {
+        return drain(filtered.query(99.0), bh);
+    }
+
+    @Benchmark
+    public long fullScan(Blackhole bh) {
+        return drain(all.query(), bh);
+    }
+
+    static long drain(Cursor cursor, Blackhole bh) {
+        long n = 0;
+        try (cursor) {
+            while (cursor.hasNext()) {
+                bh.consume(cursor.next());
+                n++;
+            }
+        }
+        return n;
+    }
+}
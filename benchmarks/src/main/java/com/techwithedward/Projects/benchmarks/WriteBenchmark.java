@@ -0,0 +1,64 @@
+package com.techwithedward.Projects.benchmarks;
+
+import com.techwithedward.Projects.InMemoryDB;
+import com.techwithedward.Projects.Database.IndexType;
+import com.techwithedward.Projects.Database.PreparedStatement;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Single-row UPDATE and DELETE found through the id index, with only that index to maintain or
+// with one on every column. Deleted rows are inserted again, so the table keeps its size.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = Fixtures.HEAP)
+public class WriteBenchmark {
+    @Param({"10000", "100000", "1000000", "10000000"})
+    int rows;
+
+    // 1: id only; 4: id, category, score and name
+    @Param({"1", "4"})
+    int indexes;
+
+    private InMemoryDB db;
+    private PreparedStatement update;
+    private PreparedStatement delete;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        db = Fixtures.newDatabase(1);
+        Fixtures.load(db, "t", rows);
+        db.createIndex("t", "id", IndexType.ORDERED);
+        if (indexes > 1) {
+            db.createIndex("t", "category", IndexType.HASH);
+            db.createIndex("t", "score", IndexType.ORDERED);
+            db.createIndex("t", "name", IndexType.HASH);
+        }
+        update = db.prepare("UPDATE t SET category = ?, score = ? WHERE id = ?");
+        delete = db.prepare("DELETE FROM t WHERE id = ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        db.close();
+    }
+
+    @Benchmark
+    public int updateById() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return update.update(random.nextInt(Fixtures.CATEGORIES), random.nextInt(10_000) / 100.0, random.nextInt(rows));
+    }
+
+    @Benchmark
+    public int deleteAndReinsert() {
+        int id = ThreadLocalRandom.current().nextInt(rows);
+        int deleted = delete.update(id);
+        db.insert("t", Fixtures.row(id));
+        return deleted;
+    }
+}
@@ -0,0 +1,94 @@
+package com.techwithedward.Projects.Database;
+
+import com.techwithedward.Projects.InMemoryDB;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapColumnTest {
+    private static final String[] COLUMNS = {"id:int", "s"};
+
+    @TempDir
+    Path dataDir;
+
+    // Dead rows saved while a reader held them used to reload still pointing at their bytes, and
+    // growing the heap then compacted into a segment too small for them
+    @Test
+    void growsAfterReloadingDeadRows() throws IOException {
+        try (Database db = Database.open(dataDir)) {
+            db.get().createTable("t", COLUMNS, StorageMode.OFF_HEAP);
+            db.get().insert("t", new String[]{"1", "a".repeat(100_000)});
+            db.get().insert("t", new String[]{"2", "b".repeat(100_000)});
+            Cursor reader = db.get().query("t").cursor();
+            db.get().delete("t", "ALL");
+            db.get().snapshot();
+            reader.close();
+        }
+        try (Database db = Database.open(dataDir)) {
+            db.get().insert("t", new String[]{"3", "c".repeat(100_001)});
+            db.get().insert("t", new String[]{"4", "d".repeat(100_002)});
+            db.get().insert("t", new String[]{"5", "e"});
+            assertEquals(List.of(100_001, 100_002, 1), lengths(db.get()));
+        }
+    }
+
+    @Test
+    void failedWriteLeavesSlotFree() throws IOException {
+        try (Database db = Database.open(dataDir)) {
+            db.get().createTable("t", COLUMNS, StorageMode.OFF_HEAP);
+            String tooLong = "x".repeat(1 << 24);
+            assertThrows(IllegalArgumentException.class, () -> db.get().insert("t", new String[]{"1", tooLong}));
+            assertEquals(0, db.get().insert("t", new String[]{"2", "ok"}));
+            assertEquals(List.of(2), lengths(db.get()));
+        }
+    }
+
+    @Test
+    void compactsReclaimedStrings() {
+        Table table = new Table("t", Schema.parse(COLUMNS), 1, StorageMode.OFF_HEAP);
+        OffHeapColumn.Strings column = (OffHeapColumn.Strings) table.column(1);
+        long ts = 1;
+        int[] slots = new int[1000];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = table.insert(new Object[]{i, "v0-" + i}, ts++);
+        }
+        for (int round = 1; round <= 20; round++) {
+            for (int i = 0; i < slots.length; i++) {
+                table.delete(slots[i], ts);
+                slots[i] = table.insert(new Object[]{i, round + "-" + "x".repeat(200) + i}, ts++);
+            }
+            table.reclaim(ts, slot -> { });
+        }
+        assertEquals(20 + "-" + "x".repeat(200) + 7, table.get(slots[7], 1));
+        // Without compaction the heap would hold all 20 rounds
+        assertTrue(column.getCompactions() > 0);
+        assertTrue(column.offHeapBytes() < 20L * slots.length * 200);
+    }
+
+    private static List<Integer> lengths(InMemoryDB db) {
+        return db.query("t").stream().map(row -> ((String) row.get("s")).length()).toList();
+    }
+
+    // A durable database that prints nothing
+    private record Database(InMemoryDB get) implements AutoCloseable {
+        static Database open(Path dir) throws IOException {
+            InMemoryDB db = InMemoryDB.open(dir, DurabilityConfig.defaults());
+            db.setConsole(new PrintStream(OutputStream.nullOutputStream()));
+            return new Database(db);
+        }
+
+        @Override
+        public void close() throws IOException {
+            get.close();
+        }
+    }
+}
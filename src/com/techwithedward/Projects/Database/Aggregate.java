@@ -0,0 +1,75 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// One aggregate of a GROUP BY query: COUNT(*), COUNT(col), SUM(col), AVG(col), MIN(col) or MAX(col).
+// Nulls are skipped; SUM, AVG, MIN and MAX of a group without values are null.
+public class Aggregate {
+    public enum Function { COUNT, SUM, AVG, MIN, MAX }
+
+    private static final Pattern PATTERN = Pattern.compile(
+            "(?i)^\\s*(COUNT|SUM|AVG|MIN|MAX)\\s*\\(\\s*(\\*|[^()\\s]+)\\s*\\)\\s*$");
+
+    private final Function function;
+    // null for COUNT(*)
+    private final String column;
+
+    public Aggregate(Function function, String column) {
+        if (column == null && function != Function.COUNT) {
+            throw new IllegalArgumentException(function + " needs a column");
+        }
+        this.function = function;
+        this.column = column;
+    }
+
+    public static Aggregate parse(String text) {
+        Matcher m = PATTERN.matcher(text);
+        if (!m.matches()) {
+            throw new IllegalArgumentException("Invalid aggregate: " + text.trim());
+        }
+        Function function = Function.valueOf(m.group(1).toUpperCase());
+        return new Aggregate(function, m.group(2).equals("*") ? null : m.group(2));
+    }
+
+    // Comma-separated, e.g. "COUNT(*), AVG(price)"
+    public static List<Aggregate> parseList(String text) {
+        List<Aggregate> aggregates = new ArrayList<>();
+        for (String part : text.split(",")) {
+            aggregates.add(parse(part));
+        }
+        return aggregates;
+    }
+
+    public Function getFunction() {
+        return function;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    // Type of the result over a column of the given type; input is null for COUNT(*)
+    public ColumnType resultType(ColumnType input) {
+        boolean numeric = input == ColumnType.INT || input == ColumnType.LONG || input == ColumnType.DOUBLE;
+        return switch (function) {
+            case COUNT -> ColumnType.LONG;
+            case SUM -> {
+                if (!numeric) throw new IllegalArgumentException("SUM needs a numeric column, " + column + " is " + input);
+                yield input == ColumnType.DOUBLE ? ColumnType.DOUBLE : ColumnType.LONG;
+            }
+            case AVG -> {
+                if (!numeric) throw new IllegalArgumentException("AVG needs a numeric column, " + column + " is " + input);
+                yield ColumnType.DOUBLE;
+            }
+            case MIN, MAX -> input;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return function + "(" + (column == null ? "*" : column) + ")";
+    }
+}
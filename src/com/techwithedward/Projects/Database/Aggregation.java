@@ -0,0 +1,737 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
+
+// Runs COUNT/SUM/AVG/MIN/MAX with an optional GROUP BY inside the engine, a batch at a time.
+// The visible matching row ids of a block form a selection vector. Each group column is
+// gathered into a key vector, the keys are mapped to dense group ids through an
+// open-addressing hash table, and then every aggregate updates its per-group accumulator
+// arrays in one tight loop over the batch. Big tables are aggregated partition by partition
+// in parallel, and the partial results are merged at the end.
+public class Aggregation {
+    private static final int BATCH = 1024;
+
+    // Group columns first, then one column per aggregate; rows ordered by the group values
+    public record Result(String[] columns, List<Object[]> rows) {
+    }
+
+    private final Table table;
+    private final int[] groupBy;
+    private final Aggregate[] aggregates;
+    // Input column of each aggregate, -1 for COUNT(*)
+    private final int[] inputs;
+    private final KeyColumn[] keys;
+    private final String[] names;
+
+    public Aggregation(Table table, List<Aggregate> aggregates, String[] groupBy) {
+        if (aggregates.isEmpty()) throw new IllegalArgumentException("No aggregates given");
+        if (groupBy.length > 63) throw new IllegalArgumentException("Too many GROUP BY columns");
+        Schema schema = table.getSchema();
+        this.table = table;
+        this.aggregates = aggregates.toArray(new Aggregate[0]);
+        this.groupBy = new int[groupBy.length];
+        this.keys = new KeyColumn[groupBy.length];
+        this.names = new String[groupBy.length + aggregates.size()];
+        for (int k = 0; k < groupBy.length; k++) {
+            this.groupBy[k] = schema.indexOf(groupBy[k].trim());
+            this.keys[k] = new KeyColumn(table.column(this.groupBy[k]));
+            names[k] = schema.name(this.groupBy[k]);
+        }
+        this.inputs = new int[aggregates.size()];
+        for (int a = 0; a < inputs.length; a++) {
+            Aggregate aggregate = this.aggregates[a];
+            inputs[a] = aggregate.getColumn() == null ? -1 : schema.indexOf(aggregate.getColumn());
+            // Validates the input type up front
+            aggregate.resultType(inputs[a] < 0 ? null : schema.type(inputs[a]));
+            names[groupBy.length + a] = aggregate.toString();
+        }
+    }
+
+    // Whether every aggregate is COUNT(*), so only the number of rows matters
+    public boolean countsRowsOnly() {
+        for (int i = 0; i < aggregates.length; i++) {
+            if (inputs[i] >= 0 || aggregates[i].getFunction() != Aggregate.Function.COUNT) return false;
+        }
+        return true;
+    }
+
+    public String[] columnNames() {
+        return names.clone();
+    }
+
+    // Aggregates every visible row matching the predicate (null for all) that accept lets through
+    // (null for all), splitting the table across the scanner's pool
+    public Partial scan(ParallelScanner scanner, Predicate predicate, long snapshot, IntPredicate accept) {
+        return scanner.reduce(table, 0, table.slotCount(), (from, to) -> {
+            Partial partial = newPartial();
+            for (int start = from; start < to; start += BATCH) {
+                int end = Math.min(to, start + BATCH);
+                IntList rows = predicate == null ? table.visibleRows(snapshot, start, end)
+                        : table.scan(predicate, snapshot, start, end);
+                if (accept != null) {
+                    rows = filter(rows, accept);
+                }
+                partial.add(rows);
+            }
+            return partial;
+        }, Partial::merge);
+    }
+
+    public Partial newPartial() {
+        return new Partial();
+    }
+
+    public Result finish(Partial partial) {
+        List<Object[]> rows = new ArrayList<>(partial.groupCount());
+        int width = groupBy.length + 1;
+        for (int g = 0; g < partial.groupCount(); g++) {
+            Object[] row = new Object[names.length];
+            if (partial.groups != null) {
+                long nullMask = partial.groups.key(g, width - 1);
+                for (int k = 0; k < groupBy.length; k++) {
+                    row[k] = (nullMask >>> k & 1) != 0 ? null : keys[k].decode(partial.groups.key(g, k));
+                }
+            }
+            for (int a = 0; a < aggregates.length; a++) {
+                row[groupBy.length + a] = partial.accumulators[a].result(g);
+            }
+            rows.add(row);
+        }
+        rows.sort((x, y) -> {
+            for (int k = 0; k < groupBy.length; k++) {
+                int c = ValueComparator.INSTANCE.compare(x[k], y[k]);
+                if (c != 0) return c;
+            }
+            return 0;
+        });
+        return new Result(columnNames(), rows);
+    }
+
+    private static IntList filter(IntList rows, IntPredicate accept) {
+        IntList kept = new IntList(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            if (accept.test(rows.get(i))) kept.add(rows.get(i));
+        }
+        return kept;
+    }
+
+    // Aggregation state of one partition: group keys plus one accumulator per aggregate,
+    // and scratch vectors reused for every batch
+    public final class Partial {
+        // null without GROUP BY: everything falls into group 0
+        private final GroupTable groups;
+        private final Accumulator[] accumulators = new Accumulator[aggregates.length];
+        private final int[] groupIds = new int[BATCH];
+        private final long[] keyVector;
+        private final long[] longs = new long[BATCH];
+        private final double[] doubles = new double[BATCH];
+
+        private Partial() {
+            groups = groupBy.length == 0 ? null : new GroupTable(groupBy.length + 1);
+            keyVector = new long[BATCH * (groupBy.length + 1)];
+            for (int a = 0; a < aggregates.length; a++) {
+                accumulators[a] = Accumulator.create(aggregates[a], inputs[a] < 0 ? null : table.column(inputs[a]));
+            }
+            // Aggregates without GROUP BY always produce one row, even over no input
+            resize();
+        }
+
+        public int groupCount() {
+            return groups == null ? 1 : groups.size();
+        }
+
+        public void add(IntList rows) {
+            int[] ids = rows.elements();
+            for (int offset = 0; offset < rows.size(); offset += BATCH) {
+                int n = Math.min(BATCH, rows.size() - offset);
+                int[] batch = offset == 0 ? ids : Arrays.copyOfRange(ids, offset, offset + n);
+                addBatch(batch, n);
+            }
+        }
+
+        private void addBatch(int[] rows, int n) {
+            if (groups != null) {
+                int width = groupBy.length + 1;
+                Arrays.fill(keyVector, 0, n * width, 0);
+                for (int k = 0; k < groupBy.length; k++) {
+                    keys[k].encode(rows, n, keyVector, width, k, this);
+                    // Nulls share one key: a zeroed word plus their bit in the null mask word
+                    Column column = keys[k].column;
+                    for (int i = 0; i < n; i++) {
+                        if (column.isNull(rows[i])) {
+                            keyVector[i * width + k] = 0;
+                            keyVector[i * width + width - 1] |= 1L << k;
+                        }
+                    }
+                }
+                for (int i = 0; i < n; i++) {
+                    groupIds[i] = groups.findOrInsert(keyVector, i * width);
+                }
+            } else {
+                Arrays.fill(groupIds, 0, n, 0);
+            }
+            resize();
+            for (Accumulator accumulator : accumulators) {
+                accumulator.add(rows, n, groupIds, longs, doubles);
+            }
+        }
+
+        // Rows counted elsewhere, e.g. from index cardinality; only for countsRowsOnly() without GROUP BY
+        public void addCount(long rows) {
+            for (Accumulator accumulator : accumulators) {
+                ((Count) accumulator).counts[0] += rows;
+            }
+        }
+
+        // Uncommitted rows of the current transaction, given as values
+        public void addRow(Object[] values) {
+            int group = 0;
+            if (groups != null) {
+                int width = groupBy.length + 1;
+                long[] key = new long[width];
+                for (int k = 0; k < groupBy.length; k++) {
+                    Object value = values[groupBy[k]];
+                    if (value == null) {
+                        key[width - 1] |= 1L << k;
+                    } else {
+                        key[k] = keys[k].encode(value);
+                    }
+                }
+                group = groups.findOrInsert(key, 0);
+            }
+            resize();
+            for (int a = 0; a < accumulators.length; a++) {
+                accumulators[a].add(group, inputs[a] < 0 ? Boolean.TRUE : values[inputs[a]]);
+            }
+        }
+
+        public Partial merge(Partial other) {
+            int[] map = new int[other.groupCount()];
+            if (groups != null) {
+                int width = groupBy.length + 1;
+                for (int g = 0; g < map.length; g++) {
+                    map[g] = groups.findOrInsert(other.groups.keys, g * width);
+                }
+            }
+            resize();
+            for (int a = 0; a < accumulators.length; a++) {
+                accumulators[a].merge(other.accumulators[a], map, map.length);
+            }
+            return this;
+        }
+
+        private void resize() {
+            int count = groupCount();
+            for (Accumulator accumulator : accumulators) {
+                accumulator.ensureGroups(count);
+            }
+        }
+    }
+
+    // Open-addressing (linear probing) map from fixed-width long keys to dense group ids.
+    // Keys are stored flat by group id; the probe table only holds group id + 1, 0 = empty.
+    static final class GroupTable {
+        private final int width;
+        private long[] keys;
+        private int[] slots = new int[64];
+        private int size;
+
+        GroupTable(int width) {
+            this.width = width;
+            this.keys = new long[16 * width];
+        }
+
+        int size() {
+            return size;
+        }
+
+        long key(int group, int word) {
+            return keys[group * width + word];
+        }
+
+        int findOrInsert(long[] vector, int offset) {
+            int mask = slots.length - 1;
+            int i = hash(vector, offset) & mask;
+            while (true) {
+                int slot = slots[i];
+                if (slot == 0) {
+                    return insert(vector, offset, i);
+                }
+                if (Arrays.equals(keys, (slot - 1) * width, slot * width, vector, offset, offset + width)) {
+                    return slot - 1;
+                }
+                i = (i + 1) & mask;
+            }
+        }
+
+        private int insert(long[] vector, int offset, int probe) {
+            if ((size + 1) * width > keys.length) {
+                keys = Arrays.copyOf(keys, keys.length * 2);
+            }
+            System.arraycopy(vector, offset, keys, size * width, width);
+            slots[probe] = ++size;
+            // Keep the load factor at or below one half
+            if (size * 2 > slots.length) {
+                rehash();
+            }
+            return size - 1;
+        }
+
+        private void rehash() {
+            int[] bigger = new int[slots.length * 2];
+            int mask = bigger.length - 1;
+            for (int g = 0; g < size; g++) {
+                int i = hash(keys, g * width) & mask;
+                while (bigger[i] != 0) i = (i + 1) & mask;
+                bigger[i] = g + 1;
+            }
+            slots = bigger;
+        }
+
+        private int hash(long[] vector, int offset) {
+            long h = 0;
+            for (int w = 0; w < width; w++) {
+                h = (h + vector[offset + w]) * 0x9E3779B97F4A7C15L;
+                h ^= h >>> 29;
+            }
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    // Turns one group column's values into long key words and back. Integral and boolean values
+    // are their own key, doubles use their bits, and dictionary-encoded strings use their code.
+    // Strings without a dictionary code (off-heap columns, or new uncommitted values) get a code
+    // local to this query; in dictionary columns those are stored negative to keep them apart.
+    private static final class KeyColumn {
+        private final Column column;
+        private final ColumnType type;
+        private final Column.StringColumn dictionary;
+        private final Map<String, Long> localCodes = new ConcurrentHashMap<>();
+        private final List<String> localValues = new ArrayList<>();
+
+        KeyColumn(Column column) {
+            this.column = column;
+            this.type = column.getType();
+            this.dictionary = column instanceof Column.StringColumn strings ? strings : null;
+        }
+
+        void encode(int[] rows, int n, long[] vector, int width, int word, Partial scratch) {
+            switch (type) {
+                case INT, LONG, BOOLEAN -> {
+                    column.gatherLongs(rows, n, scratch.longs);
+                    for (int i = 0; i < n; i++) vector[i * width + word] = scratch.longs[i];
+                }
+                case DOUBLE -> {
+                    column.gatherDoubles(rows, n, scratch.doubles);
+                    // + 0.0 folds -0.0 into 0.0
+                    for (int i = 0; i < n; i++) vector[i * width + word] = Double.doubleToLongBits(scratch.doubles[i] + 0.0);
+                }
+                case STRING -> {
+                    if (dictionary != null) {
+                        column.gatherLongs(rows, n, scratch.longs);
+                        for (int i = 0; i < n; i++) vector[i * width + word] = scratch.longs[i];
+                    } else {
+                        for (int i = 0; i < n; i++) {
+                            Object value = column.get(rows[i]);
+                            vector[i * width + word] = value == null ? 0 : local((String) value);
+                        }
+                    }
+                }
+            }
+        }
+
+        long encode(Object value) {
+            return switch (type) {
+                case INT, LONG -> ((Number) value).longValue();
+                case BOOLEAN -> (Boolean) value ? 1 : 0;
+                case DOUBLE -> Double.doubleToLongBits((Double) value + 0.0);
+                case STRING -> {
+                    if (dictionary == null) yield local((String) value);
+                    int code = dictionary.codeOf((String) value);
+                    yield code >= 0 ? code : -1 - local((String) value);
+                }
+            };
+        }
+
+        Object decode(long key) {
+            return switch (type) {
+                case INT -> (int) key;
+                case LONG -> key;
+                case BOOLEAN -> key != 0;
+                case DOUBLE -> Double.longBitsToDouble(key);
+                case STRING -> {
+                    if (dictionary != null && key >= 0) yield dictionary.decode((int) key);
+                    synchronized (this) {
+                        yield localValues.get((int) (dictionary != null ? -1 - key : key));
+                    }
+                }
+            };
+        }
+
+        private long local(String value) {
+            Long code = localCodes.get(value);
+            if (code != null) return code;
+            synchronized (this) {
+                code = localCodes.get(value);
+                if (code == null) {
+                    code = (long) localValues.size();
+                    localValues.add(value);
+                    localCodes.put(value, code);
+                }
+                return code;
+            }
+        }
+    }
+
+    // Per-group state of one aggregate, in primitive arrays indexed by group id
+    abstract static class Accumulator {
+        // null for COUNT(*)
+        protected final Column column;
+
+        protected Accumulator(Column column) {
+            this.column = column;
+        }
+
+        static Accumulator create(Aggregate aggregate, Column column) {
+            ColumnType type = column == null ? null : column.getType();
+            boolean min = aggregate.getFunction() == Aggregate.Function.MIN;
+            return switch (aggregate.getFunction()) {
+                case COUNT -> new Count(column);
+                case SUM -> type == ColumnType.DOUBLE ? new DoubleSum(column, false) : new LongSum(column);
+                case AVG -> new DoubleSum(column, true);
+                case MIN, MAX -> switch (type) {
+                    case INT, LONG, BOOLEAN -> new LongExtreme(column, min);
+                    case DOUBLE -> new DoubleExtreme(column, min);
+                    case STRING -> new ObjectExtreme(column, min);
+                };
+            };
+        }
+
+        abstract void ensureGroups(int groups);
+
+        // One batch: rows[i] belongs to group groups[i]; longs and doubles are scratch space
+        abstract void add(int[] rows, int n, int[] groups, long[] longs, double[] doubles);
+
+        // A single value (null counts as missing)
+        abstract void add(int group, Object value);
+
+        // Folds in another partition's state; its group g is our group map[g]
+        abstract void merge(Accumulator other, int[] map, int groups);
+
+        abstract Object result(int group);
+
+        protected static int capacity(int current, int groups) {
+            return groups <= current ? current : Math.max(groups, Math.max(16, current * 2));
+        }
+    }
+
+    static final class Count extends Accumulator {
+        private long[] counts = new long[0];
+
+        Count(Column column) {
+            super(column);
+        }
+
+        @Override
+        void ensureGroups(int groups) {
+            counts = Arrays.copyOf(counts, capacity(counts.length, groups));
+        }
+
+        @Override
+        void add(int[] rows, int n, int[] groups, long[] longs, double[] doubles) {
+            long[] c = counts;
+            if (column == null) {
+                for (int i = 0; i < n; i++) c[groups[i]]++;
+            } else {
+                for (int i = 0; i < n; i++) {
+                    if (!column.isNull(rows[i])) c[groups[i]]++;
+                }
+            }
+        }
+
+        @Override
+        void add(int group, Object value) {
+            if (value != null) counts[group]++;
+        }
+
+        @Override
+        void merge(Accumulator other, int[] map, int groups) {
+            long[] theirs = ((Count) other).counts;
+            for (int g = 0; g < groups; g++) counts[map[g]] += theirs[g];
+        }
+
+        @Override
+        Object result(int group) {
+            return counts[group];
+        }
+    }
+
+    // SUM over INT and LONG columns; wraps on overflow like Java long arithmetic
+    static final class LongSum extends Accumulator {
+        private long[] sums = new long[0];
+        private long[] counts = new long[0];
+
+        LongSum(Column column) {
+            super(column);
+        }
+
+        @Override
+        void ensureGroups(int groups) {
+            int size = capacity(sums.length, groups);
+            sums = Arrays.copyOf(sums, size);
+            counts = Arrays.copyOf(counts, size);
+        }
+
+        @Override
+        void add(int[] rows, int n, int[] groups, long[] longs, double[] doubles) {
+            column.gatherLongs(rows, n, longs);
+            long[] s = sums, c = counts;
+            for (int i = 0; i < n; i++) {
+                if (!column.isNull(rows[i])) {
+                    s[groups[i]] += longs[i];
+                    c[groups[i]]++;
+                }
+            }
+        }
+
+        @Override
+        void add(int group, Object value) {
+            if (value != null) {
+                sums[group] += ((Number) value).longValue();
+                counts[group]++;
+            }
+        }
+
+        @Override
+        void merge(Accumulator other, int[] map, int groups) {
+            LongSum o = (LongSum) other;
+            for (int g = 0; g < groups; g++) {
+                sums[map[g]] += o.sums[g];
+                counts[map[g]] += o.counts[g];
+            }
+        }
+
+        @Override
+        Object result(int group) {
+            return counts[group] == 0 ? null : sums[group];
+        }
+    }
+
+    // SUM over DOUBLE columns, and AVG over any numeric column
+    static final class DoubleSum extends Accumulator {
+        private final boolean average;
+        private double[] sums = new double[0];
+        private long[] counts = new long[0];
+
+        DoubleSum(Column column, boolean average) {
+            super(column);
+            this.average = average;
+        }
+
+        @Override
+        void ensureGroups(int groups) {
+            int size = capacity(sums.length, groups);
+            sums = Arrays.copyOf(sums, size);
+            counts = Arrays.copyOf(counts, size);
+        }
+
+        @Override
+        void add(int[] rows, int n, int[] groups, long[] longs, double[] doubles) {
+            column.gatherDoubles(rows, n, doubles);
+            double[] s = sums;
+            long[] c = counts;
+            for (int i = 0; i < n; i++) {
+                if (!column.isNull(rows[i])) {
+                    s[groups[i]] += doubles[i];
+                    c[groups[i]]++;
+                }
+            }
+        }
+
+        @Override
+        void add(int group, Object value) {
+            if (value != null) {
+                sums[group] += ((Number) value).doubleValue();
+                counts[group]++;
+            }
+        }
+
+        @Override
+        void merge(Accumulator other, int[] map, int groups) {
+            DoubleSum o = (DoubleSum) other;
+            for (int g = 0; g < groups; g++) {
+                sums[map[g]] += o.sums[g];
+                counts[map[g]] += o.counts[g];
+            }
+        }
+
+        @Override
+        Object result(int group) {
+            if (counts[group] == 0) return null;
+            return average ? sums[group] / counts[group] : sums[group];
+        }
+    }
+
+    // MIN/MAX over INT, LONG and BOOLEAN columns
+    static final class LongExtreme extends Accumulator {
+        private final boolean min;
+        private final ColumnType type;
+        private long[] best = new long[0];
+        private boolean[] seen = new boolean[0];
+
+        LongExtreme(Column column, boolean min) {
+            super(column);
+            this.min = min;
+            this.type = column.getType();
+        }
+
+        @Override
+        void ensureGroups(int groups) {
+            int size = capacity(best.length, groups);
+            best = Arrays.copyOf(best, size);
+            seen = Arrays.copyOf(seen, size);
+        }
+
+        @Override
+        void add(int[] rows, int n, int[] groups, long[] longs, double[] doubles) {
+            column.gatherLongs(rows, n, longs);
+            for (int i = 0; i < n; i++) {
+                if (!column.isNull(rows[i])) accept(groups[i], longs[i]);
+            }
+        }
+
+        private void accept(int g, long v) {
+            if (!seen[g] || (min ? v < best[g] : v > best[g])) {
+                best[g] = v;
+                seen[g] = true;
+            }
+        }
+
+        @Override
+        void add(int group, Object value) {
+            if (value instanceof Boolean b) {
+                accept(group, b ? 1 : 0);
+            } else if (value != null) {
+                accept(group, ((Number) value).longValue());
+            }
+        }
+
+        @Override
+        void merge(Accumulator other, int[] map, int groups) {
+            LongExtreme o = (LongExtreme) other;
+            for (int g = 0; g < groups; g++) {
+                if (o.seen[g]) accept(map[g], o.best[g]);
+            }
+        }
+
+        @Override
+        Object result(int group) {
+            if (!seen[group]) return null;
+            long v = best[group];
+            return switch (type) {
+                case INT -> (int) v;
+                case BOOLEAN -> v != 0;
+                default -> v;
+            };
+        }
+    }
+
+    static final class DoubleExtreme extends Accumulator {
+        private final boolean min;
+        private double[] best = new double[0];
+        private boolean[] seen = new boolean[0];
+
+        DoubleExtreme(Column column, boolean min) {
+            super(column);
+            this.min = min;
+        }
+
+        @Override
+        void ensureGroups(int groups) {
+            int size = capacity(best.length, groups);
+            best = Arrays.copyOf(best, size);
+            seen = Arrays.copyOf(seen, size);
+        }
+
+        @Override
+        void add(int[] rows, int n, int[] groups, long[] longs, double[] doubles) {
+            column.gatherDoubles(rows, n, doubles);
+            for (int i = 0; i < n; i++) {
+                if (!column.isNull(rows[i])) accept(groups[i], doubles[i]);
+            }
+        }
+
+        private void accept(int g, double v) {
+            if (!seen[g] || (min ? Double.compare(v, best[g]) < 0 : Double.compare(v, best[g]) > 0)) {
+                best[g] = v;
+                seen[g] = true;
+            }
+        }
+
+        @Override
+        void add(int group, Object value) {
+            if (value != null) accept(group, ((Number) value).doubleValue());
+        }
+
+        @Override
+        void merge(Accumulator other, int[] map, int groups) {
+            DoubleExtreme o = (DoubleExtreme) other;
+            for (int g = 0; g < groups; g++) {
+                if (o.seen[g]) accept(map[g], o.best[g]);
+            }
+        }
+
+        @Override
+        Object result(int group) {
+            return seen[group] ? best[group] : null;
+        }
+    }
+
+    // MIN/MAX over strings, compared as values
+    static final class ObjectExtreme extends Accumulator {
+        private final boolean min;
+        private Object[] best = new Object[0];
+
+        ObjectExtreme(Column column, boolean min) {
+            super(column);
+            this.min = min;
+        }
+
+        @Override
+        void ensureGroups(int groups) {
+            best = Arrays.copyOf(best, capacity(best.length, groups));
+        }
+
+        @Override
+        void add(int[] rows, int n, int[] groups, long[] longs, double[] doubles) {
+            for (int i = 0; i < n; i++) {
+                add(groups[i], column.get(rows[i]));
+            }
+        }
+
+        @Override
+        void add(int group, Object value) {
+            if (value == null) return;
+            Object current = best[group];
+            if (current == null || (min ? ValueComparator.INSTANCE.compare(value, current) < 0
+                    : ValueComparator.INSTANCE.compare(value, current) > 0)) {
+                best[group] = value;
+            }
+        }
+
+        @Override
+        void merge(Accumulator other, int[] map, int groups) {
+            Object[] theirs = ((ObjectExtreme) other).best;
+            for (int g = 0; g < groups; g++) {
+                add(map[g], theirs[g]);
+            }
+        }
+
+        @Override
+        Object result(int group) {
+            return best[group];
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.techwithedward.Projects.Database;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+// Decoder for data written by BinaryWriter; usually wraps a memory-mapped file
+public class BinaryReader {
+    private final ByteBuffer buffer;
+
+    public BinaryReader(ByteBuffer buffer) {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public boolean hasRemaining() {
+        return buffer.hasRemaining();
+    }
+
+    public int remaining() {
+        return buffer.remaining();
+    }
+
+    public int position() {
+        return buffer.position();
+    }
+
+    public byte getByte() {
+        return buffer.get();
+    }
+
+    public int getInt() {
+        return buffer.getInt();
+    }
+
+    public long getLong() {
+        return buffer.getLong();
+    }
+
+    public double getDouble() {
+        return buffer.getDouble();
+    }
+
+    public String getString() {
+        int length = buffer.getInt();
+        String s;
+        if (buffer.hasArray()) {
+            s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return s;
+    }
+
+    public Object getValue() {
+        byte tag = buffer.get();
+        return switch (tag) {
+            case BinaryWriter.NULL -> null;
+            case BinaryWriter.INT -> buffer.getInt();
+            case BinaryWriter.LONG -> buffer.getLong();
+            case BinaryWriter.DOUBLE -> buffer.getDouble();
+            case BinaryWriter.BOOLEAN -> buffer.get() != 0;
+            case BinaryWriter.STRING -> getString();
+            default -> throw new IllegalStateException("Unknown value tag: " + tag);
+        };
+    }
+
+    public int[] getInts(int count, int capacity) {
+        int[] values = new int[Math.max(count, capacity)];
+        buffer.asIntBuffer().get(values, 0, count);
+        buffer.position(buffer.position() + count * 4);
+        return values;
+    }
+
+    public long[] getLongs(int count, int capacity) {
+        long[] values = new long[Math.max(count, capacity)];
+        buffer.asLongBuffer().get(values, 0, count);
+        buffer.position(buffer.position() + count * 8);
+        return values;
+    }
+
+    public double[] getDoubles(int count, int capacity) {
+        double[] values = new double[Math.max(count, capacity)];
+        buffer.asDoubleBuffer().get(values, 0, count);
+        buffer.position(buffer.position() + count * 8);
+        return values;
+    }
+
+    // Returns a view of the next length bytes and skips past them
+    public ByteBuffer slice(int length) {
+        ByteBuffer slice = buffer.slice(buffer.position(), length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(buffer.position() + length);
+        return slice;
+    }
+}
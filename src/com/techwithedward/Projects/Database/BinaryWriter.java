@@ -0,0 +1,170 @@
+package com.techwithedward.Projects.Database;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+// Little-endian binary encoder. With a channel it streams through a fixed direct buffer;
+// without one it grows on the heap (used to build individual log records).
+public class BinaryWriter {
+    static final byte NULL = 0, INT = 1, LONG = 2, DOUBLE = 3, STRING = 4, BOOLEAN = 5;
+
+    private final FileChannel channel;
+    private ByteBuffer buffer;
+
+    public BinaryWriter() {
+        this(null, 256);
+    }
+
+    public BinaryWriter(FileChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = allocate(bufferSize);
+    }
+
+    // Direct memory only pays off for the long-lived channel writers; short-lived in-memory
+    // writers would churn native memory that is only released by a GC
+    private ByteBuffer allocate(int capacity) {
+        ByteBuffer allocated = channel != null ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        return allocated.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void reserve(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) return;
+        if (channel != null) {
+            flush();
+            if (buffer.remaining() >= bytes) return;
+        }
+        ByteBuffer bigger = allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+        buffer.flip();
+        bigger.put(buffer);
+        buffer = bigger;
+    }
+
+    public void putByte(byte b) throws IOException {
+        reserve(1);
+        buffer.put(b);
+    }
+
+    public void putInt(int v) throws IOException {
+        reserve(4);
+        buffer.putInt(v);
+    }
+
+    public void putLong(long v) throws IOException {
+        reserve(8);
+        buffer.putLong(v);
+    }
+
+    public void putDouble(double v) throws IOException {
+        reserve(8);
+        buffer.putDouble(v);
+    }
+
+    public void putString(String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        putBytes(bytes, 0, bytes.length);
+    }
+
+    public void putBytes(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            reserve(Math.min(length, 1 << 16));
+            int n = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    // Copies the buffer's remaining bytes, e.g. a view of a native memory segment
+    public void putBytes(ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) {
+            reserve(Math.min(src.remaining(), 1 << 16));
+            int n = Math.min(src.remaining(), buffer.remaining());
+            buffer.put(src.slice(src.position(), n));
+            src.position(src.position() + n);
+        }
+    }
+
+    public void putValue(Object value) throws IOException {
+        if (value == null) {
+            putByte(NULL);
+        } else if (value instanceof Integer i) {
+            putByte(INT);
+            putInt(i);
+        } else if (value instanceof Long l) {
+            putByte(LONG);
+            putLong(l);
+        } else if (value instanceof Double d) {
+            putByte(DOUBLE);
+            putDouble(d);
+        } else if (value instanceof Boolean b) {
+            putByte(BOOLEAN);
+            putByte((byte) (b ? 1 : 0));
+        } else {
+            putByte(STRING);
+            putString(value.toString());
+        }
+    }
+
+    // Bulk array writes go through the buffer's typed views instead of element by element
+    public void putInts(int[] values, int count) throws IOException {
+        for (int done = 0; done < count; ) {
+            reserve(4);
+            int n = Math.min(count - done, buffer.remaining() / 4);
+            buffer.asIntBuffer().put(values, done, n);
+            buffer.position(buffer.position() + n * 4);
+            done += n;
+        }
+    }
+
+    public void putLongs(long[] values, int count) throws IOException {
+        for (int done = 0; done < count; ) {
+            reserve(8);
+            int n = Math.min(count - done, buffer.remaining() / 8);
+            buffer.asLongBuffer().put(values, done, n);
+            buffer.position(buffer.position() + n * 8);
+            done += n;
+        }
+    }
+
+    public void putDoubles(double[] values, int count) throws IOException {
+        for (int done = 0; done < count; ) {
+            reserve(8);
+            int n = Math.min(count - done, buffer.remaining() / 8);
+            buffer.asDoubleBuffer().put(values, done, n);
+            buffer.position(buffer.position() + n * 8);
+            done += n;
+        }
+    }
+
+    public void flush() throws IOException {
+        if (channel == null) return;
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    public int size() {
+        return buffer.position();
+    }
+
+    public int capacity() {
+        return buffer.capacity();
+    }
+
+    // Discards what was written so an in-memory writer can be reused
+    public void reset() {
+        buffer.clear();
+    }
+
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[buffer.position()];
+        buffer.duplicate().flip().get(bytes);
+        return bytes;
+    }
+}
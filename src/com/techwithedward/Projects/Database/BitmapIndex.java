@@ -0,0 +1,123 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Secondary index for low-cardinality columns: one compressed bitmap of row ids per value.
+// Any condition is answered by OR-ing the bitmaps of the values it matches, and whole
+// AND/OR/NOT predicates over bitmap-indexed columns combine without materializing row ids.
+public class BitmapIndex implements Index {
+    private final String column;
+    private final Map<Object, RoaringBitmap> entries = new ConcurrentHashMap<>();
+    // Every row with a non-null value: the universe NOT conditions complement against
+    private final RoaringBitmap present = new RoaringBitmap();
+
+    public BitmapIndex(String column) {
+        this.column = column;
+    }
+
+    @Override
+    public String getColumn() {
+        return column;
+    }
+
+    @Override
+    public IndexType getType() {
+        return IndexType.BITMAP;
+    }
+
+    // Writers mutate a bitmap inside compute(), readers copy it under the same monitor
+    @Override
+    public void add(Object value, int rowId) {
+        if (value == null) return;
+        entries.compute(value, (k, ids) -> {
+            if (ids == null) ids = new RoaringBitmap();
+            synchronized (ids) {
+                ids.add(rowId);
+            }
+            return ids;
+        });
+        synchronized (present) {
+            present.add(rowId);
+        }
+    }
+
+    @Override
+    public void remove(Object value, int rowId) {
+        if (value == null) return;
+        entries.computeIfPresent(value, (k, ids) -> {
+            synchronized (ids) {
+                ids.remove(rowId);
+                return ids.isEmpty() ? null : ids;
+            }
+        });
+        synchronized (present) {
+            present.remove(rowId);
+        }
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+        synchronized (present) {
+            present.clear();
+        }
+    }
+
+    @Override
+    public boolean supports(Condition condition) {
+        return true;
+    }
+
+    @Override
+    public IntList find(Condition condition) {
+        return bitmap(condition).toIntList();
+    }
+
+    @Override
+    public IntList lookup(Object value) {
+        return copy(entries.get(value)).toIntList();
+    }
+
+    // Rows whose value satisfies the bound condition
+    public RoaringBitmap bitmap(Condition condition) {
+        if (condition.getOperator() == Condition.Operator.EQ) {
+            return copy(entries.get(condition.getValue()));
+        }
+        RoaringBitmap result = new RoaringBitmap();
+        for (Map.Entry<Object, RoaringBitmap> entry : entries.entrySet()) {
+            if (condition.matches(entry.getKey())) {
+                synchronized (entry.getValue()) {
+                    result = result.or(entry.getValue());
+                }
+            }
+        }
+        return result;
+    }
+
+    // Rows with a non-null value
+    public RoaringBitmap present() {
+        return copy(present);
+    }
+
+    public int distinctValues() {
+        return entries.size();
+    }
+
+    public long memoryBytes() {
+        long bytes = copy(present).memoryBytes();
+        for (RoaringBitmap ids : entries.values()) {
+            synchronized (ids) {
+                bytes += ids.memoryBytes();
+            }
+        }
+        return bytes;
+    }
+
+    private static RoaringBitmap copy(RoaringBitmap ids) {
+        if (ids == null) return new RoaringBitmap();
+        synchronized (ids) {
+            return ids.copy();
+        }
+    }
+}
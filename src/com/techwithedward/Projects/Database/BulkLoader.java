@@ -0,0 +1,198 @@
+package com.techwithedward.Projects.Database;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Streams a delimited text file into a table. The file is read through NIO in large windows;
+// each window is cut into chunks on line boundaries, the chunks are parsed on the scan pool, and
+// their rows are handed to the sink in file order. One record per line: quoted fields may
+// contain delimiters but not line breaks. Quoted text goes into STRING columns exactly as
+// written, so "" is an empty string while an empty unquoted field is NULL.
+public class BulkLoader {
+    public enum Format {
+        CSV(','),
+        TSV('\t');
+
+        private final byte delimiter;
+
+        Format(char delimiter) {
+            this.delimiter = (byte) delimiter;
+        }
+
+        public static Format forFile(Path file) {
+            String name = file.getFileName().toString().toLowerCase();
+            return name.endsWith(".tsv") || name.endsWith(".tab") ? TSV : CSV;
+        }
+    }
+
+    private static final int CHUNK_BYTES = 4 << 20;
+
+    private final Table table;
+    private final Format format;
+    private final boolean header;
+    private final ParallelScanner scanner;
+    private final int parallelism;
+
+    public BulkLoader(Table table, Format format, boolean header, ParallelScanner scanner) {
+        this.table = table;
+        this.format = format;
+        this.header = header;
+        this.scanner = scanner;
+        this.parallelism = Math.max(1, scanner.getConfig().getParallelism());
+    }
+
+    // Returns the number of rows loaded. Each batch passed to the sink holds one chunk's rows.
+    public long load(Path file, Consumer<List<Object[]>> sink) throws IOException {
+        byte[] window = new byte[CHUNK_BYTES * parallelism];
+        long rows = 0;
+        long windowOffset = 0;
+        int carry = 0;
+        boolean skipHeader = header;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.wrap(window);
+            boolean eof = false;
+            while (!eof || carry > 0) {
+                buffer.clear().position(carry);
+                while (buffer.hasRemaining() && !eof) {
+                    eof = channel.read(buffer) < 0;
+                }
+                int filled = buffer.position();
+                if (filled == 0) break;
+
+                // Parse up to the last complete line; the remainder moves to the front of the next window
+                int end = eof ? filled : lastLineEnd(window, filled);
+                if (end == 0) {
+                    throw new IllegalArgumentException("Line at byte " + windowOffset + " is longer than "
+                            + window.length + " bytes");
+                }
+                int start = 0;
+                if (skipHeader) {
+                    start = Math.min(end, nextLineStart(window, 0, end));
+                    skipHeader = false;
+                }
+
+                for (List<Object[]> batch : parseWindow(window, start, end, windowOffset)) {
+                    if (!batch.isEmpty()) {
+                        sink.accept(batch);
+                        rows += batch.size();
+                    }
+                }
+
+                carry = filled - end;
+                System.arraycopy(window, end, window, 0, carry);
+                windowOffset += end;
+                if (eof && carry == 0) break;
+            }
+        }
+        return rows;
+    }
+
+    private List<List<Object[]>> parseWindow(byte[] buf, int from, int to, long windowOffset) {
+        // Chunk boundaries are pushed forward to the next line start so no line is split
+        List<int[]> chunks = new ArrayList<>();
+        int start = from;
+        while (start < to) {
+            int end = start + CHUNK_BYTES >= to ? to : nextLineStart(buf, start + CHUNK_BYTES, to);
+            chunks.add(new int[]{start, end});
+            start = end;
+        }
+        return scanner.map(chunks.size(), i -> parseChunk(buf, chunks.get(i)[0], chunks.get(i)[1], windowOffset));
+    }
+
+    private List<Object[]> parseChunk(byte[] buf, int from, int to, long windowOffset) {
+        List<Object[]> rows = new ArrayList<>();
+        List<String> fields = new ArrayList<>();
+        BitSet quoted = new BitSet();
+        int lineStart = from;
+        while (lineStart < to) {
+            int lineEnd = lineStart;
+            while (lineEnd < to && buf[lineEnd] != '\n') lineEnd++;
+            int contentEnd = lineEnd > lineStart && buf[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+
+            if (contentEnd > lineStart) {
+                try {
+                    splitLine(buf, lineStart, contentEnd, fields, quoted);
+                    rows.add(toRow(fields, quoted));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Bad row at byte " + (windowOffset + lineStart) + ": "
+                            + e.getMessage());
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return rows;
+    }
+
+    // Quoted fields are kept verbatim for STRING columns; ColumnType.parse would trim them and read "" as NULL
+    private Object[] toRow(List<String> fields, BitSet quoted) {
+        Object[] row = table.parseRow(fields.toArray(new String[0]));
+        Schema schema = table.getSchema();
+        for (int i = quoted.nextSetBit(0); i >= 0; i = quoted.nextSetBit(i + 1)) {
+            if (schema.type(i) == ColumnType.STRING) {
+                row[i] = fields.get(i);
+            }
+        }
+        return row;
+    }
+
+    private void splitLine(byte[] buf, int from, int to, List<String> fields, BitSet quoted) {
+        fields.clear();
+        quoted.clear();
+        byte delimiter = format.delimiter;
+        int pos = from;
+        while (true) {
+            if (format == Format.CSV && pos < to && buf[pos] == '"') {
+                // Quoted field; "" inside quotes is a literal quote
+                int close = pos + 1;
+                boolean escaped = false;
+                while (true) {
+                    if (close >= to) throw new IllegalArgumentException("Unterminated quoted field");
+                    if (buf[close] == '"') {
+                        if (close + 1 < to && buf[close + 1] == '"') {
+                            escaped = true;
+                            close += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    close++;
+                }
+                String value = new String(buf, pos + 1, close - pos - 1, StandardCharsets.UTF_8);
+                quoted.set(fields.size());
+                fields.add(escaped ? value.replace("\"\"", "\"") : value);
+                pos = close + 1;
+                while (pos < to && buf[pos] != delimiter) pos++;
+            } else {
+                int end = pos;
+                while (end < to && buf[end] != delimiter) end++;
+                fields.add(new String(buf, pos, end - pos, StandardCharsets.UTF_8));
+                pos = end;
+            }
+            if (pos >= to) return;
+            pos++; // skip the delimiter
+        }
+    }
+
+    private static int lastLineEnd(byte[] buf, int filled) {
+        for (int i = filled - 1; i >= 0; i--) {
+            if (buf[i] == '\n') return i + 1;
+        }
+        return 0;
+    }
+
+    private static int nextLineStart(byte[] buf, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf[i] == '\n') return i + 1;
+        }
+        return to;
+    }
+}
@@ -0,0 +1,38 @@
+package com.techwithedward.Projects.Database;
+
+public class CacheConfig {
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final EvictionType eviction;
+
+    // maxBytes 0 leaves the table unbounded (only the global budget applies); ttlMillis 0 means
+    // rows only expire when inserted with their own TTL
+    public CacheConfig(long maxBytes, long ttlMillis, EvictionType eviction) {
+        if (maxBytes < 0 || ttlMillis < 0) {
+            throw new IllegalArgumentException("maxBytes and ttlMillis must not be negative");
+        }
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlMillis;
+        this.eviction = eviction;
+    }
+
+    public static CacheConfig bounded(long maxBytes, EvictionType eviction) {
+        return new CacheConfig(maxBytes, 0, eviction);
+    }
+
+    public static CacheConfig expiring(long ttlMillis) {
+        return new CacheConfig(0, ttlMillis, EvictionType.LRU);
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    public EvictionType getEviction() {
+        return eviction;
+    }
+}
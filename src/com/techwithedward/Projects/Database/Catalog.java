@@ -0,0 +1,72 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-table metadata the planner works from: the table's indexes, keyed by column,
+// and sampled statistics that are refreshed once enough rows have changed. The version
+// changes with either, so plans kept by prepared statements know when to re-plan.
+public class Catalog {
+    private static final int SAMPLE_ROWS = 65_536;
+
+    public record Statistics(long rowCount, long modifications, ColumnStatistics[] columns) {
+        public ColumnStatistics column(int i) {
+            return columns[i];
+        }
+    }
+
+    private final Map<String, Index> indexes = new ConcurrentHashMap<>();
+    private volatile Statistics statistics;
+    private final AtomicLong version = new AtomicLong();
+
+    public Index getIndex(String column) {
+        return indexes.get(column);
+    }
+
+    public Collection<Index> getIndexes() {
+        return indexes.values();
+    }
+
+    public void addIndex(Index index) {
+        indexes.put(index.getColumn(), index);
+        version.incrementAndGet();
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    // Cached statistics, re-analyzed when more than 10% of the rows changed since the last run
+    public Statistics statistics(Table table, long snapshot) {
+        Statistics stats = statistics;
+        long changed = stats == null ? Long.MAX_VALUE : table.getModifications() - stats.modifications();
+        if (changed > Math.max(100, stats == null ? 0 : stats.rowCount() / 10)) {
+            stats = analyze(table, snapshot);
+        }
+        return stats;
+    }
+
+    // Samples every k-th slot so large tables cost about SAMPLE_ROWS row reads
+    public synchronized Statistics analyze(Table table, long snapshot) {
+        long modifications = table.getModifications();
+        int slots = table.slotCount();
+        int step = Math.max(1, slots / SAMPLE_ROWS);
+        IntList sample = new IntList(Math.min(slots, SAMPLE_ROWS) + 1);
+        for (int slot = 0; slot < slots; slot += step) {
+            if (table.isVisible(slot, snapshot)) {
+                sample.add(slot);
+            }
+        }
+
+        long rowCount = table.size();
+        ColumnStatistics[] columns = new ColumnStatistics[table.getSchema().size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = ColumnStatistics.compute(table, i, sample, rowCount);
+        }
+        statistics = new Statistics(rowCount, modifications, columns);
+        version.incrementAndGet();
+        return statistics;
+    }
+}
@@ -0,0 +1,20 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.Arrays;
+
+// One committed row change in the change-data-capture stream. rowId is the row version the
+// change produced (the deleted one for DELETE); an UPDATE also names the version it replaced.
+// before is null for INSERT, after is null for DELETE.
+public record ChangeEvent(long sequence, long commitTs, Type type, String table, int rowId, int previousRowId,
+                          Object[] before, Object[] after) {
+    public enum Type { INSERT, UPDATE, DELETE }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + type + " " + table + " row " + rowId
+                + (previousRowId >= 0 ? " (was " + previousRowId + ")" : "")
+                + (before != null ? " before=" + Arrays.toString(before) : "")
+                + (after != null ? " after=" + Arrays.toString(after) : "")
+                + " @" + commitTs;
+    }
+}
@@ -0,0 +1,193 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Change-data-capture feed: a bounded ring of the most recent committed row changes, numbered
+// by a sequence that starts at 1 and never repeats while the process runs.
+//
+// Each commit collects its events and publishes them all at once, in commit order, by writing
+// them into the ring and advancing the visible sequence. Readers take no locks; each
+// one only keeps the sequence it wants next, so any number of them can resume anywhere still
+// in the ring. The writer never waits for readers: when the ring is full it overwrites the
+// oldest events, and a reader that fell that far behind is told how many it missed instead of
+// holding up commits. Readers pull batches of at most the size they ask for, which is the
+// backpressure: a slow consumer just reads less often and lags, bounded by the ring.
+public class ChangeStream {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    // events is empty when the reader caught up; missed > 0 means events between the requested
+    // sequence and the first one returned were overwritten, so the reader should resynchronize
+    public record Batch(List<ChangeEvent> events, long missed, long nextSequence) {
+    }
+
+    private final AtomicReferenceArray<ChangeEvent> ring;
+    private final int mask;
+    // Every event below this sequence is published
+    private volatile long published = 1;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    public ChangeStream(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) size <<= 1;
+        ring = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    public int capacity() {
+        return ring.length();
+    }
+
+    // Sequence the next published event will get
+    public long nextSequence() {
+        return published;
+    }
+
+    // Oldest sequence still in the ring
+    public long oldestSequence() {
+        return Math.max(1, published - ring.length());
+    }
+
+    // --- Writer side ---
+
+    // Collects the events of one commit while it is applied
+    public Pending pending() {
+        return new Pending();
+    }
+
+    // Numbers the commit's events and makes them visible, waking subscribers waiting for one.
+    // Commits must be published one at a time in commit order (see TransactionManager.publish).
+    public void publish(Pending pending) {
+        if (pending == null || pending.total == 0) return;
+        long sequence = published + pending.dropped;
+        for (ChangeEvent event : pending.events) {
+            ring.lazySet((int) (sequence & mask), new ChangeEvent(sequence, event.commitTs(), event.type(),
+                    event.table(), event.rowId(), event.previousRowId(), event.before(), event.after()));
+            sequence++;
+        }
+        published = sequence;
+        for (Subscription subscription : subscriptions) {
+            Thread waiter = subscription.waiter;
+            if (waiter != null) LockSupport.unpark(waiter);
+        }
+    }
+
+    // Events of a commit in progress, not numbered yet. Only the newest capacity events are
+    // kept: a bigger commit would overwrite the older ones in the ring right away anyway.
+    public final class Pending {
+        private final ArrayDeque<ChangeEvent> events = new ArrayDeque<>();
+        private long dropped;
+        private long total;
+
+        private Pending() {
+        }
+
+        public void add(long commitTs, ChangeEvent.Type type, String table, int rowId, int previousRowId,
+                        Object[] before, Object[] after) {
+            if (events.size() == ring.length()) {
+                events.pollFirst();
+                dropped++;
+            }
+            events.add(new ChangeEvent(0, commitTs, type, table, rowId, previousRowId, before, after));
+            total++;
+        }
+    }
+
+    // --- Reader side ---
+
+    // Up to max published events starting at sequence from, without waiting
+    public Batch read(long from, int max) {
+        if (max < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        long next = Math.max(1, from);
+        long end = published;
+        List<ChangeEvent> events = new ArrayList<>((int) Math.min(max, Math.max(0, end - next)));
+        long missed = 0;
+        while (next < end && events.size() < max) {
+            ChangeEvent event = ring.get((int) (next & mask));
+            if (event == null || event.sequence() != next) {
+                // Overwritten by a newer lap; skip to the oldest event that is still there
+                long oldest = Math.max(next + 1, published - ring.length() + 1);
+                missed += oldest - next;
+                next = oldest;
+                continue;
+            }
+            events.add(event);
+            next++;
+        }
+        return new Batch(events, missed, next);
+    }
+
+    // A reader that remembers its position, starting at sequence from (nextSequence() for only
+    // new changes). Close it when done so publishers stop waking it.
+    public Subscription subscribe(long from) {
+        Subscription subscription = new Subscription(from);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    public int subscriberCount() {
+        return subscriptions.size();
+    }
+
+    public final class Subscription implements AutoCloseable {
+        private long position;
+        private volatile Thread waiter;
+
+        private Subscription(long from) {
+            this.position = Math.max(1, from);
+        }
+
+        // Sequence of the next event this subscription will return
+        public long position() {
+            return position;
+        }
+
+        // Published events not consumed yet
+        public long lag() {
+            return Math.max(0, published - position);
+        }
+
+        // Returns available events at once, or waits up to the timeout for the next commit
+        public Batch poll(int max, long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            Batch batch = read(position, max);
+            while (batch.events().isEmpty() && batch.missed() == 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) break;
+                waiter = Thread.currentThread();
+                try {
+                    // Re-check after registering so a publish in between is not lost
+                    if (published <= position) {
+                        LockSupport.parkNanos(this, remaining);
+                    }
+                } finally {
+                    waiter = null;
+                }
+                if (Thread.interrupted()) throw new InterruptedException();
+                batch = read(position, max);
+            }
+            position = batch.nextSequence();
+            return batch;
+        }
+
+        // Moves to another sequence, e.g. one a consumer stored before restarting
+        public void seek(long sequence) {
+            position = Math.max(1, sequence);
+        }
+
+        @Override
+        public void close() {
+            subscriptions.remove(this);
+        }
+    }
+}
@@ -0,0 +1,577 @@
+package com.techwithedward.Projects.Database;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// One column of a table stored as a primitive vector indexed by row id.
+// Nulls are tracked in a separate bitmap so the vectors never hold boxed values.
+public abstract class Column {
+    protected final String name;
+    protected long[] nulls = new long[1];
+
+    protected Column(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public abstract ColumnType getType();
+
+    public abstract Object get(int row);
+
+    // value must already be of the column's type (see ColumnType.parse)
+    public abstract void set(int row, Object value);
+
+    public abstract void ensureCapacity(int capacity);
+
+    // The table reclaimed this slot; columns that own storage per value can free it here
+    public void release(int row) {
+    }
+
+    public abstract long memoryBytes();
+
+    // Part of memoryBytes() held outside the Java heap
+    public long offHeapBytes() {
+        return 0;
+    }
+
+    // Snapshot encoding: the null bitmap followed by the type-specific vector for rows [0, rows).
+    // Rows not in live load as free slots, so their values need not survive the round trip.
+    public void save(BinaryWriter out, int rows, BitSet live) throws IOException {
+        int words = (rows + 63) >>> 6;
+        out.putInt(words);
+        out.putLongs(Arrays.copyOf(nulls, words), words);
+        saveValues(out, rows, live);
+    }
+
+    public void load(BinaryReader in, int rows) {
+        int words = in.getInt();
+        nulls = in.getLongs(words, 1);
+        loadValues(in, rows);
+    }
+
+    protected abstract void saveValues(BinaryWriter out, int rows) throws IOException;
+
+    protected void saveValues(BinaryWriter out, int rows, BitSet live) throws IOException {
+        saveValues(out, rows);
+    }
+
+    protected abstract void loadValues(BinaryReader in, int rows);
+
+    public boolean isNull(int row) {
+        int word = row >>> 6;
+        return word < nulls.length && (nulls[word] & (1L << row)) != 0;
+    }
+
+    protected void setNull(int row, boolean isNull) {
+        int word = row >>> 6;
+        if (word >= nulls.length) {
+            nulls = Arrays.copyOf(nulls, Math.max(word + 1, nulls.length * 2));
+        }
+        if (isNull) {
+            nulls[word] |= 1L << row;
+        } else {
+            nulls[word] &= ~(1L << row);
+        }
+    }
+
+    // Appends every row in [from, to) whose value satisfies the bound condition
+    public void filter(Condition condition, int from, int to, IntList out) {
+        for (int row = from; row < to; row++) {
+            if (!isNull(row) && condition.matches(get(row))) {
+                out.add(row);
+            }
+        }
+    }
+
+    // Batch gathers for the aggregation engine: out[i] is the value at rows[i] for i < n, with
+    // nulls read as 0. Integral, boolean (0/1) and dictionary-coded string columns gather longs;
+    // numeric columns gather doubles.
+    public void gatherLongs(int[] rows, int n, long[] out) {
+        throw new UnsupportedOperationException(getType() + " column " + name + " has no integral view");
+    }
+
+    public void gatherDoubles(int[] rows, int n, double[] out) {
+        throw new UnsupportedOperationException(getType() + " column " + name + " is not numeric");
+    }
+
+    protected static int grow(int current, int capacity) {
+        return Math.max(capacity, Math.max(16, current + (current >> 1)));
+    }
+
+    // Inclusive [lo, hi] range equivalent to an integral comparison, or null for PREFIX
+    protected static long[] longBounds(Condition c) {
+        if (c.getOperator() == Condition.Operator.PREFIX || c.getOperator() == Condition.Operator.MATCH
+                || c.getValue() == null) return null;
+        long v = ((Number) c.getValue()).longValue();
+        return switch (c.getOperator()) {
+            case EQ -> new long[]{v, v};
+            case LT -> v == Long.MIN_VALUE ? new long[]{1, 0} : new long[]{Long.MIN_VALUE, v - 1};
+            case LE -> new long[]{Long.MIN_VALUE, v};
+            case GT -> v == Long.MAX_VALUE ? new long[]{1, 0} : new long[]{v + 1, Long.MAX_VALUE};
+            case GE -> new long[]{v, Long.MAX_VALUE};
+            case BETWEEN -> new long[]{v, ((Number) c.getUpperValue()).longValue()};
+            case PREFIX, MATCH -> null;
+        };
+    }
+
+    public static class IntColumn extends Column {
+        private int[] values = new int[0];
+
+        public IntColumn(String name) {
+            super(name);
+        }
+
+        @Override
+        public ColumnType getType() {
+            return ColumnType.INT;
+        }
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        public int getInt(int row) {
+            return values[row];
+        }
+
+        @Override
+        public void gatherLongs(int[] rows, int n, long[] out) {
+            int[] v = values;
+            for (int i = 0; i < n; i++) {
+                out[i] = v[rows[i]];
+            }
+        }
+
+        @Override
+        public void gatherDoubles(int[] rows, int n, double[] out) {
+            int[] v = values;
+            for (int i = 0; i < n; i++) {
+                out[i] = v[rows[i]];
+            }
+        }
+
+        @Override
+        public void set(int row, Object value) {
+            setNull(row, value == null);
+            values[row] = value == null ? 0 : (Integer) value;
+        }
+
+        @Override
+        public void ensureCapacity(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, grow(values.length, capacity));
+            }
+        }
+
+        @Override
+        protected void saveValues(BinaryWriter out, int rows) throws IOException {
+            out.putInts(values, rows);
+        }
+
+        @Override
+        protected void loadValues(BinaryReader in, int rows) {
+            values = in.getInts(rows, 16);
+        }
+
+        @Override
+        public long memoryBytes() {
+            return 4L * values.length + 8L * nulls.length;
+        }
+
+        @Override
+        public void filter(Condition condition, int from, int to, IntList out) {
+            long[] bounds = longBounds(condition);
+            if (bounds == null) {
+                super.filter(condition, from, to, out);
+                return;
+            }
+            long lo = bounds[0], hi = bounds[1];
+            int[] v = values;
+            for (int row = from; row < to; row++) {
+                if (v[row] >= lo && v[row] <= hi && !isNull(row)) {
+                    out.add(row);
+                }
+            }
+        }
+    }
+
+    public static class LongColumn extends Column {
+        private long[] values = new long[0];
+
+        public LongColumn(String name) {
+            super(name);
+        }
+
+        @Override
+        public ColumnType getType() {
+            return ColumnType.LONG;
+        }
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        public long getLong(int row) {
+            return values[row];
+        }
+
+        @Override
+        public void gatherLongs(int[] rows, int n, long[] out) {
+            long[] v = values;
+            for (int i = 0; i < n; i++) {
+                out[i] = v[rows[i]];
+            }
+        }
+
+        @Override
+        public void gatherDoubles(int[] rows, int n, double[] out) {
+            long[] v = values;
+            for (int i = 0; i < n; i++) {
+                out[i] = v[rows[i]];
+            }
+        }
+
+        @Override
+        public void set(int row, Object value) {
+            setNull(row, value == null);
+            values[row] = value == null ? 0 : (Long) value;
+        }
+
+        @Override
+        public void ensureCapacity(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, grow(values.length, capacity));
+            }
+        }
+
+        @Override
+        protected void saveValues(BinaryWriter out, int rows) throws IOException {
+            out.putLongs(values, rows);
+        }
+
+        @Override
+        protected void loadValues(BinaryReader in, int rows) {
+            values = in.getLongs(rows, 16);
+        }
+
+        @Override
+        public long memoryBytes() {
+            return 8L * values.length + 8L * nulls.length;
+        }
+
+        @Override
+        public void filter(Condition condition, int from, int to, IntList out) {
+            long[] bounds = longBounds(condition);
+            if (bounds == null) {
+                super.filter(condition, from, to, out);
+                return;
+            }
+            long lo = bounds[0], hi = bounds[1];
+            long[] v = values;
+            for (int row = from; row < to; row++) {
+                if (v[row] >= lo && v[row] <= hi && !isNull(row)) {
+                    out.add(row);
+                }
+            }
+        }
+    }
+
+    public static class DoubleColumn extends Column {
+        private double[] values = new double[0];
+
+        public DoubleColumn(String name) {
+            super(name);
+        }
+
+        @Override
+        public ColumnType getType() {
+            return ColumnType.DOUBLE;
+        }
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : values[row];
+        }
+
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        public void gatherDoubles(int[] rows, int n, double[] out) {
+            double[] v = values;
+            for (int i = 0; i < n; i++) {
+                out[i] = v[rows[i]];
+            }
+        }
+
+        @Override
+        public void set(int row, Object value) {
+            setNull(row, value == null);
+            values[row] = value == null ? 0 : (Double) value;
+        }
+
+        @Override
+        public void ensureCapacity(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, grow(values.length, capacity));
+            }
+        }
+
+        @Override
+        protected void saveValues(BinaryWriter out, int rows) throws IOException {
+            out.putDoubles(values, rows);
+        }
+
+        @Override
+        protected void loadValues(BinaryReader in, int rows) {
+            values = in.getDoubles(rows, 16);
+        }
+
+        @Override
+        public long memoryBytes() {
+            return 8L * values.length + 8L * nulls.length;
+        }
+
+        @Override
+        public void filter(Condition condition, int from, int to, IntList out) {
+            if (condition.getOperator() == Condition.Operator.PREFIX || condition.getValue() == null) {
+                super.filter(condition, from, to, out);
+                return;
+            }
+            double x = (Double) condition.getValue();
+            double lo = Double.NEGATIVE_INFINITY, hi = Double.POSITIVE_INFINITY;
+            switch (condition.getOperator()) {
+                case EQ -> lo = hi = x;
+                case LT -> hi = Math.nextDown(x);
+                case LE -> hi = x;
+                case GT -> lo = Math.nextUp(x);
+                case GE -> lo = x;
+                case BETWEEN -> {
+                    lo = x;
+                    hi = (Double) condition.getUpperValue();
+                }
+                default -> throw new AssertionError();
+            }
+            double[] v = values;
+            for (int row = from; row < to; row++) {
+                if (v[row] >= lo && v[row] <= hi && !isNull(row)) {
+                    out.add(row);
+                }
+            }
+        }
+    }
+
+    public static class BooleanColumn extends Column {
+        private long[] bits = new long[0];
+        private int capacity;
+
+        public BooleanColumn(String name) {
+            super(name);
+        }
+
+        @Override
+        public ColumnType getType() {
+            return ColumnType.BOOLEAN;
+        }
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : getBoolean(row);
+        }
+
+        public boolean getBoolean(int row) {
+            return (bits[row >>> 6] & (1L << row)) != 0;
+        }
+
+        @Override
+        public void gatherLongs(int[] rows, int n, long[] out) {
+            long[] b = bits;
+            for (int i = 0; i < n; i++) {
+                out[i] = (b[rows[i] >>> 6] >>> rows[i]) & 1;
+            }
+        }
+
+        @Override
+        public void set(int row, Object value) {
+            setNull(row, value == null);
+            if (Boolean.TRUE.equals(value)) {
+                bits[row >>> 6] |= 1L << row;
+            } else {
+                bits[row >>> 6] &= ~(1L << row);
+            }
+        }
+
+        @Override
+        public void ensureCapacity(int capacity) {
+            if (capacity > this.capacity) {
+                this.capacity = grow(this.capacity, capacity);
+                bits = Arrays.copyOf(bits, (this.capacity + 63) >>> 6);
+            }
+        }
+
+        @Override
+        protected void saveValues(BinaryWriter out, int rows) throws IOException {
+            int words = (rows + 63) >>> 6;
+            out.putInt(words);
+            out.putLongs(bits, words);
+        }
+
+        @Override
+        protected void loadValues(BinaryReader in, int rows) {
+            bits = in.getLongs(in.getInt(), 1);
+            capacity = bits.length * 64;
+        }
+
+        @Override
+        public long memoryBytes() {
+            return 8L * bits.length + 8L * nulls.length;
+        }
+    }
+
+    // Strings are dictionary-encoded: each distinct value is stored once and rows hold int codes.
+    // The dictionary only ever grows, and readers may decode concurrently with a writer appending.
+    public static class StringColumn extends Column {
+        private int[] codes = new int[0];
+        private volatile String[] dictionary = new String[16];
+        private volatile int dictionarySize;
+        private final Map<String, Integer> lookup = new ConcurrentHashMap<>();
+        private long dictionaryBytes;
+
+        public StringColumn(String name) {
+            super(name);
+        }
+
+        @Override
+        public ColumnType getType() {
+            return ColumnType.STRING;
+        }
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : dictionary[codes[row]];
+        }
+
+        public int getCode(int row) {
+            return codes[row];
+        }
+
+        // Gathers dictionary codes
+        @Override
+        public void gatherLongs(int[] rows, int n, long[] out) {
+            int[] c = codes;
+            for (int i = 0; i < n; i++) {
+                out[i] = c[rows[i]];
+            }
+        }
+
+        public String decode(int code) {
+            return dictionary[code];
+        }
+
+        public int dictionarySize() {
+            return dictionarySize;
+        }
+
+        // Returns -1 if the value never occurs in this column
+        public int codeOf(String value) {
+            Integer code = lookup.get(value);
+            return code == null ? -1 : code;
+        }
+
+        @Override
+        public void set(int row, Object value) {
+            setNull(row, value == null);
+            codes[row] = value == null ? 0 : encode((String) value);
+        }
+
+        private int encode(String value) {
+            Integer code = lookup.get(value);
+            if (code == null) {
+                code = dictionarySize;
+                String[] dict = dictionary;
+                if (code == dict.length) {
+                    dict = Arrays.copyOf(dict, dict.length * 2);
+                }
+                dict[code] = value;
+                dictionary = dict;
+                // Publish the entry before the code becomes reachable
+                dictionarySize = code + 1;
+                lookup.put(value, code);
+                dictionaryBytes += 56 + 2L * value.length();
+            }
+            return code;
+        }
+
+        @Override
+        public void ensureCapacity(int capacity) {
+            if (capacity > codes.length) {
+                codes = Arrays.copyOf(codes, grow(codes.length, capacity));
+            }
+        }
+
+        @Override
+        protected void saveValues(BinaryWriter out, int rows) throws IOException {
+            int distinct = dictionarySize;
+            String[] dict = dictionary;
+            out.putInt(distinct);
+            for (int code = 0; code < distinct; code++) {
+                out.putString(dict[code]);
+            }
+            out.putInts(codes, rows);
+        }
+
+        @Override
+        protected void loadValues(BinaryReader in, int rows) {
+            int distinct = in.getInt();
+            dictionary = new String[Math.max(16, distinct)];
+            dictionarySize = 0;
+            lookup.clear();
+            dictionaryBytes = 0;
+            for (int code = 0; code < distinct; code++) {
+                encode(in.getString());
+            }
+            codes = in.getInts(rows, 16);
+        }
+
+        @Override
+        public long memoryBytes() {
+            return 4L * codes.length + 8L * nulls.length + dictionaryBytes;
+        }
+
+        @Override
+        public void filter(Condition condition, int from, int to, IntList out) {
+            int[] c = codes;
+            if (condition.getOperator() == Condition.Operator.EQ) {
+                int code = codeOf(condition.getRawValue());
+                if (code < 0) return;
+                for (int row = from; row < to; row++) {
+                    if (c[row] == code && !isNull(row)) {
+                        out.add(row);
+                    }
+                }
+                return;
+            }
+
+            // Evaluate the predicate once per distinct value, then scan the codes
+            int distinct = dictionarySize;
+            String[] dict = dictionary;
+            boolean[] matching = new boolean[distinct];
+            for (int code = 0; code < distinct; code++) {
+                matching[code] = condition.matches(dict[code]);
+            }
+            for (int row = from; row < to; row++) {
+                int code = c[row];
+                if (code < distinct && matching[code] && !isNull(row)) {
+                    out.add(row);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.*;
+
+// Cardinality estimates for one column, built from a sample of the visible rows:
+// null fraction, distinct count, most common values and an equi-depth histogram.
+public class ColumnStatistics {
+    private static final int BUCKETS = 32;
+    private static final int COMMON_VALUES = 5;
+
+    private final ColumnType type;
+    private final double nullFraction;
+    private final long distinct;
+    // Bucket boundaries; each bucket holds the same share of the non-null values
+    private final Object[] bounds;
+    private final Object[] commonValues;
+    private final double[] commonFrequencies;
+
+    private ColumnStatistics(ColumnType type, double nullFraction, long distinct, Object[] bounds,
+                             Object[] commonValues, double[] commonFrequencies) {
+        this.type = type;
+        this.nullFraction = nullFraction;
+        this.distinct = distinct;
+        this.bounds = bounds;
+        this.commonValues = commonValues;
+        this.commonFrequencies = commonFrequencies;
+    }
+
+    public static ColumnStatistics compute(Table table, int column, IntList sample, long rowCount) {
+        ColumnType type = table.getSchema().type(column);
+        List<Object> values = new ArrayList<>(sample.size());
+        Map<Object, Integer> counts = new HashMap<>();
+        for (int i = 0; i < sample.size(); i++) {
+            Object value = table.get(sample.get(i), column);
+            if (value != null) {
+                values.add(value);
+                counts.merge(value, 1, Integer::sum);
+            }
+        }
+        if (sample.isEmpty()) {
+            return new ColumnStatistics(type, 0, 0, new Object[0], new Object[0], new double[0]);
+        }
+        double nullFraction = 1.0 - (double) values.size() / sample.size();
+
+        // Guaranteed-error estimator: values seen once are scaled up by sqrt(rows / sample)
+        long once = counts.values().stream().filter(c -> c == 1).count();
+        double scale = Math.sqrt(Math.max(1.0, (double) rowCount / sample.size()));
+        long distinct = once == values.size()
+                // Every sampled value unique: most likely a key column
+                ? Math.round(rowCount * (1 - nullFraction))
+                : Math.round(scale * once + (counts.size() - once));
+        distinct = Math.max(1, Math.min(Math.max(rowCount, 1), distinct));
+
+        values.sort(ValueComparator.INSTANCE);
+        int buckets = Math.min(BUCKETS, values.size());
+        Object[] bounds = new Object[buckets == 0 ? 0 : buckets + 1];
+        for (int b = 0; b <= buckets && buckets > 0; b++) {
+            bounds[b] = values.get(Math.min(values.size() - 1, (int) ((long) b * values.size() / buckets)));
+        }
+
+        List<Map.Entry<Object, Integer>> common = counts.entrySet().stream()
+                .filter(e -> e.getValue() > 1)
+                .sorted(Map.Entry.<Object, Integer>comparingByValue().reversed())
+                .limit(COMMON_VALUES)
+                .toList();
+        Object[] commonValues = new Object[common.size()];
+        double[] commonFrequencies = new double[common.size()];
+        for (int i = 0; i < common.size(); i++) {
+            commonValues[i] = common.get(i).getKey();
+            commonFrequencies[i] = (double) common.get(i).getValue() / sample.size();
+        }
+        return new ColumnStatistics(type, nullFraction, distinct, bounds, commonValues, commonFrequencies);
+    }
+
+    public double getNullFraction() {
+        return nullFraction;
+    }
+
+    public long getDistinct() {
+        return distinct;
+    }
+
+    public Object getMin() {
+        return bounds.length == 0 ? null : bounds[0];
+    }
+
+    public Object getMax() {
+        return bounds.length == 0 ? null : bounds[bounds.length - 1];
+    }
+
+    // Estimated fraction of rows matching a bound condition
+    public double selectivity(Condition condition) {
+        if (bounds.length == 0) return 0;
+        double nonNull = 1 - nullFraction;
+        double s = switch (condition.getOperator()) {
+            case EQ -> equalFraction(condition.getValue());
+            case LT, LE -> nonNull * below(condition.getValue());
+            case GT, GE -> nonNull * (1 - below(condition.getValue()));
+            case BETWEEN -> nonNull * (below(condition.getUpperValue()) - below(condition.getValue()));
+            case PREFIX -> type == ColumnType.STRING
+                    ? nonNull * (below(condition.getRawValue() + Character.MAX_VALUE) - below(condition.getRawValue()))
+                    : nonNull * 0.1;
+            // Token statistics live in the full-text index, which the planner asks directly
+            case MATCH -> nonNull * 0.01;
+        };
+        return Math.max(0, Math.min(1, s));
+    }
+
+    private double equalFraction(Object value) {
+        if (value == null) return 0;
+        double commonTotal = 0;
+        for (int i = 0; i < commonValues.length; i++) {
+            if (ValueComparator.INSTANCE.compare(commonValues[i], value) == 0) {
+                return commonFrequencies[i];
+            }
+            commonTotal += commonFrequencies[i];
+        }
+        if (ValueComparator.INSTANCE.compare(value, getMin()) < 0 || ValueComparator.INSTANCE.compare(value, getMax()) > 0) {
+            return 0;
+        }
+        long others = Math.max(1, distinct - commonValues.length);
+        return Math.max(0, 1 - nullFraction - commonTotal) / others;
+    }
+
+    // Fraction of non-null values below the given one, interpolating inside numeric buckets
+    private double below(Object value) {
+        if (value == null) return 0;
+        int buckets = bounds.length - 1;
+        if (buckets == 0) return ValueComparator.INSTANCE.compare(value, bounds[0]) <= 0 ? 0 : 1;
+        if (ValueComparator.INSTANCE.compare(value, bounds[0]) <= 0) return 0;
+        if (ValueComparator.INSTANCE.compare(value, bounds[buckets]) > 0) return 1;
+
+        int b = 0;
+        while (b < buckets - 1 && ValueComparator.INSTANCE.compare(value, bounds[b + 1]) > 0) b++;
+        double within = 0.5;
+        if (value instanceof Number v && bounds[b] instanceof Number lo && bounds[b + 1] instanceof Number hi) {
+            double width = hi.doubleValue() - lo.doubleValue();
+            within = width <= 0 ? 1 : (v.doubleValue() - lo.doubleValue()) / width;
+        }
+        return (b + Math.max(0, Math.min(1, within))) / buckets;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("nulls=%.1f%%, distinct~%d, min=%s, max=%s, common=%s",
+                nullFraction * 100, distinct, getMin(), getMax(), Arrays.toString(commonValues));
+    }
+}
@@ -0,0 +1,67 @@
+package com.techwithedward.Projects.Database;
+
+public enum ColumnType {
+    INT,
+    LONG,
+    DOUBLE,
+    STRING,
+    BOOLEAN;
+
+    // Empty input and the literal NULL are stored as null in every column type
+    public Object parse(String text) {
+        if (text == null) return null;
+        String t = text.trim();
+        if (t.isEmpty() || t.equalsIgnoreCase("NULL")) return null;
+
+        try {
+            return switch (this) {
+                case INT -> Integer.parseInt(t);
+                case LONG -> Long.parseLong(t);
+                case DOUBLE -> Double.parseDouble(t);
+                case STRING -> t;
+                case BOOLEAN -> parseBoolean(t);
+            };
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("'" + t + "' is not a valid " + this);
+        }
+    }
+
+    private static Boolean parseBoolean(String t) {
+        if (t.equalsIgnoreCase("true") || t.equals("1")) return true;
+        if (t.equalsIgnoreCase("false") || t.equals("0")) return false;
+        throw new IllegalArgumentException("'" + t + "' is not a valid BOOLEAN");
+    }
+
+    public Column newColumn(String name) {
+        return newColumn(name, StorageMode.HEAP);
+    }
+
+    // Booleans take one bit per row and stay on the heap in either mode
+    public Column newColumn(String name, StorageMode storage) {
+        if (storage == StorageMode.OFF_HEAP) {
+            switch (this) {
+                case INT -> {
+                    return new OffHeapColumn.Ints(name);
+                }
+                case LONG -> {
+                    return new OffHeapColumn.Longs(name);
+                }
+                case DOUBLE -> {
+                    return new OffHeapColumn.Doubles(name);
+                }
+                case STRING -> {
+                    return new OffHeapColumn.Strings(name);
+                }
+                default -> {
+                }
+            }
+        }
+        return switch (this) {
+            case INT -> new Column.IntColumn(name);
+            case LONG -> new Column.LongColumn(name);
+            case DOUBLE -> new Column.DoubleColumn(name);
+            case STRING -> new Column.StringColumn(name);
+            case BOOLEAN -> new Column.BooleanColumn(name);
+        };
+    }
+}
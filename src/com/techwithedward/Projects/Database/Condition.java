@@ -0,0 +1,210 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// A single WHERE predicate: col=v, col<v, col<=v, col>v, col>=v,
+// col BETWEEN a AND b, col LIKE prefix%, or col MATCH 'words' for full-text search on
+// STRING columns (see FullTextIndex.Query). Operands of a prepared statement may be bind
+// parameters, which withParameters() fills in before the condition can match anything.
+public class Condition {
+    public enum Operator {
+        EQ("="), LT("<"), LE("<="), GT(">"), GE(">="), BETWEEN("BETWEEN"), PREFIX("LIKE"), MATCH("MATCH");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+    }
+
+    private static final Pattern BETWEEN = Pattern.compile(
+            "(?i)^\\s*([^\\s<>=]+)\\s+BETWEEN\\s+(.+?)\\s+AND\\s+(.+?)\\s*$");
+    private static final Pattern LIKE = Pattern.compile(
+            "(?i)^\\s*([^\\s<>=]+)\\s+LIKE\\s+'?([^%']*)%'?\\s*$");
+    private static final Pattern MATCH = Pattern.compile(
+            "(?i)^\\s*([^\\s<>=]+)\\s+MATCH\\s+(.+?)\\s*$");
+    private static final Pattern COMPARISON = Pattern.compile(
+            "^\\s*([^\\s<>=]+)\\s*(<=|>=|<|>|=)\\s*(.+?)\\s*$");
+
+    private final String column;
+    private final Operator operator;
+    private final String rawValue;
+    private final String rawUpper;
+    // Bind parameter positions of the operands, -1 for literals
+    private final int parameter;
+    private final int upperParameter;
+    // Has parameters and withParameters() was not called yet
+    private final boolean unbound;
+
+    // Operands converted to the column's type, a parsed FullTextIndex.Query for MATCH;
+    // null until bind() is called
+    private final ColumnType type;
+    private final Object value;
+    private final Object upperValue;
+
+    public Condition(String column, Operator operator, String rawValue, String rawUpper) {
+        this(column, operator, rawValue, -1, rawUpper, -1);
+    }
+
+    // An operand with a parameter position >= 0 is taken from the bind parameters instead of its raw text
+    Condition(String column, Operator operator, String rawValue, int parameter, String rawUpper, int upperParameter) {
+        this(column, operator, rawValue, rawUpper, null, parameter, upperParameter, parameter >= 0 || upperParameter >= 0);
+    }
+
+    private Condition(String column, Operator operator, String rawValue, String rawUpper, ColumnType type,
+                      int parameter, int upperParameter, boolean unbound) {
+        this.column = column;
+        this.operator = operator;
+        this.rawValue = rawValue;
+        this.rawUpper = rawUpper;
+        this.parameter = parameter;
+        this.upperParameter = upperParameter;
+        this.unbound = unbound;
+        this.type = type;
+        if (operator == Operator.MATCH && type != null && type != ColumnType.STRING) {
+            throw new IllegalArgumentException("MATCH needs a STRING column, " + column + " is " + type);
+        }
+        this.value = type == null || unbound || operator == Operator.PREFIX ? null
+                : operator == Operator.MATCH ? FullTextIndex.Query.parse(rawValue) : type.parse(rawValue);
+        this.upperValue = type == null || unbound || rawUpper == null ? null : type.parse(rawUpper);
+    }
+
+    // Parses the operands once for the column type so matching doesn't re-parse per row
+    public Condition bind(ColumnType columnType) {
+        if (columnType == type) return this;
+        return new Condition(column, operator, rawValue, rawUpper, columnType, parameter, upperParameter, unbound);
+    }
+
+    // The condition with its parameter operands taken from parameters (by position), converted
+    // to the bound column type. The result keeps the positions, so it can be rebound again.
+    public Condition withParameters(Object[] parameters) {
+        if (parameter < 0 && upperParameter < 0) return this;
+        String raw = parameter < 0 ? rawValue : text(parameters[parameter]);
+        String upper = upperParameter < 0 ? rawUpper : text(parameters[upperParameter]);
+        if (operator == Operator.PREFIX) {
+            if (raw == null) throw new IllegalArgumentException("LIKE needs a pattern, not NULL");
+            if (raw.endsWith("%")) raw = raw.substring(0, raw.length() - 1);
+        }
+        if (operator == Operator.MATCH && raw == null) {
+            throw new IllegalArgumentException("MATCH needs words, not NULL");
+        }
+        return new Condition(column, operator, raw, upper, type, parameter, upperParameter, false);
+    }
+
+    private static String text(Object parameter) {
+        return parameter == null ? null : parameter.toString();
+    }
+
+    public static Condition parse(String where) {
+        Matcher m = BETWEEN.matcher(where);
+        if (m.matches()) {
+            return new Condition(m.group(1), Operator.BETWEEN, unquote(m.group(2)), unquote(m.group(3)));
+        }
+
+        m = LIKE.matcher(where);
+        if (m.matches()) {
+            return new Condition(m.group(1), Operator.PREFIX, m.group(2), null);
+        }
+
+        m = MATCH.matcher(where);
+        if (m.matches()) {
+            return new Condition(m.group(1), Operator.MATCH, unquote(m.group(2)), null);
+        }
+
+        m = COMPARISON.matcher(where);
+        if (m.matches()) {
+            Operator op = switch (m.group(2)) {
+                case "<" -> Operator.LT;
+                case "<=" -> Operator.LE;
+                case ">" -> Operator.GT;
+                case ">=" -> Operator.GE;
+                default -> Operator.EQ;
+            };
+            return new Condition(m.group(1), op, unquote(m.group(3)), null);
+        }
+
+        throw new IllegalArgumentException("Invalid WHERE clause: " + where);
+    }
+
+    private static String unquote(String text) {
+        String t = text.trim();
+        if (t.length() >= 2 && t.charAt(0) == '\'' && t.charAt(t.length() - 1) == '\'') {
+            return t.substring(1, t.length() - 1);
+        }
+        return t;
+    }
+
+    public boolean matches(Object candidate) {
+        if (type == null || unbound) {
+            throw new IllegalStateException("Condition must be bound to a column type and its parameters first");
+        }
+        if (candidate == null) return false;
+        if (operator == Operator.MATCH) {
+            return ((FullTextIndex.Query) value).matches(candidate.toString());
+        }
+        if (operator == Operator.PREFIX) {
+            return candidate.toString().startsWith(rawValue);
+        }
+        if (value == null) return false;
+
+        int cmp = ValueComparator.INSTANCE.compare(candidate, value);
+        return switch (operator) {
+            case EQ -> cmp == 0;
+            case LT -> cmp < 0;
+            case LE -> cmp <= 0;
+            case GT -> cmp > 0;
+            case GE -> cmp >= 0;
+            case BETWEEN -> cmp >= 0 && ValueComparator.INSTANCE.compare(candidate, upperValue) <= 0;
+            case PREFIX, MATCH -> throw new AssertionError();
+        };
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    public String getRawValue() {
+        return rawValue;
+    }
+
+    public String getRawUpper() {
+        return rawUpper;
+    }
+
+    public boolean hasParameters() {
+        return parameter >= 0 || upperParameter >= 0;
+    }
+
+    public ColumnType getType() {
+        return type;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public Object getUpperValue() {
+        return upperValue;
+    }
+
+    @Override
+    public String toString() {
+        String lower = unbound && parameter >= 0 ? "?" : rawValue;
+        String upper = unbound && upperParameter >= 0 ? "?" : rawUpper;
+        return switch (operator) {
+            case BETWEEN -> column + " BETWEEN " + lower + " AND " + upper;
+            case PREFIX -> column + " LIKE " + lower + (unbound && parameter >= 0 ? "" : "%");
+            case MATCH -> column + " MATCH " + (unbound && parameter >= 0 ? "?" : "'" + rawValue + "'");
+            default -> column + " " + operator.getSymbol() + " " + lower;
+        };
+    }
+}
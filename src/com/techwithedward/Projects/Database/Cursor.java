@@ -0,0 +1,229 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntPredicate;
+import java.util.function.LongConsumer;
+
+// Lazy query result. Committed rows come out in row id order, then the current transaction's
+// uncommitted rows. Rows are fetched from the table only as the caller pulls them, and the
+// read snapshot is released once the cursor is exhausted or closed.
+public class Cursor implements Iterator<Row>, AutoCloseable {
+    // Candidate row ids in ascending order, already visible at the cursor's snapshot; -1 when done
+    public interface SlotSource {
+        int next();
+    }
+
+    // Scans row ids [from, to) and returns the visible matches in order
+    public interface BlockScan {
+        IntList scan(int from, int to);
+    }
+
+    // Page token positions: committed rows by row id, uncommitted ones after all of them
+    private static final long PENDING_BASE = 1L << 32;
+
+    private final Table table;
+    private final SlotSource slots;
+    private final IntPredicate accept;
+    private final List<Object[]> pending;
+    private final int[] projection;
+    private final String[] names;
+    private final long limit;
+    private final String fingerprint;
+    // Snapshot the rows are read at; page tokens carry it so the next page reads it again
+    private final long snapshot;
+    private final String accessPath;
+    // Called once, with the number of rows returned
+    private final LongConsumer onClose;
+    private final RowCache cache;
+
+    private int pendingPos;
+    private long toSkip;
+    private long returned;
+    private long lastPosition = -1;
+    private Row peeked;
+    private long peekedPosition;
+    private boolean closed;
+
+    public Cursor(Table table, SlotSource slots, IntPredicate accept, List<Object[]> pending, int pendingStart,
+                  int[] projection, long offset, long limit, String fingerprint, long snapshot, String accessPath,
+                  LongConsumer onClose) {
+        this.table = table;
+        this.slots = slots;
+        this.accept = accept;
+        this.pending = pending;
+        this.pendingPos = pendingStart;
+        this.projection = projection;
+        this.names = new String[projection.length];
+        for (int i = 0; i < projection.length; i++) {
+            names[i] = table.getSchema().name(projection[i]);
+        }
+        this.toSkip = offset;
+        this.limit = limit;
+        this.fingerprint = fingerprint;
+        this.snapshot = snapshot;
+        this.accessPath = accessPath;
+        this.onClose = onClose;
+        this.cache = table.getCache();
+    }
+
+    // How the rows are found, e.g. "HashIndex on t.id" or "full table scan"
+    public String getAccessPath() {
+        return accessPath;
+    }
+
+    public String[] getColumnNames() {
+        return names.clone();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return returned < limit && peek();
+    }
+
+    @Override
+    public Row next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        Row row = peeked;
+        lastPosition = peekedPosition;
+        peeked = null;
+        returned++;
+        return row;
+    }
+
+    // Token that continues right after the last row returned, or null when no rows follow.
+    // Row ids are slots that deletes free for reuse, so resuming reads this cursor's snapshot
+    // again rather than a fresh one: rows then neither move nor repeat between pages. The token
+    // expires once garbage collection frees a row version that snapshot could still see.
+    public String nextPageToken() {
+        if (lastPosition < 0 || !peek()) return null;
+        return fingerprint + "." + Long.toString(lastPosition, 36) + "." + Long.toString(snapshot, 36);
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            peeked = null;
+            if (cache != null) {
+                cache.recordLookup(returned > 0);
+            }
+            onClose.accept(returned);
+        }
+    }
+
+    // Fetches the next row past OFFSET into peeked, ignoring LIMIT
+    private boolean peek() {
+        while (peeked == null && !closed) {
+            int slot = slots.next();
+            if (slot >= 0) {
+                if (accept != null && !accept.test(slot)) continue;
+                if (toSkip > 0) {
+                    toSkip--;
+                    continue;
+                }
+                Object[] values = new Object[projection.length];
+                for (int i = 0; i < projection.length; i++) {
+                    values[i] = table.get(slot, projection[i]);
+                }
+                peeked = new Row(slot, names, values);
+                peekedPosition = slot;
+                if (cache != null) {
+                    cache.recordAccess(slot);
+                }
+            } else if (pendingPos < pending.size()) {
+                int i = pendingPos++;
+                if (toSkip > 0) {
+                    toSkip--;
+                    continue;
+                }
+                Object[] row = pending.get(i);
+                Object[] values = new Object[projection.length];
+                for (int c = 0; c < projection.length; c++) {
+                    values[c] = row[projection[c]];
+                }
+                peeked = new Row(-1, names, values);
+                peekedPosition = PENDING_BASE + i;
+            } else {
+                close();
+            }
+        }
+        return peeked != null;
+    }
+
+    // --- Page tokens ---
+
+    // Last row id covered by the token; -1 without a token
+    public static int afterSlot(String token, String fingerprint) {
+        long position = field(token, fingerprint, 1);
+        return position < 0 ? -1 : (int) Math.min(position, Integer.MAX_VALUE);
+    }
+
+    // Index of the first uncommitted row the token has not covered yet
+    public static int pendingStart(String token, String fingerprint) {
+        long position = field(token, fingerprint, 1);
+        return position < PENDING_BASE ? 0 : (int) (position - PENDING_BASE + 1);
+    }
+
+    // Snapshot the earlier pages were read at; -1 without a token
+    public static long snapshot(String token, String fingerprint) {
+        return field(token, fingerprint, 2);
+    }
+
+    // Tokens are fingerprint.position.snapshot, the numbers in base 36
+    private static long field(String token, String fingerprint, int index) {
+        if (token == null) return -1;
+        String[] fields = token.split("\\.", -1);
+        if (!fields[0].equals(fingerprint)) {
+            throw new IllegalArgumentException("Page token does not belong to this query");
+        }
+        try {
+            if (fields.length != 3) throw new NumberFormatException();
+            long value = Long.parseLong(fields[index], 36);
+            if (value < 0) throw new NumberFormatException();
+            return value;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed page token");
+        }
+    }
+
+    // --- Slot sources ---
+
+    // Index probe results: sorted into row id order, then checked for visibility one by one
+    public static SlotSource fromIndex(Table table, IntList candidates, long snapshot, int afterSlot) {
+        int[] ids = candidates.toArray();
+        Arrays.sort(ids);
+        int start = Arrays.binarySearch(ids, afterSlot + 1);
+        int[] pos = {start < 0 ? -start - 1 : start};
+        return () -> {
+            while (pos[0] < ids.length) {
+                int id = ids[pos[0]++];
+                if (table.isVisible(id, snapshot)) return id;
+            }
+            return -1;
+        };
+    }
+
+    // Scans [from, to) one block at a time as rows are pulled
+    public static SlotSource fromScan(BlockScan scan, int from, int to, int blockSize) {
+        return new SlotSource() {
+            private int next = from;
+            private IntList block = new IntList(0);
+            private int pos;
+
+            @Override
+            public int next() {
+                while (pos >= block.size()) {
+                    if (next >= to) return -1;
+                    int end = (int) Math.min(to, (long) next + blockSize);
+                    block = scan.scan(next, end);
+                    pos = 0;
+                    next = end;
+                }
+                return block.get(pos++);
+            }
+        };
+    }
+}
@@ -0,0 +1,413 @@
+package com.techwithedward.Projects.Database;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+
+// Client for DatabaseServer. Connections are pooled: the convenience methods borrow one per
+// call, while a Session pins one for transactions and pipelining. INT/LONG values come
+// back as Long, DOUBLE as Double, BOOLEAN as Boolean and STRING as String.
+public class DatabaseClient implements AutoCloseable {
+    // Pipelines flush and drain replies at least this often so neither side's socket buffer fills up
+    private static final int PIPELINE_WINDOW = 1024;
+
+    private final String host;
+    private final int port;
+    private final BlockingQueue<Connection> idle;
+    private final Semaphore permits;
+    private volatile boolean closed;
+
+    public DatabaseClient(String host, int port, int poolSize) {
+        this.host = host;
+        this.port = port;
+        this.idle = new ArrayBlockingQueue<>(poolSize);
+        this.permits = new Semaphore(poolSize);
+    }
+
+    // Thrown for -ERR replies
+    public static class ServerException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public ServerException(String message) {
+            super(message);
+        }
+    }
+
+    public record QueryResult(List<Row> rows, String nextPageToken) {
+    }
+
+    // Borrows a pooled connection until closed; blocks while all of them are in use
+    public Session session() throws IOException {
+        if (closed) throw new IllegalStateException("Client is closed");
+        permits.acquireUninterruptibly();
+        Connection connection = idle.poll();
+        try {
+            if (connection == null) {
+                connection = new Connection(host, port);
+            }
+        } catch (IOException e) {
+            permits.release();
+            throw e;
+        }
+        return new Session(connection);
+    }
+
+    public void createTable(String table, String... columns) throws IOException {
+        try (Session session = session()) {
+            session.createTable(table, columns);
+        }
+    }
+
+    public long insert(String table, Object... values) throws IOException {
+        try (Session session = session()) {
+            return session.insert(table, values);
+        }
+    }
+
+    public QueryResult select(String table, String where, String... options) throws IOException {
+        try (Session session = session()) {
+            return session.select(table, where, options);
+        }
+    }
+
+    public long update(String table, String set, String where) throws IOException {
+        try (Session session = session()) {
+            return session.update(table, set, where);
+        }
+    }
+
+    public long delete(String table, String where) throws IOException {
+        try (Session session = session()) {
+            return session.delete(table, where);
+        }
+    }
+
+    public QueryResult query(String sql, Object... parameters) throws IOException {
+        try (Session session = session()) {
+            return session.query(sql, parameters);
+        }
+    }
+
+    public long execute(String sql, Object... parameters) throws IOException {
+        try (Session session = session()) {
+            return session.execute(sql, parameters);
+        }
+    }
+
+    public void createIndex(String table, String column, IndexType type) throws IOException {
+        try (Session session = session()) {
+            session.createIndex(table, column, type);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            connection.close();
+        }
+    }
+
+    private void release(Connection connection) {
+        if (closed || connection.broken || !idle.offer(connection)) {
+            connection.close();
+        }
+        permits.release();
+    }
+
+    public class Session implements AutoCloseable {
+        private final Connection connection;
+        private boolean released;
+        private boolean inTransaction;
+        private Pipeline pipeline;
+
+        private Session(Connection connection) {
+            this.connection = connection;
+        }
+
+        public String ping() throws IOException {
+            return (String) call("PING");
+        }
+
+        public void createTable(String table, String... columns) throws IOException {
+            call(concat(new String[]{"CREATE", table}, columns));
+        }
+
+        public long insert(String table, Object... values) throws IOException {
+            return (Long) call(insertCommand(table, values));
+        }
+
+        // options are pairs such as "LIMIT", "10", "COLUMNS", "id,name", "AFTER", token
+        public QueryResult select(String table, String where, String... options) throws IOException {
+            return toResult(call(selectCommand(table, where, options)));
+        }
+
+        public long update(String table, String set, String where) throws IOException {
+            return (Long) call("UPDATE", table, set, where);
+        }
+
+        public long delete(String table, String where) throws IOException {
+            return (Long) call("DELETE", table, where);
+        }
+
+        // A SQL SELECT; each ? in it takes the next parameter
+        public QueryResult query(String sql, Object... parameters) throws IOException {
+            return toResult(call(sqlCommand(sql, parameters)));
+        }
+
+        // A SQL UPDATE or DELETE; returns the number of rows changed
+        public long execute(String sql, Object... parameters) throws IOException {
+            return (Long) call(sqlCommand(sql, parameters));
+        }
+
+        public void createIndex(String table, String column, IndexType type) throws IOException {
+            call("INDEX", table, column, type.name());
+        }
+
+        public String explain(String table, String where) throws IOException {
+            return (String) call("EXPLAIN", table, where);
+        }
+
+        // The server's latency histograms, row counters and slow-query log as text
+        public String stats() throws IOException {
+            return (String) call("STATS");
+        }
+
+        public void begin() throws IOException {
+            call("BEGIN");
+            inTransaction = true;
+        }
+
+        public void commit() throws IOException {
+            // The server ends the transaction even when the commit fails on a conflict
+            inTransaction = false;
+            call("COMMIT");
+        }
+
+        public void rollback() throws IOException {
+            inTransaction = false;
+            call("ROLLBACK");
+        }
+
+        public Pipeline pipeline() {
+            pipeline = new Pipeline(connection);
+            return pipeline;
+        }
+
+        private Object call(String... command) throws IOException {
+            Object reply = connection.roundTrip(command);
+            if (reply instanceof Resp.Error error) {
+                throw new ServerException(error.message());
+            }
+            return reply;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                // Unread pipelined replies would be taken for the next borrower's
+                if (pipeline != null && pipeline.unread > 0) {
+                    connection.broken = true;
+                }
+                // Never hand the next borrower a connection with an open transaction
+                if (inTransaction) {
+                    try {
+                        rollback();
+                    } catch (IOException | ServerException e) {
+                        connection.broken = true;
+                    }
+                }
+                release(connection);
+            }
+        }
+    }
+
+    // Queues commands without waiting for replies; sync() returns them in order.
+    // Error replies come back as Resp.Error values instead of being thrown.
+    public static class Pipeline {
+        private final Connection connection;
+        private final List<Object> replies = new ArrayList<>();
+        private int unread;
+
+        private Pipeline(Connection connection) {
+            this.connection = connection;
+        }
+
+        public Pipeline send(String... command) throws IOException {
+            try {
+                connection.writer.writeCommand(command);
+                if (++unread >= PIPELINE_WINDOW) {
+                    drain();
+                }
+            } catch (IOException e) {
+                connection.broken = true;
+                throw e;
+            }
+            return this;
+        }
+
+        public Pipeline insert(String table, Object... values) throws IOException {
+            return send(insertCommand(table, values));
+        }
+
+        public Pipeline select(String table, String where, String... options) throws IOException {
+            return send(selectCommand(table, where, options));
+        }
+
+        public Pipeline update(String table, String set, String where) throws IOException {
+            return send("UPDATE", table, set, where);
+        }
+
+        public Pipeline delete(String table, String where) throws IOException {
+            return send("DELETE", table, where);
+        }
+
+        public Pipeline sql(String sql, Object... parameters) throws IOException {
+            return send(sqlCommand(sql, parameters));
+        }
+
+        public List<Object> sync() throws IOException {
+            drain();
+            List<Object> result = new ArrayList<>(replies);
+            replies.clear();
+            return result;
+        }
+
+        private void drain() throws IOException {
+            try {
+                connection.writer.flush();
+                for (; unread > 0; unread--) {
+                    replies.add(connection.reader.readReply());
+                }
+            } catch (IOException e) {
+                connection.broken = true;
+                throw e;
+            }
+        }
+    }
+
+    // Turns a raw SELECT reply into rows; works on pipelined replies too
+    @SuppressWarnings("unchecked")
+    public static QueryResult toResult(Object reply) {
+        if (reply instanceof Resp.Error error) {
+            throw new ServerException(error.message());
+        }
+        List<Object> parts = (List<Object>) reply;
+        String[] names = ((List<Object>) parts.get(0)).stream().map(Object::toString).toArray(String[]::new);
+        List<Row> rows = new ArrayList<>();
+        for (Object item : (List<Object>) parts.get(1)) {
+            List<Object> row = (List<Object>) item;
+            rows.add(new Row(((Long) row.get(0)).intValue(), names, row.subList(1, row.size()).toArray()));
+        }
+        return new QueryResult(rows, (String) parts.get(2));
+    }
+
+    private static String[] insertCommand(String table, Object... values) {
+        String[] command = new String[values.length + 2];
+        command[0] = "INSERT";
+        command[1] = table;
+        for (int i = 0; i < values.length; i++) {
+            command[i + 2] = values[i] == null ? "" : values[i].toString();
+        }
+        return command;
+    }
+
+    private static String[] sqlCommand(String sql, Object... parameters) {
+        String[] command = new String[parameters.length + 2];
+        command[0] = "SQL";
+        command[1] = sql;
+        for (int i = 0; i < parameters.length; i++) {
+            command[i + 2] = parameters[i] == null ? "" : parameters[i].toString();
+        }
+        return command;
+    }
+
+    private static String[] selectCommand(String table, String where, String... options) {
+        String[] head = where == null ? new String[]{"SELECT", table} : new String[]{"SELECT", table, where};
+        return concat(head, options);
+    }
+
+    private static String[] concat(String[] a, String[] b) {
+        String[] out = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, out, a.length, b.length);
+        return out;
+    }
+
+    private static class Connection {
+        private final Socket socket;
+        private final Resp.Reader reader;
+        private final Resp.Writer writer;
+        private boolean broken;
+
+        Connection(String host, int port) throws IOException {
+            socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(host, port), 5000);
+            reader = new Resp.Reader(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+            writer = new Resp.Writer(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+        }
+
+        Object roundTrip(String... command) throws IOException {
+            try {
+                writer.writeCommand(command);
+                writer.flush();
+                return reader.readReply();
+            } catch (IOException e) {
+                broken = true;
+                throw e;
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    // Quick load test: java ...DatabaseClient [host] [port] [connections] [opsPerConnection]
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 6380;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int ops = args.length > 3 ? Integer.parseInt(args[3]) : 250_000;
+
+        try (DatabaseClient client = new DatabaseClient(host, port, connections)) {
+            String table = "bench_" + System.currentTimeMillis();
+            client.createTable(table, "id:int", "name");
+
+            long start = System.nanoTime();
+            List<Thread> workers = new ArrayList<>();
+            for (int c = 0; c < connections; c++) {
+                int worker = c;
+                workers.add(Thread.ofPlatform().start(() -> {
+                    try (Session session = client.session()) {
+                        Pipeline pipeline = session.pipeline();
+                        for (int i = 0; i < ops; i++) {
+                            pipeline.insert(table, worker * ops + i, "name" + i);
+                        }
+                        pipeline.sync();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long total = (long) connections * ops;
+            System.out.printf("%d pipelined inserts over %d connections in %.2f s: %.0f ops/sec%n",
+                    total, connections, seconds, total / seconds);
+        }
+    }
+}
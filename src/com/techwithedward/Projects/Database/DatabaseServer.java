@@ -0,0 +1,302 @@
+package com.techwithedward.Projects.Database;
+
+import com.techwithedward.Projects.InMemoryDB;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Serves an InMemoryDB over TCP with the Resp protocol. Every connection gets its own
+// virtual thread, so a connection is also a session: BEGIN/COMMIT apply to it alone.
+// Clients may pipeline: replies are buffered and flushed once no more requests are waiting.
+//
+// Commands (one argument per array element):
+//   PING
+//   CREATE table col[:type]...                         -> +OK
+//   INSERT table value...                              -> :rowId (-1 inside a transaction)
+//   SELECT table [where] [COLUMNS c1,c2] [LIMIT n] [OFFSET m] [AFTER token]
+//                                                      -> *3 [column names] [rows: *n [id, values...]] token
+//   SQL statement [parameter...]                       -> SELECT: as above; UPDATE/DELETE: :count
+//                                                         (? in the statement takes the next parameter)
+//   UPDATE table col=value where                       -> :count
+//   DELETE table where|ALL                             -> :count
+//   INDEX table column [HASH|ORDERED|BITMAP|FULLTEXT]  -> +OK
+//   EXPLAIN table where                                -> $plan
+//   STATS [RESET]                                      -> $report | +OK
+//   SLOWLOG thresholdMillis                            -> +OK (0 turns the slow-query log off)
+//   CHANGES fromSequence [max] [waitMillis]            -> *3 :missed :nextSequence
+//                                                         [events: *n [seq, commitTs, type, table, rowId, before, after]]
+//   BEGIN | COMMIT | ROLLBACK                          -> +OK
+//   QUIT
+public class DatabaseServer implements AutoCloseable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InMemoryDB db;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private volatile boolean running = true;
+
+    public DatabaseServer(InMemoryDB db, int port) throws IOException {
+        this.db = db;
+        this.serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(port), 1024);
+        // Statement feedback is for the console REPL, not for remote callers
+        db.setConsole(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getActiveConnections() {
+        return activeConnections.get();
+    }
+
+    // Accepts connections on the calling thread until close()
+    public void serve() {
+        System.out.println("InMemoryDB server listening on port " + getPort());
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.submit(() -> handle(socket));
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    private void handle(Socket socket) {
+        activeConnections.incrementAndGet();
+        try (socket) {
+            Resp.Reader in = new Resp.Reader(new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE));
+            Resp.Writer out = new Resp.Writer(new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE));
+            List<String> command;
+            while ((command = in.readCommand()) != null) {
+                if (!command.isEmpty() && command.get(0).equalsIgnoreCase("QUIT")) {
+                    out.writeSimple("OK");
+                    break;
+                }
+                try {
+                    execute(command, out);
+                } catch (RuntimeException e) {
+                    out.writeError("ERR " + e.getMessage());
+                }
+                // Batch replies for pipelined requests into one write
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            // Client went away
+        } finally {
+            // A dropped connection abandons its transaction
+            if (db.inTransaction()) {
+                db.rollback();
+            }
+            activeConnections.decrementAndGet();
+        }
+    }
+
+    private void execute(List<String> args, Resp.Writer out) throws IOException {
+        if (args.isEmpty()) throw new IllegalArgumentException("Empty command");
+        String name = args.get(0).toUpperCase(Locale.ROOT);
+        switch (name) {
+            case "PING" -> out.writeSimple("PONG");
+            case "CREATE" -> {
+                require(args, 3, "CREATE table column...");
+                db.createTable(args.get(1), args.subList(2, args.size()).toArray(new String[0]));
+                out.writeSimple("OK");
+            }
+            case "INSERT" -> {
+                require(args, 3, "INSERT table value...");
+                out.writeInteger(db.insert(args.get(1), args.subList(2, args.size()).toArray(new String[0])));
+            }
+            case "SELECT" -> select(args, out);
+            case "SQL" -> sql(args, out);
+            case "UPDATE" -> {
+                require(args, 4, "UPDATE table col=value where");
+                out.writeInteger(db.update(args.get(1), args.get(2), args.get(3)));
+            }
+            case "DELETE" -> {
+                require(args, 3, "DELETE table where");
+                out.writeInteger(db.delete(args.get(1), args.get(2)));
+            }
+            case "INDEX" -> {
+                require(args, 3, "INDEX table column [HASH|ORDERED|BITMAP|FULLTEXT]");
+                IndexType type = args.size() > 3 ? IndexType.valueOf(args.get(3).toUpperCase(Locale.ROOT)) : IndexType.HASH;
+                db.createIndex(args.get(1), args.get(2), type);
+                out.writeSimple("OK");
+            }
+            case "EXPLAIN" -> {
+                require(args, 3, "EXPLAIN table where");
+                out.writeBulk(db.explain(args.get(1), args.get(2)));
+            }
+            case "STATS" -> {
+                if (args.size() > 1 && args.get(1).equalsIgnoreCase("RESET")) {
+                    db.getMetrics().reset();
+                    out.writeSimple("OK");
+                } else {
+                    out.writeBulk(db.stats());
+                }
+            }
+            case "SLOWLOG" -> {
+                require(args, 2, "SLOWLOG thresholdMillis");
+                db.setSlowQueryThreshold(Long.parseLong(args.get(1)));
+                out.writeSimple("OK");
+            }
+            case "CHANGES" -> changes(args, out);
+            case "BEGIN" -> {
+                db.begin();
+                out.writeSimple("OK");
+            }
+            case "COMMIT" -> {
+                db.commit();
+                out.writeSimple("OK");
+            }
+            case "ROLLBACK" -> {
+                db.rollback();
+                out.writeSimple("OK");
+            }
+            default -> throw new IllegalArgumentException("Unknown command " + name);
+        }
+    }
+
+    private void select(List<String> args, Resp.Writer out) throws IOException {
+        require(args, 2, "SELECT table [where] [COLUMNS c1,c2] [LIMIT n] [OFFSET m] [AFTER token]");
+        Query query = db.query(args.get(1));
+        int i = 2;
+        if (i < args.size() && !isSelectOption(args.get(i))) {
+            query.where(args.get(i++));
+        }
+        for (; i + 1 < args.size(); i += 2) {
+            String value = args.get(i + 1);
+            switch (args.get(i).toUpperCase(Locale.ROOT)) {
+                case "COLUMNS" -> query.select(value.split(","));
+                case "LIMIT" -> query.limit(Long.parseLong(value));
+                case "OFFSET" -> query.offset(Long.parseLong(value));
+                case "AFTER" -> query.after(value);
+                default -> throw new IllegalArgumentException("Unknown SELECT option " + args.get(i));
+            }
+        }
+        if (i < args.size()) throw new IllegalArgumentException("Missing value for " + args.get(i));
+
+        try (Cursor cursor = query.cursor()) {
+            writeRows(cursor, out);
+        }
+    }
+
+    // Prepared statements are cached by text, so clients that repeat a statement with ?
+    // parameters skip parsing and planning
+    private void sql(List<String> args, Resp.Writer out) throws IOException {
+        require(args, 2, "SQL statement [parameter...]");
+        PreparedStatement statement = db.prepare(args.get(1));
+        Object[] parameters = args.subList(2, args.size()).toArray();
+        if (statement.getKind() != PreparedStatement.Kind.SELECT) {
+            out.writeInteger(statement.update(parameters));
+            return;
+        }
+        try (Cursor cursor = statement.query(parameters)) {
+            writeRows(cursor, out);
+        }
+    }
+
+    // The array header carries the row count, so the page is collected before it is written;
+    // callers bound it with LIMIT and page on with AFTER
+    private static void writeRows(Cursor cursor, Resp.Writer out) throws IOException {
+        List<Row> rows = new ArrayList<>();
+        cursor.forEachRemaining(rows::add);
+        String token = cursor.nextPageToken();
+
+        String[] names = cursor.getColumnNames();
+        out.writeArrayHeader(3);
+        out.writeArrayHeader(names.length);
+        for (String column : names) {
+            out.writeBulk(column);
+        }
+        out.writeArrayHeader(rows.size());
+        for (Row row : rows) {
+            out.writeArrayHeader(row.size() + 1);
+            out.writeInteger(row.getId());
+            for (int c = 0; c < row.size(); c++) {
+                out.writeValue(row.get(c));
+            }
+        }
+        out.writeBulk(token);
+    }
+
+    // Long-poll for the change feed: a caller that is caught up waits up to waitMillis for the next
+    // commit. Resuming is stateless, so each caller just passes back the next sequence it got.
+    private void changes(List<String> args, Resp.Writer out) throws IOException {
+        require(args, 2, "CHANGES fromSequence [max] [waitMillis]");
+        long from = Long.parseLong(args.get(1));
+        int max = args.size() > 2 ? Integer.parseInt(args.get(2)) : 1000;
+        long waitMillis = args.size() > 3 ? Long.parseLong(args.get(3)) : 0;
+        ChangeStream.Batch batch;
+        try (ChangeStream.Subscription subscription = db.getChanges().subscribe(from)) {
+            batch = subscription.poll(max, waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted");
+        }
+
+        out.writeArrayHeader(3);
+        out.writeInteger(batch.missed());
+        out.writeInteger(batch.nextSequence());
+        out.writeArrayHeader(batch.events().size());
+        for (ChangeEvent event : batch.events()) {
+            out.writeArrayHeader(7);
+            out.writeInteger(event.sequence());
+            out.writeInteger(event.commitTs());
+            out.writeBulk(event.type().name());
+            out.writeBulk(event.table());
+            out.writeInteger(event.rowId());
+            writeRow(out, event.before());
+            writeRow(out, event.after());
+        }
+    }
+
+    private static void writeRow(Resp.Writer out, Object[] row) throws IOException {
+        if (row == null) {
+            out.writeNull();
+            return;
+        }
+        out.writeArrayHeader(row.length);
+        for (Object value : row) {
+            out.writeValue(value);
+        }
+    }
+
+    private static boolean isSelectOption(String arg) {
+        return switch (arg.toUpperCase(Locale.ROOT)) {
+            case "COLUMNS", "LIMIT", "OFFSET", "AFTER" -> true;
+            default -> false;
+        };
+    }
+
+    private static void require(List<String> args, int count, String usage) {
+        if (args.size() < count) {
+            throw new IllegalArgumentException("Usage: " + usage);
+        }
+    }
+}
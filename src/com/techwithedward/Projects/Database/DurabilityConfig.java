@@ -0,0 +1,48 @@
+package com.techwithedward.Projects.Database;
+
+public class DurabilityConfig {
+    public enum SyncMode {
+        // fsync before every write returns; concurrent writers share one fsync (group commit)
+        ALWAYS,
+        // fsync once batchSize records are pending, or every syncIntervalMillis
+        BATCH,
+        // leave flushing to the OS; a crash can lose recent writes
+        NONE
+    }
+
+    private final SyncMode syncMode;
+    private final int batchSize;
+    private final long syncIntervalMillis;
+    private final long snapshotIntervalSeconds;
+
+    public DurabilityConfig(SyncMode syncMode, int batchSize, long syncIntervalMillis, long snapshotIntervalSeconds) {
+        if (batchSize < 1 || syncIntervalMillis < 1) {
+            throw new IllegalArgumentException("batchSize and syncIntervalMillis must be positive");
+        }
+        this.syncMode = syncMode;
+        this.batchSize = batchSize;
+        this.syncIntervalMillis = syncIntervalMillis;
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+    }
+
+    public static DurabilityConfig defaults() {
+        return new DurabilityConfig(SyncMode.BATCH, 256, 10, 300);
+    }
+
+    public SyncMode getSyncMode() {
+        return syncMode;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getSyncIntervalMillis() {
+        return syncIntervalMillis;
+    }
+
+    // 0 disables periodic snapshots
+    public long getSnapshotIntervalSeconds() {
+        return snapshotIntervalSeconds;
+    }
+}
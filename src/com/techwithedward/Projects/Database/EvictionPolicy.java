@@ -0,0 +1,19 @@
+package com.techwithedward.Projects.Database;
+
+// Decides which row a bounded table gives up next. Rows are tracked by row id from insert until
+// delete; reads are fed in afterwards and may name ids that are gone by then, which must be
+// ignored. Only called with the commit lock held.
+public interface EvictionPolicy {
+    EvictionType getType();
+
+    void onInsert(int slot);
+
+    void onAccess(int slot);
+
+    void onRemove(int slot);
+
+    // Next row to evict, or -1 when nothing is tracked; it stays tracked until onRemove
+    int victim();
+
+    int size();
+}
@@ -0,0 +1,15 @@
+package com.techwithedward.Projects.Database;
+
+public enum EvictionType {
+    LRU,
+    LFU,
+    W_TINY_LFU;
+
+    public EvictionPolicy create() {
+        return switch (this) {
+            case LRU -> new LruPolicy();
+            case LFU -> new LfuPolicy();
+            case W_TINY_LFU -> new WTinyLfuPolicy();
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package com.techwithedward.Projects.Database;
+
+// Count-min sketch of 4-bit counters, sixteen to a long, estimating how often each row id was
+// used recently. All counters are halved once the sample period fills, so the estimate tracks
+// recent popularity rather than all-time totals.
+public class FrequencySketch {
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private long[] table = new long[16];
+    private int sampleSize = 160;
+    private int additions;
+
+    // Sized for about this many distinct rows; growing clears the history
+    public void ensureCapacity(int rows) {
+        if (rows > table.length) {
+            table = new long[Integer.highestOneBit(Math.min(rows, 1 << 30) - 1) << 1];
+            sampleSize = 10 * table.length;
+            additions = 0;
+        }
+    }
+
+    public int frequency(int key) {
+        int hash = spread(key);
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int offset = (start + i) << 2;
+            frequency = Math.min(frequency, (int) ((table[indexOf(hash, i)] >>> offset) & 0xF));
+        }
+        return frequency;
+    }
+
+    public void increment(int key) {
+        int hash = spread(key);
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int offset = (start + i) << 2;
+            if (((table[index] >>> offset) & 0xF) != 0xF) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            additions = sampleSize / 2;
+        }
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return (int) h & (table.length - 1);
+    }
+
+    private static int spread(int key) {
+        int x = ((key >>> 16) ^ key) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
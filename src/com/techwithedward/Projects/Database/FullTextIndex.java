@@ -0,0 +1,225 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Inverted index for text search on STRING columns: values are split into lowercase tokens of
+// letters and digits, and every token maps to a PostingList of the rows containing it. Terms
+// are kept sorted, so a prefix query reads one contiguous range of them. Answers
+// col MATCH 'query' conditions (see Query); every other operator is left to other access paths.
+//
+// Writers arrive under the table's commit lock stripe, one at a time; readers lock one
+// posting list at a time while they copy it.
+public class FullTextIndex implements Index {
+    // Words are ANDed; OR between words starts another group; word* matches any token it prefixes
+    public record Query(List<List<Term>> groups) {
+        public static Query parse(String text) {
+            List<List<Term>> groups = new ArrayList<>();
+            List<Term> group = new ArrayList<>();
+            for (String word : text.trim().split("\\s+")) {
+                if (word.equals("OR")) {
+                    if (!group.isEmpty()) groups.add(List.copyOf(group));
+                    group = new ArrayList<>();
+                    continue;
+                }
+                boolean prefix = word.endsWith("*");
+                List<String> tokens = tokenize(prefix ? word.substring(0, word.length() - 1) : word);
+                for (int i = 0; i < tokens.size(); i++) {
+                    group.add(new Term(tokens.get(i), prefix && i == tokens.size() - 1));
+                }
+            }
+            if (!group.isEmpty()) groups.add(List.copyOf(group));
+            if (groups.isEmpty()) {
+                throw new IllegalArgumentException("MATCH needs at least one word: '" + text + "'");
+            }
+            return new Query(List.copyOf(groups));
+        }
+
+        // What the index answers, checked against one value: used by scans and re-checks
+        public boolean matches(String text) {
+            Set<String> tokens = new HashSet<>(tokenize(text));
+            for (List<Term> group : groups) {
+                boolean all = true;
+                for (int i = 0; i < group.size() && all; i++) {
+                    all = group.get(i).matchesAny(tokens);
+                }
+                if (all) return true;
+            }
+            return false;
+        }
+    }
+
+    public record Term(String text, boolean prefix) {
+        boolean matchesAny(Set<String> tokens) {
+            if (!prefix) return tokens.contains(text);
+            for (String token : tokens) {
+                if (token.startsWith(text)) return true;
+            }
+            return false;
+        }
+    }
+
+    private final String column;
+    private final ConcurrentSkipListMap<String, PostingList> terms = new ConcurrentSkipListMap<>();
+
+    public FullTextIndex(String column) {
+        this.column = column;
+    }
+
+    // Maximal runs of letters and digits, lowercased
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    @Override
+    public String getColumn() {
+        return column;
+    }
+
+    @Override
+    public IndexType getType() {
+        return IndexType.FULLTEXT;
+    }
+
+    @Override
+    public void add(Object value, int rowId) {
+        if (value == null) return;
+        for (String token : new HashSet<>(tokenize(value.toString()))) {
+            PostingList ids = terms.computeIfAbsent(token, t -> new PostingList());
+            synchronized (ids) {
+                ids.add(rowId);
+            }
+        }
+    }
+
+    @Override
+    public void remove(Object value, int rowId) {
+        if (value == null) return;
+        for (String token : new HashSet<>(tokenize(value.toString()))) {
+            PostingList ids = terms.get(token);
+            if (ids == null) continue;
+            synchronized (ids) {
+                ids.remove(rowId);
+                if (ids.isEmpty()) {
+                    terms.remove(token, ids);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        terms.clear();
+    }
+
+    @Override
+    public boolean supports(Condition condition) {
+        return condition.getOperator() == Condition.Operator.MATCH;
+    }
+
+    // Intersects the terms of each group, rarest first, and unions the groups
+    @Override
+    public IntList find(Condition condition) {
+        Query query = (Query) condition.getValue();
+        IntList result = null;
+        for (List<Term> group : query.groups()) {
+            List<Term> ordered = new ArrayList<>(group);
+            ordered.sort(Comparator.comparingLong(this::estimate));
+            IntList ids = null;
+            for (Term term : ordered) {
+                IntList next = ids(term);
+                ids = ids == null ? next : Predicate.intersect(ids, next);
+                if (ids.isEmpty()) break;
+            }
+            result = result == null ? ids : Predicate.union(result, ids);
+        }
+        return result;
+    }
+
+    @Override
+    public IntList lookup(Object value) {
+        throw new UnsupportedOperationException("A full-text index cannot look up whole values");
+    }
+
+    // Upper bound on the rows a MATCH condition returns, for the planner
+    public long estimate(Condition condition) {
+        long rows = 0;
+        for (List<Term> group : ((Query) condition.getValue()).groups()) {
+            long smallest = Long.MAX_VALUE;
+            for (Term term : group) {
+                smallest = Math.min(smallest, estimate(term));
+            }
+            rows += smallest;
+        }
+        return rows;
+    }
+
+    public int distinctTerms() {
+        return terms.size();
+    }
+
+    public long memoryBytes() {
+        long bytes = 0;
+        for (Map.Entry<String, PostingList> entry : terms.entrySet()) {
+            synchronized (entry.getValue()) {
+                bytes += entry.getValue().memoryBytes();
+            }
+            bytes += 2L * entry.getKey().length() + 80;
+        }
+        return bytes;
+    }
+
+    private long estimate(Term term) {
+        long rows = 0;
+        for (PostingList ids : range(term).values()) {
+            synchronized (ids) {
+                rows += ids.size();
+            }
+        }
+        return rows;
+    }
+
+    // Ascending ids of the rows holding the term, or for a prefix any term it starts
+    private IntList ids(Term term) {
+        Collection<PostingList> lists = range(term).values();
+        if (!term.prefix()) {
+            for (PostingList ids : lists) {
+                synchronized (ids) {
+                    return ids.toIntList();
+                }
+            }
+            return new IntList();
+        }
+        // Concatenate, sort and drop duplicates instead of merging the lists pairwise
+        IntList all = new IntList();
+        for (PostingList ids : lists) {
+            synchronized (ids) {
+                all.addAll(ids.toIntList());
+            }
+        }
+        int[] sorted = all.toArray();
+        Arrays.sort(sorted);
+        IntList out = new IntList(sorted.length);
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) out.add(sorted[i]);
+        }
+        return out;
+    }
+
+    private NavigableMap<String, PostingList> range(Term term) {
+        return term.prefix()
+                ? terms.subMap(term.text(), true, term.text() + Character.MAX_VALUE, true)
+                : terms.subMap(term.text(), true, term.text(), true);
+    }
+}
@@ -0,0 +1,103 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Secondary index: column value -> ids of the rows holding that value
+public class HashIndex implements Index {
+    private final String column;
+    private final Map<Object, RowIdSet> entries = new ConcurrentHashMap<>();
+
+    public HashIndex(String column) {
+        this.column = column;
+    }
+
+    @Override
+    public String getColumn() {
+        return column;
+    }
+
+    @Override
+    public IndexType getType() {
+        return IndexType.HASH;
+    }
+
+    @Override
+    public void add(Object value, int rowId) {
+        if (value == null) return;
+        entries.computeIfAbsent(value, k -> new RowIdSet()).add(rowId);
+    }
+
+    @Override
+    public void remove(Object value, int rowId) {
+        if (value == null) return;
+        // Drop the bucket once it is empty so stale values don't pile up
+        entries.computeIfPresent(value, (k, ids) -> {
+            ids.remove(rowId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    @Override
+    public IntList lookup(Object value) {
+        RowIdSet ids = value == null ? null : entries.get(value);
+        return ids == null ? new IntList() : ids.copy();
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public boolean supports(Condition condition) {
+        return condition.getOperator() == Condition.Operator.EQ;
+    }
+
+    @Override
+    public IntList find(Condition condition) {
+        return lookup(condition.getValue());
+    }
+
+    public int distinctValues() {
+        return entries.size();
+    }
+
+    // Sorted int array; row ids mostly arrive in increasing order, so adds are appends
+    private static final class RowIdSet {
+        private int[] ids = new int[2];
+        private int size;
+
+        synchronized void add(int id) {
+            int pos = size == 0 || ids[size - 1] < id ? -(size + 1) : Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) return;
+            pos = -(pos + 1);
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+
+        synchronized void remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+                size--;
+            }
+        }
+
+        synchronized boolean isEmpty() {
+            return size == 0;
+        }
+
+        synchronized IntList copy() {
+            IntList list = new IntList(size);
+            for (int i = 0; i < size; i++) {
+                list.add(ids[i]);
+            }
+            return list;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.techwithedward.Projects.Database;
+
+// A secondary index over one column of a table
+public interface Index {
+    String getColumn();
+
+    IndexType getType();
+
+    void add(Object value, int rowId);
+
+    void remove(Object value, int rowId);
+
+    void clear();
+
+    // Whether find() can answer this condition without a table scan
+    boolean supports(Condition condition);
+
+    // condition must already be bound to the column's type
+    IntList find(Condition condition);
+
+    // Rows holding exactly this value, which must already have the column's type
+    IntList lookup(Object value);
+}
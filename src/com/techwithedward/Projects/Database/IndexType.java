@@ -0,0 +1,22 @@
+package com.techwithedward.Projects.Database;
+
+public enum IndexType {
+    HASH,
+    ORDERED,
+    BITMAP,
+    FULLTEXT;
+
+    public Index create(String column, ColumnType type) {
+        return switch (this) {
+            case HASH -> new HashIndex(column);
+            case ORDERED -> new OrderedIndex(column, type);
+            case BITMAP -> new BitmapIndex(column);
+            case FULLTEXT -> {
+                if (type != ColumnType.STRING) {
+                    throw new IllegalArgumentException("A full-text index needs a STRING column, " + column + " is " + type);
+                }
+                yield new FullTextIndex(column);
+            }
+        };
+    }
+}
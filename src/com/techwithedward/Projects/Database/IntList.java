@@ -0,0 +1,58 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.Arrays;
+
+// Growable int array; avoids boxing row ids into List<Integer>
+public class IntList {
+    private int[] data;
+    private int size;
+
+    public IntList() {
+        this(16);
+    }
+
+    public IntList(int capacity) {
+        data = new int[Math.max(capacity, 4)];
+    }
+
+    public void add(int value) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        data[size++] = value;
+    }
+
+    public void addAll(IntList other) {
+        if (size + other.size > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, size + other.size));
+        }
+        System.arraycopy(other.data, 0, data, size, other.size);
+        size += other.size;
+    }
+
+    public int get(int i) {
+        if (i >= size) throw new IndexOutOfBoundsException(i);
+        return data[i];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    // Backing array without copying; only the first size() elements are meaningful
+    public int[] elements() {
+        return data;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+}
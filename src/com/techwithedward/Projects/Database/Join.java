@@ -0,0 +1,405 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.*;
+import java.util.function.IntPredicate;
+
+// Equi-join of two tables on one column each: SELECT ... FROM a JOIN b ON a.x = b.y.
+// A hash join builds a chained hash table over the smaller input and streams the other input
+// through it. When that table would outgrow the memory limit, both inputs are first split
+// into partitions by key hash (grace hash join) and each partition pair is joined on its own,
+// so only one partition's table exists at a time. An index nested-loop join never reads the
+// inner input: every outer key is looked up in the inner table's index instead.
+// Joined rows are laid out as the left table's columns followed by the right table's.
+public class Join {
+    // Rough heap bytes per build row: the chain and hash slots plus the key reference and object
+    public static final int ENTRY_BYTES = 48;
+    public static final long DEFAULT_MEMORY_LIMIT = 64L << 20;
+    private static final int MAX_PARTITIONS = 1024;
+
+    public record Result(String[] columns, List<Object[]> rows) {
+    }
+
+    // One side of the join: visible matching slots of its table, plus the current
+    // transaction's own inserts that match
+    public static final class Input implements Values {
+        private final Table table;
+        private final int key;
+        private final IntList slots;
+        private final List<Object[]> pending;
+
+        public Input(Table table, int key, IntList slots, List<Object[]> pending) {
+            this.table = table;
+            this.key = key;
+            this.slots = slots;
+            this.pending = pending;
+        }
+
+        public int size() {
+            return slots.size() + pending.size();
+        }
+
+        @Override
+        public Object value(int row, int column) {
+            return row < slots.size() ? table.get(slots.get(row), column) : pending.get(row - slots.size())[column];
+        }
+    }
+
+    // Inner side of an index nested-loop join: the index plus what a candidate slot must pass
+    public static final class Lookup {
+        private final Table table;
+        private final Index index;
+        private final Predicate predicate;
+        private final IntPredicate visible;
+        private final List<Object[]> pending;
+
+        // predicate may be null; pending rows must already match it
+        public Lookup(Table table, Index index, Predicate predicate, IntPredicate visible, List<Object[]> pending) {
+            this.table = table;
+            this.index = index;
+            this.predicate = predicate;
+            this.visible = visible;
+            this.pending = pending;
+        }
+    }
+
+    private final Table left;
+    private final Table right;
+    private final int leftKey;
+    private final int rightKey;
+    // Common type both keys are compared in
+    private final ColumnType keyType;
+    private final int leftWidth;
+    // Joined-row positions of the output columns
+    private int[] projection;
+    private String[] names;
+
+    public Join(Table left, String leftKey, Table right, String rightKey) {
+        if (left == right) {
+            throw new IllegalArgumentException("Self-joins are not supported");
+        }
+        this.left = left;
+        this.right = right;
+        this.leftKey = left.getSchema().indexOf(leftKey);
+        this.rightKey = right.getSchema().indexOf(rightKey);
+        this.keyType = commonType(left.getSchema().type(this.leftKey), right.getSchema().type(this.rightKey));
+        this.leftWidth = left.getSchema().size();
+        selectAll();
+    }
+
+    public int getLeftKey() {
+        return leftKey;
+    }
+
+    public int getRightKey() {
+        return rightKey;
+    }
+
+    // "*" or a comma-separated list of [table.]column
+    public void select(String columns) {
+        if (columns.trim().equals("*")) {
+            selectAll();
+            return;
+        }
+        String[] refs = columns.split(",");
+        projection = new int[refs.length];
+        names = new String[refs.length];
+        for (int i = 0; i < refs.length; i++) {
+            projection[i] = resolve(refs[i].trim());
+            names[i] = qualifiedName(projection[i]);
+        }
+    }
+
+    // Splits a WHERE clause into one predicate per table (null when a table has no conditions)
+    // so each side is filtered before joining. Top-level conditions may reference either table;
+    // an OR must stay within one table.
+    public Predicate[] pushDown(Predicate where) {
+        List<List<Predicate>> sides = List.of(new ArrayList<>(), new ArrayList<>());
+        List<Predicate> conjuncts = where instanceof Predicate.And and ? and.getChildren() : List.of(where);
+        for (Predicate conjunct : conjuncts) {
+            int side = sideOf(conjunct);
+            sides.get(side).add(unqualify(conjunct));
+        }
+        Predicate[] filters = new Predicate[2];
+        for (int side = 0; side < 2; side++) {
+            if (!sides.get(side).isEmpty()) {
+                filters[side] = Predicate.And.of(sides.get(side)).bind((side == 0 ? left : right).getSchema());
+            }
+        }
+        return filters;
+    }
+
+    public Result hash(Input leftInput, Input rightInput, boolean buildLeft, int partitions, long limit) {
+        Input build = buildLeft ? leftInput : rightInput;
+        Input probe = buildLeft ? rightInput : leftInput;
+        int[] buildHashes = hashes(build);
+        int[] probeHashes = hashes(probe);
+        List<Object[]> rows = new ArrayList<>();
+
+        if (partitions <= 1) {
+            HashTable table = new HashTable(build, buildHashes, range(build.size()));
+            probe(table, probe, probeHashes, range(probe.size()), buildLeft, rows, limit);
+            return new Result(names.clone(), rows);
+        }
+
+        // Partition on the top hash bits; the per-partition tables index by the low bits
+        int bits = Integer.numberOfTrailingZeros(partitions);
+        IntList[] buildParts = partition(buildHashes, bits);
+        IntList[] probeParts = partition(probeHashes, bits);
+        for (int p = 0; p < partitions && rows.size() < limit; p++) {
+            if (buildParts[p].isEmpty() || probeParts[p].isEmpty()) continue;
+            HashTable table = new HashTable(build, buildHashes, buildParts[p]);
+            probe(table, probe, probeHashes, probeParts[p], buildLeft, rows, limit);
+        }
+        return new Result(names.clone(), rows);
+    }
+
+    public Result indexNestedLoop(Input outer, boolean outerLeft, Lookup inner, long limit) {
+        ColumnType innerType = inner.table.getSchema().type(outerLeft ? rightKey : leftKey);
+        Input pending = new Input(inner.table, outerLeft ? rightKey : leftKey, new IntList(), inner.pending);
+        HashTable pendingTable = pending.size() == 0 ? null
+                : new HashTable(pending, hashes(pending), range(pending.size()));
+        List<Object[]> rows = new ArrayList<>();
+
+        for (int row = 0; row < outer.size() && rows.size() < limit; row++) {
+            Object key = normalize(outer.value(row, outer.key));
+            if (key == null) continue;
+            Object value = narrow(key, innerType);
+            if (value != null) {
+                IntList candidates = inner.index.lookup(value);
+                for (int i = 0; i < candidates.size() && rows.size() < limit; i++) {
+                    int slot = candidates.get(i);
+                    if (inner.visible.test(slot) && (inner.predicate == null || inner.predicate.matches(inner.table, slot))) {
+                        emit(outer, row, inner.table::get, slot, outerLeft, rows);
+                    }
+                }
+            }
+            if (pendingTable != null) {
+                pendingTable.match(key, mix(key.hashCode()), outer, row, outerLeft, rows, limit);
+            }
+        }
+        return new Result(names.clone(), rows);
+    }
+
+    private void probe(HashTable table, Input probe, int[] hashes, IntList rows, boolean buildLeft,
+                       List<Object[]> out, long limit) {
+        for (int i = 0; i < rows.size() && out.size() < limit; i++) {
+            int row = rows.get(i);
+            Object key = normalize(probe.value(row, probe.key));
+            if (key != null) {
+                table.match(key, hashes[row], probe, row, !buildLeft, out, limit);
+            }
+        }
+    }
+
+    // Appends the projected join of a row from one side with a row from the other
+    private void emit(Values probe, int probeRow, Values match, int matchRow, boolean probeLeft, List<Object[]> out) {
+        Object[] row = new Object[projection.length];
+        for (int i = 0; i < projection.length; i++) {
+            int column = projection[i];
+            boolean fromLeft = column < leftWidth;
+            Values source = fromLeft == probeLeft ? probe : match;
+            int sourceRow = fromLeft == probeLeft ? probeRow : matchRow;
+            row[i] = source.value(sourceRow, fromLeft ? column : column - leftWidth);
+        }
+        out.add(row);
+    }
+
+    @FunctionalInterface
+    interface Values {
+        Object value(int row, int column);
+    }
+
+    // Chained hash table over some rows of the build input. heads holds entry + 1 per bucket,
+    // 0 = empty, and next links entries whose hashes share a bucket.
+    private final class HashTable {
+        private final Input build;
+        private final int[] heads;
+        private final int[] next;
+        private final int[] hashes;
+        private final int[] rows;
+        private final Object[] keys;
+        private final int mask;
+
+        HashTable(Input build, int[] rowHashes, IntList members) {
+            this.build = build;
+            int n = members.size();
+            this.heads = new int[Integer.highestOneBit(Math.max(1, n) * 2 - 1) * 2];
+            this.mask = heads.length - 1;
+            this.next = new int[n];
+            this.hashes = new int[n];
+            this.rows = new int[n];
+            this.keys = new Object[n];
+            int size = 0;
+            for (int i = 0; i < n; i++) {
+                int row = members.get(i);
+                Object key = normalize(build.value(row, build.key));
+                if (key == null) continue;
+                hashes[size] = rowHashes[row];
+                rows[size] = row;
+                keys[size] = key;
+                int bucket = rowHashes[row] & mask;
+                next[size] = heads[bucket];
+                heads[bucket] = ++size;
+            }
+        }
+
+        void match(Object key, int hash, Values probe, int probeRow, boolean probeLeft, List<Object[]> out, long limit) {
+            for (int e = heads[hash & mask]; e != 0 && out.size() < limit; e = next[e - 1]) {
+                if (hashes[e - 1] == hash && keys[e - 1].equals(key)) {
+                    emit(probe, probeRow, build::value, rows[e - 1], probeLeft, out);
+                }
+            }
+        }
+    }
+
+    private int[] hashes(Input input) {
+        int[] hashes = new int[input.size()];
+        for (int row = 0; row < hashes.length; row++) {
+            Object key = normalize(input.value(row, input.key));
+            hashes[row] = key == null ? 0 : mix(key.hashCode());
+        }
+        return hashes;
+    }
+
+    private static IntList[] partition(int[] hashes, int bits) {
+        IntList[] parts = new IntList[1 << bits];
+        for (int p = 0; p < parts.length; p++) parts[p] = new IntList();
+        for (int row = 0; row < hashes.length; row++) {
+            parts[hashes[row] >>> (32 - bits)].add(row);
+        }
+        return parts;
+    }
+
+    private static IntList range(int n) {
+        IntList rows = new IntList(n);
+        for (int i = 0; i < n; i++) rows.add(i);
+        return rows;
+    }
+
+    // Partitions needed for each build partition's table to fit the limit: a power of two
+    public static int partitionsFor(double buildRows, long memoryLimit) {
+        double bytes = buildRows * ENTRY_BYTES;
+        if (memoryLimit <= 0 || bytes <= memoryLimit) return 1;
+        int needed = (int) Math.min(MAX_PARTITIONS, Math.ceil(bytes / memoryLimit));
+        return Integer.highestOneBit(needed * 2 - 1);
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // Widens a key to the common join type so equal values compare equal across types
+    private Object normalize(Object value) {
+        if (value == null) return null;
+        return switch (keyType) {
+            case LONG -> ((Number) value).longValue();
+            // + 0.0 folds -0.0 into 0.0
+            case DOUBLE -> ((Number) value).doubleValue() + 0.0;
+            default -> value;
+        };
+    }
+
+    // Converts a normalized key to the inner column's type, or null if no value of that type equals it
+    private static Object narrow(Object key, ColumnType type) {
+        return switch (type) {
+            case INT -> {
+                double d = ((Number) key).doubleValue();
+                yield d == (int) d ? (Object) (int) d : null;
+            }
+            case LONG -> {
+                if (key instanceof Long) yield key;
+                double d = (Double) key;
+                yield d == (long) d && !Double.isInfinite(d) ? (Object) (long) d : null;
+            }
+            case DOUBLE -> ((Number) key).doubleValue();
+            default -> key;
+        };
+    }
+
+    private static ColumnType commonType(ColumnType a, ColumnType b) {
+        if (a == b) return a == ColumnType.INT ? ColumnType.LONG : a;
+        boolean aNumber = a == ColumnType.INT || a == ColumnType.LONG || a == ColumnType.DOUBLE;
+        boolean bNumber = b == ColumnType.INT || b == ColumnType.LONG || b == ColumnType.DOUBLE;
+        if (!aNumber || !bNumber) {
+            throw new IllegalArgumentException("Cannot join a " + a + " column with a " + b + " column");
+        }
+        return a == ColumnType.DOUBLE || b == ColumnType.DOUBLE ? ColumnType.DOUBLE : ColumnType.LONG;
+    }
+
+    // Joined-row position of [table.]column; bare names must be unique across both tables
+    private int resolve(String ref) {
+        int dot = ref.indexOf('.');
+        if (dot >= 0) {
+            String table = ref.substring(0, dot);
+            String column = ref.substring(dot + 1);
+            if (table.equals(left.getName())) return left.getSchema().indexOf(column);
+            if (table.equals(right.getName())) return leftWidth + right.getSchema().indexOf(column);
+            throw new IllegalArgumentException("Table '" + table + "' is not part of the join");
+        }
+        boolean inLeft = hasColumn(left, ref);
+        boolean inRight = hasColumn(right, ref);
+        if (inLeft && inRight) {
+            throw new IllegalArgumentException("Column '" + ref + "' is ambiguous; qualify it with a table name");
+        }
+        return inLeft ? left.getSchema().indexOf(ref) : leftWidth + right.getSchema().indexOf(ref);
+    }
+
+    private static boolean hasColumn(Table table, String column) {
+        for (int i = 0; i < table.getSchema().size(); i++) {
+            if (table.getSchema().name(i).equals(column)) return true;
+        }
+        return false;
+    }
+
+    // Private, unlike select(), so the constructor can set the default projection
+    private void selectAll() {
+        projection = new int[leftWidth + right.getSchema().size()];
+        names = new String[projection.length];
+        for (int i = 0; i < projection.length; i++) {
+            projection[i] = i;
+            names[i] = qualifiedName(i);
+        }
+    }
+
+    private String qualifiedName(int position) {
+        return position < leftWidth ? left.getName() + "." + left.getSchema().name(position)
+                : right.getName() + "." + right.getSchema().name(position - leftWidth);
+    }
+
+    private int sideOf(Predicate predicate) {
+        if (predicate instanceof Predicate.Leaf leaf) {
+            return resolve(leaf.getCondition().getColumn()) < leftWidth ? 0 : 1;
+        }
+        if (predicate instanceof Predicate.Not not) {
+            return sideOf(not.getChild());
+        }
+        List<Predicate> children = predicate instanceof Predicate.And and ? and.getChildren()
+                : ((Predicate.Or) predicate).getChildren();
+        int side = sideOf(children.get(0));
+        for (Predicate child : children) {
+            if (sideOf(child) != side) {
+                throw new IllegalArgumentException("OR conditions must all reference one table: " + predicate);
+            }
+        }
+        return side;
+    }
+
+    // Same predicate with table qualifiers stripped, ready to bind to that table's schema
+    private Predicate unqualify(Predicate predicate) {
+        if (predicate instanceof Predicate.Leaf leaf) {
+            Condition c = leaf.getCondition();
+            int position = resolve(c.getColumn());
+            String column = position < leftWidth ? left.getSchema().name(position)
+                    : right.getSchema().name(position - leftWidth);
+            return new Predicate.Leaf(new Condition(column, c.getOperator(), c.getRawValue(), c.getRawUpper()));
+        }
+        if (predicate instanceof Predicate.Not not) {
+            return new Predicate.Not((Predicate.Leaf) unqualify(not.getChild()));
+        }
+        if (predicate instanceof Predicate.And and) {
+            return new Predicate.And(and.getChildren().stream().map(this::unqualify).toList());
+        }
+        return new Predicate.Or(((Predicate.Or) predicate).getChildren().stream().map(this::unqualify).toList());
+    }
+}
@@ -0,0 +1,71 @@
+package com.techwithedward.Projects.Database;
+
+// How the QueryPlanner decided to run an equi-join, with its estimated output rows and cost.
+// For hash joins leftFirst means the left input is the build side; for an index nested-loop
+// join it means the left input is the outer side whose keys are looked up in the right's index.
+public class JoinPlan {
+    public enum Strategy {
+        HASH, GRACE_HASH, INDEX_NESTED_LOOP
+    }
+
+    private final Strategy strategy;
+    private final boolean leftFirst;
+    private final String first;
+    private final String second;
+    private final int partitions;
+    // Inner table's index on the join key; index nested-loop joins only
+    private final Index index;
+    private final double rows;
+    private final double cost;
+
+    public JoinPlan(Strategy strategy, boolean leftFirst, String first, String second, int partitions,
+                    Index index, double rows, double cost) {
+        this.strategy = strategy;
+        this.leftFirst = leftFirst;
+        this.first = first;
+        this.second = second;
+        this.partitions = partitions;
+        this.index = index;
+        this.rows = rows;
+        this.cost = cost;
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    public boolean isLeftFirst() {
+        return leftFirst;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public Index getIndex() {
+        return index;
+    }
+
+    public double getRows() {
+        return rows;
+    }
+
+    public double getCost() {
+        return cost;
+    }
+
+    public String describe() {
+        return switch (strategy) {
+            case HASH -> "hash join, build on " + first + ", probe with " + second;
+            case GRACE_HASH -> "grace hash join in " + partitions + " partitions, build on " + first
+                    + ", probe with " + second;
+            case INDEX_NESTED_LOOP -> "index nested-loop join, " + first + " rows looked up in "
+                    + index.getClass().getSimpleName() + " on " + second + "." + index.getColumn();
+        };
+    }
+
+    @Override
+    public String toString() {
+        return describe() + String.format(" (est. rows %.0f, cost %.1f)", rows, cost);
+    }
+}
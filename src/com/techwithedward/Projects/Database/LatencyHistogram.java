@@ -0,0 +1,100 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Log-linear histogram of durations in nanoseconds, in the style of HdrHistogram: every power of
+// two is split into 16 equal buckets, so a reported percentile is within 1/16 (6.25%) of the true
+// value from 1 ns up to the whole long range, in under a thousand buckets. Buckets are LongAdders,
+// so concurrent recorders never contend on one cache line; reads sum them without locking and may
+// miss samples recorded at the same time.
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    public record Snapshot(long count, long meanNanos, long p50Nanos, long p90Nanos, long p99Nanos,
+                           long p999Nanos, long maxNanos) {
+        @Override
+        public String toString() {
+            if (count == 0) return "no samples";
+            return String.format("count=%d mean=%s p50=%s p90=%s p99=%s p99.9=%s max=%s", count,
+                    format(meanNanos), format(p50Nanos), format(p90Nanos), format(p99Nanos),
+                    format(p999Nanos), format(maxNanos));
+        }
+
+        static String format(long nanos) {
+            if (nanos < 10_000) return nanos + "ns";
+            if (nanos < 10_000_000) return nanos / 1_000 + "us";
+            return nanos / 1_000_000 + "ms";
+        }
+    }
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[bucket(value)].increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts[i].sum();
+            count += copy[i];
+        }
+        if (count == 0) {
+            return new Snapshot(0, 0, 0, 0, 0, 0, 0);
+        }
+        long highest = max.get();
+        return new Snapshot(count, total.sum() / count,
+                Math.min(highest, percentile(copy, count, 0.50)), Math.min(highest, percentile(copy, count, 0.90)),
+                Math.min(highest, percentile(copy, count, 0.99)), Math.min(highest, percentile(copy, count, 0.999)),
+                highest);
+    }
+
+    public void reset() {
+        for (LongAdder count : counts) {
+            count.reset();
+        }
+        total.reset();
+        max.reset();
+    }
+
+    // Values below 16 get a bucket each; above, the top 4 bits below the leading one pick the bucket
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // Largest value that falls into the bucket
+    static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long mantissa = SUB_BUCKETS + bucket % SUB_BUCKETS;
+        return ((mantissa + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    private static long percentile(long[] counts, long count, double fraction) {
+        long rank = Math.max(1, (long) Math.ceil(count * fraction));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return highestValue(i);
+        }
+        return highestValue(counts.length - 1);
+    }
+}
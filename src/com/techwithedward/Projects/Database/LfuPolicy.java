@@ -0,0 +1,85 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Least frequently used, approximated the way Redis does it: each row keeps an access count,
+// counts are halved once accesses reach ten times the row count so old popularity fades, and
+// the victim is the least used of a random sample instead of the exact minimum.
+public class LfuPolicy implements EvictionPolicy {
+    private static final int SAMPLE = 16;
+
+    // Tracked row ids packed densely for sampling, and each row's position among them
+    private int[] members = new int[16];
+    private int[] positions = new int[0];
+    private int[] counts = new int[0];
+    private int size;
+    private long accesses;
+    private final SplittableRandom random = new SplittableRandom();
+
+    @Override
+    public EvictionType getType() {
+        return EvictionType.LFU;
+    }
+
+    @Override
+    public void onInsert(int slot) {
+        if (tracked(slot)) return;
+        if (slot >= positions.length) {
+            int capacity = Math.max(slot + 1, Math.max(16, positions.length * 2));
+            positions = Arrays.copyOf(positions, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        if (size == members.length) {
+            members = Arrays.copyOf(members, size * 2);
+        }
+        members[size] = slot;
+        // Positions are stored off by one so 0 means untracked
+        positions[slot] = ++size;
+        counts[slot] = 1;
+    }
+
+    @Override
+    public void onAccess(int slot) {
+        if (!tracked(slot)) return;
+        if (counts[slot] < Integer.MAX_VALUE) counts[slot]++;
+        if (++accesses >= 10L * Math.max(size, 16)) {
+            accesses = 0;
+            for (int i = 0; i < size; i++) {
+                counts[members[i]] >>>= 1;
+            }
+        }
+    }
+
+    @Override
+    public void onRemove(int slot) {
+        if (!tracked(slot)) return;
+        int i = positions[slot] - 1;
+        int last = members[--size];
+        members[i] = last;
+        positions[last] = i + 1;
+        positions[slot] = 0;
+    }
+
+    @Override
+    public int victim() {
+        if (size == 0) return -1;
+        int best = -1;
+        for (int n = 0; n < Math.min(SAMPLE, size); n++) {
+            int slot = size <= SAMPLE ? members[n] : members[random.nextInt(size)];
+            if (best < 0 || counts[slot] < counts[best]) {
+                best = slot;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private boolean tracked(int slot) {
+        return slot >= 0 && slot < positions.length && positions[slot] != 0;
+    }
+}
@@ -0,0 +1,222 @@
+package com.techwithedward.Projects.Database;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// One logged mutation. Row changes are logged physically (by row id) so replay is deterministic;
+// an update is logged as the delete of the old row version plus the insert of the new one.
+public class LogRecord {
+    // BEGIN/COMMIT bracket the records of a multi-record commit; replay drops an unterminated group
+    // and a group closed by ROLLBACK. INSERT_BATCH is a run of rows written to consecutive slots.
+    public enum Type { CREATE_TABLE, CREATE_INDEX, INSERT, DELETE, BEGIN, COMMIT, INSERT_BATCH, ROLLBACK, CREATE_VIEW }
+
+    // Per-thread scratch buffer for encode(); the bytes are copied out, so it is reused record after record
+    private static final ThreadLocal<BinaryWriter> ENCODER = ThreadLocal.withInitial(BinaryWriter::new);
+    private static final int MAX_RETAINED_ENCODER_BYTES = 1 << 20;
+
+    private final Type type;
+    private final String table;
+    private final String[] columns;
+    private final String column;
+    private final IndexType indexType;
+    private final int rowId;
+    private final Object[] values;
+    private final List<Object[]> rows;
+    private final StorageMode storage;
+    private final MaterializedView.Definition view;
+
+    private LogRecord(Type type, String table, String[] columns, String column, IndexType indexType,
+                      int rowId, Object[] values) {
+        this(type, table, columns, column, indexType, rowId, values, null, null, null);
+    }
+
+    private LogRecord(Type type, String table, String[] columns, String column, IndexType indexType,
+                      int rowId, Object[] values, List<Object[]> rows, StorageMode storage,
+                      MaterializedView.Definition view) {
+        this.type = type;
+        this.table = table;
+        this.columns = columns;
+        this.column = column;
+        this.indexType = indexType;
+        this.rowId = rowId;
+        this.values = values;
+        this.rows = rows;
+        this.storage = storage;
+        this.view = view;
+    }
+
+    public static LogRecord createTable(String table, String[] columnSpecs, StorageMode storage) {
+        return new LogRecord(Type.CREATE_TABLE, table, columnSpecs, null, null, -1, null, null, storage, null);
+    }
+
+    public static LogRecord createIndex(String table, String column, IndexType indexType) {
+        return new LogRecord(Type.CREATE_INDEX, table, null, column, indexType, -1, null);
+    }
+
+    public static LogRecord insert(String table, int rowId, Object[] values) {
+        return new LogRecord(Type.INSERT, table, null, null, null, rowId, values);
+    }
+
+    public static LogRecord delete(String table, int rowId) {
+        return new LogRecord(Type.DELETE, table, null, null, null, rowId, null);
+    }
+
+    // Rows stored in slots firstRowId, firstRowId + 1, ...
+    public static LogRecord insertBatch(String table, int firstRowId, List<Object[]> rows) {
+        return new LogRecord(Type.INSERT_BATCH, table, null, null, null, firstRowId, null, rows, null, null);
+    }
+
+    public static LogRecord createView(MaterializedView.Definition view) {
+        return new LogRecord(Type.CREATE_VIEW, view.table(), null, null, null, -1, null, null, null, view);
+    }
+
+    public static LogRecord begin() {
+        return new LogRecord(Type.BEGIN, "", null, null, null, -1, null);
+    }
+
+    public static LogRecord commit() {
+        return new LogRecord(Type.COMMIT, "", null, null, null, -1, null);
+    }
+
+    public static LogRecord rollback() {
+        return new LogRecord(Type.ROLLBACK, "", null, null, null, -1, null);
+    }
+
+    public byte[] encode() {
+        try {
+            BinaryWriter out = ENCODER.get();
+            out.reset();
+            out.putByte((byte) type.ordinal());
+            out.putString(table);
+            switch (type) {
+                case CREATE_TABLE -> {
+                    out.putInt(columns.length);
+                    for (String spec : columns) {
+                        out.putString(spec);
+                    }
+                    out.putByte((byte) storage.ordinal());
+                }
+                case CREATE_INDEX -> {
+                    out.putString(column);
+                    out.putByte((byte) indexType.ordinal());
+                }
+                case INSERT -> {
+                    out.putInt(rowId);
+                    out.putInt(values.length);
+                    for (Object value : values) {
+                        out.putValue(value);
+                    }
+                }
+                case DELETE -> out.putInt(rowId);
+                case INSERT_BATCH -> {
+                    out.putInt(rowId);
+                    out.putInt(rows.size());
+                    out.putInt(rows.isEmpty() ? 0 : rows.get(0).length);
+                    for (Object[] row : rows) {
+                        for (Object value : row) {
+                            out.putValue(value);
+                        }
+                    }
+                }
+                case CREATE_VIEW -> view.save(out);
+                case BEGIN, COMMIT, ROLLBACK -> {
+                }
+            }
+            byte[] bytes = out.toByteArray();
+            // Don't keep a buffer grown by one huge batch around for good
+            if (out.capacity() > MAX_RETAINED_ENCODER_BYTES) {
+                ENCODER.remove();
+            }
+            return bytes;
+        } catch (IOException e) {
+            // In-memory writer; never actually thrown
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static LogRecord decode(BinaryReader in) {
+        Type type = Type.values()[in.getByte()];
+        String table = in.getString();
+        return switch (type) {
+            case CREATE_TABLE -> {
+                String[] specs = new String[in.getInt()];
+                for (int i = 0; i < specs.length; i++) {
+                    specs[i] = in.getString();
+                }
+                // Logs written before storage modes existed end after the specs
+                StorageMode storage = in.hasRemaining() ? StorageMode.values()[in.getByte()] : StorageMode.HEAP;
+                yield createTable(table, specs, storage);
+            }
+            case CREATE_INDEX -> createIndex(table, in.getString(), IndexType.values()[in.getByte()]);
+            case INSERT -> {
+                int rowId = in.getInt();
+                Object[] values = new Object[in.getInt()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = in.getValue();
+                }
+                yield insert(table, rowId, values);
+            }
+            case DELETE -> delete(table, in.getInt());
+            case BEGIN -> begin();
+            case COMMIT -> commit();
+            case INSERT_BATCH -> {
+                int firstRowId = in.getInt();
+                int count = in.getInt();
+                int width = in.getInt();
+                List<Object[]> rows = new ArrayList<>(count);
+                for (int r = 0; r < count; r++) {
+                    Object[] values = new Object[width];
+                    for (int i = 0; i < width; i++) {
+                        values[i] = in.getValue();
+                    }
+                    rows.add(values);
+                }
+                yield insertBatch(table, firstRowId, rows);
+            }
+            case ROLLBACK -> rollback();
+            case CREATE_VIEW -> createView(MaterializedView.Definition.load(in));
+        };
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String[] getColumns() {
+        return columns;
+    }
+
+    public StorageMode getStorage() {
+        return storage;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public IndexType getIndexType() {
+        return indexType;
+    }
+
+    public int getRowId() {
+        return rowId;
+    }
+
+    public Object[] getValues() {
+        return values;
+    }
+
+    public List<Object[]> getRows() {
+        return rows;
+    }
+
+    public MaterializedView.Definition getView() {
+        return view;
+    }
+}
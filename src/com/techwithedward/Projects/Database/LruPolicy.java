@@ -0,0 +1,38 @@
+package com.techwithedward.Projects.Database;
+
+// Least recently used: every insert or read moves the row to the tail, victims come from the head
+public class LruPolicy implements EvictionPolicy {
+    private final SlotQueues queue = new SlotQueues(1);
+
+    @Override
+    public EvictionType getType() {
+        return EvictionType.LRU;
+    }
+
+    @Override
+    public void onInsert(int slot) {
+        queue.addLast(0, slot);
+    }
+
+    @Override
+    public void onAccess(int slot) {
+        if (queue.queueOf(slot) == 0) {
+            queue.addLast(0, slot);
+        }
+    }
+
+    @Override
+    public void onRemove(int slot) {
+        queue.remove(slot);
+    }
+
+    @Override
+    public int victim() {
+        return queue.first(0);
+    }
+
+    @Override
+    public int size() {
+        return queue.size(0);
+    }
+}
@@ -0,0 +1,291 @@
+package com.techwithedward.Projects.Database;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// The stored result of SELECT * or SELECT [group columns,] aggregates FROM table [WHERE ...]
+// [GROUP BY ...], kept current from the table's row changes instead of by re-running the query.
+// The table reports every inserted and deleted row version, with its commit timestamp, to the
+// view's delta queue. refresh() folds queued deltas up to a published timestamp into the
+// result: matching rows are added or removed, and each group's aggregates are adjusted, with
+// MIN/MAX keeping a count per value so deletes can retract. Reading copies the result as is.
+// SYNC views are refreshed as part of every commit; DEFERRED views are refreshed in batches
+// every refreshMillis, so writes pay almost nothing and readers see a slightly older state.
+public class MaterializedView {
+    public enum RefreshMode {
+        SYNC, DEFERRED
+    }
+
+    // select is "*" or a comma-separated list of group columns and aggregates; where and groupBy
+    // are empty when absent
+    public record Definition(String name, String table, String select, String where, String groupBy,
+                             RefreshMode mode, long refreshMillis) {
+        public void save(BinaryWriter out) throws IOException {
+            out.putString(name);
+            out.putString(table);
+            out.putString(select);
+            out.putString(where);
+            out.putString(groupBy);
+            out.putByte((byte) mode.ordinal());
+            out.putLong(refreshMillis);
+        }
+
+        public static Definition load(BinaryReader in) {
+            return new Definition(in.getString(), in.getString(), in.getString(), in.getString(), in.getString(),
+                    RefreshMode.values()[in.getByte()], in.getLong());
+        }
+
+        @Override
+        public String toString() {
+            return "CREATE MATERIALIZED VIEW " + name + " REFRESH " + mode
+                    + (mode == RefreshMode.DEFERRED ? " EVERY " + refreshMillis : "")
+                    + " AS SELECT " + select + " FROM " + table
+                    + (where.isBlank() ? "" : " WHERE " + where)
+                    + (groupBy.isBlank() ? "" : " GROUP BY " + groupBy);
+        }
+    }
+
+    public record Result(String[] columns, List<Object[]> rows, long refreshedTs) {
+    }
+
+    private record Delta(long ts, boolean insert, int slot, Object[] row) {
+    }
+
+    private final Definition definition;
+    private final Table table;
+    // null without WHERE
+    private final Predicate predicate;
+    // Empty for a plain filter view
+    private final Aggregate[] aggregates;
+    // Input column of each aggregate, -1 for COUNT(*)
+    private final int[] inputs;
+    private final int[] groupBy;
+    private final String[] columns;
+    // Appended under the commit lock, drained by refresh()
+    private final Queue<Delta> pending = new ConcurrentLinkedQueue<>();
+
+    // Filter views: matching rows by slot, in commit order
+    private final Map<Integer, Object[]> rows = new LinkedHashMap<>();
+    // Aggregate views: state per group, ordered by the group values
+    private final NavigableMap<Object[], Group> groups;
+    private long refreshedTs;
+    private volatile long refreshedAtNanos = System.nanoTime();
+
+    public MaterializedView(Definition definition, Table table) {
+        this.definition = definition;
+        this.table = table;
+        Schema schema = table.getSchema();
+        this.predicate = definition.where().isBlank() ? null : Predicate.parse(definition.where()).bind(schema);
+
+        String[] groupColumns = definition.groupBy().isBlank() ? new String[0] : definition.groupBy().split(",");
+        this.groupBy = new int[groupColumns.length];
+        for (int k = 0; k < groupColumns.length; k++) {
+            groupBy[k] = schema.indexOf(groupColumns[k].trim());
+        }
+
+        List<Aggregate> list = new ArrayList<>();
+        if (!definition.select().trim().equals("*")) {
+            for (String item : definition.select().split(",")) {
+                if (item.contains("(")) {
+                    list.add(Aggregate.parse(item));
+                } else if (!isGroupColumn(schema.indexOf(item.trim()))) {
+                    throw new IllegalArgumentException("Column " + item.trim() + " must be in GROUP BY or an aggregate");
+                }
+            }
+            if (list.isEmpty()) {
+                throw new IllegalArgumentException("A view selects * or at least one aggregate");
+            }
+        } else if (groupBy.length > 0) {
+            throw new IllegalArgumentException("GROUP BY needs aggregates instead of *");
+        }
+        this.aggregates = list.toArray(new Aggregate[0]);
+        this.inputs = new int[aggregates.length];
+        for (int a = 0; a < aggregates.length; a++) {
+            inputs[a] = aggregates[a].getColumn() == null ? -1 : schema.indexOf(aggregates[a].getColumn());
+            aggregates[a].resultType(inputs[a] < 0 ? null : schema.type(inputs[a]));
+        }
+
+        if (aggregates.length == 0) {
+            columns = new String[schema.size()];
+            for (int i = 0; i < columns.length; i++) columns[i] = schema.name(i);
+        } else {
+            columns = new String[groupBy.length + aggregates.length];
+            for (int k = 0; k < groupBy.length; k++) columns[k] = schema.name(groupBy[k]);
+            for (int a = 0; a < aggregates.length; a++) columns[groupBy.length + a] = aggregates[a].toString();
+        }
+        groups = new TreeMap<>((x, y) -> {
+            for (int k = 0; k < x.length; k++) {
+                int c = ValueComparator.INSTANCE.compare(x[k], y[k]);
+                if (c != 0) return c;
+            }
+            return 0;
+        });
+    }
+
+    public Definition getDefinition() {
+        return definition;
+    }
+
+    public String getName() {
+        return definition.name();
+    }
+
+    public Table getTable() {
+        return table;
+    }
+
+    // Loads the rows visible at snapshot; call with the commit lock held, before any delta for
+    // a later commit can arrive
+    public synchronized void populate(IntList visible, long snapshot) {
+        for (int i = 0; i < visible.size(); i++) {
+            int slot = visible.get(i);
+            Object[] row = table.getRow(slot);
+            if (predicate == null || predicate.matches(row)) {
+                apply(new Delta(snapshot, true, slot, row));
+            }
+        }
+        refreshedTs = snapshot;
+        refreshedAtNanos = System.nanoTime();
+    }
+
+    // --- Called by the table with the commit lock held ---
+
+    void onInsert(int slot, Object[] row, long commitTs) {
+        if (predicate == null || predicate.matches(row)) {
+            pending.add(new Delta(commitTs, true, slot, row));
+        }
+    }
+
+    void onDelete(int slot, Object[] row, long commitTs) {
+        if (predicate == null || predicate.matches(row)) {
+            pending.add(new Delta(commitTs, false, slot, row));
+        }
+    }
+
+    // Applies queued deltas of commits up to the published timestamp upTo and returns how many.
+    // Deltas of a commit still in progress stay queued.
+    public synchronized int refresh(long upTo) {
+        int applied = 0;
+        Delta delta;
+        while ((delta = pending.peek()) != null && delta.ts() <= upTo) {
+            pending.poll();
+            apply(delta);
+            applied++;
+        }
+        refreshedTs = Math.max(refreshedTs, upTo);
+        refreshedAtNanos = System.nanoTime();
+        return applied;
+    }
+
+    public boolean refreshDue() {
+        return definition.mode() == RefreshMode.DEFERRED
+                && System.nanoTime() - refreshedAtNanos >= definition.refreshMillis() * 1_000_000;
+    }
+
+    public int pendingDeltas() {
+        return pending.size();
+    }
+
+    // The current result; rows come from the view itself, so this costs O(result size)
+    public synchronized Result read() {
+        List<Object[]> out = new ArrayList<>(aggregates.length == 0 ? rows.size() : Math.max(1, groups.size()));
+        if (aggregates.length == 0) {
+            for (Object[] row : rows.values()) out.add(row.clone());
+        } else {
+            for (Map.Entry<Object[], Group> entry : groups.entrySet()) {
+                out.add(entry.getValue().result(entry.getKey()));
+            }
+            if (groups.isEmpty() && groupBy.length == 0) {
+                // Aggregates without GROUP BY always produce one row
+                out.add(new Group().result(new Object[0]));
+            }
+        }
+        return new Result(columns.clone(), out, refreshedTs);
+    }
+
+    private void apply(Delta delta) {
+        if (aggregates.length == 0) {
+            if (delta.insert()) {
+                rows.put(delta.slot(), delta.row());
+            } else {
+                rows.remove(delta.slot());
+            }
+            return;
+        }
+        Object[] key = new Object[groupBy.length];
+        for (int k = 0; k < key.length; k++) key[k] = delta.row()[groupBy[k]];
+        Group group = groups.get(key);
+        if (group == null) {
+            if (!delta.insert()) return;
+            group = new Group();
+            groups.put(key, group);
+        }
+        group.add(delta.row(), delta.insert() ? 1 : -1);
+        if (group.rows == 0) {
+            groups.remove(key);
+        }
+    }
+
+    private boolean isGroupColumn(int column) {
+        for (int k : groupBy) {
+            if (k == column) return true;
+        }
+        return false;
+    }
+
+    // Running aggregates of one group; every state can take a row back out again
+    private final class Group {
+        private long rows;
+        private final long[] counts = new long[aggregates.length];
+        private final double[] doubleSums = new double[aggregates.length];
+        private final long[] longSums = new long[aggregates.length];
+        // MIN/MAX only: how often each value occurs in the group
+        private final List<TreeMap<Object, Integer>> values = new ArrayList<>(aggregates.length);
+
+        Group() {
+            for (Aggregate aggregate : aggregates) {
+                Aggregate.Function f = aggregate.getFunction();
+                values.add(f == Aggregate.Function.MIN || f == Aggregate.Function.MAX
+                        ? new TreeMap<>(ValueComparator.INSTANCE) : null);
+            }
+        }
+
+        // sign is +1 for an inserted row, -1 for a deleted one
+        void add(Object[] row, int sign) {
+            rows += sign;
+            for (int a = 0; a < aggregates.length; a++) {
+                Object value = inputs[a] < 0 ? Boolean.TRUE : row[inputs[a]];
+                if (value == null) continue;
+                counts[a] += sign;
+                switch (aggregates[a].getFunction()) {
+                    case SUM, AVG -> {
+                        if (value instanceof Double d) {
+                            doubleSums[a] += sign * d;
+                        } else {
+                            longSums[a] += sign * ((Number) value).longValue();
+                        }
+                    }
+                    case MIN, MAX -> values.get(a).merge(value, sign, (x, y) -> x + y == 0 ? null : x + y);
+                    case COUNT -> {
+                    }
+                }
+            }
+        }
+
+        Object[] result(Object[] key) {
+            Object[] out = Arrays.copyOf(key, key.length + aggregates.length);
+            for (int a = 0; a < aggregates.length; a++) {
+                boolean doubles = inputs[a] >= 0 && table.getSchema().type(inputs[a]) == ColumnType.DOUBLE;
+                out[key.length + a] = switch (aggregates[a].getFunction()) {
+                    case COUNT -> counts[a];
+                    case SUM -> counts[a] == 0 ? null : doubles ? (Object) doubleSums[a] : (Object) longSums[a];
+                    case AVG -> counts[a] == 0 ? null : (doubles ? doubleSums[a] : longSums[a]) / (double) counts[a];
+                    case MIN -> values.get(a).isEmpty() ? null : values.get(a).firstKey();
+                    case MAX -> values.get(a).isEmpty() ? null : values.get(a).lastKey();
+                };
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+// Always-on statement instrumentation: a latency histogram per operation, rows scanned against
+// rows returned, how often the planner found an index, and a bounded log of statements slower
+// than a threshold. Recording costs two clock reads and a few LongAdder increments; anything
+// that needs formatting (access paths, log entries) is only built for slow statements.
+public class Metrics {
+    public enum Operation { INSERT, SELECT, UPDATE, DELETE, INDEX }
+
+    public static final long DEFAULT_SLOW_QUERY_MILLIS = 100;
+    public static final int SLOW_QUERY_LOG_SIZE = 128;
+
+    public record SlowQuery(long timestampMillis, Operation operation, String table, String statement,
+                            long nanos, long rowsScanned, long rowsReturned, String accessPath) {
+        @Override
+        public String toString() {
+            return String.format("%tT %s %s %s: %s, scanned=%d, returned=%d, %s", timestampMillis, operation, table,
+                    statement == null ? "" : "[" + statement + "]", LatencyHistogram.Snapshot.format(nanos),
+                    rowsScanned, rowsReturned, accessPath);
+        }
+    }
+
+    // One running statement. Owned by the thread running it, or by its cursor until that closes.
+    public final class Sample {
+        private final Operation operation;
+        private final String table;
+        private final String statement;
+        private final long start = System.nanoTime();
+        private long scanned;
+        private Plan plan;
+        private boolean finished;
+
+        private Sample(Operation operation, String table, String statement) {
+            this.operation = operation;
+            this.table = table;
+            this.statement = statement;
+        }
+
+        // Rows (or row versions) examined, whether or not they matched
+        public void scanned(long rows) {
+            scanned += rows;
+        }
+
+        // The access plan the statement ran with; null when it has no WHERE clause
+        public void plan(Plan plan) {
+            this.plan = plan;
+            if (plan != null) {
+                planned.increment();
+                if (plan.usesIndex()) indexed.increment();
+            }
+        }
+
+        // Ends the sample; later calls are ignored
+        public void finish(long returned) {
+            if (finished) return;
+            finished = true;
+            long nanos = System.nanoTime() - start;
+            int op = operation.ordinal();
+            latencies[op].record(nanos);
+            rowsScanned[op].add(scanned);
+            rowsReturned[op].add(returned);
+            long threshold = slowQueryNanos;
+            if (threshold > 0 && nanos >= threshold) {
+                logSlow(new SlowQuery(System.currentTimeMillis(), operation, table, statement, nanos, scanned,
+                        returned, plan != null ? plan.describe() : scanned > 0 ? "full table scan" : "-"));
+            }
+        }
+    }
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+    private final LongAdder[] rowsScanned = new LongAdder[Operation.values().length];
+    private final LongAdder[] rowsReturned = new LongAdder[Operation.values().length];
+    private final LongAdder planned = new LongAdder();
+    private final LongAdder indexed = new LongAdder();
+    private final LongAdder slowQueries = new LongAdder();
+    private final ArrayDeque<SlowQuery> slowLog = new ArrayDeque<>();
+    private volatile long slowQueryNanos = DEFAULT_SLOW_QUERY_MILLIS * 1_000_000;
+
+    public Metrics() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+            rowsScanned[i] = new LongAdder();
+            rowsReturned[i] = new LongAdder();
+        }
+    }
+
+    // statement may be null, e.g. for inserts
+    public Sample start(Operation operation, String table, String statement) {
+        return new Sample(operation, table, statement);
+    }
+
+    // Statements taking at least this long go to the slow-query log; 0 turns the log off
+    public void setSlowQueryThreshold(long millis) {
+        slowQueryNanos = Math.max(0, millis) * 1_000_000;
+    }
+
+    public long getSlowQueryThreshold() {
+        return slowQueryNanos / 1_000_000;
+    }
+
+    public LatencyHistogram.Snapshot latency(Operation operation) {
+        return latencies[operation.ordinal()].snapshot();
+    }
+
+    public long rowsScanned(Operation operation) {
+        return rowsScanned[operation.ordinal()].sum();
+    }
+
+    public long rowsReturned(Operation operation) {
+        return rowsReturned[operation.ordinal()].sum();
+    }
+
+    // Share of planned statements (those with a WHERE clause) that read through an index
+    public double indexHitRatio() {
+        long plans = planned.sum();
+        return plans == 0 ? 0 : (double) indexed.sum() / plans;
+    }
+
+    // The most recent slow statements, oldest first
+    public synchronized List<SlowQuery> slowQueries() {
+        return new ArrayList<>(slowLog);
+    }
+
+    public synchronized void reset() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i].reset();
+            rowsScanned[i].reset();
+            rowsReturned[i].reset();
+        }
+        planned.reset();
+        indexed.reset();
+        slowQueries.reset();
+        slowLog.clear();
+    }
+
+    public String report() {
+        StringBuilder out = new StringBuilder();
+        out.append("Latency per operation:\n");
+        for (Operation operation : Operation.values()) {
+            out.append(String.format("  %-7s %s%n", operation, latency(operation)));
+        }
+        out.append("Rows scanned / returned (or changed):\n");
+        for (Operation operation : List.of(Operation.SELECT, Operation.UPDATE, Operation.DELETE)) {
+            long scanned = rowsScanned(operation);
+            long returned = rowsReturned(operation);
+            out.append(String.format("  %-7s %d / %d%s%n", operation, scanned, returned,
+                    returned > 0 ? String.format(" (%.1f scanned per row)", (double) scanned / returned) : ""));
+        }
+        out.append(String.format("Index hit ratio: %.1f%% of %d planned statements%n",
+                indexHitRatio() * 100, planned.sum()));
+        List<SlowQuery> slow = slowQueries();
+        long threshold = getSlowQueryThreshold();
+        out.append(threshold == 0 ? "Slow-query log: off\n"
+                : String.format("Slow queries (>= %d ms): %d, last %d:%n", threshold, slowQueries.sum(), slow.size()));
+        for (SlowQuery query : slow) {
+            out.append("  ").append(query).append('\n');
+        }
+        return out.toString();
+    }
+
+    private synchronized void logSlow(SlowQuery query) {
+        slowQueries.increment();
+        if (slowLog.size() == SLOW_QUERY_LOG_SIZE) {
+            slowLog.removeFirst();
+        }
+        slowLog.addLast(query);
+    }
+}
@@ -0,0 +1,486 @@
+package com.techwithedward.Projects.Database;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+
+// Columns whose values live in native memory segments instead of Java arrays. The heap only
+// holds the segment handles and the null bitmap, so a large table adds next to nothing for
+// the garbage collector to trace or copy. Segments come from automatic arenas: a segment
+// replaced on growth is freed once no reader still references it, just like an old array.
+// Values are little-endian, the same layout the heap columns use in snapshots.
+// java.lang.foreign is final since JDK 22, so the JDK 25 this tree targets needs no preview flags.
+public abstract class OffHeapColumn extends Column {
+    protected static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    protected static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    protected static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    // Segment views handed to BinaryWriter are limited to int-sized buffers
+    private static final long CHUNK = 1L << 30;
+
+    private final int width;
+    protected MemorySegment values = MemorySegment.NULL;
+
+    protected OffHeapColumn(String name, int width) {
+        super(name);
+        this.width = width;
+    }
+
+    @Override
+    public void ensureCapacity(int capacity) {
+        int current = (int) (values.byteSize() / width);
+        if (capacity > current) {
+            values = resize(values, (long) grow(current, capacity) * width);
+        }
+    }
+
+    @Override
+    protected void saveValues(BinaryWriter out, int rows) throws IOException {
+        write(out, values, 0, (long) rows * width);
+    }
+
+    @Override
+    protected void loadValues(BinaryReader in, int rows) {
+        values = read(in, (long) rows * width, (long) Math.max(rows, 16) * width);
+    }
+
+    @Override
+    public long memoryBytes() {
+        return values.byteSize() + 8L * nulls.length;
+    }
+
+    @Override
+    public long offHeapBytes() {
+        return values.byteSize();
+    }
+
+    protected static MemorySegment allocate(long bytes) {
+        return Arena.ofAuto().allocate(Math.max(bytes, 8), 8);
+    }
+
+    // New zeroed segment holding a copy of the old one; readers still on the old one stay valid
+    protected static MemorySegment resize(MemorySegment old, long bytes) {
+        MemorySegment bigger = allocate(bytes);
+        MemorySegment.copy(old, 0, bigger, 0, Math.min(old.byteSize(), bytes));
+        return bigger;
+    }
+
+    protected static void write(BinaryWriter out, MemorySegment segment, long offset, long length) throws IOException {
+        for (long done = 0; done < length; done += CHUNK) {
+            out.putBytes(segment.asSlice(offset + done, Math.min(CHUNK, length - done)).asByteBuffer());
+        }
+    }
+
+    protected static MemorySegment read(BinaryReader in, long length, long capacity) {
+        MemorySegment segment = allocate(Math.max(length, capacity));
+        MemorySegment.copy(MemorySegment.ofBuffer(in.slice(Math.toIntExact(length))), 0, segment, 0, length);
+        return segment;
+    }
+
+    public static class Ints extends OffHeapColumn {
+        public Ints(String name) {
+            super(name, 4);
+        }
+
+        @Override
+        public ColumnType getType() {
+            return ColumnType.INT;
+        }
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : getInt(row);
+        }
+
+        public int getInt(int row) {
+            return values.getAtIndex(INT, row);
+        }
+
+        @Override
+        public void gatherLongs(int[] rows, int n, long[] out) {
+            MemorySegment v = values;
+            for (int i = 0; i < n; i++) {
+                out[i] = v.getAtIndex(INT, rows[i]);
+            }
+        }
+
+        @Override
+        public void gatherDoubles(int[] rows, int n, double[] out) {
+            MemorySegment v = values;
+            for (int i = 0; i < n; i++) {
+                out[i] = v.getAtIndex(INT, rows[i]);
+            }
+        }
+
+        @Override
+        public void set(int row, Object value) {
+            setNull(row, value == null);
+            values.setAtIndex(INT, row, value == null ? 0 : (Integer) value);
+        }
+
+        @Override
+        public void filter(Condition condition, int from, int to, IntList out) {
+            long[] bounds = longBounds(condition);
+            if (bounds == null) {
+                super.filter(condition, from, to, out);
+                return;
+            }
+            long lo = bounds[0], hi = bounds[1];
+            MemorySegment v = values;
+            for (int row = from; row < to; row++) {
+                int x = v.getAtIndex(INT, row);
+                if (x >= lo && x <= hi && !isNull(row)) {
+                    out.add(row);
+                }
+            }
+        }
+    }
+
+    public static class Longs extends OffHeapColumn {
+        public Longs(String name) {
+            super(name, 8);
+        }
+
+        @Override
+        public ColumnType getType() {
+            return ColumnType.LONG;
+        }
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : getLong(row);
+        }
+
+        public long getLong(int row) {
+            return values.getAtIndex(LONG, row);
+        }
+
+        @Override
+        public void gatherLongs(int[] rows, int n, long[] out) {
+            MemorySegment v = values;
+            for (int i = 0; i < n; i++) {
+                out[i] = v.getAtIndex(LONG, rows[i]);
+            }
+        }
+
+        @Override
+        public void gatherDoubles(int[] rows, int n, double[] out) {
+            MemorySegment v = values;
+            for (int i = 0; i < n; i++) {
+                out[i] = v.getAtIndex(LONG, rows[i]);
+            }
+        }
+
+        @Override
+        public void set(int row, Object value) {
+            setNull(row, value == null);
+            values.setAtIndex(LONG, row, value == null ? 0 : (Long) value);
+        }
+
+        @Override
+        public void filter(Condition condition, int from, int to, IntList out) {
+            long[] bounds = longBounds(condition);
+            if (bounds == null) {
+                super.filter(condition, from, to, out);
+                return;
+            }
+            long lo = bounds[0], hi = bounds[1];
+            MemorySegment v = values;
+            for (int row = from; row < to; row++) {
+                long x = v.getAtIndex(LONG, row);
+                if (x >= lo && x <= hi && !isNull(row)) {
+                    out.add(row);
+                }
+            }
+        }
+    }
+
+    public static class Doubles extends OffHeapColumn {
+        public Doubles(String name) {
+            super(name, 8);
+        }
+
+        @Override
+        public ColumnType getType() {
+            return ColumnType.DOUBLE;
+        }
+
+        @Override
+        public Object get(int row) {
+            return isNull(row) ? null : getDouble(row);
+        }
+
+        public double getDouble(int row) {
+            return values.getAtIndex(DOUBLE, row);
+        }
+
+        @Override
+        public void gatherDoubles(int[] rows, int n, double[] out) {
+            MemorySegment v = values;
+            for (int i = 0; i < n; i++) {
+                out[i] = v.getAtIndex(DOUBLE, rows[i]);
+            }
+        }
+
+        @Override
+        public void set(int row, Object value) {
+            setNull(row, value == null);
+            values.setAtIndex(DOUBLE, row, value == null ? 0 : (Double) value);
+        }
+
+        @Override
+        public void filter(Condition condition, int from, int to, IntList out) {
+            if (condition.getOperator() == Condition.Operator.PREFIX || condition.getValue() == null) {
+                super.filter(condition, from, to, out);
+                return;
+            }
+            double x = (Double) condition.getValue();
+            double lo = Double.NEGATIVE_INFINITY, hi = Double.POSITIVE_INFINITY;
+            switch (condition.getOperator()) {
+                case EQ -> lo = hi = x;
+                case LT -> hi = Math.nextDown(x);
+                case LE -> hi = x;
+                case GT -> lo = Math.nextUp(x);
+                case GE -> lo = x;
+                case BETWEEN -> {
+                    lo = x;
+                    hi = (Double) condition.getUpperValue();
+                }
+                default -> throw new AssertionError();
+            }
+            MemorySegment v = values;
+            for (int row = from; row < to; row++) {
+                double d = v.getAtIndex(DOUBLE, row);
+                if (d >= lo && d <= hi && !isNull(row)) {
+                    out.add(row);
+                }
+            }
+        }
+    }
+
+    // UTF-8 bytes in a native heap, plus one (offset << 24 | length) entry per row. Rewriting a
+    // recycled slot reuses its old bytes when the new value fits; bytes nothing points at any more
+    // (overwritten, nulled, or released when the table reclaims the slot) are counted as garbage,
+    // and once garbage outweighs the live bytes the heap is compacted into a fresh segment.
+    public static class Strings extends OffHeapColumn {
+        private static final int MAX_LENGTH = (1 << 24) - 1;
+        private static final long MIN_COMPACT_BYTES = 64 * 1024;
+
+        // Entries and the heap they point into are swapped together, so a reader never mixes them
+        private record Store(MemorySegment entries, MemorySegment bytes) {
+        }
+
+        private volatile Store store = new Store(MemorySegment.NULL, MemorySegment.NULL);
+        private long used;
+        private long garbage;
+        private long compactions;
+
+        public Strings(String name) {
+            super(name, 8);
+        }
+
+        @Override
+        public ColumnType getType() {
+            return ColumnType.STRING;
+        }
+
+        @Override
+        public void ensureCapacity(int capacity) {
+            Store s = store;
+            int current = (int) (s.entries().byteSize() / 8);
+            if (capacity > current) {
+                store = new Store(resize(s.entries(), 8L * grow(current, capacity)), s.bytes());
+            }
+        }
+
+        @Override
+        public Object get(int row) {
+            if (isNull(row)) return null;
+            Store s = store;
+            long entry = s.entries().getAtIndex(LONG, row);
+            byte[] utf8 = new byte[length(entry)];
+            MemorySegment.copy(s.bytes(), ValueLayout.JAVA_BYTE, offset(entry), utf8, 0, utf8.length);
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void set(int row, Object value) {
+            setNull(row, value == null);
+            if (value == null) {
+                release(row);
+                return;
+            }
+            byte[] utf8 = ((String) value).getBytes(StandardCharsets.UTF_8);
+            if (utf8.length > MAX_LENGTH) {
+                throw new IllegalArgumentException("String values are limited to " + MAX_LENGTH + " bytes");
+            }
+            Store s = store;
+            long entry = s.entries().getAtIndex(LONG, row);
+            long offset;
+            if (length(entry) >= utf8.length) {
+                offset = offset(entry);
+                garbage += length(entry) - utf8.length;
+            } else {
+                // Unlink the old bytes first: a compaction while growing must not copy them
+                garbage += length(entry);
+                s.entries().setAtIndex(LONG, row, 0L);
+                if (used + utf8.length > s.bytes().byteSize()) {
+                    s = growHeap(s, utf8.length);
+                }
+                offset = used;
+                used += utf8.length;
+            }
+            MemorySegment.copy(utf8, 0, s.bytes(), ValueLayout.JAVA_BYTE, offset, utf8.length);
+            s.entries().setAtIndex(LONG, row, offset << 24 | utf8.length);
+        }
+
+        // A NULL, or a slot the table reclaimed: its bytes become garbage
+        @Override
+        public void release(int row) {
+            MemorySegment entries = store.entries();
+            garbage += length(entries.getAtIndex(LONG, row));
+            entries.setAtIndex(LONG, row, 0L);
+            if (garbage > MIN_COMPACT_BYTES && garbage > used - garbage) {
+                compact();
+            }
+        }
+
+        // Room for another value: compacting may free enough, otherwise the heap doubles
+        private Store growHeap(Store s, int needed) {
+            if (garbage >= needed && garbage > used - garbage) {
+                compact();
+                s = store;
+                if (used + needed <= s.bytes().byteSize()) return s;
+            }
+            MemorySegment bigger = resize(s.bytes(), Math.max(used + needed, Math.max(4096, s.bytes().byteSize() * 2)));
+            store = s = new Store(s.entries(), bigger);
+            return s;
+        }
+
+        // Copies the live bytes back to back into new segments. Readers still holding the old
+        // store keep reading it; the automatic arena frees it once they are done.
+        private void compact() {
+            Store s = store;
+            MemorySegment entries = s.entries(), bytes = s.bytes();
+            long rows = entries.byteSize() / 8;
+            // Sized from what the entries point at, not from the garbage count
+            long live = 0;
+            for (long row = 0; row < rows; row++) {
+                live += length(entries.getAtIndex(LONG, row));
+            }
+            MemorySegment packedBytes = allocate(Math.max(4096, live + live / 2));
+            MemorySegment packedEntries = allocate(entries.byteSize());
+            long offset = 0;
+            for (long row = 0; row < rows; row++) {
+                long entry = entries.getAtIndex(LONG, row);
+                int length = length(entry);
+                if (length > 0) {
+                    MemorySegment.copy(bytes, offset(entry), packedBytes, offset, length);
+                    packedEntries.setAtIndex(LONG, row, offset << 24 | length);
+                    offset += length;
+                }
+            }
+            store = new Store(packedEntries, packedBytes);
+            used = offset;
+            garbage = 0;
+            compactions++;
+        }
+
+        private static long offset(long entry) {
+            return entry >>> 24;
+        }
+
+        private static int length(long entry) {
+            return (int) (entry & MAX_LENGTH);
+        }
+
+        // Byte-wise EQ and LIKE; the remaining operators decode each row
+        @Override
+        public void filter(Condition condition, int from, int to, IntList out) {
+            boolean prefix = condition.getOperator() == Condition.Operator.PREFIX;
+            if (!prefix && condition.getOperator() != Condition.Operator.EQ) {
+                super.filter(condition, from, to, out);
+                return;
+            }
+            Object operand = prefix ? condition.getRawValue() : condition.getValue();
+            if (operand == null) return;
+            byte[] utf8 = operand.toString().getBytes(StandardCharsets.UTF_8);
+            MemorySegment target = MemorySegment.ofArray(utf8);
+            Store s = store;
+            MemorySegment v = s.entries(), heap = s.bytes();
+            for (int row = from; row < to; row++) {
+                long entry = v.getAtIndex(LONG, row);
+                int length = length(entry);
+                if ((prefix ? length >= utf8.length : length == utf8.length) && !isNull(row)) {
+                    long offset = offset(entry);
+                    if (MemorySegment.mismatch(heap, offset, offset + utf8.length, target, 0, utf8.length) < 0) {
+                        out.add(row);
+                    }
+                }
+            }
+        }
+
+        @Override
+        protected void saveValues(BinaryWriter out, int rows) throws IOException {
+            saveValues(out, rows, null);
+        }
+
+        // Lengths, then the bytes of live rows back to back; loading starts without garbage
+        @Override
+        protected void saveValues(BinaryWriter out, int rows, BitSet live) throws IOException {
+            Store s = store;
+            int[] lengths = new int[rows];
+            long total = 0;
+            for (int row = 0; row < rows; row++) {
+                boolean skip = isNull(row) || live != null && !live.get(row);
+                lengths[row] = skip ? 0 : length(s.entries().getAtIndex(LONG, row));
+                total += lengths[row];
+            }
+            out.putLong(total);
+            out.putInts(lengths, rows);
+            for (int row = 0; row < rows; row++) {
+                if (lengths[row] > 0) {
+                    write(out, s.bytes(), offset(s.entries().getAtIndex(LONG, row)), lengths[row]);
+                }
+            }
+        }
+
+        @Override
+        protected void loadValues(BinaryReader in, int rows) {
+            long total = in.getLong();
+            int[] lengths = in.getInts(rows, 0);
+            MemorySegment bytes = read(in, total, 4096);
+            MemorySegment entries = allocate(8L * Math.max(rows, 16));
+            long offset = 0;
+            for (int row = 0; row < rows; row++) {
+                entries.setAtIndex(LONG, row, offset << 24 | lengths[row]);
+                offset += lengths[row];
+            }
+            store = new Store(entries, bytes);
+            used = total;
+            garbage = 0;
+        }
+
+        public long getGarbageBytes() {
+            return garbage;
+        }
+
+        public long getCompactions() {
+            return compactions;
+        }
+
+        @Override
+        public long memoryBytes() {
+            return offHeapBytes() + 8L * nulls.length;
+        }
+
+        @Override
+        public long offHeapBytes() {
+            Store s = store;
+            return s.entries().byteSize() + s.bytes().byteSize();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Sorted secondary index for range and prefix lookups in O(log n + k).
+// Each entry is a (value, rowId) pair, so adds and removes are single lock-free
+// skip list operations and never race on a shared per-value bucket.
+public class OrderedIndex implements Index {
+    private final String column;
+    private final ColumnType type;
+    private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>();
+
+    public OrderedIndex(String column, ColumnType type) {
+        this.column = column;
+        this.type = type;
+    }
+
+    @Override
+    public String getColumn() {
+        return column;
+    }
+
+    @Override
+    public IndexType getType() {
+        return IndexType.ORDERED;
+    }
+
+    @Override
+    public void add(Object value, int rowId) {
+        if (value == null) return;
+        entries.add(new Entry(value, rowId));
+    }
+
+    @Override
+    public void remove(Object value, int rowId) {
+        if (value == null) return;
+        entries.remove(new Entry(value, rowId));
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public boolean supports(Condition condition) {
+        return condition.getOperator() != Condition.Operator.MATCH;
+    }
+
+    @Override
+    public IntList find(Condition condition) {
+        Object value = condition.getValue();
+        return switch (condition.getOperator()) {
+            case EQ -> range(value, true, value, true);
+            case LT -> range(null, false, value, false);
+            case LE -> range(null, false, value, true);
+            case GT -> range(value, false, null, false);
+            case GE -> range(value, true, null, false);
+            case BETWEEN -> range(value, true, condition.getUpperValue(), true);
+            case PREFIX -> prefix(condition.getRawValue());
+            case MATCH -> throw new UnsupportedOperationException("An ordered index cannot answer MATCH");
+        };
+    }
+
+    @Override
+    public IntList lookup(Object value) {
+        return value == null ? new IntList() : range(value, true, value, true);
+    }
+
+    // A null bound means unbounded on that side
+    public IntList range(Object from, boolean fromInclusive, Object to, boolean toInclusive) {
+        NavigableSet<Entry> view = entries;
+        if (from != null) {
+            view = view.tailSet(fromInclusive ? Entry.lowest(from) : Entry.highest(from), false);
+        }
+        if (to != null) {
+            view = view.headSet(toInclusive ? Entry.highest(to) : Entry.lowest(to), false);
+        }
+        return ids(view);
+    }
+
+    public IntList prefix(String prefix) {
+        if (type == ColumnType.STRING) {
+            // Strings with the prefix form one contiguous run of the ordering
+            return ids(entries.subSet(Entry.lowest(prefix), false,
+                    Entry.lowest(prefix + Character.MAX_VALUE), false));
+        }
+
+        // Numbers are ordered by magnitude, so their textual prefixes are scattered
+        IntList result = new IntList();
+        for (Entry entry : entries) {
+            if (entry.value.toString().startsWith(prefix)) {
+                result.add(entry.rowId);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static IntList ids(Collection<Entry> view) {
+        IntList result = new IntList();
+        for (Entry entry : view) {
+            result.add(entry.rowId);
+        }
+        return result;
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        final Object value;
+        final int rowId;
+
+        Entry(Object value, int rowId) {
+            this.value = value;
+            this.rowId = rowId;
+        }
+
+        // Sentinels that sort before/after every real row id for the same value
+        static Entry lowest(Object value) {
+            return new Entry(value, Integer.MIN_VALUE);
+        }
+
+        static Entry highest(Object value) {
+            return new Entry(value, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int cmp = ValueComparator.INSTANCE.compare(value, other.value);
+            return cmp != 0 ? cmp : Integer.compare(rowId, other.rowId);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.IntFunction;
+
+// Splits a table's slots into partitions and scans (or aggregates) them on a ForkJoinPool.
+// Partition results are concatenated left to right, so the output is in slot
+// order no matter which worker finished first.
+public class ParallelScanner {
+    private final ScanConfig config;
+    private final ForkJoinPool pool;
+
+    public ParallelScanner(ScanConfig config) {
+        this.config = config;
+        this.pool = config.getParallelism() > 1 ? new ForkJoinPool(config.getParallelism()) : null;
+    }
+
+    public ScanConfig getConfig() {
+        return config;
+    }
+
+    public IntList scan(Table table, Predicate predicate, long snapshot) {
+        // Fix the range up front; slots appended during the scan are newer than any snapshot we hold
+        return scan(table, predicate, snapshot, 0, table.slotCount());
+    }
+
+    public IntList scan(Table table, Predicate predicate, long snapshot, int from, int to) {
+        return run(table, from, to, (start, end) -> table.scan(predicate, snapshot, start, end));
+    }
+
+    public IntList visibleRows(Table table, long snapshot) {
+        return visibleRows(table, snapshot, 0, table.slotCount());
+    }
+
+    public IntList visibleRows(Table table, long snapshot, int from, int to) {
+        return run(table, from, to, (start, end) -> table.visibleRows(snapshot, start, end));
+    }
+
+    public boolean isParallel(Table table) {
+        return pool != null && table.slotCount() >= config.getParallelThreshold();
+    }
+
+    // Slots a lazy scan should read per step: enough to keep every worker busy on big tables
+    public int blockSize(Table table) {
+        if (!isParallel(table)) return 4096;
+        return (int) Math.min(Integer.MAX_VALUE, (long) config.getPartitionSize() * config.getParallelism());
+    }
+
+    public void shutdown() {
+        if (pool != null) pool.shutdown();
+    }
+
+    // Runs work on each partition of slots [from, to) and folds the partial results left to right
+    public <T> T reduce(Table table, int from, int to, PartitionWork<T> work, BinaryOperator<T> merge) {
+        if (!isParallel(table)) {
+            return work.apply(from, to);
+        }
+        return pool.invoke(new PartitionTask<>(work, merge, from, to, config.getPartitionSize()));
+    }
+
+    // Runs count independent tasks on the scan pool and returns their results in task order
+    public <T> List<T> map(int count, IntFunction<T> work) {
+        if (pool == null || count < 2) {
+            List<T> results = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                results.add(work.apply(i));
+            }
+            return results;
+        }
+        return pool.invoke(ForkJoinTask.adapt(() -> {
+            List<ForkJoinTask<T>> tasks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int index = i;
+                tasks.add(ForkJoinTask.adapt(() -> work.apply(index)));
+            }
+            ForkJoinTask.invokeAll(tasks);
+            List<T> results = new ArrayList<>(count);
+            for (ForkJoinTask<T> task : tasks) {
+                results.add(task.join());
+            }
+            return results;
+        }));
+    }
+
+    private IntList run(Table table, int from, int to, PartitionWork<IntList> scan) {
+        return reduce(table, from, to, scan, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+    }
+
+    @FunctionalInterface
+    public interface PartitionWork<T> {
+        T apply(int from, int to);
+    }
+
+    // ForkJoinTask is Serializable, but these tasks never leave the pool
+    @SuppressWarnings("serial")
+    private static class PartitionTask<T> extends RecursiveTask<T> {
+        private final PartitionWork<T> work;
+        private final BinaryOperator<T> merge;
+        private final int from;
+        private final int to;
+        private final int partitionSize;
+
+        PartitionTask(PartitionWork<T> work, BinaryOperator<T> merge, int from, int to, int partitionSize) {
+            this.work = work;
+            this.merge = merge;
+            this.from = from;
+            this.to = to;
+            this.partitionSize = partitionSize;
+        }
+
+        @Override
+        protected T compute() {
+            if (to - from <= partitionSize) {
+                return work.apply(from, to);
+            }
+            int mid = from + (to - from) / 2;
+            PartitionTask<T> left = new PartitionTask<>(work, merge, from, mid, partitionSize);
+            PartitionTask<T> right = new PartitionTask<>(work, merge, mid, to, partitionSize);
+            right.fork();
+            T result = left.compute();
+            return merge.apply(result, right.join());
+        }
+    }
+}
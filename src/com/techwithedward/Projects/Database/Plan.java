@@ -0,0 +1,244 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// An access path chosen by the QueryPlanner, with its estimated output rows and cost.
+// Index plans only produce candidates: the caller still checks visibility and the full predicate.
+public abstract class Plan {
+    private final double rows;
+    private final double cost;
+
+    protected Plan(double rows, double cost) {
+        this.rows = rows;
+        this.cost = cost;
+    }
+
+    public double getRows() {
+        return rows;
+    }
+
+    public double getCost() {
+        return cost;
+    }
+
+    public boolean usesIndex() {
+        return !(this instanceof FullScan);
+    }
+
+    // Candidate row ids in ascending order; index plans only
+    public abstract IntList candidates();
+
+    // One-line summary for the REPL's "Access path:" line
+    public abstract String describe();
+
+    // The same access path for a prepared statement executed with other bind parameters
+    public Plan withParameters(Object[] parameters) {
+        return this;
+    }
+
+    public void explain(StringBuilder out, int depth) {
+        out.append("  ".repeat(depth)).append("-> ").append(describe())
+                .append(String.format(" (est. rows %.0f, cost %.1f)%n", rows, cost));
+    }
+
+    public static class FullScan extends Plan {
+        private final boolean parallel;
+
+        public FullScan(double rows, double cost, boolean parallel) {
+            super(rows, cost);
+            this.parallel = parallel;
+        }
+
+        @Override
+        public IntList candidates() {
+            throw new UnsupportedOperationException("A full scan has no index candidates");
+        }
+
+        @Override
+        public String describe() {
+            return (parallel ? "parallel " : "") + "full table scan";
+        }
+    }
+
+    public static class IndexProbe extends Plan {
+        private final String table;
+        private final Index index;
+        private final Condition condition;
+
+        public IndexProbe(String table, Index index, Condition condition, double rows, double cost) {
+            super(rows, cost);
+            this.table = table;
+            this.index = index;
+            this.condition = condition;
+        }
+
+        @Override
+        public IntList candidates() {
+            IntList ids = index.find(condition);
+            // Ordered indexes return value order; merges need row id order
+            int[] sorted = ids.toArray();
+            Arrays.sort(sorted);
+            IntList out = new IntList(sorted.length);
+            for (int id : sorted) out.add(id);
+            return out;
+        }
+
+        @Override
+        public String describe() {
+            return index.getClass().getSimpleName() + " on " + table + "." + index.getColumn()
+                    + " (" + condition + ")";
+        }
+
+        @Override
+        public Plan withParameters(Object[] parameters) {
+            Condition bound = condition.withParameters(parameters);
+            return bound == condition ? this : new IndexProbe(table, index, bound, getRows(), getCost());
+        }
+    }
+
+    public static class Intersection extends Plan {
+        private final List<Plan> inputs;
+
+        public Intersection(List<Plan> inputs, double rows, double cost) {
+            super(rows, cost);
+            this.inputs = List.copyOf(inputs);
+        }
+
+        @Override
+        public IntList candidates() {
+            IntList result = inputs.get(0).candidates();
+            for (int i = 1; i < inputs.size() && !result.isEmpty(); i++) {
+                result = Predicate.intersect(result, inputs.get(i).candidates());
+            }
+            return result;
+        }
+
+        @Override
+        public String describe() {
+            return "index intersection of " + inputs.size();
+        }
+
+        @Override
+        public Plan withParameters(Object[] parameters) {
+            return new Intersection(inputs.stream().map(p -> p.withParameters(parameters)).toList(), getRows(), getCost());
+        }
+
+        @Override
+        public void explain(StringBuilder out, int depth) {
+            super.explain(out, depth);
+            for (Plan input : inputs) input.explain(out, depth + 1);
+        }
+    }
+
+    public static class Union extends Plan {
+        private final List<Plan> inputs;
+
+        public Union(List<Plan> inputs, double rows, double cost) {
+            super(rows, cost);
+            this.inputs = List.copyOf(inputs);
+        }
+
+        @Override
+        public IntList candidates() {
+            IntList result = inputs.get(0).candidates();
+            for (int i = 1; i < inputs.size(); i++) {
+                result = Predicate.union(result, inputs.get(i).candidates());
+            }
+            return result;
+        }
+
+        @Override
+        public String describe() {
+            return "index union of " + inputs.size();
+        }
+
+        @Override
+        public Plan withParameters(Object[] parameters) {
+            return new Union(inputs.stream().map(p -> p.withParameters(parameters)).toList(), getRows(), getCost());
+        }
+
+        @Override
+        public void explain(StringBuilder out, int depth) {
+            super.explain(out, depth);
+            for (Plan input : inputs) input.explain(out, depth + 1);
+        }
+    }
+
+    // A predicate whose every condition has a bitmap index, evaluated entirely with bitmap
+    // AND/OR/ANDNOT. Unlike the other index plans its result is exact, not just candidates.
+    public static class Bitmaps extends Plan {
+        private final Table table;
+        private final Predicate predicate;
+
+        public Bitmaps(Table table, Predicate predicate, double rows, double cost) {
+            super(rows, cost);
+            this.table = table;
+            this.predicate = predicate;
+        }
+
+        public Predicate getPredicate() {
+            return predicate;
+        }
+
+        // Row versions matching the predicate, visible or not
+        public RoaringBitmap bitmap() {
+            return evaluate(predicate);
+        }
+
+        @Override
+        public IntList candidates() {
+            return bitmap().toIntList();
+        }
+
+        @Override
+        public String describe() {
+            return "bitmap index filter (" + predicate + ")";
+        }
+
+        @Override
+        public Plan withParameters(Object[] parameters) {
+            return new Bitmaps(table, predicate.withParameters(parameters), getRows(), getCost());
+        }
+
+        private RoaringBitmap evaluate(Predicate p) {
+            if (p instanceof Predicate.Leaf leaf) {
+                return index(leaf).bitmap(leaf.getCondition());
+            }
+            if (p instanceof Predicate.Not not) {
+                BitmapIndex index = index(not.getChild());
+                return index.present().andNot(index.bitmap(not.getChild().getCondition()));
+            }
+            if (p instanceof Predicate.And and) {
+                // Intersect the positive conditions first, then subtract the negated ones
+                // instead of building their complements
+                RoaringBitmap result = null;
+                List<Predicate.Not> negated = new ArrayList<>();
+                for (Predicate child : and.getChildren()) {
+                    if (child instanceof Predicate.Not not) {
+                        negated.add(not);
+                    } else {
+                        result = result == null ? evaluate(child) : result.and(evaluate(child));
+                        if (result.isEmpty()) return result;
+                    }
+                }
+                for (Predicate.Not not : negated) {
+                    BitmapIndex index = index(not.getChild());
+                    result = result == null ? evaluate(not) : result.and(index.present())
+                            .andNot(index.bitmap(not.getChild().getCondition()));
+                }
+                return result;
+            }
+            RoaringBitmap result = new RoaringBitmap();
+            for (Predicate child : ((Predicate.Or) p).getChildren()) {
+                result = result.or(evaluate(child));
+            }
+            return result;
+        }
+
+        private BitmapIndex index(Predicate.Leaf leaf) {
+            return (BitmapIndex) table.getCatalog().getIndex(table.getSchema().name(leaf.getColumn()));
+        }
+    }
+}
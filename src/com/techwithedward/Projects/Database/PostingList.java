@@ -0,0 +1,129 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.Arrays;
+
+// The row ids of one full-text term, sorted and stored as variable-length deltas: consecutive
+// ids of a common term take one byte each instead of four. New row ids past the largest one
+// are appended in place. Other adds and all removes (slots are reused, so ids also arrive out
+// of order) wait in small sorted buffers and are folded into the encoded array once the
+// buffers reach an eighth of it. Not thread-safe; FullTextIndex locks each list.
+public class PostingList {
+    private static final int MIN_BUFFER = 64;
+    private static final int MAX_BUFFER = 4096;
+
+    private byte[] data = new byte[16];
+    private int length;
+    // Ids encoded in data, and the largest of them
+    private int encoded;
+    private int last = -1;
+    // Sorted ids not in data yet, and ids in data that no longer count
+    private int[] added = new int[0];
+    private int addedCount;
+    private int[] removed = new int[0];
+    private int removedCount;
+
+    public void add(int id) {
+        removedCount = delete(removed, removedCount, id);
+        if (id > last) {
+            append(id);
+        } else if (Arrays.binarySearch(added, 0, addedCount, id) < 0) {
+            added = insert(added, addedCount++, id);
+            mergeIfFull();
+        }
+    }
+
+    public void remove(int id) {
+        addedCount = delete(added, addedCount, id);
+        if (id <= last && Arrays.binarySearch(removed, 0, removedCount, id) < 0) {
+            removed = insert(removed, removedCount++, id);
+            mergeIfFull();
+        }
+    }
+
+    // Upper bound on the ids in the list: removed ids may not have been in it
+    public int size() {
+        return Math.max(0, encoded + addedCount - removedCount);
+    }
+
+    public boolean isEmpty() {
+        return encoded + addedCount == 0 || (size() == 0 && toIntList().isEmpty());
+    }
+
+    // All ids in ascending order
+    public IntList toIntList() {
+        IntList out = new IntList(encoded + addedCount);
+        int a = 0, r = 0;
+        int id = -1;
+        int pos = 0;
+        for (int i = 0; i < encoded; i++) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                delta |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            id += delta;
+            while (a < addedCount && added[a] < id) out.add(added[a++]);
+            if (a < addedCount && added[a] == id) a++;
+            while (r < removedCount && removed[r] < id) r++;
+            if (r < removedCount && removed[r] == id) continue;
+            out.add(id);
+        }
+        while (a < addedCount) out.add(added[a++]);
+        return out;
+    }
+
+    public long memoryBytes() {
+        return data.length + 4L * (added.length + removed.length) + 48;
+    }
+
+    private void append(int id) {
+        int delta = id - last;
+        if (length + 5 > data.length) {
+            data = Arrays.copyOf(data, Math.max(16, data.length + (data.length >> 1) + 5));
+        }
+        while ((delta & ~0x7f) != 0) {
+            data[length++] = (byte) ((delta & 0x7f) | 0x80);
+            delta >>>= 7;
+        }
+        data[length++] = (byte) delta;
+        last = id;
+        encoded++;
+    }
+
+    private void mergeIfFull() {
+        int limit = Math.min(MAX_BUFFER, Math.max(MIN_BUFFER, encoded >> 3));
+        if (addedCount + removedCount <= limit) return;
+        IntList ids = toIntList();
+        data = new byte[Math.max(16, ids.size() + 8)];
+        length = 0;
+        encoded = 0;
+        last = -1;
+        addedCount = 0;
+        removedCount = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            append(ids.get(i));
+        }
+    }
+
+    // Inserts id into the sorted prefix ids[0, count), growing the array if needed
+    private static int[] insert(int[] ids, int count, int id) {
+        int at = -Arrays.binarySearch(ids, 0, count, id) - 1;
+        if (count == ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(8, count * 2));
+        }
+        System.arraycopy(ids, at, ids, at + 1, count - at);
+        ids[at] = id;
+        return ids;
+    }
+
+    // Removes id from the sorted prefix ids[0, count) if present; returns the new count
+    private static int delete(int[] ids, int count, int id) {
+        int at = Arrays.binarySearch(ids, 0, count, id);
+        if (at < 0) return count;
+        System.arraycopy(ids, at + 1, ids, at, count - at - 1);
+        return count - 1;
+    }
+}
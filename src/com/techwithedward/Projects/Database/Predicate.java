@@ -0,0 +1,343 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// A WHERE clause: conditions, each optionally prefixed with NOT, combined with AND/OR.
+// AND binds tighter than OR. parse() reads the flat form without parentheses; SqlParser
+// also builds nested trees from parenthesized clauses.
+public abstract class Predicate {
+    private static final Pattern CONNECTIVE = Pattern.compile("(?i)\\s+(AND|OR)\\s+");
+    private static final Pattern OPEN_BETWEEN = Pattern.compile("(?i).*\\sBETWEEN\\s+\\S+\\s*");
+    private static final Pattern NOT = Pattern.compile("(?i)^\\s*NOT\\s+(.+)$");
+
+    public static Predicate parse(String where) {
+        List<Predicate> disjuncts = new ArrayList<>();
+        List<Predicate> conjuncts = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        Matcher m = CONNECTIVE.matcher(where);
+        int last = 0;
+        while (m.find()) {
+            if (quoted(where, m.start())) {
+                // Part of a quoted value such as MATCH 'cats OR dogs'
+                continue;
+            }
+            current.append(where, last, m.start());
+            last = m.end();
+            boolean and = m.group(1).equalsIgnoreCase("AND");
+            if (and && OPEN_BETWEEN.matcher(current).matches()) {
+                // The AND of "x BETWEEN a AND b" belongs to the condition
+                current.append(" AND ");
+                continue;
+            }
+            conjuncts.add(leaf(current.toString()));
+            current.setLength(0);
+            if (!and) {
+                disjuncts.add(And.of(conjuncts));
+                conjuncts = new ArrayList<>();
+            }
+        }
+        current.append(where, last, where.length());
+        conjuncts.add(leaf(current.toString()));
+        disjuncts.add(And.of(conjuncts));
+        return disjuncts.size() == 1 ? disjuncts.get(0) : new Or(disjuncts);
+    }
+
+    private static boolean quoted(String text, int end) {
+        int quotes = 0;
+        for (int i = 0; i < end; i++) {
+            if (text.charAt(i) == '\'') quotes++;
+        }
+        return quotes % 2 == 1;
+    }
+
+    private static Predicate leaf(String text) {
+        Matcher not = NOT.matcher(text);
+        return not.matches() ? new Not(new Leaf(Condition.parse(not.group(1)))) : new Leaf(Condition.parse(text));
+    }
+
+    // Resolves column names and converts operands to the column types
+    public abstract Predicate bind(Schema schema);
+
+    // Evaluates against a row laid out in schema order
+    public abstract boolean matches(Object[] row);
+
+    public abstract boolean matches(Table table, int slot);
+
+    // Candidate row ids in [from, to) in ascending order, ignoring visibility
+    public abstract IntList filter(Table table, int from, int to);
+
+    // Substitutes bind parameters into every condition; the tree's shape and columns stay the same
+    public abstract Predicate withParameters(Object[] parameters);
+
+    public static class Leaf extends Predicate {
+        private final Condition condition;
+        private final int column;
+
+        public Leaf(Condition condition) {
+            this(condition, -1);
+        }
+
+        private Leaf(Condition condition, int column) {
+            this.condition = condition;
+            this.column = column;
+        }
+
+        public Condition getCondition() {
+            return condition;
+        }
+
+        public int getColumn() {
+            return column;
+        }
+
+        @Override
+        public Predicate bind(Schema schema) {
+            int col = schema.indexOf(condition.getColumn());
+            return new Leaf(condition.bind(schema.type(col)), col);
+        }
+
+        @Override
+        public boolean matches(Object[] row) {
+            return condition.matches(row[column]);
+        }
+
+        @Override
+        public boolean matches(Table table, int slot) {
+            return condition.matches(table.get(slot, column));
+        }
+
+        @Override
+        public IntList filter(Table table, int from, int to) {
+            IntList rows = new IntList();
+            table.column(column).filter(condition, from, to, rows);
+            return rows;
+        }
+
+        @Override
+        public Predicate withParameters(Object[] parameters) {
+            Condition bound = condition.withParameters(parameters);
+            return bound == condition ? this : new Leaf(bound, column);
+        }
+
+        @Override
+        public String toString() {
+            return condition.toString();
+        }
+    }
+
+    // A negated condition. Like SQL, NULL satisfies neither the condition nor its negation.
+    public static class Not extends Predicate {
+        private final Leaf child;
+
+        public Not(Leaf child) {
+            this.child = child;
+        }
+
+        public Leaf getChild() {
+            return child;
+        }
+
+        @Override
+        public Predicate bind(Schema schema) {
+            return new Not((Leaf) child.bind(schema));
+        }
+
+        @Override
+        public boolean matches(Object[] row) {
+            return row[child.getColumn()] != null && !child.matches(row);
+        }
+
+        @Override
+        public boolean matches(Table table, int slot) {
+            return !table.column(child.getColumn()).isNull(slot) && !child.matches(table, slot);
+        }
+
+        // Complements the condition's column filter within [from, to), skipping nulls
+        @Override
+        public IntList filter(Table table, int from, int to) {
+            IntList hits = child.filter(table, from, to);
+            Column column = table.column(child.getColumn());
+            IntList rows = new IntList();
+            int next = 0;
+            for (int slot = from; slot < to; slot++) {
+                if (next < hits.size() && hits.get(next) == slot) {
+                    next++;
+                } else if (!column.isNull(slot)) {
+                    rows.add(slot);
+                }
+            }
+            return rows;
+        }
+
+        @Override
+        public Predicate withParameters(Object[] parameters) {
+            Predicate bound = child.withParameters(parameters);
+            return bound == child ? this : new Not((Leaf) bound);
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + child;
+        }
+    }
+
+    public static class And extends Predicate {
+        private final List<Predicate> children;
+
+        public And(List<Predicate> children) {
+            this.children = List.copyOf(children);
+        }
+
+        static Predicate of(List<Predicate> children) {
+            return children.size() == 1 ? children.get(0) : new And(children);
+        }
+
+        public List<Predicate> getChildren() {
+            return children;
+        }
+
+        @Override
+        public Predicate bind(Schema schema) {
+            return new And(children.stream().map(c -> c.bind(schema)).toList());
+        }
+
+        @Override
+        public boolean matches(Object[] row) {
+            for (Predicate child : children) {
+                if (!child.matches(row)) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean matches(Table table, int slot) {
+            for (Predicate child : children) {
+                if (!child.matches(table, slot)) return false;
+            }
+            return true;
+        }
+
+        // The first child runs over the column vector; the rest only check its survivors
+        @Override
+        public IntList filter(Table table, int from, int to) {
+            IntList candidates = children.get(0).filter(table, from, to);
+            IntList rows = new IntList(candidates.size());
+            for (int i = 0; i < candidates.size(); i++) {
+                int slot = candidates.get(i);
+                boolean match = true;
+                for (int c = 1; c < children.size() && match; c++) {
+                    match = children.get(c).matches(table, slot);
+                }
+                if (match) rows.add(slot);
+            }
+            return rows;
+        }
+
+        @Override
+        public Predicate withParameters(Object[] parameters) {
+            return new And(children.stream().map(c -> c.withParameters(parameters)).toList());
+        }
+
+        @Override
+        public String toString() {
+            StringJoiner joiner = new StringJoiner(" AND ");
+            children.forEach(c -> joiner.add(c instanceof Or ? "(" + c + ")" : c.toString()));
+            return joiner.toString();
+        }
+    }
+
+    public static class Or extends Predicate {
+        private final List<Predicate> children;
+
+        public Or(List<Predicate> children) {
+            this.children = List.copyOf(children);
+        }
+
+        public List<Predicate> getChildren() {
+            return children;
+        }
+
+        @Override
+        public Predicate bind(Schema schema) {
+            return new Or(children.stream().map(c -> c.bind(schema)).toList());
+        }
+
+        @Override
+        public boolean matches(Object[] row) {
+            for (Predicate child : children) {
+                if (child.matches(row)) return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean matches(Table table, int slot) {
+            for (Predicate child : children) {
+                if (child.matches(table, slot)) return true;
+            }
+            return false;
+        }
+
+        // Each branch filters on its own; the sorted results are merged without duplicates
+        @Override
+        public IntList filter(Table table, int from, int to) {
+            IntList rows = children.get(0).filter(table, from, to);
+            for (int c = 1; c < children.size(); c++) {
+                rows = union(rows, children.get(c).filter(table, from, to));
+            }
+            return rows;
+        }
+
+        @Override
+        public Predicate withParameters(Object[] parameters) {
+            return new Or(children.stream().map(c -> c.withParameters(parameters)).toList());
+        }
+
+        @Override
+        public String toString() {
+            StringJoiner joiner = new StringJoiner(" OR ");
+            children.forEach(c -> joiner.add(c.toString()));
+            return joiner.toString();
+        }
+    }
+
+    // Merges two ascending row id lists
+    public static IntList union(IntList a, IntList b) {
+        IntList out = new IntList(a.size() + b.size());
+        int i = 0, j = 0;
+        while (i < a.size() || j < b.size()) {
+            if (j >= b.size() || (i < a.size() && a.get(i) < b.get(j))) {
+                out.add(a.get(i++));
+            } else if (i >= a.size() || b.get(j) < a.get(i)) {
+                out.add(b.get(j++));
+            } else {
+                out.add(a.get(i++));
+                j++;
+            }
+        }
+        return out;
+    }
+
+    // Rows present in both ascending row id lists
+    public static IntList intersect(IntList a, IntList b) {
+        IntList out = new IntList(Math.min(a.size(), b.size()));
+        int i = 0, j = 0;
+        while (i < a.size() && j < b.size()) {
+            int x = a.get(i), y = b.get(j);
+            if (x < y) {
+                i++;
+            } else if (y < x) {
+                j++;
+            } else {
+                out.add(x);
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+}
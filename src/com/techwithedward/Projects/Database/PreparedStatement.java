@@ -0,0 +1,183 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.function.ToIntBiFunction;
+
+// A statement parsed and bound to its table once: column names are resolved, literal operands
+// converted to the column types and the WHERE clause compiled to a Predicate. Executions with
+// bind parameters substitute them into that compiled form instead of parsing again.
+//
+// The access plan is chosen on the first execution, for its parameters, and kept. Later
+// executions reuse it with their own parameters until the table's catalog changes (a new index
+// or refreshed statistics), which makes the next execution plan again.
+public class PreparedStatement {
+    public enum Kind { SELECT, UPDATE, DELETE }
+
+    private record KeptPlan(Plan plan, long catalogVersion) {
+    }
+
+    private final String text;
+    private final Kind kind;
+    private final Table table;
+    // Bound to the schema, parameters still open; null matches every row
+    private final Predicate where;
+    private final int parameters;
+    // SELECT: output columns; UPDATE: assigned columns
+    private final int[] columns;
+    // UPDATE: literal values converted to the column types, null where a parameter supplies the value
+    private final Object[] values;
+    private final Statement.Operand[] operands;
+    private final Statement.Operand limit;
+    private final Statement.Operand offset;
+    private final BiFunction<PreparedStatement, Object[], Cursor> queryExecutor;
+    private final ToIntBiFunction<PreparedStatement, Object[]> updateExecutor;
+    private volatile KeptPlan kept;
+
+    public PreparedStatement(String text, Statement statement, Table table,
+                             BiFunction<PreparedStatement, Object[], Cursor> queryExecutor,
+                             ToIntBiFunction<PreparedStatement, Object[]> updateExecutor) {
+        if (!statement.table().equals(table.getName())) {
+            throw new IllegalArgumentException("Statement is on " + statement.table() + ", not " + table.getName());
+        }
+        Schema schema = table.getSchema();
+        this.text = text;
+        this.table = table;
+        this.where = statement.where() == null ? null : statement.where().bind(schema);
+        this.parameters = statement.parameters();
+        this.queryExecutor = queryExecutor;
+        this.updateExecutor = updateExecutor;
+
+        switch (statement) {
+            case Statement.Select select -> {
+                kind = Kind.SELECT;
+                columns = new int[select.columns().isEmpty() ? schema.size() : select.columns().size()];
+                for (int i = 0; i < columns.length; i++) {
+                    columns[i] = select.columns().isEmpty() ? i : schema.indexOf(select.columns().get(i));
+                }
+                values = null;
+                operands = null;
+                limit = select.limit();
+                offset = select.offset();
+            }
+            case Statement.Update update -> {
+                kind = Kind.UPDATE;
+                int n = update.assignments().size();
+                columns = new int[n];
+                values = new Object[n];
+                operands = new Statement.Operand[n];
+                for (int i = 0; i < n; i++) {
+                    Statement.Assignment assignment = update.assignments().get(i);
+                    columns[i] = schema.indexOf(assignment.column());
+                    operands[i] = assignment.value();
+                    if (!operands[i].isParameter()) {
+                        values[i] = schema.type(columns[i]).parse(operands[i].literal());
+                    }
+                }
+                limit = null;
+                offset = null;
+            }
+            case Statement.Delete delete -> {
+                kind = Kind.DELETE;
+                columns = null;
+                values = null;
+                operands = null;
+                limit = null;
+                offset = null;
+            }
+        }
+    }
+
+    // Rows of a SELECT; close the cursor when done early
+    public Cursor query(Object... parameters) {
+        if (kind != Kind.SELECT) {
+            throw new IllegalStateException(kind + " does not return rows; use update()");
+        }
+        return queryExecutor.apply(this, checked(parameters));
+    }
+
+    // Runs an UPDATE or DELETE and returns the number of rows it changed
+    public int update(Object... parameters) {
+        if (kind == Kind.SELECT) {
+            throw new IllegalStateException("SELECT does not change rows; use query()");
+        }
+        return updateExecutor.applyAsInt(this, checked(parameters));
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Table getTable() {
+        return table;
+    }
+
+    public int getParameterCount() {
+        return parameters;
+    }
+
+    // The WHERE clause with these parameters, or null for every row
+    public Predicate where(Object[] parameters) {
+        return where == null ? null : where.withParameters(parameters);
+    }
+
+    // The kept plan with these parameters, or a new one from planner when there is none yet or the
+    // catalog changed since. Checking the statistics first lets enough row changes trigger a re-plan.
+    public Plan plan(Object[] parameters, long snapshot, Supplier<Plan> planner) {
+        Catalog catalog = table.getCatalog();
+        catalog.statistics(table, snapshot);
+        long version = catalog.getVersion();
+        KeptPlan current = kept;
+        if (current != null && current.catalogVersion() == version) {
+            return current.plan().withParameters(parameters);
+        }
+        Plan plan = planner.get();
+        kept = new KeptPlan(plan, version);
+        return plan;
+    }
+
+    // SELECT output columns or UPDATE target columns, by position in the schema
+    public int[] getColumns() {
+        return columns;
+    }
+
+    // UPDATE: the value assigned to getColumns()[i]
+    public Object value(int i, Object[] parameters) {
+        return operands[i].isParameter()
+                ? table.getSchema().type(columns[i]).parse(operands[i].resolve(parameters))
+                : values[i];
+    }
+
+    public long limit(Object[] parameters) {
+        return limit == null ? Long.MAX_VALUE : count(limit, parameters, "LIMIT");
+    }
+
+    public long offset(Object[] parameters) {
+        return offset == null ? 0 : count(offset, parameters, "OFFSET");
+    }
+
+    private static long count(Statement.Operand operand, Object[] parameters, String clause) {
+        String text = operand.resolve(parameters);
+        if (text == null) throw new IllegalArgumentException(clause + " must not be NULL");
+        long n = Long.parseLong(text.trim());
+        if (n < 0) throw new IllegalArgumentException(clause + " must not be negative");
+        return n;
+    }
+
+    private Object[] checked(Object[] parameters) {
+        Object[] given = parameters == null ? new Object[0] : parameters;
+        if (given.length != this.parameters) {
+            throw new IllegalArgumentException("Statement takes " + this.parameters + " parameters, got " + given.length);
+        }
+        return given;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,94 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Describes a SELECT; nothing runs until cursor() or stream() is called.
+// The result holds a read snapshot open, so close the cursor or stream when done early.
+public class Query {
+    private final String table;
+    private final Function<Query, Cursor> executor;
+    private String where;
+    private String[] columns;
+    private long offset;
+    private long limit = Long.MAX_VALUE;
+    private String pageToken;
+
+    public Query(String table, Function<Query, Cursor> executor) {
+        this.table = table;
+        this.executor = executor;
+    }
+
+    // col=value, col<value, col BETWEEN a AND b, col LIKE abc%; null or ALL matches every row
+    public Query where(String where) {
+        this.where = where;
+        return this;
+    }
+
+    // Projection; no columns means all of them
+    public Query select(String... columns) {
+        this.columns = columns.length == 0 ? null : columns;
+        return this;
+    }
+
+    public Query offset(long offset) {
+        if (offset < 0) throw new IllegalArgumentException("OFFSET must not be negative");
+        this.offset = offset;
+        return this;
+    }
+
+    public Query limit(long limit) {
+        if (limit < 0) throw new IllegalArgumentException("LIMIT must not be negative");
+        this.limit = limit;
+        return this;
+    }
+
+    // Continues after the last row of a previous page (see Cursor.nextPageToken)
+    public Query after(String pageToken) {
+        this.pageToken = pageToken;
+        return this;
+    }
+
+    public Cursor cursor() {
+        return executor.apply(this);
+    }
+
+    public Stream<Row> stream() {
+        Cursor cursor = cursor();
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(cursor::close);
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getWhere() {
+        return where;
+    }
+
+    public String[] getColumns() {
+        return columns;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    public String getPageToken() {
+        return pageToken;
+    }
+
+    // Identifies the result set a page token belongs to
+    public String fingerprint() {
+        return Integer.toHexString((table + "|" + (where == null ? "ALL" : where.trim())).hashCode());
+    }
+}
@@ -0,0 +1,254 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Picks the cheapest access path for a bound WHERE predicate using the table's catalog:
+// a single index probe, an intersection (AND) or union (OR) of probes, or a full scan.
+// Costs are in rough units of one row fetched and checked.
+public class QueryPlanner {
+    // Per slot for the vectorized column filter of a full scan
+    private static final double SCAN_COST = 0.05;
+    // Fixed cost of one index lookup
+    private static final double PROBE_COST = 20;
+    // Per row id read from an index and sorted
+    private static final double ID_COST = 0.2;
+    // Per row id merged in an intersection or union
+    private static final double MERGE_COST = 0.05;
+    // Per index candidate: visibility check plus re-evaluating the whole predicate
+    private static final double FETCH_COST = 1.0;
+    // Per build row inserted into a join hash table
+    private static final double BUILD_COST = 0.5;
+    // Per probe row hashed and looked up
+    private static final double HASH_PROBE_COST = 0.2;
+    // Per row of either input copied into a grace partition
+    private static final double PARTITION_COST = 0.2;
+    // Per outer row of an index nested-loop join: one equality lookup
+    private static final double LOOKUP_COST = 2;
+
+    private final ParallelScanner scanner;
+
+    public QueryPlanner(ParallelScanner scanner) {
+        this.scanner = scanner;
+    }
+
+    public Plan plan(Table table, Predicate predicate, long snapshot) {
+        Catalog.Statistics stats = table.getCatalog().statistics(table, snapshot);
+        Plan scan = fullScan(table, predicate, stats);
+        Plan index = indexPlan(table, predicate, stats);
+        return index != null && totalCost(index) < scan.getCost() ? index : scan;
+    }
+
+    // The chosen plan and the cost of the alternative, as EXPLAIN prints them
+    public String explain(Table table, Predicate predicate, long snapshot) {
+        Catalog.Statistics stats = table.getCatalog().statistics(table, snapshot);
+        Plan scan = fullScan(table, predicate, stats);
+        Plan index = indexPlan(table, predicate, stats);
+        boolean useIndex = index != null && totalCost(index) < scan.getCost();
+
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("Plan for %s WHERE %s (est. rows %.0f of %d)%n",
+                table.getName(), predicate, selectivity(predicate, stats) * table.size(), table.size()));
+        if (useIndex) {
+            out.append(String.format("-> Filter %s (est. cost %.1f)%n", predicate, totalCost(index)));
+            index.explain(out, 1);
+            out.append(String.format("Rejected: %s (est. cost %.1f)%n", scan.describe(), scan.getCost()));
+        } else {
+            scan.explain(out, 0);
+            if (index != null) {
+                out.append(String.format("Rejected: %s (est. cost %.1f)%n", index.describe(), totalCost(index)));
+            }
+        }
+        return out.toString();
+    }
+
+    // Picks how to join left and right on their key columns. leftAccess and rightAccess are the
+    // inputs' own access plans, or null when an input is read whole. Hash joins build on the side
+    // with fewer estimated rows and partition once the build table would exceed memoryLimit;
+    // an index on either key allows an index nested-loop join that never reads that side.
+    public JoinPlan planJoin(Table left, int leftKey, Plan leftAccess, Table right, int rightKey, Plan rightAccess,
+                             long memoryLimit, long snapshot) {
+        double leftRows = inputRows(left, leftAccess);
+        double rightRows = inputRows(right, rightAccess);
+        double matches = joinRows(left, leftKey, leftRows, right, rightKey, rightRows, snapshot);
+
+        boolean buildLeft = leftRows < rightRows;
+        double buildRows = buildLeft ? leftRows : rightRows;
+        double probeRows = buildLeft ? rightRows : leftRows;
+        int partitions = Join.partitionsFor(buildRows, memoryLimit);
+        double hashCost = inputCost(left, leftAccess) + inputCost(right, rightAccess)
+                + buildRows * BUILD_COST + probeRows * HASH_PROBE_COST
+                + (partitions > 1 ? (buildRows + probeRows) * PARTITION_COST : 0);
+        JoinPlan best = new JoinPlan(partitions > 1 ? JoinPlan.Strategy.GRACE_HASH : JoinPlan.Strategy.HASH,
+                buildLeft, buildLeft ? left.getName() : right.getName(), buildLeft ? right.getName() : left.getName(),
+                partitions, null, matches, hashCost);
+
+        // Index nested loop, with either side as the outer one
+        for (boolean outerLeft : new boolean[]{true, false}) {
+            Table inner = outerLeft ? right : left;
+            Index index = inner.getCatalog().getIndex(inner.getSchema().name(outerLeft ? rightKey : leftKey));
+            // A full-text index finds words, not whole values
+            if (index == null || index instanceof FullTextIndex) continue;
+            double outerRows = outerLeft ? leftRows : rightRows;
+            double innerAll = outerLeft ? right.size() : left.size();
+            double innerRows = outerLeft ? rightRows : leftRows;
+            // Every candidate the index returns is fetched, whether or not it passes the inner filter
+            double fetched = innerRows == 0 ? 0 : matches * innerAll / innerRows;
+            double cost = inputCost(outerLeft ? left : right, outerLeft ? leftAccess : rightAccess)
+                    + outerRows * LOOKUP_COST + fetched * FETCH_COST;
+            if (cost < best.getCost()) {
+                best = new JoinPlan(JoinPlan.Strategy.INDEX_NESTED_LOOP, outerLeft,
+                        outerLeft ? left.getName() : right.getName(), inner.getName(), 1, index, matches, cost);
+            }
+        }
+        return best;
+    }
+
+    private static double inputRows(Table table, Plan access) {
+        return access == null ? table.size() : access.getRows();
+    }
+
+    private static double inputCost(Table table, Plan access) {
+        if (access == null) return table.slotCount() * SCAN_COST;
+        return access.usesIndex() ? totalCost(access) : access.getCost();
+    }
+
+    // Estimated joined rows: each input row matches the other side's rows sharing its key,
+    // assuming the side with fewer distinct keys has all its keys present on the other side
+    private static double joinRows(Table left, int leftKey, double leftRows, Table right, int rightKey,
+                                   double rightRows, long snapshot) {
+        long leftDistinct = left.getCatalog().statistics(left, snapshot).column(leftKey).getDistinct();
+        long rightDistinct = right.getCatalog().statistics(right, snapshot).column(rightKey).getDistinct();
+        return leftRows * rightRows / Math.max(1, Math.max(leftDistinct, rightDistinct));
+    }
+
+    private Plan fullScan(Table table, Predicate predicate, Catalog.Statistics stats) {
+        return new Plan.FullScan(selectivity(predicate, stats) * table.size(),
+                table.slotCount() * SCAN_COST, scanner.isParallel(table));
+    }
+
+    private static double totalCost(Plan index) {
+        return index.getCost() + index.getRows() * FETCH_COST;
+    }
+
+    // Exact bitmap evaluation of the whole predicate, or null unless every condition in it
+    // has a bitmap index
+    public Plan.Bitmaps bitmapPlan(Table table, Predicate predicate, long snapshot) {
+        if (!coveredByBitmaps(table, predicate)) return null;
+        return bitmapPlan(table, predicate, table.getCatalog().statistics(table, snapshot));
+    }
+
+    private Plan.Bitmaps bitmapPlan(Table table, Predicate predicate, Catalog.Statistics stats) {
+        double rows = selectivity(predicate, stats) * table.size();
+        return new Plan.Bitmaps(table, predicate, rows, conditions(predicate) * PROBE_COST + rows * ID_COST);
+    }
+
+    private static boolean coveredByBitmaps(Table table, Predicate predicate) {
+        if (predicate instanceof Predicate.Leaf leaf) {
+            return table.getCatalog().getIndex(table.getSchema().name(leaf.getColumn())) instanceof BitmapIndex;
+        }
+        if (predicate instanceof Predicate.Not not) {
+            return coveredByBitmaps(table, not.getChild());
+        }
+        List<Predicate> children = predicate instanceof Predicate.And and ? and.getChildren()
+                : ((Predicate.Or) predicate).getChildren();
+        return children.stream().allMatch(child -> coveredByBitmaps(table, child));
+    }
+
+    private static int conditions(Predicate predicate) {
+        if (predicate instanceof Predicate.Leaf || predicate instanceof Predicate.Not) return 1;
+        List<Predicate> children = predicate instanceof Predicate.And and ? and.getChildren()
+                : ((Predicate.Or) predicate).getChildren();
+        return children.stream().mapToInt(QueryPlanner::conditions).sum();
+    }
+
+    // Cheapest way to get a superset of the matches from indexes alone, or null
+    private Plan indexPlan(Table table, Predicate predicate, Catalog.Statistics stats) {
+        double n = table.size();
+        if (coveredByBitmaps(table, predicate)) {
+            return bitmapPlan(table, predicate, stats);
+        }
+        if (predicate instanceof Predicate.Not) {
+            return null;
+        }
+        if (predicate instanceof Predicate.Leaf leaf) {
+            Index index = table.getCatalog().getIndex(table.getSchema().name(leaf.getColumn()));
+            if (index == null || !index.supports(leaf.getCondition())) return null;
+            double rows = index instanceof FullTextIndex text ? Math.min(n, text.estimate(leaf.getCondition()))
+                    : selectivity(leaf, stats) * n;
+            return new Plan.IndexProbe(table.getName(), index, leaf.getCondition(), rows, PROBE_COST + rows * ID_COST);
+        }
+
+        if (predicate instanceof Predicate.And and) {
+            // Any indexed conjunct narrows the result; add more while intersecting still pays off.
+            // Conjuncts with bitmap indexes are combined as bitmaps first and count as one input.
+            List<Plan> inputs = new ArrayList<>();
+            List<Predicate> bitmapped = new ArrayList<>();
+            for (Predicate child : and.getChildren()) {
+                if (coveredByBitmaps(table, child)) {
+                    bitmapped.add(child);
+                    continue;
+                }
+                Plan plan = indexPlan(table, child, stats);
+                if (plan != null) inputs.add(plan);
+            }
+            if (!bitmapped.isEmpty()) {
+                inputs.add(bitmapPlan(table, Predicate.And.of(bitmapped), stats));
+            }
+            if (inputs.isEmpty()) return null;
+            inputs.sort(Comparator.comparingDouble(Plan::getRows));
+
+            Plan best = inputs.get(0);
+            List<Plan> chosen = new ArrayList<>(List.of(best));
+            for (int i = 1; i < inputs.size(); i++) {
+                List<Plan> candidate = new ArrayList<>(chosen);
+                candidate.add(inputs.get(i));
+                double rows = n;
+                double cost = 0;
+                for (Plan p : candidate) {
+                    rows *= n == 0 ? 0 : p.getRows() / n;
+                    cost += p.getCost() + p.getRows() * MERGE_COST;
+                }
+                Plan intersection = new Plan.Intersection(candidate, rows, cost);
+                if (totalCost(intersection) < totalCost(best)) {
+                    best = intersection;
+                    chosen = candidate;
+                }
+            }
+            return best;
+        }
+
+        // OR needs every branch to come from an index
+        Predicate.Or or = (Predicate.Or) predicate;
+        List<Plan> inputs = new ArrayList<>();
+        double rows = 0;
+        double cost = 0;
+        for (Predicate child : or.getChildren()) {
+            Plan plan = indexPlan(table, child, stats);
+            if (plan == null) return null;
+            inputs.add(plan);
+            rows += plan.getRows();
+            cost += plan.getCost() + plan.getRows() * MERGE_COST;
+        }
+        return new Plan.Union(inputs, Math.min(n, rows), cost);
+    }
+
+    private static double selectivity(Predicate predicate, Catalog.Statistics stats) {
+        if (predicate instanceof Predicate.Leaf leaf) {
+            return stats.column(leaf.getColumn()).selectivity(leaf.getCondition());
+        }
+        if (predicate instanceof Predicate.Not not) {
+            ColumnStatistics column = stats.column(not.getChild().getColumn());
+            return Math.max(0, 1 - column.getNullFraction() - selectivity(not.getChild(), stats));
+        }
+        if (predicate instanceof Predicate.And and) {
+            double s = 1;
+            for (Predicate child : and.getChildren()) s *= selectivity(child, stats);
+            return s;
+        }
+        double none = 1;
+        for (Predicate child : ((Predicate.Or) predicate).getChildren()) none *= 1 - selectivity(child, stats);
+        return 1 - none;
+    }
+}
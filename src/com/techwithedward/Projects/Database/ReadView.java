@@ -0,0 +1,21 @@
+package com.techwithedward.Projects.Database;
+
+// A registered snapshot: while open, no row version visible at this timestamp is reclaimed
+public class ReadView implements AutoCloseable {
+    private final TransactionManager manager;
+    private final long snapshot;
+
+    ReadView(TransactionManager manager, long snapshot) {
+        this.manager = manager;
+        this.snapshot = snapshot;
+    }
+
+    public long getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public void close() {
+        manager.release(this);
+    }
+}
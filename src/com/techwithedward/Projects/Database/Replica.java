@@ -0,0 +1,241 @@
+package com.techwithedward.Projects.Database;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Replica side of log shipping: a background thread that keeps a connection to the primary open,
+// installs the snapshots and applies the records it sends (see ReplicationServer for the frames)
+// and reconnects from its last applied sequence when the connection drops.
+//
+// Reads are bounded-stale rather than current: a heartbeat tells the replica it has applied
+// everything the primary committed up to some moment, and awaitFresh() only lets a read through
+// while that moment is at most maxLagMillis ago. Lag is measured against the primary's clock, so
+// the guarantee assumes the two clocks agree, as they do for processes on one machine.
+public class Replica implements AutoCloseable {
+    private static final long RECONNECT_MILLIS = 500;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public interface SnapshotInstaller {
+        void install(Path file) throws IOException;
+    }
+
+    public interface RecordApplier {
+        void apply(LogRecord record);
+    }
+
+    public record Status(String primary, boolean connected, long appliedSequence, long lagMillis, long snapshotsLoaded) {
+        @Override
+        public String toString() {
+            return String.format("replica of %s (%s): applied=%d, lag=%s, snapshots loaded=%d", primary,
+                    connected ? "connected" : "disconnected", appliedSequence,
+                    lagMillis == Long.MAX_VALUE ? "unknown" : lagMillis + " ms", snapshotsLoaded);
+        }
+    }
+
+    private final String host;
+    private final int port;
+    private final long maxLagMillis;
+    private final SnapshotInstaller installer;
+    private final RecordApplier applier;
+    private Thread thread;
+    private volatile boolean running = true;
+    private volatile boolean connected;
+    private volatile Socket socket;
+
+    // Position in the primary's log; epoch 0 means nothing was loaded yet
+    private volatile long epoch;
+    private volatile long applied;
+    private volatile long snapshotsLoaded;
+    // Primary time at which this replica had applied everything committed; 0 = never
+    private volatile long freshAsOf;
+
+    private Replica(String host, int port, long maxLagMillis, SnapshotInstaller installer, RecordApplier applier) {
+        this.host = host;
+        this.port = port;
+        this.maxLagMillis = maxLagMillis;
+        this.installer = installer;
+        this.applier = applier;
+    }
+
+    // Starts following the primary at host:port in the background
+    public static Replica connect(String host, int port, long maxLagMillis, SnapshotInstaller installer,
+                                  RecordApplier applier) {
+        if (maxLagMillis < ReplicationServer.HEARTBEAT_MILLIS) {
+            throw new IllegalArgumentException("Lag limit must be at least the heartbeat interval ("
+                    + ReplicationServer.HEARTBEAT_MILLIS + " ms)");
+        }
+        Replica replica = new Replica(host, port, maxLagMillis, installer, applier);
+        replica.thread = new Thread(replica::run, "db-replica");
+        replica.thread.setDaemon(true);
+        replica.thread.start();
+        return replica;
+    }
+
+    public String getPrimary() {
+        return host + ":" + port;
+    }
+
+    public long getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    // How far behind the primary this replica may be, in ms; Long.MAX_VALUE before the first heartbeat
+    public long lagMillis() {
+        long asOf = freshAsOf;
+        return asOf == 0 ? Long.MAX_VALUE : Math.max(0, System.currentTimeMillis() - asOf);
+    }
+
+    // Waits up to the lag limit for the replica to be within it; reads call this first
+    public void awaitFresh() {
+        if (lagMillis() <= maxLagMillis) return;
+        long deadline = System.currentTimeMillis() + maxLagMillis;
+        synchronized (this) {
+            long now;
+            while (lagMillis() > maxLagMillis && (now = System.currentTimeMillis()) < deadline) {
+                try {
+                    wait(deadline - now);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        long lag = lagMillis();
+        if (lag > maxLagMillis) {
+            throw new IllegalStateException("Replica is " + (lag == Long.MAX_VALUE ? "not yet synced with" : lag + " ms behind")
+                    + " primary " + getPrimary() + " (limit " + maxLagMillis + " ms)");
+        }
+    }
+
+    public Status status() {
+        return new Status(getPrimary(), connected, applied, lagMillis(), snapshotsLoaded);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+        thread.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            try (Socket s = new Socket()) {
+                socket = s;
+                s.connect(new InetSocketAddress(host, port));
+                s.setTcpNoDelay(true);
+                connected = true;
+                follow(new DataInputStream(new BufferedInputStream(s.getInputStream(), BUFFER_SIZE)),
+                        new DataOutputStream(new BufferedOutputStream(s.getOutputStream())));
+            } catch (IOException | RuntimeException e) {
+                if (running && connected) {
+                    System.err.println("Replication from " + getPrimary() + " interrupted: "
+                            + (e instanceof EOFException ? "primary closed the connection" : e.getMessage()));
+                }
+            } finally {
+                connected = false;
+            }
+            if (!running) break;
+            try {
+                Thread.sleep(RECONNECT_MILLIS);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    private void follow(DataInputStream in, DataOutputStream out) throws IOException {
+        out.writeInt(ReplicationServer.MAGIC);
+        out.writeLong(epoch);
+        out.writeLong(applied + 1);
+        out.flush();
+        while (running) {
+            byte type = in.readByte();
+            switch (type) {
+                case ReplicationServer.SNAPSHOT -> {
+                    long snapshotEpoch = in.readLong();
+                    long sequence = in.readLong();
+                    long length = in.readLong();
+                    // A half-installed snapshot leaves nothing to resume from
+                    epoch = 0;
+                    applied = 0;
+                    Path file = Files.createTempFile("inmemorydb-replica-", ".snapshot");
+                    try {
+                        try (OutputStream copy = Files.newOutputStream(file)) {
+                            transfer(in, copy, length);
+                        }
+                        installer.install(file);
+                    } finally {
+                        Files.deleteIfExists(file);
+                    }
+                    epoch = snapshotEpoch;
+                    applied = sequence;
+                    snapshotsLoaded++;
+                }
+                case ReplicationServer.RECORDS -> {
+                    long first = in.readLong();
+                    int count = in.readInt();
+                    if (first != applied + 1) {
+                        throw new IOException("Expected sequence " + (applied + 1) + ", primary sent " + first);
+                    }
+                    for (int i = 0; i < count; i++) {
+                        byte[] bytes = new byte[in.readInt()];
+                        in.readFully(bytes);
+                        try {
+                            applier.apply(LogRecord.decode(new BinaryReader(ByteBuffer.wrap(bytes))));
+                        } catch (RuntimeException e) {
+                            // Diverged from the primary: start over from a snapshot
+                            epoch = 0;
+                            throw e;
+                        }
+                        applied = first + i;
+                    }
+                }
+                case ReplicationServer.HEARTBEAT -> {
+                    long last = in.readLong();
+                    long timeMillis = in.readLong();
+                    if (applied >= last) {
+                        synchronized (this) {
+                            freshAsOf = timeMillis;
+                            notifyAll();
+                        }
+                    }
+                    out.writeLong(applied);
+                    out.flush();
+                }
+                default -> throw new IOException("Unknown replication frame " + type);
+            }
+        }
+    }
+
+    private static void transfer(InputStream in, OutputStream out, long length) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long remaining = length;
+        while (remaining > 0) {
+            int n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (n < 0) {
+                throw new IOException("Snapshot cut off after " + (length - remaining) + " of " + length + " bytes");
+            }
+            out.write(buffer, 0, n);
+            remaining -= n;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.techwithedward.Projects.Database;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+// The primary's mutation log as replicas read it: encoded LogRecords numbered by a sequence that
+// starts at 1, in the order the commits became visible. Only the most recent records are kept,
+// bounded by count and by bytes; a replica that asks for an older one has fallen too far behind
+// and is sent a snapshot instead.
+public class ReplicationLog {
+    public static final int DEFAULT_CAPACITY = 1 << 17;
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+
+    // records is empty when the reader is caught up (or after the wait ran out); missed means the
+    // requested sequence is gone. lastSequence and the time are taken together, so a reader that
+    // got every record up to lastSequence was current as of timeMillis.
+    public record Batch(List<byte[]> records, long firstSequence, boolean missed, long lastSequence, long timeMillis) {
+    }
+
+    // Identifies this log: sequences restart at 1 with a new primary, so a replica's position only
+    // means something against the epoch it was read from
+    private final long epoch = new SecureRandom().nextLong() | 1;
+    private final byte[][] ring;
+    private final int mask;
+    private final long maxBytes;
+    // Records [first, next) are in the ring
+    private long first = 1;
+    private long next = 1;
+    private long bytes;
+
+    public ReplicationLog(int capacity, long maxBytes) {
+        if (capacity < 1 || maxBytes < 1) {
+            throw new IllegalArgumentException("Capacity and byte limit must be positive");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) size <<= 1;
+        this.ring = new byte[size][];
+        this.mask = size - 1;
+        this.maxBytes = maxBytes;
+    }
+
+    // Encodes and numbers the records, dropping the oldest ones over the limits, and wakes readers
+    public void append(List<LogRecord> logged) {
+        List<byte[]> encoded = new ArrayList<>(logged.size());
+        for (LogRecord record : logged) {
+            encoded.add(record.encode());
+        }
+        synchronized (this) {
+            for (byte[] record : encoded) {
+                if (next - first == ring.length) {
+                    dropOldest();
+                }
+                ring[(int) (next++ & mask)] = record;
+                bytes += record.length;
+            }
+            // The newest record always stays, however large
+            while (bytes > maxBytes && next - first > 1) {
+                dropOldest();
+            }
+            notifyAll();
+        }
+    }
+
+    public long epoch() {
+        return epoch;
+    }
+
+    public synchronized long lastSequence() {
+        return next - 1;
+    }
+
+    public synchronized long oldestSequence() {
+        return first;
+    }
+
+    // Up to max records from sequence from on, waiting up to waitMillis for the first of them
+    public synchronized Batch read(long from, int max, long waitMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        long now;
+        while (from > lastSequence() && (now = System.currentTimeMillis()) < deadline) {
+            wait(deadline - now);
+        }
+        long last = lastSequence();
+        if (from < first) {
+            return new Batch(List.of(), from, true, last, System.currentTimeMillis());
+        }
+        int n = (int) Math.min(max, Math.max(0, next - from));
+        List<byte[]> out = new ArrayList<>(n);
+        for (long sequence = from; sequence < from + n; sequence++) {
+            out.add(ring[(int) (sequence & mask)]);
+        }
+        return new Batch(out, from, false, last, System.currentTimeMillis());
+    }
+
+    private void dropOldest() {
+        int slot = (int) (first++ & mask);
+        bytes -= ring[slot].length;
+        ring[slot] = null;
+    }
+}
@@ -0,0 +1,207 @@
+package com.techwithedward.Projects.Database;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Primary side of log shipping. Each replica connects, says which epoch and sequence it needs
+// next, and from then on the primary pushes frames down the socket:
+//
+//   SNAPSHOT  epoch, sequence, length, snapshot file   the replica's state as of sequence
+//   RECORDS   first sequence, count, (length, record)*  encoded LogRecords in commit order
+//   HEARTBEAT last sequence, primary time (millis)      sent whenever the replica is caught up
+//
+// A replica without a position, from another epoch, or so far behind that the log no longer has
+// its next record gets a snapshot first. Replicas answer every heartbeat with the last sequence
+// they applied, which is what status() reports.
+public class ReplicationServer implements AutoCloseable {
+    static final int MAGIC = 0x5245504C;
+    static final byte SNAPSHOT = 1;
+    static final byte RECORDS = 2;
+    static final byte HEARTBEAT = 3;
+    // A caught-up replica hears from the primary at least this often, so it can tell how fresh it is
+    static final long HEARTBEAT_MILLIS = 50;
+    private static final int MAX_BATCH = 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Writes a consistent snapshot to file and returns the last sequence it includes
+    public interface SnapshotWriter {
+        long write(Path file) throws IOException;
+    }
+
+    public record ReplicaStatus(String address, long sentSequence, long appliedSequence, long snapshotsSent) {
+        @Override
+        public String toString() {
+            return String.format("%s: sent=%d, applied=%d, snapshots=%d", address, sentSequence, appliedSequence,
+                    snapshotsSent);
+        }
+    }
+
+    private final ReplicationLog log;
+    private final SnapshotWriter snapshots;
+    private final ServerSocket serverSocket;
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private volatile boolean running = true;
+
+    public ReplicationServer(int port, ReplicationLog log, SnapshotWriter snapshots) throws IOException {
+        this.log = log;
+        this.snapshots = snapshots;
+        this.serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(port));
+        Thread acceptor = new Thread(this::accept, "db-replication-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public List<ReplicaStatus> replicas() {
+        List<ReplicaStatus> out = new ArrayList<>();
+        for (Connection connection : connections) {
+            out.add(new ReplicaStatus(connection.address, connection.sent, connection.applied, connection.snapshotsSent));
+        }
+        return out;
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    private void accept() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Connection connection = new Connection(socket);
+                connections.add(connection);
+                Thread sender = new Thread(connection::send, "db-replication-" + connection.address);
+                sender.setDaemon(true);
+                sender.start();
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Replication accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // One replica. The sender thread streams frames; acknowledgements are read on a second thread
+    // so a slow reader never holds up the stream.
+    private final class Connection {
+        private final Socket socket;
+        private final String address;
+        private volatile long sent;
+        private volatile long applied;
+        private volatile long snapshotsSent;
+
+        Connection(Socket socket) {
+            this.socket = socket;
+            this.address = socket.getRemoteSocketAddress().toString();
+        }
+
+        void send() {
+            try (socket) {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE));
+                if (in.readInt() != MAGIC) {
+                    return;
+                }
+                long epoch = in.readLong();
+                long next = in.readLong();
+                Thread acks = new Thread(() -> readAcks(in), "db-replication-acks-" + address);
+                acks.setDaemon(true);
+                acks.start();
+
+                if (epoch != log.epoch() || next < 1 || next > log.lastSequence() + 1) {
+                    next = sendSnapshot(out);
+                }
+                while (running) {
+                    ReplicationLog.Batch batch = log.read(next, MAX_BATCH, HEARTBEAT_MILLIS);
+                    if (batch.missed()) {
+                        next = sendSnapshot(out);
+                        continue;
+                    }
+                    if (!batch.records().isEmpty()) {
+                        out.writeByte(RECORDS);
+                        out.writeLong(batch.firstSequence());
+                        out.writeInt(batch.records().size());
+                        for (byte[] record : batch.records()) {
+                            out.writeInt(record.length);
+                            out.write(record);
+                        }
+                        next = batch.firstSequence() + batch.records().size();
+                        sent = next - 1;
+                    }
+                    if (next > batch.lastSequence()) {
+                        out.writeByte(HEARTBEAT);
+                        out.writeLong(batch.lastSequence());
+                        out.writeLong(batch.timeMillis());
+                    }
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // Replica went away; it reconnects with its position
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                connections.remove(this);
+            }
+        }
+
+        // Returns the sequence to continue from
+        private long sendSnapshot(DataOutputStream out) throws IOException {
+            Path file = Files.createTempFile("inmemorydb-replica-", ".snapshot");
+            try {
+                long sequence = snapshots.write(file);
+                out.writeByte(SNAPSHOT);
+                out.writeLong(log.epoch());
+                out.writeLong(sequence);
+                out.writeLong(Files.size(file));
+                Files.copy(file, out);
+                out.flush();
+                snapshotsSent++;
+                sent = sequence;
+                return sequence + 1;
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        private void readAcks(DataInputStream in) {
+            try {
+                while (true) {
+                    applied = in.readLong();
+                }
+            } catch (IOException e) {
+                // Closed together with the sender
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.techwithedward.Projects.Database;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// RESP-style wire format shared by DatabaseServer and DatabaseClient.
+// Requests are arrays of bulk strings. Replies use RESP types plus the RESP3
+// null (_), double (,) and boolean (#) so row values keep their column types:
+//   +OK  -ERR message  :42  $5 hello  ,1.5  #t  _  *2 ...
+public final class Resp {
+    private Resp() {
+    }
+
+    // An error reply; returned as a value by pipelines, thrown by the typed client calls
+    public record Error(String message) {
+    }
+
+    public static class Reader {
+        private final InputStream in;
+
+        public Reader(InputStream in) {
+            this.in = in;
+        }
+
+        // Bytes that can be read without blocking; the server flushes replies when this is 0
+        public int available() throws IOException {
+            return in.available();
+        }
+
+        // Next request, or null at end of stream
+        public List<String> readCommand() throws IOException {
+            int type = in.read();
+            if (type < 0) return null;
+            if (type != '*') throw new IOException("Expected a command array, got '" + (char) type + "'");
+            int count = (int) readLong();
+            List<String> parts = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int t = in.read();
+                if (t != '$') throw new IOException("Expected a bulk string in command");
+                parts.add(readBulk());
+            }
+            return parts;
+        }
+
+        public Object readReply() throws IOException {
+            int type = in.read();
+            return switch (type) {
+                case -1 -> throw new EOFException("Connection closed");
+                case '+' -> readLine();
+                case '-' -> new Error(readLine());
+                case ':' -> readLong();
+                case ',' -> Double.parseDouble(readLine());
+                case '#' -> readLine().equals("t");
+                case '_' -> {
+                    readLine();
+                    yield null;
+                }
+                case '$' -> readBulk();
+                case '*' -> {
+                    long count = readLong();
+                    if (count < 0) yield null;
+                    List<Object> items = new ArrayList<>((int) count);
+                    for (int i = 0; i < count; i++) {
+                        items.add(readReply());
+                    }
+                    yield items;
+                }
+                default -> throw new IOException("Unknown reply type '" + (char) type + "'");
+            };
+        }
+
+        private String readBulk() throws IOException {
+            int length = (int) readLong();
+            if (length < 0) return null;
+            byte[] bytes = in.readNBytes(length);
+            if (bytes.length < length) throw new EOFException("Connection closed");
+            readLine(); // trailing CRLF
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private long readLong() throws IOException {
+            long value = 0;
+            boolean negative = false;
+            int c = in.read();
+            if (c == '-') {
+                negative = true;
+                c = in.read();
+            }
+            while (c != '\r') {
+                if (c < '0' || c > '9') throw new IOException("Malformed number");
+                value = value * 10 + (c - '0');
+                c = in.read();
+            }
+            in.read(); // \n
+            return negative ? -value : value;
+        }
+
+        private String readLine() throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(32);
+            int c;
+            while ((c = in.read()) != '\r') {
+                if (c < 0) throw new EOFException("Connection closed");
+                line.write(c);
+            }
+            in.read(); // \n
+            return line.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    public static class Writer {
+        private static final byte[] CRLF = {'\r', '\n'};
+
+        private final OutputStream out;
+
+        public Writer(OutputStream out) {
+            this.out = out;
+        }
+
+        public void writeCommand(String... parts) throws IOException {
+            writeArrayHeader(parts.length);
+            for (String part : parts) {
+                writeBulk(part);
+            }
+        }
+
+        public void writeSimple(String text) throws IOException {
+            out.write('+');
+            writeAscii(text);
+            out.write(CRLF);
+        }
+
+        public void writeError(String message) throws IOException {
+            out.write('-');
+            // Error replies are a single line
+            writeUtf8(message == null ? "ERR" : message.replace('\r', ' ').replace('\n', ' '));
+            out.write(CRLF);
+        }
+
+        public void writeInteger(long value) throws IOException {
+            out.write(':');
+            writeAscii(Long.toString(value));
+            out.write(CRLF);
+        }
+
+        public void writeBulk(String text) throws IOException {
+            if (text == null) {
+                writeNull();
+                return;
+            }
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            out.write('$');
+            writeAscii(Integer.toString(bytes.length));
+            out.write(CRLF);
+            out.write(bytes);
+            out.write(CRLF);
+        }
+
+        public void writeNull() throws IOException {
+            out.write('_');
+            out.write(CRLF);
+        }
+
+        public void writeArrayHeader(int count) throws IOException {
+            out.write('*');
+            writeAscii(Integer.toString(count));
+            out.write(CRLF);
+        }
+
+        // Column values keep their type on the wire
+        public void writeValue(Object value) throws IOException {
+            switch (value) {
+                case null -> writeNull();
+                case Integer i -> writeInteger(i);
+                case Long l -> writeInteger(l);
+                case Double d -> {
+                    out.write(',');
+                    writeAscii(d.toString());
+                    out.write(CRLF);
+                }
+                case Boolean b -> {
+                    out.write('#');
+                    out.write(b ? 't' : 'f');
+                    out.write(CRLF);
+                }
+                default -> writeBulk(value.toString());
+            }
+        }
+
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        private void writeAscii(String text) throws IOException {
+            for (int i = 0; i < text.length(); i++) {
+                out.write(text.charAt(i));
+            }
+        }
+
+        private void writeUtf8(String text) throws IOException {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.Arrays;
+
+// Compressed set of row ids. Ids are split by their high 16 bits into chunks of 65536; each
+// non-empty chunk is a container holding the low 16 bits: a sorted char array while it has
+// at most 4096 entries, a 65536-bit bitmap once it grows past that. AND/OR/ANDNOT work
+// container by container, so sparse and dense regions both stay cheap.
+// Not thread-safe; BitmapIndex guards each instance.
+public class RoaringBitmap {
+    private static final int ARRAY_MAX = 4096;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+
+    public void add(int id) {
+        char high = (char) (id >>> 16);
+        int i = find(high);
+        if (i >= 0) {
+            containers[i] = containers[i].add((char) id);
+        } else {
+            insert(-i - 1, high, new ArrayContainer().add((char) id));
+        }
+    }
+
+    public void remove(int id) {
+        int i = find((char) (id >>> 16));
+        if (i < 0) return;
+        Container container = containers[i].remove((char) id);
+        if (container.cardinality() == 0) {
+            System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+            System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+            containers[--size] = null;
+        } else {
+            containers[i] = container;
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(containers, 0, size, null);
+        size = 0;
+    }
+
+    public boolean contains(int id) {
+        int i = find((char) (id >>> 16));
+        return i >= 0 && containers[i].contains((char) id);
+    }
+
+    public long cardinality() {
+        long total = 0;
+        for (int i = 0; i < size; i++) total += containers[i].cardinality();
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public RoaringBitmap copy() {
+        RoaringBitmap copy = new RoaringBitmap();
+        copy.keys = Arrays.copyOf(keys, Math.max(4, size));
+        copy.containers = new Container[copy.keys.length];
+        for (int i = 0; i < size; i++) copy.containers[i] = containers[i].copy();
+        copy.size = size;
+        return copy;
+    }
+
+    public RoaringBitmap and(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0, j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.append(keys[i], containers[i].and(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public RoaringBitmap or(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0, j = 0;
+        while (i < size || j < other.size) {
+            if (j >= other.size || (i < size && keys[i] < other.keys[j])) {
+                result.append(keys[i], containers[i].copy());
+                i++;
+            } else if (i >= size || other.keys[j] < keys[i]) {
+                result.append(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.append(keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    // Ids in this bitmap but not in other
+    public RoaringBitmap andNot(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0, j = 0;
+        while (i < size) {
+            if (j >= other.size || keys[i] < other.keys[j]) {
+                result.append(keys[i], containers[i].copy());
+                i++;
+            } else if (other.keys[j] < keys[i]) {
+                j++;
+            } else {
+                result.append(keys[i], containers[i].andNot(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    // Ascending row ids
+    public IntList toIntList() {
+        IntList ids = new IntList((int) Math.min(Integer.MAX_VALUE, cardinality()));
+        for (int i = 0; i < size; i++) {
+            containers[i].addTo(keys[i] << 16, ids);
+        }
+        return ids;
+    }
+
+    public long memoryBytes() {
+        long bytes = 16 + keys.length * 2L + containers.length * 8L;
+        for (int i = 0; i < size; i++) bytes += containers[i].memoryBytes();
+        return bytes;
+    }
+
+    private int find(char high) {
+        // Ids mostly arrive in increasing order, so check the last chunk first
+        if (size > 0 && keys[size - 1] == high) return size - 1;
+        return Arrays.binarySearch(keys, 0, size, high);
+    }
+
+    private void insert(int i, char high, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = high;
+        containers[i] = container;
+        size++;
+    }
+
+    // Adds a chunk after all existing ones; empty results are dropped
+    private void append(char high, Container container) {
+        if (container.cardinality() > 0) insert(size, high, container);
+    }
+
+    private abstract static class Container {
+        // Mutators return the container to keep, which changes type when crossing ARRAY_MAX
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract boolean contains(char value);
+
+        abstract int cardinality();
+
+        // Results are new containers; the inputs are left untouched
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container andNot(Container other);
+
+        abstract Container copy();
+
+        abstract void addTo(int high, IntList out);
+
+        abstract long memoryBytes();
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+        private int cardinality;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            int pos = cardinality == 0 || values[cardinality - 1] < value ? -(cardinality + 1)
+                    : Arrays.binarySearch(values, 0, cardinality, value);
+            if (pos >= 0) return this;
+            if (cardinality == ARRAY_MAX) {
+                return toBitmap().add(value);
+            }
+            pos = -(pos + 1);
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, Math.max(4, cardinality * 2)));
+            }
+            System.arraycopy(values, pos, values, pos + 1, cardinality - pos);
+            values[pos] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int pos = Arrays.binarySearch(values, 0, cardinality, value);
+            if (pos >= 0) {
+                System.arraycopy(values, pos + 1, values, pos, cardinality - pos - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] out = new char[Math.min(cardinality, other.cardinality())];
+            int n = 0;
+            if (other instanceof ArrayContainer array) {
+                int i = 0, j = 0;
+                while (i < cardinality && j < array.cardinality) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        out[n++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) out[n++] = values[i];
+                }
+            }
+            return new ArrayContainer(out, n);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer bitmap) {
+                return bitmap.or(this);
+            }
+            ArrayContainer array = (ArrayContainer) other;
+            if (cardinality + array.cardinality > ARRAY_MAX) {
+                BitmapContainer result = toBitmap();
+                for (int j = 0; j < array.cardinality; j++) result.set(array.values[j]);
+                return result.shrink();
+            }
+            char[] out = new char[cardinality + array.cardinality];
+            int n = 0, i = 0, j = 0;
+            while (i < cardinality || j < array.cardinality) {
+                if (j >= array.cardinality || (i < cardinality && values[i] < array.values[j])) {
+                    out[n++] = values[i++];
+                } else if (i >= cardinality || array.values[j] < values[i]) {
+                    out[n++] = array.values[j++];
+                } else {
+                    out[n++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            return new ArrayContainer(out, n);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            char[] out = new char[cardinality];
+            int n = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (!other.contains(values[i])) out[n++] = values[i];
+            }
+            return new ArrayContainer(out, n);
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(4, cardinality)), cardinality);
+        }
+
+        @Override
+        void addTo(int high, IntList out) {
+            for (int i = 0; i < cardinality; i++) out.add(high | values[i]);
+        }
+
+        @Override
+        long memoryBytes() {
+            return 32 + values.length * 2L;
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) bitmap.set(values[i]);
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer() {
+            this(new long[1024], 0);
+        }
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        void set(char value) {
+            long before = words[value >>> 6];
+            words[value >>> 6] = before | (1L << value);
+            if (before != words[value >>> 6]) cardinality++;
+        }
+
+        @Override
+        Container add(char value) {
+            set(value);
+            return this;
+        }
+
+        void clear(char value) {
+            long before = words[value >>> 6];
+            words[value >>> 6] = before & ~(1L << value);
+            if (before != words[value >>> 6]) cardinality--;
+        }
+
+        @Override
+        Container remove(char value) {
+            clear(value);
+            return shrink();
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer array) {
+                return array.and(this);
+            }
+            long[] theirs = ((BitmapContainer) other).words;
+            long[] out = new long[1024];
+            int n = 0;
+            for (int w = 0; w < out.length; w++) {
+                out[w] = words[w] & theirs[w];
+                n += Long.bitCount(out[w]);
+            }
+            return new BitmapContainer(out, n).shrink();
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] out = words.clone();
+            BitmapContainer result = new BitmapContainer(out, cardinality);
+            if (other instanceof ArrayContainer array) {
+                for (int i = 0; i < array.cardinality; i++) result.set(array.values[i]);
+                return result;
+            }
+            long[] theirs = ((BitmapContainer) other).words;
+            int n = 0;
+            for (int w = 0; w < out.length; w++) {
+                out[w] |= theirs[w];
+                n += Long.bitCount(out[w]);
+            }
+            result.cardinality = n;
+            return result;
+        }
+
+        @Override
+        Container andNot(Container other) {
+            long[] out = words.clone();
+            if (other instanceof ArrayContainer array) {
+                BitmapContainer result = new BitmapContainer(out, cardinality);
+                for (int i = 0; i < array.cardinality; i++) result.clear(array.values[i]);
+                return result.shrink();
+            }
+            long[] theirs = ((BitmapContainer) other).words;
+            int n = 0;
+            for (int w = 0; w < out.length; w++) {
+                out[w] &= ~theirs[w];
+                n += Long.bitCount(out[w]);
+            }
+            return new BitmapContainer(out, n).shrink();
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        void addTo(int high, IntList out) {
+            for (int w = 0; w < words.length; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    out.add(high | (w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        long memoryBytes() {
+            return 32 + words.length * 8L;
+        }
+
+        // Back to a sorted array once sparse enough
+        Container shrink() {
+            if (cardinality > ARRAY_MAX) return this;
+            char[] values = new char[Math.max(4, cardinality)];
+            int n = 0;
+            for (int w = 0; w < words.length; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    values[n++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, n);
+        }
+    }
+}
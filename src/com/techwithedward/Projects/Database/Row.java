@@ -0,0 +1,60 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// One query result: the row id plus the projected column values
+public class Row {
+    private final int id;
+    private final String[] names;
+    private final Object[] values;
+
+    public Row(int id, String[] names, Object[] values) {
+        this.id = id;
+        this.names = names;
+        this.values = values;
+    }
+
+    // -1 for a row the current transaction inserted but has not committed yet
+    public int getId() {
+        return id;
+    }
+
+    public boolean isCommitted() {
+        return id >= 0;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public String name(int i) {
+        return names[i];
+    }
+
+    public Object get(int i) {
+        return values[i];
+    }
+
+    public Object get(String column) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equalsIgnoreCase(column)) {
+                return values[i];
+            }
+        }
+        throw new IllegalArgumentException("Column not in result: " + column);
+    }
+
+    public Map<String, Object> toRecord() {
+        Map<String, Object> record = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            record.put(names[i], values[i]);
+        }
+        return record;
+    }
+
+    @Override
+    public String toString() {
+        return "ID: " + (isCommitted() ? String.valueOf(id) : "(uncommitted)") + " -> " + toRecord();
+    }
+}
@@ -0,0 +1,158 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Cache bookkeeping for one table: the eviction policy, row deadlines on a timer wheel, and
+// hit/miss/eviction counters. Inserts, deletes and evictions arrive under the commit lock.
+// Reads never take it: they drop row ids into small striped buffers that the writer replays
+// into the policy before choosing victims. A full buffer drops the access, which only makes
+// the policy slightly less precise.
+public class RowCache {
+    private static final int STRIPES = Math.min(64, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1);
+    private static final int RING = 128;
+    // Tail counters sit a cache line apart so reader threads don't contend on them
+    private static final int PAD = 16;
+
+    public record Stats(long hits, long misses, long evictions, long expirations, int rows,
+                        EvictionType eviction, long maxBytes, long ttlMillis) {
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s, %d tracked rows, hits=%d, misses=%d (%.1f%% hit rate), evictions=%d, expirations=%d",
+                    eviction, rows, hits, misses, hitRate() * 100, evictions, expirations);
+        }
+    }
+
+    private final CacheConfig config;
+    private final EvictionPolicy policy;
+    // Created with the first deadline, so tables without TTLs never build one
+    private TimerWheel wheel;
+    private final long origin = System.nanoTime();
+    private long[] deadlines = new long[16];
+
+    private final AtomicIntegerArray reads = new AtomicIntegerArray(STRIPES * RING);
+    private final AtomicIntegerArray tails = new AtomicIntegerArray(STRIPES * PAD);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public RowCache(CacheConfig config) {
+        this.config = config;
+        this.policy = config.getEviction().create();
+    }
+
+    public CacheConfig getConfig() {
+        return config;
+    }
+
+    // Milliseconds on a monotonic clock; never 0, which marks "no deadline"
+    public long now() {
+        return (System.nanoTime() - origin) / 1_000_000 + 1;
+    }
+
+    // --- Writer side: call with the commit lock held ---
+
+    public void onInsert(int slot) {
+        policy.onInsert(slot);
+        setDeadline(slot, config.getTtlMillis() > 0 ? now() + config.getTtlMillis() : 0);
+    }
+
+    public void onRemove(int slot) {
+        policy.onRemove(slot);
+        setDeadline(slot, 0);
+    }
+
+    // Overrides the table's default TTL for one row
+    public void expireAfter(int slot, long ttlMillis) {
+        setDeadline(slot, now() + ttlMillis);
+    }
+
+    private void setDeadline(int slot, long deadline) {
+        if (slot >= deadlines.length) {
+            if (deadline == 0) return;
+            deadlines = Arrays.copyOf(deadlines, Math.max(slot + 1, deadlines.length * 2));
+        }
+        deadlines[slot] = deadline;
+        if (deadline != 0) {
+            if (wheel == null) {
+                wheel = new TimerWheel(row -> row < deadlines.length ? deadlines[row] : 0, now());
+            }
+            wheel.schedule(slot, deadline);
+        }
+    }
+
+    // Rows whose TTL has run out; the caller deletes them
+    public IntList expired() {
+        IntList rows = new IntList();
+        if (wheel != null) {
+            wheel.advance(now(), rows::add);
+        }
+        return rows;
+    }
+
+    // Replays buffered reads, then names the next row to evict (-1 if none)
+    public int victim() {
+        drainReads();
+        return policy.victim();
+    }
+
+    // How many rows to evict to get the table back under its own budget
+    public int rowsOverBudget(Table table) {
+        return rowsOver(table, config.getMaxBytes());
+    }
+
+    public static int rowsOver(Table table, long budget) {
+        long rowBytes = table.rowBytes();
+        long used = table.size() * rowBytes;
+        if (budget <= 0 || used <= budget) return 0;
+        return (int) Math.min(table.size(), (used - budget + rowBytes - 1) / rowBytes);
+    }
+
+    public void recordEvictions(int rows) {
+        evictions.add(rows);
+    }
+
+    public void recordExpirations(int rows) {
+        expirations.add(rows);
+    }
+
+    public void drainReads() {
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            int count = Math.min(RING, tails.get(stripe * PAD));
+            for (int i = 0; i < count; i++) {
+                int slot = reads.getAndSet(stripe * RING + i, 0) - 1;
+                if (slot >= 0) policy.onAccess(slot);
+            }
+            tails.set(stripe * PAD, 0);
+        }
+    }
+
+    // --- Reader side: lock-free ---
+
+    public void recordAccess(int slot) {
+        int stripe = (int) (Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L >>> 58) & (STRIPES - 1);
+        if (tails.get(stripe * PAD) >= RING) return;
+        int i = tails.getAndIncrement(stripe * PAD);
+        if (i < RING) {
+            // Stored off by one so an empty cell reads as 0
+            reads.lazySet(stripe * RING + i, slot + 1);
+        }
+    }
+
+    public void recordLookup(boolean hit) {
+        (hit ? hits : misses).increment();
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), policy.size(),
+                policy.getType(), config.getMaxBytes(), config.getTtlMillis());
+    }
+}
@@ -0,0 +1,39 @@
+package com.techwithedward.Projects.Database;
+
+public class ScanConfig {
+    private final int parallelism;
+    private final int parallelThreshold;
+    private final int partitionSize;
+
+    // Tables with fewer than parallelThreshold slots are scanned on the calling thread;
+    // larger ones are split into partitions of about partitionSize slots
+    public ScanConfig(int parallelism, int parallelThreshold, int partitionSize) {
+        if (parallelism < 1 || partitionSize < 1) {
+            throw new IllegalArgumentException("parallelism and partitionSize must be positive");
+        }
+        this.parallelism = parallelism;
+        this.parallelThreshold = parallelThreshold;
+        this.partitionSize = partitionSize;
+    }
+
+    public static ScanConfig defaults() {
+        return new ScanConfig(Runtime.getRuntime().availableProcessors(), 100_000, 32_768);
+    }
+
+    // Never goes parallel
+    public static ScanConfig singleThreaded() {
+        return new ScanConfig(1, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    public int getPartitionSize() {
+        return partitionSize;
+    }
+}
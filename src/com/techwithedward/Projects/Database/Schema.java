@@ -0,0 +1,85 @@
+package com.techwithedward.Projects.Database;
+
+import java.io.IOException;
+import java.util.*;
+
+// Column names and types of a table, in declaration order
+public class Schema {
+    private final String[] names;
+    private final ColumnType[] types;
+    private final Map<String, Integer> positions = new HashMap<>();
+
+    public Schema(String[] names, ColumnType[] types) {
+        this.names = names;
+        this.types = types;
+        for (int i = 0; i < names.length; i++) {
+            if (positions.put(names[i], i) != null) {
+                throw new IllegalArgumentException("Duplicate column: " + names[i]);
+            }
+        }
+    }
+
+    // Each spec is "name" (STRING) or "name:type", e.g. "age:int"
+    public static Schema parse(String[] specs) {
+        String[] names = new String[specs.length];
+        ColumnType[] types = new ColumnType[specs.length];
+        for (int i = 0; i < specs.length; i++) {
+            String[] parts = specs[i].trim().split(":");
+            names[i] = parts[0].trim();
+            types[i] = parts.length > 1 ? ColumnType.valueOf(parts[1].trim().toUpperCase()) : ColumnType.STRING;
+            if (names[i].isEmpty()) {
+                throw new IllegalArgumentException("Empty column name!");
+            }
+        }
+        return new Schema(names, types);
+    }
+
+    // Inverse of parse(): "name:TYPE" for every column
+    public String[] toSpecs() {
+        String[] specs = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            specs[i] = names[i] + ":" + types[i];
+        }
+        return specs;
+    }
+
+    // Also accepts the positional names col1..colN used before tables kept their schema
+    public int indexOf(String column) {
+        Integer pos = positions.get(column);
+        if (pos != null) return pos;
+
+        if (column.startsWith("col")) {
+            try {
+                int n = Integer.parseInt(column.substring(3));
+                if (n >= 1 && n <= names.length) return n - 1;
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        throw new IllegalArgumentException("Unknown column: " + column);
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String name(int i) {
+        return names[i];
+    }
+
+    public ColumnType type(int i) {
+        return types[i];
+    }
+
+    public ColumnType type(String column) {
+        return types[indexOf(column)];
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (int i = 0; i < names.length; i++) {
+            joiner.add(names[i] + " " + types[i]);
+        }
+        return joiner.toString();
+    }
+}
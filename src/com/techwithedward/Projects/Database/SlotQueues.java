@@ -0,0 +1,75 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.Arrays;
+
+// A few doubly linked queues of row ids sharing flat link arrays, so a policy tracking millions
+// of rows allocates no node objects. Each row id sits in at most one queue.
+public class SlotQueues {
+    private static final int NONE = -1;
+
+    private int[] prev = new int[0];
+    private int[] next = new int[0];
+    // Queue of each row id, NONE when untracked
+    private byte[] owner = new byte[0];
+    private final int[] heads;
+    private final int[] tails;
+    private final int[] sizes;
+
+    public SlotQueues(int queues) {
+        heads = new int[queues];
+        tails = new int[queues];
+        sizes = new int[queues];
+        Arrays.fill(heads, NONE);
+        Arrays.fill(tails, NONE);
+    }
+
+    // Queue holding the row id, or -1
+    public int queueOf(int slot) {
+        return slot >= 0 && slot < owner.length ? owner[slot] : NONE;
+    }
+
+    public int first(int queue) {
+        return heads[queue];
+    }
+
+    public int size(int queue) {
+        return sizes[queue];
+    }
+
+    public void addLast(int queue, int slot) {
+        ensureCapacity(slot + 1);
+        if (owner[slot] != NONE) remove(slot);
+        owner[slot] = (byte) queue;
+        prev[slot] = tails[queue];
+        next[slot] = NONE;
+        if (tails[queue] == NONE) {
+            heads[queue] = slot;
+        } else {
+            next[tails[queue]] = slot;
+        }
+        tails[queue] = slot;
+        sizes[queue]++;
+    }
+
+    public boolean remove(int slot) {
+        int queue = queueOf(slot);
+        if (queue == NONE) return false;
+        int p = prev[slot], n = next[slot];
+        if (p == NONE) heads[queue] = n; else next[p] = n;
+        if (n == NONE) tails[queue] = p; else prev[n] = p;
+        owner[slot] = NONE;
+        sizes[queue]--;
+        return true;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > owner.length) {
+            int size = Math.max(capacity, Math.max(16, owner.length * 2));
+            prev = Arrays.copyOf(prev, size);
+            next = Arrays.copyOf(next, size);
+            int old = owner.length;
+            owner = Arrays.copyOf(owner, size);
+            Arrays.fill(owner, old, size, (byte) NONE);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.techwithedward.Projects.Database;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Compact binary image of every table. Column vectors are written and read in bulk,
+// and loading maps the file instead of parsing it line by line.
+public class SnapshotFile {
+    private static final int MAGIC = 0x534E4150;
+    // Version 2 added the table storage mode, version 3 materialized views; older files still load
+    private static final int VERSION = 3;
+
+    public record IndexDefinition(String table, String column, IndexType type) {
+    }
+
+    public record Contents(long generation, List<Table> tables, List<IndexDefinition> indexes,
+                           List<MaterializedView.Definition> views) {
+    }
+
+    private SnapshotFile() {
+    }
+
+    // Written to a temp file first and renamed, so a crash never leaves a half-written snapshot
+    // Stores every table as of the given read snapshot, so writers can keep going meanwhile
+    public static void write(Path path, long generation, long snapshot, Collection<Table> tables,
+                             Collection<IndexDefinition> indexes, Collection<MaterializedView.Definition> views)
+            throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            BinaryWriter out = new BinaryWriter(channel, 8 << 20);
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putLong(generation);
+
+            out.putInt(tables.size());
+            for (Table table : tables) {
+                table.save(out, snapshot);
+            }
+
+            out.putInt(indexes.size());
+            for (IndexDefinition index : indexes) {
+                out.putString(index.table());
+                out.putString(index.column());
+                out.putByte((byte) index.type().ordinal());
+            }
+
+            out.putInt(views.size());
+            for (MaterializedView.Definition view : views) {
+                view.save(out);
+            }
+
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static Contents read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshots larger than 2 GB are not supported: " + path);
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            BinaryReader in = new BinaryReader(map);
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not a snapshot file: " + path);
+            }
+            int version = in.getInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + path);
+            }
+            long generation = in.getLong();
+
+            int tableCount = in.getInt();
+            List<Table> tables = new ArrayList<>(tableCount);
+            for (int i = 0; i < tableCount; i++) {
+                tables.add(Table.load(in, version));
+            }
+
+            int indexCount = in.getInt();
+            List<IndexDefinition> indexes = new ArrayList<>(indexCount);
+            for (int i = 0; i < indexCount; i++) {
+                indexes.add(new IndexDefinition(in.getString(), in.getString(), IndexType.values()[in.getByte()]));
+            }
+
+            List<MaterializedView.Definition> views = new ArrayList<>();
+            if (version >= 3) {
+                int viewCount = in.getInt();
+                for (int i = 0; i < viewCount; i++) {
+                    views.add(MaterializedView.Definition.load(in));
+                }
+            }
+            return new Contents(generation, tables, indexes, views);
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Recursive-descent parser for the SQL subset the database runs:
+//
+//   SELECT * | col [, col]... FROM table [WHERE cond] [LIMIT n] [OFFSET n]
+//   UPDATE table SET col = value [, col = value]... [WHERE cond]
+//   DELETE FROM table [WHERE cond]
+//
+//   cond  := cond OR cond | cond AND cond | NOT cond | ( cond )
+//          | col (= | != | <> | < | <= | > | >=) value
+//          | col [NOT] BETWEEN value AND value | col [NOT] LIKE 'prefix%'
+//          | col [NOT] MATCH 'words'          (full-text, see FullTextIndex.Query)
+//   value := number | 'string' | TRUE | FALSE | NULL | ?
+//
+// Keywords are case-insensitive; names that clash with them or hold other characters can be
+// written in double quotes. A ? in place of a value (or of LIMIT/OFFSET) is a bind parameter.
+// NOT is pushed down to the conditions (De Morgan), since Predicate only negates single conditions.
+public final class SqlParser {
+    private enum TokenType { WORD, NAME, STRING, NUMBER, SYMBOL, PARAMETER, END }
+
+    private record Token(TokenType type, String text, int position) {
+        boolean is(String keyword) {
+            return (type == TokenType.WORD || type == TokenType.SYMBOL) && text.equalsIgnoreCase(keyword);
+        }
+
+        @Override
+        public String toString() {
+            return type == TokenType.END ? "end of statement" : "'" + text + "'";
+        }
+    }
+
+    private final String sql;
+    private final List<Token> tokens;
+    private int pos;
+    private int parameters;
+
+    private SqlParser(String sql) {
+        this.sql = sql;
+        this.tokens = tokenize(sql);
+    }
+
+    public static Statement parse(String sql) {
+        return new SqlParser(sql).statement();
+    }
+
+    private Statement statement() {
+        Token first = next();
+        Statement statement;
+        if (first.is("SELECT")) {
+            statement = select();
+        } else if (first.is("UPDATE")) {
+            statement = update();
+        } else if (first.is("DELETE")) {
+            statement = delete();
+        } else {
+            throw error(first, "SELECT, UPDATE or DELETE");
+        }
+        accept(";");
+        if (peek().type() != TokenType.END) {
+            throw error(peek(), "end of statement");
+        }
+        return statement;
+    }
+
+    private Statement.Select select() {
+        List<String> columns = new ArrayList<>();
+        if (!accept("*")) {
+            do {
+                columns.add(name());
+            } while (accept(","));
+        }
+        expect("FROM");
+        String table = name();
+        Predicate where = accept("WHERE") ? or() : null;
+        Statement.Operand limit = accept("LIMIT") ? count() : null;
+        Statement.Operand offset = accept("OFFSET") ? count() : null;
+        return new Statement.Select(table, List.copyOf(columns), where, limit, offset, parameters);
+    }
+
+    private Statement.Update update() {
+        String table = name();
+        expect("SET");
+        List<Statement.Assignment> assignments = new ArrayList<>();
+        do {
+            String column = name();
+            expect("=");
+            assignments.add(new Statement.Assignment(column, value()));
+        } while (accept(","));
+        Predicate where = accept("WHERE") ? or() : null;
+        return new Statement.Update(table, List.copyOf(assignments), where, parameters);
+    }
+
+    private Statement.Delete delete() {
+        expect("FROM");
+        String table = name();
+        Predicate where = accept("WHERE") ? or() : null;
+        return new Statement.Delete(table, where, parameters);
+    }
+
+    // --- WHERE: OR binds loosest, then AND, then NOT ---
+
+    private Predicate or() {
+        List<Predicate> children = new ArrayList<>();
+        do {
+            Predicate child = and();
+            if (child instanceof Predicate.Or or) {
+                children.addAll(or.getChildren());
+            } else {
+                children.add(child);
+            }
+        } while (accept("OR"));
+        return children.size() == 1 ? children.get(0) : new Predicate.Or(children);
+    }
+
+    private Predicate and() {
+        List<Predicate> children = new ArrayList<>();
+        do {
+            Predicate child = unary();
+            if (child instanceof Predicate.And and) {
+                children.addAll(and.getChildren());
+            } else {
+                children.add(child);
+            }
+        } while (accept("AND"));
+        return Predicate.And.of(children);
+    }
+
+    private Predicate unary() {
+        if (accept("NOT")) {
+            return negate(unary());
+        }
+        if (accept("(")) {
+            Predicate inner = or();
+            expect(")");
+            return inner;
+        }
+        return comparison();
+    }
+
+    private Predicate comparison() {
+        String column = name();
+        boolean not = accept("NOT");
+        Token op = next();
+        Predicate leaf;
+        if (op.is("BETWEEN")) {
+            Statement.Operand low = value();
+            expect("AND");
+            Statement.Operand high = value();
+            leaf = leaf(column, Condition.Operator.BETWEEN, low, high);
+        } else if (op.is("LIKE")) {
+            leaf = like(column);
+        } else if (op.is("MATCH")) {
+            Token token = peek();
+            Statement.Operand words = value();
+            if (!words.isParameter() && token.type() != TokenType.STRING) {
+                throw error(token, "quoted words");
+            }
+            leaf = leaf(column, Condition.Operator.MATCH, words, null);
+        } else if (not) {
+            throw error(op, "BETWEEN, LIKE or MATCH after NOT");
+        } else {
+            leaf = switch (op.type() == TokenType.SYMBOL ? op.text() : "") {
+                case "=" -> leaf(column, Condition.Operator.EQ, value(), null);
+                case "!=", "<>" -> negate(leaf(column, Condition.Operator.EQ, value(), null));
+                case "<" -> leaf(column, Condition.Operator.LT, value(), null);
+                case "<=" -> leaf(column, Condition.Operator.LE, value(), null);
+                case ">" -> leaf(column, Condition.Operator.GT, value(), null);
+                case ">=" -> leaf(column, Condition.Operator.GE, value(), null);
+                default -> throw error(op, "a comparison operator, BETWEEN, LIKE or MATCH");
+            };
+        }
+        return not ? negate(leaf) : leaf;
+    }
+
+    // Only prefix patterns have an index-friendly meaning here; a pattern without % is equality
+    private Predicate like(String column) {
+        Token token = peek();
+        Statement.Operand pattern = value();
+        if (pattern.isParameter()) {
+            return leaf(column, Condition.Operator.PREFIX, pattern, null);
+        }
+        String text = pattern.literal();
+        int wildcard = text.indexOf('%');
+        if (wildcard < 0) {
+            return leaf(column, Condition.Operator.EQ, pattern, null);
+        }
+        if (wildcard != text.length() - 1) {
+            throw new IllegalArgumentException("Only prefix patterns like 'abc%' are supported, at position "
+                    + token.position() + ": " + text);
+        }
+        return leaf(column, Condition.Operator.PREFIX, Statement.Operand.literal(text.substring(0, wildcard)), null);
+    }
+
+    private static Predicate leaf(String column, Condition.Operator operator, Statement.Operand value,
+                                  Statement.Operand upper) {
+        return new Predicate.Leaf(new Condition(column, operator, value.literal(), value.parameter(),
+                upper == null ? null : upper.literal(), upper == null ? -1 : upper.parameter()));
+    }
+
+    // NOT over AND/OR by De Morgan; both hold under SQL's three-valued logic, where NULL
+    // satisfies neither a condition nor its negation
+    private static Predicate negate(Predicate predicate) {
+        if (predicate instanceof Predicate.Leaf leaf) {
+            return new Predicate.Not(leaf);
+        }
+        if (predicate instanceof Predicate.Not not) {
+            return not.getChild();
+        }
+        if (predicate instanceof Predicate.And and) {
+            return new Predicate.Or(and.getChildren().stream().map(SqlParser::negate).toList());
+        }
+        return Predicate.And.of(((Predicate.Or) predicate).getChildren().stream().map(SqlParser::negate).toList());
+    }
+
+    // --- Terminals ---
+
+    private String name() {
+        Token token = next();
+        if (token.type() != TokenType.WORD && token.type() != TokenType.NAME) {
+            throw error(token, "a name");
+        }
+        return token.text();
+    }
+
+    private Statement.Operand value() {
+        Token token = next();
+        return switch (token.type()) {
+            case PARAMETER -> Statement.Operand.parameter(parameters++);
+            case STRING, NUMBER -> Statement.Operand.literal(token.text());
+            case SYMBOL -> {
+                if (token.is("-") && peek().type() == TokenType.NUMBER) {
+                    yield Statement.Operand.literal("-" + next().text());
+                }
+                throw error(token, "a value");
+            }
+            case WORD -> {
+                if (token.is("TRUE") || token.is("FALSE") || token.is("NULL")) {
+                    yield Statement.Operand.literal(token.text().toUpperCase(Locale.ROOT));
+                }
+                throw error(token, "a value (quote strings with ')");
+            }
+            default -> throw error(token, "a value");
+        };
+    }
+
+    private Statement.Operand count() {
+        Token token = peek();
+        Statement.Operand operand = value();
+        if (!operand.isParameter() && !operand.literal().chars().allMatch(Character::isDigit)) {
+            throw error(token, "a non-negative whole number");
+        }
+        return operand;
+    }
+
+    private Token peek() {
+        return tokens.get(pos);
+    }
+
+    private Token next() {
+        Token token = tokens.get(pos);
+        if (token.type() != TokenType.END) pos++;
+        return token;
+    }
+
+    private boolean accept(String keyword) {
+        if (peek().is(keyword)) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String keyword) {
+        if (!accept(keyword)) {
+            throw error(peek(), keyword);
+        }
+    }
+
+    private IllegalArgumentException error(Token found, String expected) {
+        return new IllegalArgumentException("Syntax error at position " + found.position() + ": expected "
+                + expected + " but found " + found + " in: " + sql);
+    }
+
+    // --- Tokenizer ---
+
+    private static List<Token> tokenize(String sql) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        int n = sql.length();
+        while (i < n) {
+            char c = sql.charAt(i);
+            int start = i;
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (Character.isLetter(c) || c == '_') {
+                while (i < n && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_')) i++;
+                tokens.add(new Token(TokenType.WORD, sql.substring(start, i), start));
+            } else if (Character.isDigit(c) || (c == '.' && i + 1 < n && Character.isDigit(sql.charAt(i + 1)))) {
+                while (i < n && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) i++;
+                if (i < n && (sql.charAt(i) == 'e' || sql.charAt(i) == 'E')) {
+                    i++;
+                    if (i < n && (sql.charAt(i) == '+' || sql.charAt(i) == '-')) i++;
+                    while (i < n && Character.isDigit(sql.charAt(i))) i++;
+                }
+                tokens.add(new Token(TokenType.NUMBER, sql.substring(start, i), start));
+            } else if (c == '\'' || c == '"') {
+                // Quotes are escaped by doubling them
+                StringBuilder text = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= n) {
+                        throw new IllegalArgumentException("Unterminated " + (c == '\'' ? "string" : "name")
+                                + " starting at position " + start + " in: " + sql);
+                    }
+                    char d = sql.charAt(i++);
+                    if (d == c) {
+                        if (i < n && sql.charAt(i) == c) {
+                            i++;
+                        } else {
+                            break;
+                        }
+                    }
+                    text.append(d);
+                }
+                tokens.add(new Token(c == '\'' ? TokenType.STRING : TokenType.NAME, text.toString(), start));
+            } else if (c == '?') {
+                i++;
+                tokens.add(new Token(TokenType.PARAMETER, "?", start));
+            } else if (c == '<' || c == '>' || c == '!') {
+                i++;
+                if (i < n && (sql.charAt(i) == '=' || (c == '<' && sql.charAt(i) == '>'))) i++;
+                String symbol = sql.substring(start, i);
+                if (symbol.equals("!")) {
+                    throw new IllegalArgumentException("Unexpected '!' at position " + start + " in: " + sql);
+                }
+                tokens.add(new Token(TokenType.SYMBOL, symbol, start));
+            } else if ("=*,();-".indexOf(c) >= 0) {
+                i++;
+                tokens.add(new Token(TokenType.SYMBOL, String.valueOf(c), start));
+            } else {
+                throw new IllegalArgumentException("Unexpected '" + c + "' at position " + start + " in: " + sql);
+            }
+        }
+        tokens.add(new Token(TokenType.END, "", n));
+        return tokens;
+    }
+}
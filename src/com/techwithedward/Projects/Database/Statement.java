@@ -0,0 +1,54 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.List;
+
+// A parsed SELECT, UPDATE or DELETE, not yet checked against the table. where is null when the
+// statement has no WHERE clause; its conditions still hold column names and raw operand text.
+// parameters is the number of ? placeholders, numbered from 0 in the order they appear.
+public sealed interface Statement permits Statement.Select, Statement.Update, Statement.Delete {
+    String table();
+
+    Predicate where();
+
+    int parameters();
+
+    // A literal's text, or the position of the bind parameter that supplies the value
+    record Operand(String literal, int parameter) {
+        public static Operand literal(String text) {
+            return new Operand(text, -1);
+        }
+
+        public static Operand parameter(int position) {
+            return new Operand(null, position);
+        }
+
+        public boolean isParameter() {
+            return parameter >= 0;
+        }
+
+        public String resolve(Object[] parameters) {
+            if (parameter < 0) return literal;
+            Object value = parameters[parameter];
+            return value == null ? null : value.toString();
+        }
+
+        @Override
+        public String toString() {
+            return parameter >= 0 ? "?" : literal;
+        }
+    }
+
+    record Assignment(String column, Operand value) {
+    }
+
+    // columns is empty for SELECT *; limit and offset are null when absent
+    record Select(String table, List<String> columns, Predicate where, Operand limit, Operand offset,
+                  int parameters) implements Statement {
+    }
+
+    record Update(String table, List<Assignment> assignments, Predicate where, int parameters) implements Statement {
+    }
+
+    record Delete(String table, Predicate where, int parameters) implements Statement {
+    }
+}
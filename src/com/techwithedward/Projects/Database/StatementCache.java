@@ -0,0 +1,76 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Bounded cache of prepared statements, so a statement text that comes back skips parsing,
+// binding and (through the statement's kept plan) planning. Once full, the least recently used
+// entry goes. SQL text is cached under a null table; the string APIs that take a table name
+// and a clause cache under that table, since the same clause means different things per table.
+public class StatementCache {
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    public record Key(String table, String text) {
+    }
+
+    public record Stats(int size, int capacity, long hits, long misses) {
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d of %d statements cached, hits=%d, misses=%d (%.1f%% hit rate)",
+                    size, capacity, hits, misses, hitRate() * 100);
+        }
+    }
+
+    private final int capacity;
+    private final Map<Key, PreparedStatement> statements;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public StatementCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+                return size() > StatementCache.this.capacity;
+            }
+        };
+    }
+
+    // The cached statement, or a new one from compiler. Compiling happens outside the lock, so two
+    // threads may both compile a new text; the later one's result is kept.
+    public PreparedStatement get(Key key, Function<Key, PreparedStatement> compiler) {
+        PreparedStatement statement;
+        synchronized (this) {
+            statement = statements.get(key);
+        }
+        if (statement != null) {
+            hits.increment();
+            return statement;
+        }
+        misses.increment();
+        statement = compiler.apply(key);
+        synchronized (this) {
+            statements.put(key, statement);
+        }
+        return statement;
+    }
+
+    // Drops every statement, e.g. when the tables they were bound to are replaced
+    public synchronized void clear() {
+        statements.clear();
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(statements.size(), capacity, hits.sum(), misses.sum());
+    }
+}
@@ -0,0 +1,8 @@
+package com.techwithedward.Projects.Database;
+
+// Where a table keeps its column values. OFF_HEAP columns live in native memory, so large
+// tables add almost nothing for the garbage collector to trace or copy.
+public enum StorageMode {
+    HEAP,
+    OFF_HEAP
+}
@@ -0,0 +1,516 @@
+package com.techwithedward.Projects.Database;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntConsumer;
+
+// Columnar, multi-versioned table. Each row id is a slot holding one immutable row version,
+// stamped with the commit timestamps that created and deleted it. Updates write a new version
+// into another slot, so readers at an older snapshot keep seeing the old one without locking.
+// Writers (one at a time, under the table's TransactionManager commit lock stripe) recycle slots only after
+// no open snapshot can see them.
+public class Table {
+    private static final VarHandle STAMP = MethodHandles.arrayElementVarHandle(long[].class);
+    // Marks a slot that is being rewritten; larger than any snapshot, so never visible
+    private static final long WRITING = Long.MAX_VALUE;
+
+    private final String name;
+    private final Schema schema;
+    private final Column[] columns;
+    private final StorageMode storage;
+    private final long createdAt;
+
+    private volatile long[] createdTs = new long[0];
+    private volatile long[] deletedTs = new long[0];
+    private volatile int slotCount;
+    private volatile int liveCount;
+    // Inserts plus deletes ever applied; tells the catalog when its statistics are stale
+    private volatile long modifications;
+    // Newest commit timestamp any insert or delete was stamped with, set before the stamp
+    private volatile long lastWriteTs;
+    // Deleted versions, kept until their slot is reused so a reader holding an older index
+    // bitmap still finds them here; guarded by its own monitor so readers can copy it
+    private final RoaringBitmap deadVersions = new RoaringBitmap();
+    private final Catalog catalog = new Catalog();
+    // Eviction and expiry bookkeeping when the table is used as a bounded cache, else null
+    private volatile RowCache cache;
+    // Materialized views over this table; told about every row version written or deleted
+    private final List<MaterializedView> views = new CopyOnWriteArrayList<>();
+
+    // Oldest snapshot still stored in full: every version freed so far was deleted at or before it
+    private volatile long readableFrom;
+
+    // Writer-side bookkeeping, only touched under the commit lock
+    private final ArrayDeque<Integer> deadSlots = new ArrayDeque<>();
+    private final TreeSet<Integer> freeSlots = new TreeSet<>();
+
+    public Table(String name, Schema schema) {
+        this(name, schema, 0);
+    }
+
+    public Table(String name, Schema schema, long createdAt) {
+        this(name, schema, createdAt, StorageMode.HEAP);
+    }
+
+    // MVCC stamps and null bitmaps stay on the heap either way: they are pointer-free arrays
+    public Table(String name, Schema schema, long createdAt, StorageMode storage) {
+        this.name = name;
+        this.schema = schema;
+        this.storage = storage;
+        this.createdAt = createdAt;
+        this.readableFrom = createdAt;
+        this.columns = new Column[schema.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = schema.type(i).newColumn(schema.name(i), storage);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    public StorageMode getStorage() {
+        return storage;
+    }
+
+    public Catalog getCatalog() {
+        return catalog;
+    }
+
+    public RowCache getCache() {
+        return cache;
+    }
+
+    // Call with the commit lock held; the cache starts out tracking every current row
+    public void setCache(RowCache cache) {
+        if (cache != null) {
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (isLatest(slot)) cache.onInsert(slot);
+            }
+        }
+        this.cache = cache;
+    }
+
+    public void addView(MaterializedView view) {
+        views.add(view);
+    }
+
+    public void removeView(MaterializedView view) {
+        views.remove(view);
+    }
+
+    public long getModifications() {
+        return modifications;
+    }
+
+    // Commit timestamp of the CREATE; snapshots older than this don't include the table
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getReadableFrom() {
+        return readableFrom;
+    }
+
+    // For a table loaded from a snapshot: its rows are stamped as always there, which only
+    // snapshots from the load on may rely on
+    public void expireSnapshotsBefore(long snapshot) {
+        readableFrom = Math.max(readableFrom, snapshot);
+    }
+
+    public Column column(int i) {
+        return columns[i];
+    }
+
+    public Column column(String name) {
+        return columns[schema.indexOf(name)];
+    }
+
+    // Converts raw text values into the schema's types; missing trailing values are null
+    public Object[] parseRow(String[] raw) {
+        if (raw.length > columns.length) {
+            throw new IllegalArgumentException("Expected at most " + columns.length + " values, got " + raw.length);
+        }
+        Object[] row = new Object[columns.length];
+        for (int i = 0; i < raw.length; i++) {
+            row[i] = schema.type(i).parse(raw[i]);
+        }
+        return row;
+    }
+
+    // --- Writer side: call with the commit lock held ---
+
+    // Writes a new row version visible from commitTs on and returns its row id
+    public int insert(Object[] values, long commitTs) {
+        Integer free = freeSlots.pollFirst();
+        int slot = free != null ? free : slotCount;
+        writeSlot(slot, values, commitTs);
+        return slot;
+    }
+
+    // Replay path: the log says exactly which slot the row went to. If that slot still holds
+    // a dead version (garbage collection doesn't run during replay), it is freed first.
+    public void insertAt(int slot, Object[] values, long commitTs, IntConsumer beforeFree) {
+        if (slot < slotCount && createdTs[slot] != 0) {
+            if (deletedTs[slot] == 0) {
+                throw new IllegalStateException("Slot " + slot + " of " + name + " is still in use");
+            }
+            readableFrom = Math.max(readableFrom, deletedTs[slot]);
+            beforeFree.accept(slot);
+        }
+        freeSlots.remove(slot);
+        // Slots skipped in between were free when the row was originally written
+        for (int s = slotCount; s < slot; s++) {
+            ensureCapacity(s + 1);
+            freeSlots.add(s);
+            slotCount = s + 1;
+        }
+        writeSlot(slot, values, commitTs);
+    }
+
+    // Whether the slot holds a deleted version that a snapshot taken at or after watermark may still
+    // read, so a replayed insert must not overwrite it yet
+    public boolean isPinned(int slot, long watermark) {
+        return slot < slotCount && createdTs[slot] != 0 && deletedTs[slot] > watermark;
+    }
+
+    // Bulk path: appends the rows to consecutive fresh slots and returns the first one
+    public int append(List<Object[]> rows, long commitTs) {
+        int first = slotCount;
+        ensureCapacity(first + rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            writeSlot(first + i, rows.get(i), commitTs);
+        }
+        return first;
+    }
+
+    // Drops slots appended after newSlotCount. Only valid while their commit timestamp is
+    // unpublished: no snapshot can have seen them, so they are simply forgotten.
+    public void truncate(int newSlotCount) {
+        for (int slot = newSlotCount; slot < slotCount; slot++) {
+            if (!views.isEmpty()) {
+                // Cancels the view deltas queued for the dropped row under the same timestamp
+                Object[] row = getRow(slot);
+                for (MaterializedView view : views) view.onDelete(slot, row, createdTs[slot]);
+            }
+            for (Column column : columns) {
+                column.release(slot);
+            }
+            STAMP.setRelease(createdTs, slot, 0L);
+            liveCount--;
+            if (cache != null) cache.onRemove(slot);
+        }
+        slotCount = newSlotCount;
+    }
+
+    private void writeSlot(int slot, Object[] values, long commitTs) {
+        ensureCapacity(slot + 1);
+        long[] created = createdTs;
+        long[] deleted = deletedTs;
+        lastWriteTs = Math.max(lastWriteTs, commitTs);
+        if (deleted[slot] != 0) {
+            // A recycled slot: its dead version is gone
+            synchronized (deadVersions) {
+                deadVersions.remove(slot);
+            }
+        }
+
+        // Hide the slot first: a reader that sees any of the new values then fails validation
+        STAMP.setVolatile(created, slot, WRITING);
+        try {
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].set(slot, values[i]);
+            }
+        } catch (RuntimeException e) {
+            // Leave the slot free rather than stamped WRITING, which every later insert would skip
+            for (Column column : columns) {
+                column.release(slot);
+            }
+            STAMP.setRelease(created, slot, 0L);
+            if (slot < slotCount) {
+                freeSlots.add(slot);
+            }
+            throw e;
+        }
+        STAMP.setRelease(deleted, slot, 0L);
+        STAMP.setRelease(created, slot, commitTs);
+
+        if (slot >= slotCount) {
+            slotCount = slot + 1;
+        }
+        liveCount++;
+        modifications++;
+        if (cache != null) cache.onInsert(slot);
+        for (MaterializedView view : views) view.onInsert(slot, values, commitTs);
+    }
+
+    public void delete(int slot, long commitTs) {
+        if (!isLatest(slot)) {
+            throw new IllegalArgumentException("No such row: " + slot);
+        }
+        lastWriteTs = Math.max(lastWriteTs, commitTs);
+        synchronized (deadVersions) {
+            deadVersions.add(slot);
+        }
+        STAMP.setRelease(deletedTs, slot, commitTs);
+        deadSlots.add(slot);
+        liveCount--;
+        modifications++;
+        if (cache != null) cache.onRemove(slot);
+        if (!views.isEmpty()) {
+            Object[] row = getRow(slot);
+            for (MaterializedView view : views) view.onDelete(slot, row, commitTs);
+        }
+    }
+
+    // Whether the slot holds the newest committed version of a row (nobody deleted it yet)
+    public boolean isLatest(int slot) {
+        return slot >= 0 && slot < slotCount && createdTs[slot] != 0 && createdTs[slot] != WRITING
+                && deletedTs[slot] == 0;
+    }
+
+    // Frees slots whose deletion is older than every open snapshot. The callback runs first,
+    // while the old values are still readable, so indexes can drop their entries.
+    public int reclaim(long watermark, IntConsumer beforeFree) {
+        int reclaimed = 0;
+        long[] deleted = deletedTs;
+        while (!deadSlots.isEmpty()) {
+            int slot = deadSlots.peekFirst();
+            if (createdTs[slot] == 0 || deleted[slot] == 0) {
+                // Stale entry: the slot was already recycled during log replay
+                deadSlots.pollFirst();
+                continue;
+            }
+            // Dead slots are queued in commit order, so the first one still in use ends the pass
+            if (deleted[slot] > watermark) break;
+            deadSlots.pollFirst();
+            readableFrom = Math.max(readableFrom, deleted[slot]);
+            beforeFree.accept(slot);
+            for (Column column : columns) {
+                column.release(slot);
+            }
+            STAMP.setRelease(createdTs, slot, 0L);
+            freeSlots.add(slot);
+            reclaimed++;
+        }
+        return reclaimed;
+    }
+
+    // Every slot holding a row version, visible or not; used to build indexes that old snapshots can probe too
+    public IntList versions() {
+        int slots = slotCount;
+        IntList rows = new IntList(slots);
+        long[] created = createdTs;
+        for (int slot = 0; slot < slots; slot++) {
+            if (created[slot] != 0) {
+                rows.add(slot);
+            }
+        }
+        return rows;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > createdTs.length) {
+            int size = Math.max(capacity, Math.max(16, createdTs.length * 2));
+            // Columns first: a reader that sees the new stamps must also see columns this large
+            for (Column column : columns) {
+                column.ensureCapacity(size);
+            }
+            deletedTs = Arrays.copyOf(deletedTs, size);
+            createdTs = Arrays.copyOf(createdTs, size);
+        }
+    }
+
+    // --- Reader side: lock-free ---
+
+    // Snapshot visibility. The created stamp is read again at the end: if the slot was
+    // recycled while we looked at it, the stamps we read may be torn and the row is skipped.
+    public boolean isVisible(int slot, long snapshot) {
+        long[] created = createdTs;
+        if (slot < 0 || slot >= created.length) return false;
+        long c = (long) STAMP.getAcquire(created, slot);
+        if (c == 0 || c > snapshot) return false;
+        long d = (long) STAMP.getAcquire(deletedTs, slot);
+        if (d != 0 && d <= snapshot) return false;
+        VarHandle.loadLoadFence();
+        return (long) STAMP.getAcquire(created, slot) == c;
+    }
+
+    public Object get(int row, int column) {
+        return columns[column].get(row);
+    }
+
+    public Object[] getRow(int row) {
+        Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = columns[i].get(row);
+        }
+        return values;
+    }
+
+    public Map<String, Object> toRecord(int row) {
+        return toRecord(getRow(row));
+    }
+
+    public Map<String, Object> toRecord(Object[] values) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            record.put(schema.name(i), values[i]);
+        }
+        return record;
+    }
+
+    public IntList visibleRows(long snapshot) {
+        return visibleRows(snapshot, 0, slotCount);
+    }
+
+    // Visible versions among slots [from, to)
+    public IntList visibleRows(long snapshot, int from, int to) {
+        IntList rows = new IntList(Math.min(to - from, liveCount + 16));
+        for (int row = from; row < to; row++) {
+            if (isVisible(row, snapshot)) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    public IntList scan(Predicate predicate, long snapshot) {
+        return scan(predicate, snapshot, 0, slotCount);
+    }
+
+    // Evaluates a bound predicate against the column vectors for slots [from, to),
+    // then keeps the versions the snapshot sees
+    public IntList scan(Predicate predicate, long snapshot, int from, int to) {
+        IntList candidates = predicate.filter(this, from, to);
+        IntList rows = new IntList(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            int row = candidates.get(i);
+            if (isVisible(row, snapshot)) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    // How many of the given row versions the snapshot sees. When nothing was written after the
+    // snapshot, every version is visible except the deleted ones, so the answer comes from
+    // bitmap cardinalities without looking at a single slot. versions must have been read from
+    // the indexes before this call.
+    public long countVisible(RoaringBitmap versions, long snapshot) {
+        if (lastWriteTs <= snapshot) {
+            RoaringBitmap dead;
+            synchronized (deadVersions) {
+                dead = deadVersions.copy();
+            }
+            // Writers stamp lastWriteTs before touching the indexes or deadVersions
+            if (lastWriteTs <= snapshot) {
+                return versions.cardinality() - versions.and(dead).cardinality();
+            }
+        }
+        IntList rows = versions.toIntList();
+        long count = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            if (isVisible(rows.get(i), snapshot)) count++;
+        }
+        return count;
+    }
+
+    // Row count as of the latest commit
+    public int size() {
+        return liveCount;
+    }
+
+    public int slotCount() {
+        return slotCount;
+    }
+
+    public long memoryBytes() {
+        long bytes = 16L * createdTs.length;
+        for (Column column : columns) {
+            bytes += column.memoryBytes();
+        }
+        return bytes;
+    }
+
+    // Average footprint of one row version: vectors and stamps per allocated slot
+    public long rowBytes() {
+        return Math.max(1, memoryBytes() / Math.max(16, createdTs.length));
+    }
+
+    public long offHeapBytes() {
+        long bytes = 0;
+        for (Column column : columns) {
+            bytes += column.offHeapBytes();
+        }
+        return bytes;
+    }
+
+    // Writes the rows visible at the snapshot; everything else is stored as a free slot.
+    // Safe to run concurrently with writers because those versions cannot be recycled meanwhile.
+    public void save(BinaryWriter out, long snapshot) throws IOException {
+        out.putString(name);
+        String[] specs = schema.toSpecs();
+        out.putInt(specs.length);
+        for (String spec : specs) {
+            out.putString(spec);
+        }
+        out.putByte((byte) storage.ordinal());
+
+        int slots = slotCount;
+        BitSet live = new BitSet(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            if (isVisible(slot, snapshot)) {
+                live.set(slot);
+            }
+        }
+        long[] words = live.toLongArray();
+        out.putInt(slots);
+        out.putInt(words.length);
+        out.putLongs(words, words.length);
+
+        for (Column column : columns) {
+            column.save(out, slots, live);
+        }
+    }
+
+    // Loaded rows are stamped as created at commit 1; recovery starts its clock there
+    public static Table load(BinaryReader in, int version) {
+        String name = in.getString();
+        String[] specs = new String[in.getInt()];
+        for (int i = 0; i < specs.length; i++) {
+            specs[i] = in.getString();
+        }
+        StorageMode storage = version >= 2 ? StorageMode.values()[in.getByte()] : StorageMode.HEAP;
+
+        Table table = new Table(name, Schema.parse(specs), 1, storage);
+        int slots = in.getInt();
+        int words = in.getInt();
+        BitSet live = BitSet.valueOf(in.getLongs(words, words));
+
+        for (Column column : table.columns) {
+            column.load(in, slots);
+        }
+        table.ensureCapacity(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            if (live.get(slot)) {
+                table.createdTs[slot] = 1;
+            } else {
+                for (Column column : table.columns) {
+                    column.release(slot);
+                }
+                table.freeSlots.add(slot);
+            }
+        }
+        table.liveCount = live.cardinality();
+        table.slotCount = slots;
+        return table;
+    }
+}
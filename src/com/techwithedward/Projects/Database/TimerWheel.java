@@ -0,0 +1,81 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.function.IntConsumer;
+import java.util.function.IntToLongFunction;
+
+// Hierarchical timing wheel for row expiry. Each level has 64 buckets of increasing width
+// (128 ms, 8 s, 9 min, 9.5 h); a row goes into the finest level whose span covers its deadline
+// and is cascaded down as time approaches it. Advancing only touches the buckets whose time
+// has come, so expiry costs O(expired rows) instead of a scan of the table.
+// Entries are not removed eagerly: when a bucket comes due each row id is checked against its
+// current deadline, so ids that were deleted, recycled or rescheduled meanwhile drop out then.
+public class TimerWheel {
+    private static final int BUCKETS = 64;
+    private static final int[] SHIFTS = {7, 13, 19, 25};
+
+    private final IntList[][] wheels = new IntList[SHIFTS.length][BUCKETS];
+    // Current deadline of a row id, 0 when it has none
+    private final IntToLongFunction deadlineOf;
+    private long now;
+    private int size;
+
+    public TimerWheel(IntToLongFunction deadlineOf, long now) {
+        this.deadlineOf = deadlineOf;
+        this.now = now;
+        for (IntList[] wheel : wheels) {
+            for (int b = 0; b < BUCKETS; b++) {
+                wheel[b] = new IntList(4);
+            }
+        }
+    }
+
+    public void schedule(int slot, long deadline) {
+        long delay = deadline - now;
+        for (int level = 0; level < SHIFTS.length; level++) {
+            if (delay < (long) BUCKETS << SHIFTS[level] || level == SHIFTS.length - 1) {
+                int shift = SHIFTS[level];
+                // Never the current bucket, which has already been processed; beyond the coarsest
+                // span the row parks in the last bucket and is rescheduled from there
+                long tick = Math.max((now >>> shift) + 1, Math.min(deadline >>> shift, (now >>> shift) + BUCKETS - 1));
+                wheels[level][(int) (tick & (BUCKETS - 1))].add(slot);
+                size++;
+                return;
+            }
+        }
+    }
+
+    // Moves the clock to time and reports every row id whose deadline is at or before it
+    public void advance(long time, IntConsumer expired) {
+        if (time <= now) return;
+        long previous = now;
+        now = time;
+        for (int level = 0; level < SHIFTS.length; level++) {
+            int shift = SHIFTS[level];
+            long from = previous >>> shift, to = time >>> shift;
+            // Coarser levels only turn when this one did
+            if (from == to) break;
+            for (long tick = from + 1; tick <= Math.min(to, from + BUCKETS); tick++) {
+                IntList[] wheel = wheels[level];
+                int bucket = (int) (tick & (BUCKETS - 1));
+                IntList due = wheel[bucket];
+                wheel[bucket] = new IntList(4);
+                size -= due.size();
+                for (int i = 0; i < due.size(); i++) {
+                    int slot = due.get(i);
+                    long deadline = deadlineOf.applyAsLong(slot);
+                    if (deadline == 0) continue;
+                    if (deadline <= time) {
+                        expired.accept(slot);
+                    } else {
+                        schedule(slot, deadline);
+                    }
+                }
+            }
+        }
+    }
+
+    // Scheduled entries, including stale ones not yet dropped
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,81 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.*;
+
+// Buffered writes of one transaction. Nothing touches the tables until commit, so other
+// readers never see a half-applied statement; the transaction itself reads its own
+// snapshot overlaid with these pending changes.
+public class Transaction {
+    public static class WriteSet {
+        // Row versions this transaction deletes (an update deletes the old version too)
+        private final Set<Integer> deleted = new LinkedHashSet<>();
+        // New row versions, written as fresh rows at commit
+        private final List<Object[]> inserted = new ArrayList<>();
+        // Per-row TTLs in milliseconds for inserted rows that override the table's default
+        private final Map<Object[], Long> ttls = new IdentityHashMap<>();
+        // Inserted rows that are updates: the committed row version each one replaces
+        private final Map<Object[], Integer> replaced = new IdentityHashMap<>();
+
+        public Set<Integer> getDeleted() {
+            return deleted;
+        }
+
+        public List<Object[]> getInserted() {
+            return inserted;
+        }
+
+        public Map<Object[], Long> getTtls() {
+            return ttls;
+        }
+
+        public Map<Object[], Integer> getReplaced() {
+            return replaced;
+        }
+
+        public boolean isEmpty() {
+            return deleted.isEmpty() && inserted.isEmpty();
+        }
+    }
+
+    private final ReadView view;
+    private final Map<Table, WriteSet> writes = new LinkedHashMap<>();
+    private boolean finished;
+
+    public Transaction(ReadView view) {
+        this.view = view;
+    }
+
+    public long getSnapshot() {
+        return view.getSnapshot();
+    }
+
+    public WriteSet writesFor(Table table) {
+        return writes.computeIfAbsent(table, t -> new WriteSet());
+    }
+
+    public WriteSet peekWrites(Table table) {
+        return writes.get(table);
+    }
+
+    public Map<Table, WriteSet> getWrites() {
+        return writes;
+    }
+
+    // Visible to this transaction: in its snapshot and not deleted by it
+    public boolean sees(Table table, int rowId) {
+        if (!table.isVisible(rowId, view.getSnapshot())) return false;
+        WriteSet ws = writes.get(table);
+        return ws == null || !ws.deleted.contains(rowId);
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public void finish() {
+        if (!finished) {
+            finished = true;
+            view.close();
+        }
+    }
+}
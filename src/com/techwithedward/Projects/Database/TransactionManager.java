@@ -0,0 +1,213 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Hands out commit timestamps and read snapshots. Commits become visible all at once when
+// visibleTs moves past them; readers only read visibleTs and never take a lock.
+//
+// The commit lock is sharded: every table hashes to one of a fixed number of lock stripes, and
+// a commit locks only the stripes of the tables it writes (in stripe order, so commits over
+// several tables cannot deadlock). Writers of tables on different stripes run in parallel. A
+// commit takes its timestamp after its stripes are held, so each table sees its commits in
+// timestamp order, and publish() makes timestamps visible strictly in order: a commit that
+// finishes early waits for the earlier ones, which already hold everything they need.
+// lock() is the exclusive mode for work that spans all tables (DDL, snapshots, replay).
+public class TransactionManager {
+    // With one CPU only one writer runs at a time anyway, and stripes only add hand-offs
+    public static final int DEFAULT_SHARDS = Runtime.getRuntime().availableProcessors() > 1 ? 64 : 1;
+    // Spins before a commit waiting for its turn to publish parks; spinning is pointless on one core
+    private static final int PUBLISH_SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 256 : 0;
+
+    // Stripe holders share it, lock() takes it exclusively
+    private final ReentrantReadWriteLock global = new ReentrantReadWriteLock();
+    private final ReentrantLock[] shards;
+    private final Set<ReadView> activeViews = ConcurrentHashMap.newKeySet();
+    // Readers between reading visibleTs and registering their view
+    private final AtomicInteger registering = new AtomicInteger();
+    private final AtomicLong lastCommitTs = new AtomicLong();
+    // Timestamp this thread took and has not published yet; published empty on unlock if needed
+    private final ThreadLocal<long[]> unpublished = ThreadLocal.withInitial(() -> new long[1]);
+    // Parked commits by the timestamp they wait to publish; each publish wakes only its successor
+    private final Map<Long, Thread> publishWaiters = new ConcurrentHashMap<>();
+    private volatile long visibleTs;
+
+    public TransactionManager() {
+        this(DEFAULT_SHARDS);
+    }
+
+    public TransactionManager(int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("Shard count must be positive");
+        }
+        this.shards = new ReentrantLock[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new ReentrantLock();
+        }
+    }
+
+    public int getShards() {
+        return shards.length;
+    }
+
+    public ReadView openReadView() {
+        registering.incrementAndGet();
+        try {
+            ReadView view = new ReadView(this, visibleTs);
+            activeViews.add(view);
+            return view;
+        } finally {
+            registering.decrementAndGet();
+        }
+    }
+
+    // Reads an older snapshot again. The caller makes sure nothing visible at it was reclaimed in
+    // the meantime and that no reclaim can run until the view is registered.
+    public ReadView openReadView(long snapshot) {
+        ReadView view = new ReadView(this, snapshot);
+        activeViews.add(view);
+        return view;
+    }
+
+    void release(ReadView view) {
+        activeViews.remove(view);
+    }
+
+    // Oldest snapshot any reader may still use; versions deleted at or before it are garbage
+    public long watermark() {
+        long watermark = visibleTs;
+        // A reader that read visibleTs before this point is either registered already or about to be
+        while (registering.get() > 0) {
+            Thread.onSpinWait();
+        }
+        for (ReadView view : activeViews) {
+            watermark = Math.min(watermark, view.getSnapshot());
+        }
+        return watermark;
+    }
+
+    public int activeReaders() {
+        return activeViews.size();
+    }
+
+    // Exclusive: no other commit runs until unlock()
+    public void lock() {
+        global.writeLock().lock();
+    }
+
+    public void unlock() {
+        try {
+            publishAbandoned();
+        } finally {
+            global.writeLock().unlock();
+        }
+    }
+
+    // Locks the stripes of the named tables; returns the stripe numbers to pass to unlock(int[])
+    public int[] lock(Collection<String> tables) {
+        int[] stripes = tables.stream().mapToInt(this::shardOf).distinct().sorted().toArray();
+        global.readLock().lock();
+        int locked = 0;
+        try {
+            for (; locked < stripes.length; locked++) {
+                shards[stripes[locked]].lock();
+            }
+        } catch (RuntimeException | Error e) {
+            for (int i = locked - 1; i >= 0; i--) shards[stripes[i]].unlock();
+            global.readLock().unlock();
+            throw e;
+        }
+        return stripes;
+    }
+
+    public void unlock(int[] stripes) {
+        try {
+            publishAbandoned();
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                shards[stripes[i]].unlock();
+            }
+            global.readLock().unlock();
+        }
+    }
+
+    public int shardOf(String table) {
+        return Math.floorMod(table.hashCode(), shards.length);
+    }
+
+    public boolean holdsLock() {
+        return global.isWriteLockedByCurrentThread() || global.getReadHoldCount() > 0;
+    }
+
+    // Must hold the exclusive lock or the stripes of every table the commit writes;
+    // the returned timestamp becomes visible on publish()
+    public long nextCommitTs() {
+        if (!holdsLock()) {
+            throw new IllegalStateException("Commit lock not held");
+        }
+        long[] mine = unpublished.get();
+        if (mine[0] != 0) {
+            throw new IllegalStateException("Commit " + mine[0] + " is not published yet");
+        }
+        mine[0] = lastCommitTs.incrementAndGet();
+        return mine[0];
+    }
+
+    public void publish(long commitTs) {
+        publish(commitTs, null);
+    }
+
+    // Waits until every earlier commit is visible, runs beforeVisible (which therefore runs in
+    // commit order, one commit at a time) and makes commitTs visible
+    public void publish(long commitTs, Runnable beforeVisible) {
+        awaitTurn(commitTs);
+        try {
+            if (beforeVisible != null) beforeVisible.run();
+        } finally {
+            unpublished.get()[0] = 0;
+            visibleTs = commitTs;
+            Thread next = publishWaiters.get(commitTs + 1);
+            if (next != null) LockSupport.unpark(next);
+        }
+    }
+
+    public long getVisibleTs() {
+        return visibleTs;
+    }
+
+    // A timestamp nobody publishes would stall every later commit forever, so a commit that
+    // failed half way is published as it stands when its locks are released
+    private void publishAbandoned() {
+        long ts = unpublished.get()[0];
+        if (ts != 0) {
+            publish(ts);
+        }
+    }
+
+    private void awaitTurn(long commitTs) {
+        for (int spins = 0; spins < PUBLISH_SPINS; spins++) {
+            if (visibleTs == commitTs - 1) return;
+            Thread.onSpinWait();
+        }
+        // Registered before the re-check, so the predecessor's publish either sees us or we see it
+        publishWaiters.put(commitTs, Thread.currentThread());
+        boolean interrupted = false;
+        try {
+            while (visibleTs != commitTs - 1) {
+                LockSupport.park(this);
+                // The turn cannot be given up, not even on interrupt: later commits wait for it
+                interrupted |= Thread.interrupted();
+            }
+        } finally {
+            publishWaiters.remove(commitTs);
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.techwithedward.Projects.Database;
+
+import java.util.Comparator;
+
+// Orders typed column values; numbers of different widths compare by magnitude, nulls first
+public class ValueComparator implements Comparator<Object> {
+    public static final ValueComparator INSTANCE = new ValueComparator();
+
+    private ValueComparator() {
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public int compare(Object a, Object b) {
+        if (a == b) return 0;
+        if (a == null) return -1;
+        if (b == null) return 1;
+
+        if (a instanceof Number x && b instanceof Number y) {
+            if (isIntegral(x) && isIntegral(y)) {
+                return Long.compare(x.longValue(), y.longValue());
+            }
+            return Double.compare(x.doubleValue(), y.doubleValue());
+        }
+        if (a.getClass() == b.getClass() && a instanceof Comparable c) {
+            return c.compareTo(b);
+        }
+        return a.toString().compareTo(b.toString());
+    }
+
+    private static boolean isIntegral(Number n) {
+        return n instanceof Long || n instanceof Integer || n instanceof Short || n instanceof Byte;
+    }
+}
@@ -0,0 +1,83 @@
+package com.techwithedward.Projects.Database;
+
+// Window TinyLFU: new rows enter a small LRU window (1% of the rows). Rows pushed out of the
+// window only enter the main area if the frequency sketch says they are used more often than
+// the main area's own victim, which keeps one-off scans from flushing popular rows. The main
+// area is a segmented LRU: rows read again move from probation to protected (80% of main).
+public class WTinyLfuPolicy implements EvictionPolicy {
+    private static final int WINDOW = 0, CANDIDATES = 1, PROBATION = 2, PROTECTED = 3;
+
+    private final SlotQueues queues = new SlotQueues(4);
+    private final FrequencySketch sketch = new FrequencySketch();
+    private int size;
+
+    @Override
+    public EvictionType getType() {
+        return EvictionType.W_TINY_LFU;
+    }
+
+    @Override
+    public void onInsert(int slot) {
+        if (queues.queueOf(slot) >= 0) return;
+        size++;
+        sketch.ensureCapacity(size);
+        sketch.increment(slot);
+        queues.addLast(WINDOW, slot);
+        // Window overflow waits in line for admission against the probation victim
+        while (queues.size(WINDOW) > Math.max(1, size / 100)) {
+            queues.addLast(CANDIDATES, queues.first(WINDOW));
+        }
+    }
+
+    @Override
+    public void onAccess(int slot) {
+        int queue = queues.queueOf(slot);
+        if (queue < 0) return;
+        sketch.increment(slot);
+        switch (queue) {
+            case WINDOW -> queues.addLast(WINDOW, slot);
+            case CANDIDATES, PROBATION, PROTECTED -> {
+                queues.addLast(PROTECTED, slot);
+                int main = size - queues.size(WINDOW) - queues.size(CANDIDATES);
+                while (queues.size(PROTECTED) > Math.max(1, main * 4 / 5)) {
+                    queues.addLast(PROBATION, queues.first(PROTECTED));
+                }
+            }
+            default -> throw new AssertionError();
+        }
+    }
+
+    @Override
+    public void onRemove(int slot) {
+        if (queues.remove(slot)) {
+            size--;
+        }
+    }
+
+    @Override
+    public int victim() {
+        while (queues.size(CANDIDATES) > 0) {
+            int candidate = queues.first(CANDIDATES);
+            int victim = queues.size(PROBATION) > 0 ? queues.first(PROBATION) : queues.first(PROTECTED);
+            if (victim < 0) {
+                // Nothing in the main area to compete with: admit
+                queues.addLast(PROBATION, candidate);
+                continue;
+            }
+            if (sketch.frequency(candidate) > sketch.frequency(victim)) {
+                queues.addLast(PROBATION, candidate);
+                return victim;
+            }
+            return candidate;
+        }
+        for (int queue : new int[]{PROBATION, PROTECTED, WINDOW}) {
+            if (queues.size(queue) > 0) return queues.first(queue);
+        }
+        return -1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
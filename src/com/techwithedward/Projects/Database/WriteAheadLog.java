@@ -0,0 +1,300 @@
+package com.techwithedward.Projects.Database;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// Append-only redo log split into one file per generation (db-<generation>.wal). Each file is
+// [magic][generation] followed by records of [payload length][crc32][payload]. A snapshot of
+// generation G covers every file up to G, so recovery replays only the newer files.
+public class WriteAheadLog implements Closeable {
+    private static final int MAGIC = 0x57414C31;
+    private static final int HEADER_BYTES = 12;
+    private static final int RECORD_OVERHEAD = 8;
+
+    private final Path dir;
+    private final DurabilityConfig config;
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final ScheduledExecutorService syncer;
+
+    private FileChannel channel;
+    private BinaryWriter pending;
+    private long generation;
+    // Log sequence numbers are cumulative byte counts; they keep growing across generations
+    private long appendedLsn;
+    private volatile long durableLsn;
+    private int unsyncedRecords;
+    private boolean hasRecords;
+
+    public record Recovery(long generation, long validBytes, int records) {
+    }
+
+    private WriteAheadLog(Path dir, DurabilityConfig config) {
+        this.dir = dir;
+        this.config = config;
+
+        syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "wal-sync");
+            t.setDaemon(true);
+            return t;
+        });
+        if (config.getSyncMode() != DurabilityConfig.SyncMode.ALWAYS) {
+            long interval = config.getSyncIntervalMillis();
+            syncer.scheduleWithFixedDelay(this::backgroundSync, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public static Path fileFor(Path dir, long generation) {
+        return dir.resolve(String.format("db-%016d.wal", generation));
+    }
+
+    // Opens the log for appending. validBytes > 0 continues an existing file of that generation
+    // (cutting off any torn tail found during recovery); otherwise a fresh file is started.
+    public static WriteAheadLog open(Path dir, DurabilityConfig config, long generation, long validBytes)
+            throws IOException {
+        WriteAheadLog wal = new WriteAheadLog(dir, config);
+        wal.startFile(generation, validBytes);
+        return wal;
+    }
+
+    private void startFile(long newGeneration, long validBytes) throws IOException {
+        channel = FileChannel.open(fileFor(dir, newGeneration),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        pending = new BinaryWriter(channel, 1 << 20);
+        generation = newGeneration;
+        if (validBytes >= HEADER_BYTES) {
+            channel.truncate(validBytes);
+            channel.position(validBytes);
+            hasRecords = validBytes > HEADER_BYTES;
+        } else {
+            channel.truncate(0);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putLong(newGeneration).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            channel.force(true);
+            hasRecords = false;
+        }
+    }
+
+    // Feeds every intact record of the generations after afterGeneration to the consumer, oldest first
+    public static Recovery replay(Path dir, long afterGeneration, Consumer<LogRecord> consumer) throws IOException {
+        TreeMap<Long, Path> files = listFiles(dir);
+        Recovery last = new Recovery(-1, 0, 0);
+        int records = 0;
+        for (var entry : files.tailMap(afterGeneration, false).entrySet()) {
+            Recovery file = replayFile(entry.getValue(), consumer);
+            records += file.records();
+            boolean isLast = entry.getKey().equals(files.lastKey());
+            if (!isLast && file.validBytes() < Files.size(entry.getValue())) {
+                throw new IOException("Corrupt log file before the end of the log: " + entry.getValue());
+            }
+            last = new Recovery(entry.getKey(), file.validBytes(), records);
+        }
+        return last;
+    }
+
+    private static Recovery replayFile(Path path, Consumer<LogRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                return new Recovery(-1, 0, 0);
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            BinaryReader in = new BinaryReader(map);
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not a write-ahead log: " + path);
+            }
+            long generation = in.getLong();
+
+            int records = 0;
+            long valid = HEADER_BYTES;
+            CRC32 crc = new CRC32();
+            while (in.remaining() >= RECORD_OVERHEAD) {
+                int length = in.getInt();
+                int checksum = in.getInt();
+                if (length <= 0 || length > in.remaining()) break;
+
+                ByteBuffer payload = in.slice(length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) break;
+
+                consumer.accept(LogRecord.decode(new BinaryReader(payload)));
+                valid += RECORD_OVERHEAD + length;
+                records++;
+            }
+            return new Recovery(generation, valid, records);
+        }
+    }
+
+    private static TreeMap<Long, Path> listFiles(Path dir) throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        if (!Files.isDirectory(dir)) return files;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "db-*.wal")) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                files.put(Long.parseLong(name.substring(3, name.length() - 4)), path);
+            }
+        }
+        return files;
+    }
+
+    // Buffers the record and returns its LSN; pass it to commit() to make it durable
+    public long append(LogRecord record) {
+        return append(List.of(record));
+    }
+
+    // Buffers the records back to back, with no other writer's records in between, and returns
+    // the LSN of the last one. Records are encoded before the log is locked.
+    public long append(List<LogRecord> records) {
+        byte[][] payloads = new byte[records.size()][];
+        int[] crcs = new int[payloads.length];
+        for (int i = 0; i < payloads.length; i++) {
+            payloads[i] = records.get(i).encode();
+            CRC32 crc = new CRC32();
+            crc.update(payloads[i]);
+            crcs[i] = (int) crc.getValue();
+        }
+
+        synchronized (this) {
+            for (int i = 0; i < payloads.length; i++) {
+                try {
+                    pending.putInt(payloads[i].length);
+                    pending.putInt(crcs[i]);
+                    pending.putBytes(payloads[i], 0, payloads[i].length);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Write-ahead log append failed", e);
+                }
+                appendedLsn += RECORD_OVERHEAD + payloads[i].length;
+                unsyncedRecords++;
+            }
+            hasRecords |= payloads.length > 0;
+            return appendedLsn;
+        }
+    }
+
+    public void commit(long lsn) {
+        switch (config.getSyncMode()) {
+            case ALWAYS -> sync(lsn);
+            case BATCH -> {
+                boolean full;
+                synchronized (this) {
+                    full = unsyncedRecords >= config.getBatchSize();
+                }
+                if (full) sync(lsn);
+            }
+            case NONE -> {
+            }
+        }
+    }
+
+    // Group commit: one thread forces the log for everyone queued behind it on syncLock,
+    // so the waiters usually find their LSN already durable when they get the lock.
+    public void sync(long lsn) {
+        if (durableLsn >= lsn) return;
+        syncLock.lock();
+        try {
+            if (durableLsn >= lsn) return;
+            long target;
+            FileChannel current;
+            synchronized (this) {
+                pending.flush();
+                target = appendedLsn;
+                current = channel;
+                unsyncedRecords = 0;
+            }
+            current.force(false);
+            durableLsn = target;
+        } catch (IOException e) {
+            throw new IllegalStateException("Write-ahead log sync failed", e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void backgroundSync() {
+        try {
+            if (config.getSyncMode() == DurabilityConfig.SyncMode.BATCH) {
+                sync(appendedLsnSnapshot());
+            } else {
+                synchronized (this) {
+                    pending.flush();
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("WAL background sync failed: " + e.getMessage());
+        }
+    }
+
+    private synchronized long appendedLsnSnapshot() {
+        return appendedLsn;
+    }
+
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    // Whether anything was logged to the current generation
+    public synchronized boolean hasRecords() {
+        return hasRecords;
+    }
+
+    // Seals the current file and continues in a new generation; returns the sealed generation.
+    // The sealed files stay on disk until a snapshot covering them calls deleteUpTo().
+    public long rollOver() throws IOException {
+        syncLock.lock();
+        try {
+            synchronized (this) {
+                pending.flush();
+                channel.force(false);
+                channel.close();
+                durableLsn = appendedLsn;
+                unsyncedRecords = 0;
+                long sealed = generation;
+                startFile(sealed + 1, 0);
+                return sealed;
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    public void deleteUpTo(long generation) throws IOException {
+        List<Path> obsolete = new ArrayList<>(listFiles(dir).headMap(generation, true).values());
+        for (Path path : obsolete) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Not shutdownNow(): interrupting a thread inside force() would close the channel
+        syncer.shutdown();
+        try {
+            syncer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sync(appendedLsnSnapshot());
+        synchronized (this) {
+            channel.close();
+        }
+    }
+}
@@ -1,18 +1,193 @@
 package com.techwithedward.Projects;
 
+import com.techwithedward.Projects.Database.*;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+import java.util.function.ToIntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class InMemoryDB {
-    private Map<String, Map<String, Object>> tables = new ConcurrentHashMap<>();
-    private Map<String, Set<String>> indexes = new ConcurrentHashMap<>();
+    private static final String SNAPSHOT_FILE = "db.snapshot";
+    private static final long GC_INTERVAL_MILLIS = 100;
+    private static final Pattern PAGING = Pattern.compile(
+            "(.*?)(?:\\s+LIMIT\\s+(\\d+))?(?:\\s+OFFSET\\s+(\\d+))?(?:\\s+AFTER\\s+(\\S+))?", Pattern.CASE_INSENSITIVE);
+    private static final Pattern JOIN = Pattern.compile(
+            "\\s*SELECT\\s+(.+?)\\s+FROM\\s+(\\S+)\\s+(?:INNER\\s+)?JOIN\\s+(\\S+)\\s+ON\\s+(\\S+)\\.(\\S+)\\s*=\\s*(\\S+)\\.(\\S+?)"
+                    + "(?:\\s+WHERE\\s+(.+?))?(?:\\s+LIMIT\\s+(\\d+))?\\s*;?\\s*", Pattern.CASE_INSENSITIVE);
+    private static final Pattern MATERIALIZED_VIEW = Pattern.compile(
+            "\\s*CREATE\\s+MATERIALIZED\\s+VIEW\\s+(\\S+)(?:\\s+REFRESH\\s+(SYNC|DEFERRED)(?:\\s+EVERY\\s+(\\d+))?)?"
+                    + "\\s+AS\\s+SELECT\\s+(.+?)\\s+FROM\\s+(\\S+)(?:\\s+WHERE\\s+(.+?))?(?:\\s+GROUP\\s+BY\\s+(.+?))?\\s*;?\\s*",
+            Pattern.CASE_INSENSITIVE);
+    // How often a DEFERRED view without EVERY folds in its pending changes
+    private static final long DEFAULT_VIEW_REFRESH_MILLIS = 1000;
+    // Replicas started from the command line refuse reads staler than this
+    private static final long DEFAULT_REPLICA_LAG_MILLIS = 1000;
+
+    // Replaced as a whole when a replica loads a snapshot from its primary
+    private volatile Map<String, Table> tables = new ConcurrentHashMap<>();
+    private final Map<String, MaterializedView> views = new ConcurrentHashMap<>();
+    // Committed row changes for subscribers; written in commit order, read without locks
+    private final ChangeStream changes = new ChangeStream(ChangeStream.DEFAULT_CAPACITY);
+    // Parsed and bound statements by text, each keeping its access plan between executions
+    private final StatementCache statements = new StatementCache(StatementCache.DEFAULT_CAPACITY);
+    // Latency histograms, row counters and the slow-query log; always on
+    private final Metrics metrics = new Metrics();
+
+    // Snapshot isolation: reads never lock, writes are buffered per transaction and applied at commit
+    // under the commit lock stripes of the tables they touch
+    private final TransactionManager transactions;
+    private final ThreadLocal<Transaction> currentTransaction = new ThreadLocal<>();
+    private final ScheduledExecutorService background = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "db-background");
+        t.setDaemon(true);
+        return t;
+    });
+    private boolean started;
+
+    // Full scans over large tables are split across a ForkJoinPool
+    private final ParallelScanner scanner;
+    private final QueryPlanner planner;
+
+    // Bytes all tables together may use before rows are evicted from cache tables; 0 = unbounded
+    private volatile long memoryBudget;
+    // Largest hash table a join builds before it switches to partitioning; 0 = unbounded
+    private volatile long joinMemoryLimit = Join.DEFAULT_MEMORY_LIMIT;
+
+    // Where statement feedback goes; the server swaps in a null stream
+    private volatile PrintStream console = System.out;
+
+    // Persistence; null when the database runs purely in memory
+    private Path dataDir;
+    private WriteAheadLog wal;
+    // Records of a BEGIN..COMMIT group seen during log replay
+    private List<LogRecord> replayGroup;
+
+    // Primary side of replication; null until startReplication
+    private volatile ReplicationLog replication;
+    private ReplicationServer replicationServer;
+    // Records this thread logged but has not shipped yet. They go to the replication log when the
+    // commit publishes, so replicas receive commits in the order they became visible.
+    private final ThreadLocal<List<LogRecord>> unshipped = ThreadLocal.withInitial(ArrayList::new);
+    // Replica side: set while this database follows a primary, which makes it read-only
+    private volatile Replica replica;
+    // Replica side, per table: primary row ids whose rows sit in a different slot here. Only
+    // touched under the exclusive commit lock; a snapshot from the primary starts it over.
+    private final Map<String, Map<Integer, Integer>> relocated = new HashMap<>();
+    // Part of every page token: commit timestamps start over when a database is opened again
+    private final String incarnation = Integer.toHexString(ThreadLocalRandom.current().nextInt());
+
+    public InMemoryDB() {
+        this(ScanConfig.defaults());
+    }
+
+    public InMemoryDB(ScanConfig scanConfig) {
+        this(scanConfig, TransactionManager.DEFAULT_SHARDS);
+    }
+
+    // Tables hash to commitShards commit lock stripes; writers of tables on different stripes
+    // commit in parallel. Nothing runs in the background until start().
+    public InMemoryDB(ScanConfig scanConfig, int commitShards) {
+        transactions = new TransactionManager(commitShards);
+        scanner = new ParallelScanner(scanConfig);
+        planner = new QueryPlanner(scanner);
+    }
+
+    // Starts the background garbage collection, cache maintenance and deferred view refresh.
+    // Kept out of the constructor so no task sees a half-built database; open() calls it.
+    public synchronized InMemoryDB start() {
+        if (started) return this;
+        started = true;
+        background.scheduleWithFixedDelay(() -> {
+            try {
+                collectGarbage();
+            } catch (Exception e) {
+                System.err.println("Garbage collection failed: " + e.getMessage());
+            }
+        }, GC_INTERVAL_MILLIS, GC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        background.scheduleWithFixedDelay(() -> {
+            try {
+                maintainCaches();
+            } catch (Exception e) {
+                System.err.println("Cache maintenance failed: " + e.getMessage());
+            }
+        }, GC_INTERVAL_MILLIS, GC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        background.scheduleWithFixedDelay(() -> {
+            try {
+                refreshDeferredViews();
+            } catch (Exception e) {
+                System.err.println("View refresh failed: " + e.getMessage());
+            }
+        }, GC_INTERVAL_MILLIS, GC_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    // Usage: InMemoryDB [dataDir] [--port N] [--shards N] [--slow-query-ms N]
+    //                  [--replication-port N | --replica-of host:port [--max-lag-ms N]]
+    public static void main(String[] args) throws IOException {
+        Path dataDir = null;
+        int port = -1;
+        int shards = TransactionManager.DEFAULT_SHARDS;
+        long slowQueryMillis = Metrics.DEFAULT_SLOW_QUERY_MILLIS;
+        int replicationPort = -1;
+        String primary = null;
+        long maxLagMillis = DEFAULT_REPLICA_LAG_MILLIS;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--replication-port") && i + 1 < args.length) {
+                replicationPort = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--replica-of") && i + 1 < args.length) {
+                primary = args[++i];
+            } else if (args[i].equals("--max-lag-ms") && i + 1 < args.length) {
+                maxLagMillis = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--shards") && i + 1 < args.length) {
+                shards = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--slow-query-ms") && i + 1 < args.length) {
+                slowQueryMillis = Long.parseLong(args[++i]);
+            } else {
+                dataDir = Path.of(args[i]);
+            }
+        }
 
-    public static void main(String[] args) {
-        InMemoryDB db = new InMemoryDB();
+        // Pass a directory to make the database durable across restarts
+        InMemoryDB db = dataDir != null ? open(dataDir, DurabilityConfig.defaults(), ScanConfig.defaults(), shards)
+                : new InMemoryDB(ScanConfig.defaults(), shards).start();
+        db.getMetrics().setSlowQueryThreshold(slowQueryMillis);
+        if (replicationPort >= 0) {
+            db.startReplication(replicationPort);
+        } else if (primary != null) {
+            int colon = primary.lastIndexOf(':');
+            db.startReplica(primary.substring(0, colon), Integer.parseInt(primary.substring(colon + 1)), maxLagMillis);
+        }
+        if (port >= 0) {
+            // Server mode: the REPL is replaced by network clients
+            try (DatabaseServer server = new DatabaseServer(db, port)) {
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        db.close();
+                    } catch (IOException e) {
+                        System.err.println("Shutdown failed: " + e.getMessage());
+                    }
+                }));
+                server.serve();
+            }
+            return;
+        }
         Scanner scanner = new Scanner(System.in);
 
         System.out.println("=== In-Memory Database ===");
-        System.out.println("Commands: CREATE, INSERT, SELECT, UPDATE, DELETE, INDEX, EXIT");
+        System.out.println("Commands: CREATE, INSERT, COPY, SQL, SELECT, JOIN, AGGREGATE, MVIEW, VIEW, REFRESH, CHANGES, UPDATE, DELETE, INDEX, EXPLAIN, ANALYZE, BEGIN, COMMIT, ROLLBACK, MEMORY, CACHE, BUDGET, STATS, SLOWLOG, SNAPSHOT, EXIT");
 
         while (true) {
             System.out.print("\nDB> ");
@@ -23,9 +198,11 @@ public class InMemoryDB {
                     case "CREATE" -> {
                         System.out.print("Table name: ");
                         String tableName = scanner.nextLine();
-                        System.out.print("Columns (comma-separated): ");
+                        System.out.print("Columns (comma-separated, name or name:type with type INT/LONG/DOUBLE/STRING/BOOLEAN): ");
                         String[] columns = scanner.nextLine().split(",");
-                        db.createTable(tableName, columns);
+                        System.out.print("Storage (HEAP, OFF_HEAP) [HEAP]: ");
+                        String storage = scanner.nextLine().trim().toUpperCase();
+                        db.createTable(tableName, columns, storage.isEmpty() ? StorageMode.HEAP : StorageMode.valueOf(storage));
                     }
                     case "INSERT" -> {
                         System.out.print("Table name: ");
@@ -34,26 +211,82 @@ public class InMemoryDB {
                         String[] values = scanner.nextLine().split(",");
                         db.insert(tableName, values);
                     }
+                    case "COPY" -> {
+                        System.out.print("Table name: ");
+                        String tableName = scanner.nextLine();
+                        System.out.print("File path: ");
+                        Path file = Path.of(scanner.nextLine().trim());
+                        System.out.print("Format (CSV, TSV) [from file extension]: ");
+                        String format = scanner.nextLine().trim();
+                        System.out.print("Skip header row? (y/N): ");
+                        boolean header = scanner.nextLine().trim().equalsIgnoreCase("y");
+                        db.copy(tableName, file,
+                                format.isEmpty() ? BulkLoader.Format.forFile(file) : BulkLoader.Format.valueOf(format.toUpperCase()),
+                                header);
+                    }
+                    case "SQL" -> {
+                        System.out.print("Statement (SELECT cols FROM t [WHERE ...] [LIMIT n] [OFFSET m], UPDATE t SET col = v, ... [WHERE ...], DELETE FROM t [WHERE ...]): ");
+                        String statement = scanner.nextLine();
+                        db.execute(statement);
+                    }
                     case "SELECT" -> {
                         System.out.print("Table name: ");
                         String tableName = scanner.nextLine();
-                        System.out.print("WHERE clause (col=value) or ALL: ");
+                        System.out.print("WHERE clause (col=value, col<value, col BETWEEN a AND b, col LIKE abc%, col MATCH 'words prefix*', joined with AND/OR) or ALL, then optional LIMIT n OFFSET m AFTER token: ");
                         String where = scanner.nextLine();
                         db.select(tableName, where);
                     }
+                    case "JOIN" -> {
+                        System.out.print("Statement (SELECT * or [table.]col,... FROM a JOIN b ON a.x = b.y [WHERE ...] [LIMIT n]): ");
+                        String statement = scanner.nextLine();
+                        db.join(statement);
+                    }
+                    case "AGGREGATE" -> {
+                        System.out.print("Table name: ");
+                        String tableName = scanner.nextLine();
+                        System.out.print("Aggregates (COUNT(*), COUNT/SUM/AVG/MIN/MAX(col), comma-separated): ");
+                        String aggregates = scanner.nextLine();
+                        System.out.print("GROUP BY columns (comma-separated) [none]: ");
+                        String groupBy = scanner.nextLine();
+                        System.out.print("WHERE clause (conditions joined with AND/OR) [ALL]: ");
+                        String where = scanner.nextLine();
+                        db.aggregate(tableName, aggregates, groupBy, where);
+                    }
+                    case "MVIEW" -> {
+                        System.out.print("Statement (CREATE MATERIALIZED VIEW name [REFRESH SYNC | DEFERRED [EVERY ms]] AS SELECT * or [group cols,] aggregates FROM t [WHERE ...] [GROUP BY ...]): ");
+                        String statement = scanner.nextLine();
+                        db.createMaterializedView(statement);
+                    }
+                    case "VIEW" -> {
+                        System.out.print("View name: ");
+                        String name = scanner.nextLine().trim();
+                        db.readView(name);
+                    }
+                    case "REFRESH" -> {
+                        System.out.print("View name: ");
+                        String name = scanner.nextLine().trim();
+                        db.refreshView(name);
+                    }
+                    case "CHANGES" -> {
+                        System.out.print("From sequence [oldest retained]: ");
+                        String from = scanner.nextLine().trim();
+                        System.out.print("Max events [100]: ");
+                        String max = scanner.nextLine().trim();
+                        db.printChanges(from.isEmpty() ? 0 : Long.parseLong(from), max.isEmpty() ? 100 : Integer.parseInt(max));
+                    }
                     case "UPDATE" -> {
                         System.out.print("Table name: ");
                         String tableName = scanner.nextLine();
                         System.out.print("SET clause (col=value): ");
                         String set = scanner.nextLine();
-                        System.out.print("WHERE clause (col=value): ");
+                        System.out.print("WHERE clause (col=value, col<value, col BETWEEN a AND b, col LIKE abc%, col MATCH 'words prefix*', joined with AND/OR): ");
                         String where = scanner.nextLine();
                         db.update(tableName, set, where);
                     }
                     case "DELETE" -> {
                         System.out.print("Table name: ");
                         String tableName = scanner.nextLine();
-                        System.out.print("WHERE clause (col=value) or ALL: ");
+                        System.out.print("WHERE clause (col=value, col<value, col BETWEEN a AND b, col LIKE abc%, col MATCH 'words prefix*', joined with AND/OR) or ALL: ");
                         String where = scanner.nextLine();
                         db.delete(tableName, where);
                     }
@@ -62,9 +295,64 @@ public class InMemoryDB {
                         String tableName = scanner.nextLine();
                         System.out.print("Column to index: ");
                         String column = scanner.nextLine();
-                        db.createIndex(tableName, column);
+                        System.out.print("Index type (HASH, ORDERED, BITMAP, FULLTEXT) [HASH]: ");
+                        String type = scanner.nextLine().trim();
+                        db.createIndex(tableName, column,
+                                type.isEmpty() ? IndexType.HASH : IndexType.valueOf(type.toUpperCase()));
+                    }
+                    case "EXPLAIN" -> {
+                        System.out.print("Table name: ");
+                        String tableName = scanner.nextLine();
+                        System.out.print("WHERE clause (conditions joined with AND/OR): ");
+                        String where = scanner.nextLine();
+                        db.explain(tableName, where);
+                    }
+                    case "ANALYZE" -> {
+                        System.out.print("Table name: ");
+                        String tableName = scanner.nextLine();
+                        db.analyze(tableName);
+                    }
+                    case "BEGIN" -> db.begin();
+                    case "COMMIT" -> db.commit();
+                    case "ROLLBACK" -> db.rollback();
+                    case "MEMORY" -> {
+                        System.out.print("Table name: ");
+                        String tableName = scanner.nextLine();
+                        db.printMemory(tableName);
+                    }
+                    case "CACHE" -> {
+                        System.out.print("Table name: ");
+                        String tableName = scanner.nextLine();
+                        System.out.print("Eviction policy (LRU, LFU, W_TINY_LFU, OFF) [show stats]: ");
+                        String policy = scanner.nextLine().trim().toUpperCase();
+                        if (policy.isEmpty()) {
+                            db.printCacheStats(tableName);
+                        } else if (policy.equals("OFF")) {
+                            db.configureCache(tableName, null);
+                        } else {
+                            System.out.print("Memory limit in KB (0 = none): ");
+                            long maxKb = Long.parseLong(scanner.nextLine().trim());
+                            System.out.print("Row TTL in seconds (0 = none): ");
+                            long ttlSeconds = Long.parseLong(scanner.nextLine().trim());
+                            db.configureCache(tableName, new CacheConfig(maxKb * 1024, ttlSeconds * 1000,
+                                    EvictionType.valueOf(policy)));
+                        }
+                    }
+                    case "BUDGET" -> {
+                        System.out.print("Global memory budget in KB (0 = none): ");
+                        db.setMemoryBudget(Long.parseLong(scanner.nextLine().trim()) * 1024);
                     }
+                    case "STATS" -> db.stats();
+                    case "SLOWLOG" -> {
+                        System.out.print("Slow-query threshold in ms (0 = off) [" + db.getMetrics().getSlowQueryThreshold() + "]: ");
+                        String threshold = scanner.nextLine().trim();
+                        if (!threshold.isEmpty()) {
+                            db.setSlowQueryThreshold(Long.parseLong(threshold));
+                        }
+                    }
+                    case "SNAPSHOT" -> db.snapshot();
                     case "EXIT" -> {
+                        db.close();
                         System.out.println("Goodbye!");
                         return;
                     }
@@ -76,201 +364,1611 @@ public class InMemoryDB {
         }
     }
 
-    public void createTable(String tableName, String[] columns) {
-        if (tables.containsKey(tableName)) {
-            throw new IllegalArgumentException("Table already exists!");
+    // Loads the latest snapshot from dataDir, replays the write-ahead log on top of it,
+    // and logs every further change there
+    public static InMemoryDB open(Path dataDir, DurabilityConfig config) throws IOException {
+        return open(dataDir, config, ScanConfig.defaults());
+    }
+
+    public static InMemoryDB open(Path dataDir, DurabilityConfig config, ScanConfig scanConfig) throws IOException {
+        return open(dataDir, config, scanConfig, TransactionManager.DEFAULT_SHARDS);
+    }
+
+    public static InMemoryDB open(Path dataDir, DurabilityConfig config, ScanConfig scanConfig, int commitShards)
+            throws IOException {
+        Files.createDirectories(dataDir);
+        InMemoryDB db = new InMemoryDB(scanConfig, commitShards);
+        long start = System.nanoTime();
+
+        long snapshotGeneration = -1;
+        Path snapshotPath = dataDir.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshotPath)) {
+            SnapshotFile.Contents contents = SnapshotFile.read(snapshotPath);
+            snapshotGeneration = contents.generation();
+            db.transactions.lock();
+            try {
+                db.load(contents);
+            } finally {
+                db.transactions.unlock();
+            }
         }
 
-        Map<String, Object> schema = new HashMap<>();
-        for (String col : columns) {
-            schema.put(col.trim(), null);
+        WriteAheadLog.Recovery recovery = WriteAheadLog.replay(dataDir, snapshotGeneration, db::apply);
+        db.replayGroup = null;
+        db.wal = recovery.generation() >= 0
+                ? WriteAheadLog.open(dataDir, config, recovery.generation(), recovery.validBytes())
+                : WriteAheadLog.open(dataDir, config, snapshotGeneration + 1, 0);
+        db.dataDir = dataDir;
+
+        System.out.printf("Recovered %d tables (%d log records replayed) in %d ms%n",
+                db.tables.size(), recovery.records(), (System.nanoTime() - start) / 1_000_000);
+        db.start();
+
+        long interval = config.getSnapshotIntervalSeconds();
+        if (interval > 0) {
+            db.background.scheduleWithFixedDelay(() -> {
+                try {
+                    if (db.wal.hasRecords()) db.snapshot();
+                } catch (Exception e) {
+                    System.err.println("Periodic snapshot failed: " + e.getMessage());
+                }
+            }, interval, interval, TimeUnit.SECONDS);
         }
+        return db;
+    }
 
-        tables.put(tableName, new ConcurrentHashMap<>());
-        System.out.println("Table '" + tableName + "' created with columns: " + Arrays.toString(columns));
+    public void createTable(String tableName, String[] columns) {
+        createTable(tableName, columns, StorageMode.HEAP);
     }
 
-    public void insert(String tableName, String[] values) {
-        Map<String, Object> table = tables.get(tableName);
-        if (table == null) {
-            throw new IllegalArgumentException("Table not found!");
+    // OFF_HEAP keeps the column values in native memory, out of the garbage collector's way
+    public void createTable(String tableName, String[] columns, StorageMode storage) {
+        checkWritable();
+        Schema schema = Schema.parse(columns);
+
+        long lsn;
+        transactions.lock();
+        try {
+            long ts = transactions.nextCommitTs();
+            if (tables.putIfAbsent(tableName, new Table(tableName, schema, ts, storage)) != null) {
+                throw new IllegalArgumentException("Table already exists!");
+            }
+            lsn = log(LogRecord.createTable(tableName, schema.toSpecs(), storage));
+            publish(ts, null);
+        } finally {
+            transactions.unlock();
+        }
+        commitLog(lsn);
+
+        console.println("Table '" + tableName + "' created with columns: " + schema
+                + (storage == StorageMode.OFF_HEAP ? " (off-heap)" : ""));
+    }
+
+    public void setConsole(PrintStream console) {
+        this.console = console;
+    }
+
+    public boolean inTransaction() {
+        return currentTransaction.get() != null;
+    }
+
+    // Returns the new row id, or -1 inside a transaction where the id is assigned at COMMIT
+    public int insert(String tableName, String[] values) {
+        return insert(tableName, values, 0);
+    }
+
+    // ttlMillis > 0 expires the row after that long, overriding the table's default TTL.
+    // Needs a cache on the table (see configureCache).
+    public int insert(String tableName, String[] values, long ttlMillis) {
+        checkWritable();
+        Metrics.Sample sample = metrics.start(Metrics.Operation.INSERT, tableName, null);
+        Table table = getTable(tableName);
+        Object[] row = table.parseRow(values);
+        if (ttlMillis > 0 && table.getCache() == null) {
+            throw new IllegalStateException("Row TTLs need a cache on '" + tableName + "' (see CACHE)");
         }
 
-        String id = UUID.randomUUID().toString();
-        Map<String, Object> record = new HashMap<>();
+        Transaction txn = currentTransaction.get();
+        if (txn != null) {
+            Transaction.WriteSet writes = txn.writesFor(table);
+            writes.getInserted().add(row);
+            if (ttlMillis > 0) {
+                writes.getTtls().put(row, ttlMillis);
+            }
+            console.println("Inserted record (visible to others after COMMIT)");
+            sample.finish(1);
+            return -1;
+        }
 
-        // Simple mapping - in real DB, you'd need schema info
-        for (int i = 0; i < values.length; i++) {
-            record.put("col" + (i + 1), values[i].trim());
+        int id;
+        long lsn;
+        int[] stripes = transactions.lock(List.of(tableName));
+        try {
+            long ts = transactions.nextCommitTs();
+            id = insertRow(table, row, ts);
+            if (ttlMillis > 0) {
+                table.getCache().expireAfter(id, ttlMillis);
+            }
+            ChangeStream.Pending events = changes.pending();
+            events.add(ts, ChangeEvent.Type.INSERT, tableName, id, -1, null, row);
+            lsn = log(LogRecord.insert(tableName, id, row));
+            publish(ts, events);
+            lsn = Math.max(lsn, enforceBudget(table));
+        } finally {
+            transactions.unlock(stripes);
         }
+        lsn = Math.max(lsn, enforceGlobalBudget());
+        commitLog(lsn);
 
-        table.put(id, record);
+        console.println("Inserted record with ID: " + id);
+        sample.finish(1);
+        return id;
+    }
 
-        // Update indexes
-        updateIndexes(tableName, id, record);
+    // Bulk load: rows are parsed in parallel, appended in batches and committed as one transaction.
+    // Indexes are extended once at the end instead of per row.
+    public long copy(String tableName, Path file, BulkLoader.Format format, boolean header) throws IOException {
+        checkWritable();
+        Table table = getTable(tableName);
+        if (currentTransaction.get() != null) {
+            throw new IllegalStateException("COPY cannot run inside a transaction");
+        }
 
-        System.out.println("Inserted record with ID: " + id);
+        long start = System.nanoTime();
+        // One INSERT sample for the whole load; the rows it loaded count as rows returned
+        Metrics.Sample sample = metrics.start(Metrics.Operation.INSERT, tableName, "COPY " + format + " " + file);
+        BulkLoader loader = new BulkLoader(table, format, header, scanner);
+        long rows;
+        long lsn;
+        // Exclusive: the batches stream into the log between BEGIN and COMMIT
+        transactions.lock();
+        try {
+            long ts = transactions.nextCommitTs();
+            int firstSlot = table.slotCount();
+            ChangeStream.Pending events = changes.pending();
+            log(LogRecord.begin());
+            // Nothing else commits meanwhile, so replicas can take the batches as they come
+            ship();
+            try {
+                rows = loader.load(file, batch -> {
+                    int first = table.append(batch, ts);
+                    for (int i = 0; i < batch.size(); i++) {
+                        events.add(ts, ChangeEvent.Type.INSERT, tableName, first + i, -1, null, batch.get(i));
+                    }
+                    log(LogRecord.insertBatch(tableName, first, batch));
+                    ship();
+                });
+            } catch (IOException | RuntimeException e) {
+                // Nothing was published yet, so the appended rows can simply be dropped;
+                // the timestamp is still published, empty, so later commits are not held up
+                table.truncate(firstSlot);
+                log(LogRecord.rollback());
+                publish(ts, null);
+                throw e;
+            }
+            indexSlots(table, firstSlot, table.slotCount());
+            lsn = log(LogRecord.commit());
+            publish(ts, events);
+            lsn = Math.max(lsn, enforceBudget(table));
+        } finally {
+            transactions.unlock();
+        }
+        lsn = Math.max(lsn, enforceGlobalBudget());
+        commitLog(lsn);
+
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        console.println("Loaded " + rows + " records into '" + tableName + "' in " + millis + " ms ("
+                + rows * 1000 / millis + " rows/s)");
+        sample.finish(rows);
+        return rows;
     }
 
+    // WHERE text may end with LIMIT n, OFFSET m and AFTER <page token>
     public void select(String tableName, String where) {
-        Map<String, Object> table = tables.get(tableName);
-        if (table == null) {
-            throw new IllegalArgumentException("Table not found!");
+        Matcher paging = PAGING.matcher(where.trim());
+        if (!paging.matches()) {
+            throw new IllegalArgumentException("Invalid syntax!");
         }
+        Query query = query(tableName).where(paging.group(1));
+        if (paging.group(2) != null) query.limit(Long.parseLong(paging.group(2)));
+        if (paging.group(3) != null) query.offset(Long.parseLong(paging.group(3)));
+        if (paging.group(4) != null) query.after(paging.group(4));
 
-        System.out.println("\n=== Results from '" + tableName + "' ===");
+        console.println("\n=== Results from '" + tableName + "' ===");
+        try (Cursor cursor = query.cursor()) {
+            if (!isAll(query.getWhere())) {
+                console.println("Access path: " + cursor.getAccessPath());
+            }
+            while (cursor.hasNext()) {
+                console.println(cursor.next());
+            }
+            String token = cursor.nextPageToken();
+            if (token != null) {
+                console.println("More rows: continue with AFTER " + token);
+            }
+        }
+        console.println("Total records: " + getTable(tableName).size());
+    }
 
-        if (where.equalsIgnoreCase("ALL")) {
-            for (Map.Entry<String, Object> entry : table.entrySet()) {
-                System.out.println("ID: " + entry.getKey() + " -> " + entry.getValue());
+    // Programmatic reads: rows stream lazily from a snapshot taken when the cursor opens,
+    // or from the calling thread's transaction
+    public Query query(String tableName) {
+        return new Query(tableName, this::openCursor);
+    }
+
+    // SELECT cols FROM a JOIN b ON a.x = b.y [WHERE ...] [LIMIT n], where cols is * or a list of
+    // [table.]column. WHERE conditions are pushed down to their table, so conditions on different
+    // tables may only be combined with AND.
+    public Join.Result join(String statement) {
+        Matcher m = JOIN.matcher(statement);
+        if (!m.matches()) {
+            throw new IllegalArgumentException("Invalid syntax! Expected SELECT ... FROM a JOIN b ON a.x = b.y");
+        }
+        checkReadable(null);
+        Table left = getTable(m.group(2));
+        Table right = getTable(m.group(3));
+        // ON may name the two tables in either order
+        boolean reversed = m.group(4).equals(right.getName()) && m.group(6).equals(left.getName());
+        if (!reversed && !(m.group(4).equals(left.getName()) && m.group(6).equals(right.getName()))) {
+            throw new IllegalArgumentException("ON must compare a column of " + left.getName()
+                    + " with a column of " + right.getName());
+        }
+        Join join = new Join(left, reversed ? m.group(7) : m.group(5), right, reversed ? m.group(5) : m.group(7));
+        join.select(m.group(1));
+        Predicate[] filters = m.group(8) == null ? new Predicate[2] : join.pushDown(Predicate.parse(m.group(8)));
+        long limit = m.group(9) == null ? Long.MAX_VALUE : Long.parseLong(m.group(9));
+
+        long start = System.nanoTime();
+        Transaction txn = currentTransaction.get();
+        Join.Result result;
+        JoinPlan plan;
+        ReadView view = txn == null ? transactions.openReadView() : null;
+        try {
+            long snapshot = txn != null ? txn.getSnapshot() : view.getSnapshot();
+            Plan leftAccess = filters[0] == null ? null : planner.plan(left, filters[0], snapshot);
+            Plan rightAccess = filters[1] == null ? null : planner.plan(right, filters[1], snapshot);
+            plan = planner.planJoin(left, join.getLeftKey(), leftAccess, right, join.getRightKey(), rightAccess,
+                    joinMemoryLimit, snapshot);
+
+            if (plan.getStrategy() == JoinPlan.Strategy.INDEX_NESTED_LOOP) {
+                boolean outerLeft = plan.isLeftFirst();
+                Table inner = outerLeft ? right : left;
+                Predicate innerFilter = filters[outerLeft ? 1 : 0];
+                Join.Input outer = outerLeft
+                        ? joinInput(left, join.getLeftKey(), filters[0], leftAccess, snapshot, txn)
+                        : joinInput(right, join.getRightKey(), filters[1], rightAccess, snapshot, txn);
+                Join.Lookup lookup = new Join.Lookup(inner, plan.getIndex(), innerFilter,
+                        slot -> inner.isVisible(slot, snapshot) && (txn == null || txn.sees(inner, slot)),
+                        pendingRows(inner, innerFilter, txn));
+                result = join.indexNestedLoop(outer, outerLeft, lookup, limit);
+            } else {
+                result = join.hash(joinInput(left, join.getLeftKey(), filters[0], leftAccess, snapshot, txn),
+                        joinInput(right, join.getRightKey(), filters[1], rightAccess, snapshot, txn),
+                        plan.isLeftFirst(), plan.getPartitions(), limit);
+            }
+        } finally {
+            if (view != null) view.close();
+        }
+
+        console.println("\n=== Results from '" + left.getName() + "' JOIN '" + right.getName() + "' ===");
+        console.println("Join: " + plan);
+        console.println(String.join(" | ", result.columns()));
+        for (Object[] row : result.rows()) {
+            StringJoiner line = new StringJoiner(" | ");
+            for (Object value : row) {
+                line.add(String.valueOf(value));
             }
-        } else {
-            String[] conditions = where.split("=");
-            if (conditions.length == 2) {
-                String col = conditions[0].trim();
-                String value = conditions[1].trim();
+            console.println(line);
+        }
+        console.println(result.rows().size() + " rows in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return result;
+    }
 
-                // Use index if available
-                String indexKey = tableName + "." + col;
-                if (indexes.containsKey(indexKey)) {
-                    // This is simplified - real implementation would be more complex
-                    for (Map.Entry<String, Object> entry : table.entrySet()) {
-                        @SuppressWarnings("unchecked")
-                        Map<String, Object> record = (Map<String, Object>) entry.getValue();
-                        if (record.containsKey(col) && record.get(col).equals(value)) {
-                            System.out.println("ID: " + entry.getKey() + " -> " + record);
-                        }
+    public void setJoinMemoryLimit(long bytes) {
+        joinMemoryLimit = Math.max(0, bytes);
+    }
+
+    // COUNT/SUM/AVG/MIN/MAX per group, computed inside the engine without materializing rows.
+    // groupBy is a comma-separated column list; groupBy and where may be null or blank.
+    public Aggregation.Result aggregate(String tableName, String aggregates, String groupBy, String where) {
+        checkReadable(null);
+        Table table = getTable(tableName);
+        Transaction txn = currentTransaction.get();
+        Predicate predicate = isAll(where) ? null : Predicate.parse(where).bind(table.getSchema());
+        String[] groupColumns = groupBy == null || groupBy.isBlank() ? new String[0] : groupBy.split(",");
+        Aggregation aggregation = new Aggregation(table, Aggregate.parseList(aggregates), groupColumns);
+
+        long start = System.nanoTime();
+        Aggregation.Result result;
+        String accessPath;
+        ReadView view = txn == null ? transactions.openReadView() : null;
+        try {
+            long snapshot = txn != null ? txn.getSnapshot() : view.getSnapshot();
+            IntPredicate accept = txn == null ? null : slot -> txn.sees(table, slot);
+            // COUNT(*) over conditions that all have bitmap indexes never touches a row
+            Plan.Bitmaps bitmaps = txn == null && predicate != null && groupColumns.length == 0
+                    && aggregation.countsRowsOnly() ? planner.bitmapPlan(table, predicate, snapshot) : null;
+            Plan plan = predicate == null || bitmaps != null ? bitmaps : planner.plan(table, predicate, snapshot);
+            accessPath = plan != null ? plan.describe() : "full table scan";
+
+            Aggregation.Partial partial;
+            if (bitmaps != null) {
+                accessPath += ", counted from bitmap cardinality";
+                partial = aggregation.newPartial();
+                partial.addCount(table.countVisible(bitmaps.bitmap(), snapshot));
+            } else if (plan != null && plan.usesIndex()) {
+                IntList candidates = plan.candidates();
+                IntList rows = new IntList(candidates.size());
+                for (int i = 0; i < candidates.size(); i++) {
+                    int id = candidates.get(i);
+                    if (table.isVisible(id, snapshot) && predicate.matches(table, id) && (accept == null || accept.test(id))) {
+                        rows.add(id);
                     }
-                } else {
-                    // Full scan
-                    for (Map.Entry<String, Object> entry : table.entrySet()) {
-                        @SuppressWarnings("unchecked")
-                        Map<String, Object> record = (Map<String, Object>) entry.getValue();
-                        if (record.containsKey(col) && record.get(col).equals(value)) {
-                            System.out.println("ID: " + entry.getKey() + " -> " + record);
-                        }
+                }
+                partial = aggregation.newPartial();
+                partial.add(rows);
+            } else {
+                partial = aggregation.scan(scanner, predicate, snapshot, accept);
+            }
+
+            // The transaction's own inserts count too
+            Transaction.WriteSet writes = txn == null ? null : txn.peekWrites(table);
+            if (writes != null) {
+                for (Object[] row : writes.getInserted()) {
+                    if (predicate == null || predicate.matches(row)) {
+                        partial.addRow(row);
                     }
                 }
             }
+            result = aggregation.finish(partial);
+        } finally {
+            if (view != null) view.close();
         }
-        System.out.println("Total records: " + table.size());
+
+        console.println("\n=== Aggregates from '" + tableName + "' ===");
+        console.println("Access path: " + accessPath);
+        console.println(String.join(" | ", result.columns()));
+        for (Object[] row : result.rows()) {
+            StringJoiner line = new StringJoiner(" | ");
+            for (Object value : row) {
+                line.add(String.valueOf(value));
+            }
+            console.println(line);
+        }
+        console.println(result.rows().size() + " groups in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return result;
     }
 
-    public void update(String tableName, String set, String where) {
-        Map<String, Object> table = tables.get(tableName);
-        if (table == null) {
-            throw new IllegalArgumentException("Table not found!");
+    // CREATE MATERIALIZED VIEW name [REFRESH SYNC | DEFERRED [EVERY ms]] AS SELECT * | [group columns,] aggregates
+    // FROM table [WHERE ...] [GROUP BY ...]. SYNC views are current after every commit; DEFERRED ones
+    // catch up in the background every refresh interval (1 s by default).
+    public void createMaterializedView(String statement) {
+        Matcher m = MATERIALIZED_VIEW.matcher(statement);
+        if (!m.matches()) {
+            throw new IllegalArgumentException("Expected CREATE MATERIALIZED VIEW name [REFRESH SYNC|DEFERRED [EVERY ms]] "
+                    + "AS SELECT ... FROM table [WHERE ...] [GROUP BY ...]");
+        }
+        MaterializedView.RefreshMode mode = m.group(2) == null ? MaterializedView.RefreshMode.SYNC
+                : MaterializedView.RefreshMode.valueOf(m.group(2).toUpperCase());
+        long refreshMillis = m.group(3) != null ? Long.parseLong(m.group(3)) : DEFAULT_VIEW_REFRESH_MILLIS;
+        createMaterializedView(new MaterializedView.Definition(m.group(1), m.group(5), m.group(4).trim(),
+                isAll(m.group(6)) ? "" : m.group(6).trim(), m.group(7) == null ? "" : m.group(7).trim(), mode,
+                refreshMillis));
+    }
+
+    public void createMaterializedView(MaterializedView.Definition definition) {
+        checkWritable();
+        long start = System.nanoTime();
+        MaterializedView view;
+        long lsn;
+        transactions.lock();
+        try {
+            if (views.containsKey(definition.name())) {
+                throw new IllegalArgumentException("View already exists!");
+            }
+            view = registerView(definition);
+            lsn = log(LogRecord.createView(definition));
+            ship();
+        } finally {
+            transactions.unlock();
         }
+        commitLog(lsn);
 
-        String[] setParts = set.split("=");
-        String[] whereParts = where.split("=");
+        console.println("View '" + definition.name() + "' created with " + view.read().rows().size() + " rows in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms (refresh " + definition.mode()
+                + (definition.mode() == MaterializedView.RefreshMode.DEFERRED ? " every " + definition.refreshMillis() + " ms" : "")
+                + ")");
+    }
 
-        if (setParts.length != 2 || whereParts.length != 2) {
-            throw new IllegalArgumentException("Invalid syntax!");
+    // Committed state only: a transaction's own pending writes are not in any view
+    public MaterializedView.Result readView(String name) {
+        checkReadable(null);
+        MaterializedView view = getView(name);
+        long start = System.nanoTime();
+        MaterializedView.Result result = view.read();
+
+        console.println("\n=== View '" + name + "' ===");
+        console.println(String.join(" | ", result.columns()));
+        for (Object[] row : result.rows()) {
+            StringJoiner line = new StringJoiner(" | ");
+            for (Object value : row) {
+                line.add(String.valueOf(value));
+            }
+            console.println(line);
+        }
+        console.println(result.rows().size() + " rows in " + (System.nanoTime() - start) / 1_000_000
+                + " ms (as of commit " + result.refreshedTs() + ", " + view.pendingDeltas() + " changes pending)");
+        return result;
+    }
+
+    // Folds a view's pending changes in now instead of waiting for its next refresh
+    public int refreshView(String name) {
+        int applied = getView(name).refresh(transactions.getVisibleTs());
+        console.println("Applied " + applied + " changes to view '" + name + "'");
+        return applied;
+    }
+
+    // Committed inserts, updates and deletes in commit order, for subscribers that would otherwise
+    // poll whole tables. Changes replayed from the log at startup are not in the stream.
+    public ChangeStream getChanges() {
+        return changes;
+    }
+
+    public ChangeStream.Batch printChanges(long fromSequence, int maxEvents) {
+        ChangeStream.Batch batch = changes.read(Math.max(fromSequence, changes.oldestSequence()), maxEvents);
+        for (ChangeEvent event : batch.events()) {
+            console.println(event);
+        }
+        console.println(batch.events().size() + " events" + (batch.missed() > 0 ? ", " + batch.missed() + " missed" : "")
+                + "; next sequence " + batch.nextSequence());
+        return batch;
+    }
+
+    public int update(String tableName, String set, String where) {
+        PreparedStatement statement = statements.get(new StatementCache.Key(tableName, "SET " + set + " WHERE " + where),
+                key -> {
+                    String[] setParts = set.split("=");
+                    if (setParts.length != 2) {
+                        throw new IllegalArgumentException("Invalid syntax!");
+                    }
+                    Statement.Assignment assignment = new Statement.Assignment(setParts[0].trim(),
+                            Statement.Operand.literal(setParts[1]));
+                    return compile(key.text(), new Statement.Update(tableName, List.of(assignment), Predicate.parse(where), 0));
+                });
+        return statement.update();
+    }
+
+    public int delete(String tableName, String where) {
+        PreparedStatement statement = statements.get(new StatementCache.Key(tableName, "DELETE WHERE " + where),
+                key -> compile(key.text(), new Statement.Delete(tableName,
+                        where.equalsIgnoreCase("ALL") ? null : Predicate.parse(where), 0)));
+        return statement.update();
+    }
+
+    // Parses and binds a statement of the SQL subset SqlParser reads, or returns the cached one for
+    // the same text. Write ? for values that change between executions and pass them on each run.
+    public PreparedStatement prepare(String sql) {
+        return statements.get(new StatementCache.Key(null, sql.trim()), key -> compile(key.text(), SqlParser.parse(key.text())));
+    }
+
+    // Runs one SQL statement, printing the rows of a SELECT; returns the rows selected or changed
+    public int execute(String sql, Object... parameters) {
+        PreparedStatement statement = prepare(sql);
+        if (statement.getKind() != PreparedStatement.Kind.SELECT) {
+            return statement.update(parameters);
+        }
+        long start = System.nanoTime();
+        int rows = 0;
+        console.println("\n=== Results from '" + statement.getTable().getName() + "' ===");
+        try (Cursor cursor = statement.query(parameters)) {
+            console.println("Access path: " + cursor.getAccessPath());
+            while (cursor.hasNext()) {
+                console.println(cursor.next());
+                rows++;
+            }
+        }
+        console.println(rows + " rows in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return rows;
+    }
+
+    public StatementCache.Stats statementCacheStats() {
+        return statements.stats();
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    // Statements taking at least this long are kept in the slow-query log (see STATS); 0 = off
+    public void setSlowQueryThreshold(long millis) {
+        metrics.setSlowQueryThreshold(millis);
+        console.println(millis > 0 ? "Slow-query threshold set to " + millis + " ms" : "Slow-query log disabled");
+    }
+
+    // Latency percentiles per operation, rows scanned against returned, index hit ratio,
+    // statement cache hit rate, the slow-query log and where replication stands
+    public String stats() {
+        String report = metrics.report() + "Statement cache: " + statements.stats() + "\n" + replicationReport();
+        console.print(report);
+        return report;
+    }
+
+    public void createIndex(String tableName, String column) {
+        createIndex(tableName, column, IndexType.HASH);
+    }
+
+    public void createIndex(String tableName, String column, IndexType type) {
+        checkWritable();
+        Metrics.Sample sample = metrics.start(Metrics.Operation.INDEX, tableName, type + " " + column);
+        Table table = getTable(tableName);
+
+        Index index;
+        long lsn;
+        int[] stripes = transactions.lock(List.of(tableName));
+        try {
+            index = buildIndex(table, column, type);
+            sample.scanned(table.slotCount());
+            lsn = log(LogRecord.createIndex(tableName, index.getColumn(), type));
+            ship();
+        } finally {
+            transactions.unlock(stripes);
+        }
+        commitLog(lsn);
+
+        sample.finish(0);
+        console.println("Created " + type + " index on " + tableName + "." + index.getColumn());
+    }
+
+    // Prints the plan the planner picks for the WHERE clause, with estimated rows and costs
+    public String explain(String tableName, String where) {
+        Table table = getTable(tableName);
+        Predicate predicate = Predicate.parse(where).bind(table.getSchema());
+        try (ReadView view = transactions.openReadView()) {
+            String plan = planner.explain(table, predicate, view.getSnapshot());
+            console.print(plan);
+            return plan;
+        }
+    }
+
+    // Refreshes the table's statistics now instead of waiting for enough changes
+    public void analyze(String tableName) {
+        Table table = getTable(tableName);
+        try (ReadView view = transactions.openReadView()) {
+            Catalog.Statistics stats = table.getCatalog().analyze(table, view.getSnapshot());
+            console.println("Statistics for '" + tableName + "' (" + stats.rowCount() + " rows):");
+            for (int i = 0; i < table.getSchema().size(); i++) {
+                console.println("  " + table.getSchema().name(i) + ": " + stats.column(i));
+            }
+        }
+    }
+
+    // Starts a transaction on the calling thread; statements see one snapshot until COMMIT/ROLLBACK
+    public void begin() {
+        if (currentTransaction.get() != null) {
+            throw new IllegalStateException("Transaction already in progress");
+        }
+        checkReadable(null);
+        currentTransaction.set(new Transaction(transactions.openReadView()));
+        console.println("Transaction started");
+    }
+
+    public void commit() {
+        Transaction txn = currentTransaction.get();
+        if (txn == null) {
+            throw new IllegalStateException("No transaction in progress");
+        }
+        currentTransaction.remove();
+
+        long lsn;
+        int[] stripes = transactions.lock(tableNames(txn));
+        try {
+            lsn = applyCommit(txn);
+        } finally {
+            transactions.unlock(stripes);
+            txn.finish();
+        }
+        lsn = Math.max(lsn, enforceGlobalBudget());
+        commitLog(lsn);
+        console.println("Transaction committed");
+    }
+
+    public void rollback() {
+        Transaction txn = currentTransaction.get();
+        if (txn == null) {
+            throw new IllegalStateException("No transaction in progress");
+        }
+        currentTransaction.remove();
+        txn.finish();
+        console.println("Transaction rolled back");
+    }
+
+    public void printMemory(String tableName) {
+        Table table = getTable(tableName);
+        long bytes = table.memoryBytes();
+        long offHeap = table.offHeapBytes();
+        console.println("Table '" + tableName + "': " + table.size() + " rows, ~" + bytes / 1024 + " KB"
+                + (table.size() > 0 ? " (" + bytes / table.size() + " bytes/row)" : "")
+                + (offHeap > 0 ? ", ~" + offHeap / 1024 + " KB off-heap" : ""));
+        for (Index index : table.getCatalog().getIndexes()) {
+            if (index instanceof BitmapIndex bitmap) {
+                console.println("  Bitmap index on " + bitmap.getColumn() + ": " + bitmap.distinctValues()
+                        + " values, ~" + bitmap.memoryBytes() / 1024 + " KB");
+            } else if (index instanceof FullTextIndex text) {
+                console.println("  Full-text index on " + text.getColumn() + ": " + text.distinctTerms()
+                        + " terms, ~" + text.memoryBytes() / 1024 + " KB");
+            }
+        }
+        if (table.getCache() != null) {
+            printCacheStats(tableName);
+        }
+    }
+
+    // Turns a table into a bounded, expiring cache, or back into a plain table with null.
+    // Like ScanConfig this is a runtime setting: it is not logged, so set it again after a restart.
+    public void configureCache(String tableName, CacheConfig config) {
+        checkWritable();
+        Table table = getTable(tableName);
+        long lsn;
+        int[] stripes = transactions.lock(List.of(tableName));
+        try {
+            table.setCache(config == null ? null : new RowCache(config));
+            lsn = enforceBudget(table);
+        } finally {
+            transactions.unlock(stripes);
+        }
+        lsn = Math.max(lsn, enforceGlobalBudget());
+        commitLog(lsn);
+
+        console.println(config == null ? "Cache disabled on '" + tableName + "'"
+                : "Cache on '" + tableName + "': " + config.getEviction()
+                + (config.getMaxBytes() > 0 ? ", limit " + config.getMaxBytes() / 1024 + " KB" : "")
+                + (config.getTtlMillis() > 0 ? ", TTL " + config.getTtlMillis() + " ms" : ""));
+    }
+
+    // Budget across all tables in bytes, 0 for none; enforced by evicting from cache tables only
+    public void setMemoryBudget(long bytes) {
+        checkWritable();
+        memoryBudget = Math.max(0, bytes);
+        commitLog(enforceGlobalBudget());
+        console.println(bytes > 0 ? "Memory budget set to " + bytes / 1024 + " KB" : "Memory budget removed");
+    }
+
+    // Null if the table has no cache
+    public RowCache.Stats cacheStats(String tableName) {
+        RowCache cache = getTable(tableName).getCache();
+        return cache == null ? null : cache.stats();
+    }
+
+    public void printCacheStats(String tableName) {
+        RowCache.Stats stats = cacheStats(tableName);
+        console.println(stats == null ? "No cache on '" + tableName + "'" : "Cache on '" + tableName + "': " + stats);
+    }
+
+    // Expires rows whose TTL ran out and evicts down to the budgets; runs in the background
+    public void maintainCaches() {
+        long lsn = 0;
+        for (Table table : tables.values()) {
+            RowCache cache = table.getCache();
+            if (cache == null) continue;
+            int[] stripes = transactions.lock(List.of(table.getName()));
+            try {
+                lsn = Math.max(lsn, expire(table));
+                lsn = Math.max(lsn, evict(table, cache.rowsOverBudget(table)));
+                cache.drainReads();
+            } finally {
+                transactions.unlock(stripes);
+            }
         }
+        lsn = Math.max(lsn, enforceGlobalBudget());
+        commitLog(lsn);
+    }
 
-        String setCol = setParts[0].trim();
-        String setValue = setParts[1].trim();
-        String whereCol = whereParts[0].trim();
-        String whereValue = whereParts[1].trim();
+    // Frees row versions that no open snapshot can see any more
+    public int collectGarbage() {
+        int reclaimed = 0;
+        for (Table table : tables.values()) {
+            int[] stripes = transactions.lock(List.of(table.getName()));
+            try {
+                long watermark = transactions.watermark();
+                reclaimed += table.reclaim(watermark, slot -> removeFromIndexes(table, slot));
+            } finally {
+                transactions.unlock(stripes);
+            }
+        }
+        return reclaimed;
+    }
 
-        int count = 0;
-        for (Map.Entry<String, Object> entry : table.entrySet()) {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> record = (Map<String, Object>) entry.getValue();
+    // Writes a snapshot of every table and drops the log files it supersedes.
+    // Only the log switch-over takes the commit lock; the snapshot itself is a normal reader.
+    public synchronized void snapshot() throws IOException {
+        if (wal == null) {
+            throw new IllegalStateException("Snapshots need a data directory (start with InMemoryDB.open)");
+        }
 
-            if (record.containsKey(whereCol) && record.get(whereCol).equals(whereValue)) {
-                // Remove old index entries
-                removeFromIndexes(tableName, entry.getKey(), record);
+        long start = System.nanoTime();
+        long generation;
+        ReadView view;
+        List<MaterializedView.Definition> viewDefinitions = new ArrayList<>();
+        transactions.lock();
+        try {
+            generation = wal.rollOver();
+            view = transactions.openReadView();
+            // Views created from here on are in the new log generation
+            for (MaterializedView materialized : views.values()) {
+                viewDefinitions.add(materialized.getDefinition());
+            }
+        } finally {
+            transactions.unlock();
+        }
 
-                // Update record
-                record.put(setCol, setValue);
+        try {
+            writeSnapshot(dataDir.resolve(SNAPSHOT_FILE), generation, view.getSnapshot(), viewDefinitions);
+            wal.deleteUpTo(generation);
+        } finally {
+            view.close();
+        }
+        console.println("Snapshot written in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
 
-                // Add new index entries
-                updateIndexes(tableName, entry.getKey(), record);
+    // The tables that existed at the snapshot timestamp with their indexes and views, as of that timestamp
+    private void writeSnapshot(Path path, long generation, long snapshot, List<MaterializedView.Definition> viewDefinitions)
+            throws IOException {
+        List<Table> included = new ArrayList<>();
+        for (Table table : tables.values()) {
+            if (table.getCreatedAt() <= snapshot) {
+                included.add(table);
+            }
+        }
+        List<SnapshotFile.IndexDefinition> definitions = new ArrayList<>();
+        for (Table table : included) {
+            for (Index index : table.getCatalog().getIndexes()) {
+                definitions.add(new SnapshotFile.IndexDefinition(table.getName(), index.getColumn(), index.getType()));
+            }
+        }
+        viewDefinitions.removeIf(def -> included.stream().noneMatch(table -> table.getName().equals(def.table())));
+        SnapshotFile.write(path, generation, snapshot, included, definitions, viewDefinitions);
+    }
+
+    // Serves the replication log on port to any number of replicas (see startReplica). Replicas
+    // that connect later, or fall further behind than the log reaches, start from a snapshot.
+    public ReplicationServer startReplication(int port) throws IOException {
+        return startReplication(port, ReplicationLog.DEFAULT_CAPACITY, ReplicationLog.DEFAULT_MAX_BYTES);
+    }
 
-                count++;
+    // capacity and maxBytes bound the log records kept for replicas that are catching up
+    public synchronized ReplicationServer startReplication(int port, int capacity, long maxBytes) throws IOException {
+        if (replica != null) {
+            throw new IllegalStateException("A replica cannot serve replicas of its own");
+        }
+        if (replicationServer != null) {
+            throw new IllegalStateException("Replication already runs on port " + replicationServer.getPort());
+        }
+        // No commit is half logged while the log switches on
+        transactions.lock();
+        try {
+            replication = new ReplicationLog(capacity, maxBytes);
+        } finally {
+            transactions.unlock();
+        }
+        replicationServer = new ReplicationServer(port, replication, this::writeReplicaSnapshot);
+        console.println("Replication log served on port " + replicationServer.getPort());
+        return replicationServer;
+    }
+
+    // Snapshot for a replica, tagged with the last log sequence it contains
+    private long writeReplicaSnapshot(Path file) throws IOException {
+        long sequence;
+        ReadView view;
+        List<MaterializedView.Definition> viewDefinitions = new ArrayList<>();
+        transactions.lock();
+        try {
+            sequence = replication.lastSequence();
+            view = transactions.openReadView();
+            for (MaterializedView materialized : views.values()) {
+                viewDefinitions.add(materialized.getDefinition());
             }
+        } finally {
+            transactions.unlock();
+        }
+        try {
+            writeSnapshot(file, sequence, view.getSnapshot(), viewDefinitions);
+        } finally {
+            view.close();
+        }
+        return sequence;
+    }
+
+    // Follows the primary at host:port: loads a snapshot from it, then applies its log as it
+    // arrives. The database becomes read-only, and reads fail rather than return data more than
+    // maxLagMillis behind the primary. Only for a database that runs purely in memory.
+    public synchronized Replica startReplica(String host, int port, long maxLagMillis) {
+        if (wal != null) {
+            throw new IllegalStateException("A replica runs in memory; it reloads from the primary when it starts");
+        }
+        if (replica != null || replicationServer != null) {
+            throw new IllegalStateException(replica != null ? "Already a replica of " + replica.getPrimary()
+                    : "A primary cannot follow another primary");
         }
+        replica = Replica.connect(host, port, maxLagMillis, this::installSnapshot, this::applyReplicated);
+        console.println("Replicating from " + replica.getPrimary() + " (max lag " + maxLagMillis + " ms)");
+        return replica;
+    }
+
+    public Replica getReplica() {
+        return replica;
+    }
+
+    // Null unless startReplication was called
+    public ReplicationServer getReplicationServer() {
+        return replicationServer;
+    }
+
+    private String replicationReport() {
+        Replica following = replica;
+        if (following != null) {
+            return "Replication: " + following.status() + "\n";
+        }
+        ReplicationServer server = replicationServer;
+        if (server == null) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(String.format("Replication: primary on port %d, log %d..%d, %d replicas%n",
+                server.getPort(), replication.oldestSequence(), replication.lastSequence(), server.replicas().size()));
+        for (ReplicationServer.ReplicaStatus status : server.replicas()) {
+            out.append("  ").append(status).append('\n');
+        }
+        return out.toString();
+    }
 
-        System.out.println("Updated " + count + " records");
+    // Replaces every table and view with the snapshot's
+    private void installSnapshot(Path file) throws IOException {
+        SnapshotFile.Contents contents = SnapshotFile.read(file);
+        transactions.lock();
+        try {
+            replayGroup = null;
+            load(contents);
+        } finally {
+            transactions.unlock();
+        }
     }
 
-    public void delete(String tableName, String where) {
-        Map<String, Object> table = tables.get(tableName);
+    private void applyReplicated(LogRecord record) {
+        apply(record, true);
+    }
+
+    // Writes on a replica would be lost on its next snapshot and never reach the primary
+    private void checkWritable() {
+        Replica following = replica;
+        if (following != null) {
+            throw new IllegalStateException("Read-only replica of " + following.getPrimary());
+        }
+    }
+
+    // Reads on a replica wait for it to be within its lag limit; a transaction's reads were checked
+    // at BEGIN and keep its snapshot. A statement prepared before the replica reloaded a snapshot
+    // still points at the replaced table and has to be prepared again.
+    private void checkReadable(Table table) {
+        Replica following = replica;
+        if (following == null) return;
+        if (currentTransaction.get() == null) following.awaitFresh();
+        if (table != null && tables.get(table.getName()) != table) {
+            throw new IllegalStateException("Table '" + table.getName() + "' was reloaded from the primary; prepare the statement again");
+        }
+    }
+
+    public void close() throws IOException {
+        if (replicationServer != null) {
+            replicationServer.close();
+        }
+        if (replica != null) {
+            replica.close();
+        }
+        // Not shutdownNow(): interrupting a snapshot mid-write would close its file channel
+        background.shutdown();
+        try {
+            background.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scanner.shutdown();
+        if (wal != null) {
+            wal.close();
+        }
+    }
+
+    private Table getTable(String tableName) {
+        Table table = tables.get(tableName);
         if (table == null) {
             throw new IllegalArgumentException("Table not found!");
         }
+        return table;
+    }
 
-        if (where.equalsIgnoreCase("ALL")) {
-            int size = table.size();
-            table.clear();
-            indexes.clear();
-            System.out.println("Deleted all " + size + " records");
-            return;
+    private PreparedStatement compile(String text, Statement statement) {
+        return new PreparedStatement(text, statement, getTable(statement.table()), this::openCursor, this::executeWrite);
+    }
+
+    // Runs a prepared UPDATE or DELETE in the caller's transaction, or as its own
+    private int executeWrite(PreparedStatement statement, Object[] parameters) {
+        checkWritable();
+        Table table = statement.getTable();
+        Predicate predicate = statement.where(parameters);
+        Metrics.Sample sample = metrics.start(statement.getKind() == PreparedStatement.Kind.DELETE
+                ? Metrics.Operation.DELETE : Metrics.Operation.UPDATE, table.getName(), statement.getText());
+
+        if (statement.getKind() == PreparedStatement.Kind.DELETE) {
+            int count = write(table, txn -> {
+                Transaction.WriteSet writes = txn.writesFor(table);
+
+                int before = writes.getInserted().size();
+                writes.getInserted().removeIf(row -> predicate == null || predicate.matches(row));
+                int deleted = before - writes.getInserted().size();
+
+                IntList rows = findMatches(statement, predicate, parameters, txn.getSnapshot(), sample);
+                for (int i = 0; i < rows.size(); i++) {
+                    int id = rows.get(i);
+                    if (txn.sees(table, id)) {
+                        writes.getDeleted().add(id);
+                        deleted++;
+                    }
+                }
+                return deleted;
+            });
+
+            sample.finish(count);
+            console.println("Deleted " + (predicate == null ? "all " : "") + count + " records" + pendingSuffix());
+            return count;
         }
 
-        String[] conditions = where.split("=");
-        if (conditions.length != 2) {
-            throw new IllegalArgumentException("Invalid syntax!");
+        int[] setColumns = statement.getColumns();
+        Object[] setValues = new Object[setColumns.length];
+        for (int i = 0; i < setColumns.length; i++) {
+            setValues[i] = statement.value(i, parameters);
         }
+        int count = write(table, txn -> {
+            Transaction.WriteSet writes = txn.writesFor(table);
 
-        String col = conditions[0].trim();
-        String value = conditions[1].trim();
+            // Rows this transaction inserted itself are changed in place
+            int changed = 0;
+            for (Object[] row : writes.getInserted()) {
+                if (predicate == null || predicate.matches(row)) {
+                    assign(row, setColumns, setValues);
+                    changed++;
+                }
+            }
 
-        int count = 0;
-        List<String> toRemove = new ArrayList<>();
+            // Committed rows get a new version; the old one stays readable for older snapshots
+            IntList rows = findMatches(statement, predicate, parameters, txn.getSnapshot(), sample);
+            for (int i = 0; i < rows.size(); i++) {
+                int id = rows.get(i);
+                if (!txn.sees(table, id)) continue;
+                Object[] row = table.getRow(id);
+                assign(row, setColumns, setValues);
+                writes.getDeleted().add(id);
+                writes.getInserted().add(row);
+                writes.getReplaced().put(row, id);
+                changed++;
+            }
+            return changed;
+        });
+
+        sample.finish(count);
+        console.println("Updated " + count + " records" + pendingSuffix());
+        return count;
+    }
 
-        for (Map.Entry<String, Object> entry : table.entrySet()) {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> record = (Map<String, Object>) entry.getValue();
+    private static void assign(Object[] row, int[] columns, Object[] values) {
+        for (int i = 0; i < columns.length; i++) {
+            row[columns[i]] = values[i];
+        }
+    }
+
+    private String pendingSuffix() {
+        return currentTransaction.get() != null ? " (visible to others after COMMIT)" : "";
+    }
+
+    // Runs a writing statement on the table inside the caller's transaction, or as its own transaction.
+    // Autocommit statements hold the table's commit lock stripe throughout, so they read the latest
+    // data of the table and can never hit a write conflict.
+    private int write(Table table, ToIntFunction<Transaction> statement) {
+        Transaction txn = currentTransaction.get();
+        if (txn != null) {
+            return statement.applyAsInt(txn);
+        }
+
+        int result;
+        long lsn;
+        int[] stripes = transactions.lock(List.of(table.getName()));
+        try {
+            txn = new Transaction(transactions.openReadView());
+            try {
+                result = statement.applyAsInt(txn);
+                lsn = applyCommit(txn);
+            } finally {
+                txn.finish();
+            }
+        } finally {
+            transactions.unlock(stripes);
+        }
+        lsn = Math.max(lsn, enforceGlobalBudget());
+        commitLog(lsn);
+        return result;
+    }
+
+    // Applies a transaction's write set under one new commit timestamp. Call with the commit lock held.
+    private long applyCommit(Transaction txn) {
+        // First committer wins: if a row we changed got a newer version since our snapshot, give up
+        int records = 0;
+        for (Map.Entry<Table, Transaction.WriteSet> entry : txn.getWrites().entrySet()) {
+            Table table = entry.getKey();
+            for (int id : entry.getValue().getDeleted()) {
+                if (!table.isLatest(id)) {
+                    throw new IllegalStateException("Write conflict on " + table.getName() + " row " + id
+                            + ", transaction rolled back");
+                }
+            }
+            records += entry.getValue().getDeleted().size() + entry.getValue().getInserted().size();
+        }
+        if (records == 0) return 0;
 
-            if (record.containsKey(col) && record.get(col).equals(value)) {
-                // Remove from indexes
-                removeFromIndexes(tableName, entry.getKey(), record);
-                toRemove.add(entry.getKey());
-                count++;
+        long ts = transactions.nextCommitTs();
+        ChangeStream.Pending events = changes.pending();
+        // Logged as one unit: commits on other lock stripes append to the log concurrently
+        List<LogRecord> logged = new ArrayList<>(records + 2);
+        if (records > 1) logged.add(LogRecord.begin());
+        for (Map.Entry<Table, Transaction.WriteSet> entry : txn.getWrites().entrySet()) {
+            Table table = entry.getKey();
+            Transaction.WriteSet writes = entry.getValue();
+            // Deletes whose replacement row is still inserted are reported as updates below
+            Set<Integer> updated = new HashSet<>();
+            for (Object[] row : writes.getInserted()) {
+                Integer old = writes.getReplaced().get(row);
+                if (old != null) updated.add(old);
+            }
+            for (int id : writes.getDeleted()) {
+                table.delete(id, ts);
+                if (!updated.contains(id)) {
+                    events.add(ts, ChangeEvent.Type.DELETE, table.getName(), id, -1, table.getRow(id), null);
+                }
+                logged.add(LogRecord.delete(table.getName(), id));
+            }
+            for (Object[] row : writes.getInserted()) {
+                int id = insertRow(table, row, ts);
+                Long ttl = writes.getTtls().get(row);
+                if (ttl != null && table.getCache() != null) {
+                    table.getCache().expireAfter(id, ttl);
+                }
+                Integer old = writes.getReplaced().get(row);
+                if (old != null) {
+                    events.add(ts, ChangeEvent.Type.UPDATE, table.getName(), id, old, table.getRow(old), row);
+                } else {
+                    events.add(ts, ChangeEvent.Type.INSERT, table.getName(), id, -1, null, row);
+                }
+                logged.add(LogRecord.insert(table.getName(), id, row));
             }
         }
+        if (records > 1) logged.add(LogRecord.commit());
+        long lsn = log(logged);
 
-        toRemove.forEach(table::remove);
-        System.out.println("Deleted " + count + " records");
+        // Everything above becomes visible to new snapshots at once
+        publish(ts, events);
+        for (Table table : txn.getWrites().keySet()) {
+            lsn = Math.max(lsn, enforceBudget(table));
+        }
+        return lsn;
     }
 
-    public void createIndex(String tableName, String column) {
-        String indexKey = tableName + "." + column;
-        indexes.put(indexKey, new HashSet<>());
-
-        Map<String, Object> table = tables.get(tableName);
-        if (table != null) {
-            for (Map.Entry<String, Object> entry : table.entrySet()) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> record = (Map<String, Object>) entry.getValue();
-                if (record.containsKey(column)) {
-                    indexes.get(indexKey).add(entry.getKey());
+    private static List<String> tableNames(Transaction txn) {
+        List<String> names = new ArrayList<>();
+        for (Table table : txn.getWrites().keySet()) names.add(table.getName());
+        return names;
+    }
+
+    // Evicts rows while the table is over its own budget. Call with the table's stripe held.
+    private long enforceBudget(Table table) {
+        RowCache cache = table.getCache();
+        return cache == null ? 0 : evict(table, cache.rowsOverBudget(table));
+    }
+
+    // Evicts while all tables together are over the global budget. Call without commit locks:
+    // evicting spans tables, so it takes the commit lock exclusively, but only when over budget.
+    private long enforceGlobalBudget() {
+        if (!overGlobalBudget()) return 0;
+        transactions.lock();
+        try {
+            return evictOverGlobalBudget();
+        } finally {
+            transactions.unlock();
+        }
+    }
+
+    private boolean overGlobalBudget() {
+        long budget = memoryBudget;
+        if (budget <= 0) return false;
+        long used = 0, evictable = 0;
+        for (Table table : tables.values()) {
+            long bytes = table.size() * table.rowBytes();
+            used += bytes;
+            if (table.getCache() != null) evictable += bytes;
+        }
+        return used > budget && evictable > 0;
+    }
+
+    // Spreads the excess over the cache tables by their share of the evictable bytes;
+    // tables without a cache are never evicted from
+    private long evictOverGlobalBudget() {
+        long budget = memoryBudget;
+        if (budget <= 0) return 0;
+        long used = 0, evictable = 0;
+        for (Table table : tables.values()) {
+            long bytes = table.size() * table.rowBytes();
+            used += bytes;
+            if (table.getCache() != null) evictable += bytes;
+        }
+        if (used <= budget || evictable == 0) return 0;
+
+        long lsn = 0;
+        for (Table table : tables.values()) {
+            if (table.getCache() == null) continue;
+            long share = (long) Math.ceil((double) (used - budget) * table.size() * table.rowBytes() / evictable);
+            lsn = Math.max(lsn, evict(table, (int) Math.min(table.size(), (share + table.rowBytes() - 1) / table.rowBytes())));
+        }
+        return lsn;
+    }
+
+    // Deletes the cache's next victims in a commit of their own, logged like any other delete
+    private long evict(Table table, int rows) {
+        if (rows <= 0) return 0;
+        RowCache cache = table.getCache();
+        long ts = transactions.nextCommitTs();
+        IntList victims = new IntList(rows);
+        while (victims.size() < rows) {
+            int slot = cache.victim();
+            if (slot < 0) break;
+            if (table.isLatest(slot)) {
+                table.delete(slot, ts);
+                victims.add(slot);
+            } else {
+                cache.onRemove(slot);
+            }
+        }
+        cache.recordEvictions(victims.size());
+        return commitDeletes(table, victims, ts);
+    }
+
+    private long expire(Table table) {
+        RowCache cache = table.getCache();
+        IntList due = cache.expired();
+        long ts = transactions.nextCommitTs();
+        IntList expired = new IntList(due.size());
+        for (int i = 0; i < due.size(); i++) {
+            int slot = due.get(i);
+            if (table.isLatest(slot)) {
+                table.delete(slot, ts);
+                expired.add(slot);
+            }
+        }
+        cache.recordExpirations(expired.size());
+        return commitDeletes(table, expired, ts);
+    }
+
+    // Logs and publishes rows already deleted at ts; with no rows, ts is published empty
+    private long commitDeletes(Table table, IntList rows, long ts) {
+        if (rows.isEmpty()) {
+            publish(ts, null);
+            return 0;
+        }
+        ChangeStream.Pending events = changes.pending();
+        List<LogRecord> logged = new ArrayList<>(rows.size() + 2);
+        if (rows.size() > 1) logged.add(LogRecord.begin());
+        for (int i = 0; i < rows.size(); i++) {
+            events.add(ts, ChangeEvent.Type.DELETE, table.getName(), rows.get(i), -1, table.getRow(rows.get(i)), null);
+            logged.add(LogRecord.delete(table.getName(), rows.get(i)));
+        }
+        if (rows.size() > 1) logged.add(LogRecord.commit());
+        long lsn = log(logged);
+        publish(ts, events);
+        return lsn;
+    }
+
+    // Makes commit ts visible to new snapshots, hands its events to change subscribers and brings
+    // SYNC views up to it. Call with the commit lock held; waits for earlier commits to publish first.
+    private void publish(long ts, ChangeStream.Pending events) {
+        transactions.publish(ts, () -> {
+            ship();
+            changes.publish(events);
+            for (MaterializedView view : views.values()) {
+                if (view.getDefinition().mode() == MaterializedView.RefreshMode.SYNC) {
+                    view.refresh(ts);
                 }
             }
+        });
+    }
+
+    private long log(LogRecord record) {
+        if (replication != null) unshipped.get().add(record);
+        return wal == null ? 0 : wal.append(record);
+    }
+
+    private long log(List<LogRecord> records) {
+        if (replication != null) unshipped.get().addAll(records);
+        return wal == null ? 0 : wal.append(records);
+    }
+
+    // Hands the records this thread logged to the replicas. Call with the commit lock held and in
+    // commit order: from publish, or right after logging for changes that publish no timestamp.
+    private void ship() {
+        ReplicationLog target = replication;
+        if (target == null) return;
+        List<LogRecord> pending = unshipped.get();
+        if (!pending.isEmpty()) {
+            target.append(pending);
+            pending.clear();
         }
+    }
 
-        System.out.println("Created index on " + indexKey);
+    // Waits for durability outside the commit lock so concurrent commits share one fsync
+    private void commitLog(long lsn) {
+        if (wal != null && lsn > 0) {
+            wal.commit(lsn);
+        }
+    }
+
+    // Re-applies logged changes during recovery; records between BEGIN and COMMIT apply together
+    private void apply(LogRecord record) {
+        apply(record, false);
+    }
+
+    // shipped: the record comes from a primary rather than this database's own log
+    private void apply(LogRecord record, boolean shipped) {
+        switch (record.getType()) {
+            case BEGIN -> replayGroup = new ArrayList<>();
+            case ROLLBACK -> replayGroup = null;
+            case COMMIT -> {
+                List<LogRecord> group = replayGroup;
+                replayGroup = null;
+                if (group != null) applyReplayed(group, shipped);
+            }
+            default -> {
+                if (replayGroup != null) {
+                    replayGroup.add(record);
+                } else {
+                    applyReplayed(List.of(record), shipped);
+                }
+            }
+        }
     }
 
-    private void updateIndexes(String tableName, String recordId, Map<String, Object> record) {
-        for (String indexKey : indexes.keySet()) {
-            if (indexKey.startsWith(tableName + ".")) {
-                String column = indexKey.substring(indexKey.indexOf(".") + 1);
-                if (record.containsKey(column) && record.get(column) != null) {
-                    indexes.get(indexKey).add(recordId);
+    private void applyReplayed(List<LogRecord> records, boolean shipped) {
+        transactions.lock();
+        try {
+            long ts = transactions.nextCommitTs();
+            for (LogRecord record : records) {
+                switch (record.getType()) {
+                    case CREATE_TABLE -> tables.put(record.getTable(),
+                            new Table(record.getTable(), Schema.parse(record.getColumns()), ts, record.getStorage()));
+                    case CREATE_INDEX -> buildIndex(getTable(record.getTable()), record.getColumn(), record.getIndexType());
+                    case INSERT -> {
+                        Table table = getTable(record.getTable());
+                        updateIndexes(table, insertAt(table, record.getRowId(), record.getValues(), ts, shipped));
+                    }
+                    case INSERT_BATCH -> {
+                        Table table = getTable(record.getTable());
+                        List<Object[]> rows = record.getRows();
+                        for (int i = 0; i < rows.size(); i++) {
+                            updateIndexes(table, insertAt(table, record.getRowId() + i, rows.get(i), ts, shipped));
+                        }
+                    }
+                    case DELETE -> {
+                        Table table = getTable(record.getTable());
+                        Map<Integer, Integer> moved = shipped ? relocated.get(table.getName()) : null;
+                        Integer slot = moved == null ? null : moved.remove(record.getRowId());
+                        table.delete(slot != null ? slot : record.getRowId(), ts);
+                    }
+                    case CREATE_VIEW -> registerView(record.getView());
+                    default -> throw new IllegalStateException("Unexpected log record " + record.getType());
                 }
             }
+            publish(ts, null);
+        } finally {
+            transactions.unlock();
+        }
+    }
+
+    // Replays an insert into the slot the log names and returns the slot used. A shipped insert
+    // can find that slot busy on a replica: a read here may still see the dead version the primary
+    // recycled (it only waited for its own readers), or a row relocated earlier sits in it. The
+    // row then takes a free slot of the replica's own, and later deletes follow the mapping.
+    private int insertAt(Table table, int rowId, Object[] row, long commitTs, boolean shipped) {
+        if (shipped && (table.isLatest(rowId) || table.isPinned(rowId, transactions.watermark()))) {
+            int slot = table.insert(row, commitTs);
+            relocated.computeIfAbsent(table.getName(), name -> new HashMap<>()).put(rowId, slot);
+            return slot;
         }
+        table.insertAt(rowId, row, commitTs, slot -> removeFromIndexes(table, slot));
+        return rowId;
+    }
+
+    private int insertRow(Table table, Object[] row, long commitTs) {
+        int id = table.insert(row, commitTs);
+        updateIndexes(table, id);
+        return id;
+    }
+
+    // Indexes every stored version, not just the latest, so older snapshots can use them too
+    private Index buildIndex(Table table, String column, IndexType type) {
+        // Resolve aliases like col1 to the declared column name
+        int col = table.getSchema().indexOf(column);
+        String columnName = table.getSchema().name(col);
+        Index index = type.create(columnName, table.getSchema().type(col));
+
+        IntList rows = table.versions();
+        for (int i = 0; i < rows.size(); i++) {
+            index.add(table.get(rows.get(i), col), rows.get(i));
+        }
+
+        table.getCatalog().addIndex(index);
+        return index;
     }
 
-    private void removeFromIndexes(String tableName, String recordId, Map<String, Object> record) {
-        for (String indexKey : indexes.keySet()) {
-            if (indexKey.startsWith(tableName + ".")) {
-                indexes.get(indexKey).remove(recordId);
+    // Makes the snapshot contents the whole database. Call with the commit lock held.
+    private void load(SnapshotFile.Contents contents) {
+        Map<String, Table> loaded = new ConcurrentHashMap<>();
+        for (Table table : contents.tables()) {
+            loaded.put(table.getName(), table);
+        }
+        for (SnapshotFile.IndexDefinition def : contents.indexes()) {
+            buildIndex(loaded.get(def.table()), def.column(), def.type());
+        }
+        tables = loaded;
+        relocated.clear();
+        // Cached statements are bound to the tables they replace
+        statements.clear();
+        // Snapshot rows are stamped as committed at 1, the first timestamp handed out
+        long ts = transactions.nextCommitTs();
+        for (Table table : loaded.values()) {
+            table.expireSnapshotsBefore(ts);
+        }
+        publish(ts, null);
+        Set<String> names = new HashSet<>();
+        for (MaterializedView.Definition def : contents.views()) {
+            registerView(def);
+            names.add(def.name());
+        }
+        views.keySet().retainAll(names);
+    }
+
+    // Starts the view from the latest published state; the table then reports every later change.
+    // Call with the commit lock held. A view of the same name (replayed over a snapshot) is replaced.
+    private MaterializedView registerView(MaterializedView.Definition definition) {
+        Table table = getTable(definition.table());
+        MaterializedView view = new MaterializedView(definition, table);
+        long snapshot = transactions.getVisibleTs();
+        view.populate(scanner.visibleRows(table, snapshot), snapshot);
+        MaterializedView old = views.put(definition.name(), view);
+        if (old != null) {
+            old.getTable().removeView(old);
+        }
+        table.addView(view);
+        return view;
+    }
+
+    private MaterializedView getView(String name) {
+        MaterializedView view = views.get(name);
+        if (view == null) {
+            throw new IllegalArgumentException("View not found!");
+        }
+        return view;
+    }
+
+    // Everything up to the visible timestamp is published, so its changes are all queued already
+    private void refreshDeferredViews() {
+        long visible = transactions.getVisibleTs();
+        for (MaterializedView view : views.values()) {
+            if (view.refreshDue()) {
+                view.refresh(visible);
             }
         }
     }
-}
\ No newline at end of file
+
+    // The WHERE text of the string APIs is compiled once per table and text, like SQL statements
+    private Cursor openCursor(Query query) {
+        String where = isAll(query.getWhere()) ? "ALL" : query.getWhere().trim();
+        PreparedStatement statement = statements.get(new StatementCache.Key(query.getTable(), "SELECT WHERE " + where),
+                key -> compile(key.text(), new Statement.Select(query.getTable(), List.of(),
+                        where.equals("ALL") ? null : Predicate.parse(where), null, null, 0)));
+        Table table = statement.getTable();
+        return openCursor(statement, new Object[0], projection(table, query.getColumns()), query.getOffset(),
+                query.getLimit(), query.getPageToken(), query.fingerprint() + "-" + incarnation);
+    }
+
+    private Cursor openCursor(PreparedStatement statement, Object[] parameters) {
+        return openCursor(statement, parameters, statement.getColumns(), statement.offset(parameters),
+                statement.limit(parameters), null, Integer.toHexString(statement.getText().hashCode()));
+    }
+
+    private Cursor openCursor(PreparedStatement statement, Object[] parameters, int[] projection, long offset,
+                              long limit, String pageToken, String fingerprint) {
+        Table table = statement.getTable();
+        checkReadable(table);
+        Metrics.Sample sample = metrics.start(Metrics.Operation.SELECT, table.getName(), statement.getText());
+        Transaction txn = currentTransaction.get();
+        Predicate predicate = statement.where(parameters);
+        int afterSlot = Cursor.afterSlot(pageToken, fingerprint);
+        int pendingStart = Cursor.pendingStart(pageToken, fingerprint);
+        long resumeAt = Cursor.snapshot(pageToken, fingerprint);
+        if (txn != null && resumeAt >= 0 && resumeAt != txn.getSnapshot()) {
+            throw new IllegalArgumentException("Page token was issued outside this transaction");
+        }
+
+        ReadView view = txn == null ? openReadView(table, resumeAt) : null;
+        try {
+            long snapshot = txn != null ? txn.getSnapshot() : view.getSnapshot();
+            Plan plan = predicate == null ? null : statement.plan(parameters, snapshot,
+                    () -> planner.plan(table, predicate, snapshot));
+            sample.plan(plan);
+            Cursor.SlotSource slots;
+            IntPredicate accept = txn == null ? null : slot -> txn.sees(table, slot);
+            if (plan != null && plan.usesIndex()) {
+                IntList candidates = plan.candidates();
+                sample.scanned(candidates.size());
+                slots = Cursor.fromIndex(table, candidates, snapshot, afterSlot);
+                // Index candidates only satisfy part of the predicate
+                IntPredicate sees = accept;
+                accept = sees == null ? slot -> predicate.matches(table, slot)
+                        : slot -> sees.test(slot) && predicate.matches(table, slot);
+            } else {
+                Cursor.BlockScan scan = predicate == null
+                        ? (from, to) -> {
+                            sample.scanned(to - from);
+                            return scanner.visibleRows(table, snapshot, from, to);
+                        }
+                        : (from, to) -> {
+                            sample.scanned(to - from);
+                            return scanner.scan(table, predicate, snapshot, from, to);
+                        };
+                slots = Cursor.fromScan(scan, afterSlot + 1, table.slotCount(), scanner.blockSize(table));
+            }
+            String accessPath = plan != null ? plan.describe() : "full table scan";
+
+            // The transaction's own inserts follow the committed rows
+            List<Object[]> pending = new ArrayList<>();
+            Transaction.WriteSet writes = txn == null ? null : txn.peekWrites(table);
+            if (writes != null) {
+                for (Object[] row : writes.getInserted()) {
+                    if (predicate == null || predicate.matches(row)) {
+                        pending.add(row);
+                    }
+                }
+            }
+
+            return new Cursor(table, slots, accept, pending, pendingStart,
+                    projection, offset, limit, fingerprint, snapshot, accessPath,
+                    returned -> {
+                        if (view != null) view.close();
+                        sample.finish(returned);
+                    });
+        } catch (RuntimeException e) {
+            if (view != null) view.close();
+            throw e;
+        }
+    }
+
+    // A resumed page reads the snapshot of the earlier ones, as long as the table still holds
+    // every version it saw. The stripe lock keeps garbage collection out until the view counts.
+    private ReadView openReadView(Table table, long snapshot) {
+        if (snapshot < 0) return transactions.openReadView();
+        int[] stripes = transactions.lock(List.of(table.getName()));
+        try {
+            if (snapshot < table.getReadableFrom() || snapshot > transactions.getVisibleTs()) {
+                throw new IllegalArgumentException("Page token expired: rows it was paging through were "
+                        + "garbage collected; run the query again without AFTER");
+            }
+            return transactions.openReadView(snapshot);
+        } finally {
+            transactions.unlock(stripes);
+        }
+    }
+
+    private static boolean isAll(String where) {
+        return where == null || where.isBlank() || where.trim().equalsIgnoreCase("ALL");
+    }
+
+    private int[] projection(Table table, String[] columns) {
+        if (columns == null) {
+            int[] all = new int[table.getSchema().size()];
+            for (int i = 0; i < all.length; i++) all[i] = i;
+            return all;
+        }
+        int[] projection = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            projection[i] = table.getSchema().indexOf(columns[i].trim());
+        }
+        return projection;
+    }
+
+    // Row versions visible at the snapshot that satisfy the predicate (every one for null), found
+    // through the statement's kept plan
+    private IntList findMatches(PreparedStatement statement, Predicate predicate, Object[] parameters, long snapshot,
+                                Metrics.Sample sample) {
+        Table table = statement.getTable();
+        if (predicate == null) {
+            sample.scanned(table.slotCount());
+            return scanner.visibleRows(table, snapshot);
+        }
+        Plan plan = statement.plan(parameters, snapshot, () -> planner.plan(table, predicate, snapshot));
+        sample.plan(plan);
+        console.println("Access path: " + plan.describe());
+        if (!plan.usesIndex()) {
+            sample.scanned(table.slotCount());
+            return scanner.scan(table, predicate, snapshot);
+        }
+        IntList candidates = plan.candidates();
+        sample.scanned(candidates.size());
+        return visibleMatches(table, predicate, candidates, snapshot);
+    }
+
+    private IntList findMatches(Table table, Predicate predicate, Plan plan, long snapshot) {
+        if (!plan.usesIndex()) {
+            return scanner.scan(table, predicate, snapshot);
+        }
+        return visibleMatches(table, predicate, plan.candidates(), snapshot);
+    }
+
+    private static IntList visibleMatches(Table table, Predicate predicate, IntList candidates, long snapshot) {
+        IntList rows = new IntList(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            int id = candidates.get(i);
+            if (table.isVisible(id, snapshot) && predicate.matches(table, id)) {
+                rows.add(id);
+            }
+        }
+        return rows;
+    }
+
+    // One side of a join as the calling thread sees it: matching visible slots plus its own inserts
+    private Join.Input joinInput(Table table, int key, Predicate filter, Plan access, long snapshot, Transaction txn) {
+        IntList slots = filter == null ? scanner.visibleRows(table, snapshot) : findMatches(table, filter, access, snapshot);
+        if (txn != null) {
+            IntList seen = new IntList(slots.size());
+            for (int i = 0; i < slots.size(); i++) {
+                if (txn.sees(table, slots.get(i))) seen.add(slots.get(i));
+            }
+            slots = seen;
+        }
+        return new Join.Input(table, key, slots, pendingRows(table, filter, txn));
+    }
+
+    // The transaction's uncommitted inserts into the table that match the filter
+    private static List<Object[]> pendingRows(Table table, Predicate filter, Transaction txn) {
+        Transaction.WriteSet writes = txn == null ? null : txn.peekWrites(table);
+        if (writes == null) return List.of();
+        List<Object[]> rows = new ArrayList<>();
+        for (Object[] row : writes.getInserted()) {
+            if (filter == null || filter.matches(row)) rows.add(row);
+        }
+        return rows;
+    }
+
+    // Adds slots [from, to) to every index of the table, one index at a time
+    private void indexSlots(Table table, int from, int to) {
+        for (Index index : table.getCatalog().getIndexes()) {
+            Column column = table.column(index.getColumn());
+            for (int slot = from; slot < to; slot++) {
+                index.add(column.get(slot), slot);
+            }
+        }
+    }
+
+    private void updateIndexes(Table table, int recordId) {
+        for (Index index : table.getCatalog().getIndexes()) {
+            index.add(table.column(index.getColumn()).get(recordId), recordId);
+        }
+    }
+
+    private void removeFromIndexes(Table table, int recordId) {
+        for (Index index : table.getCatalog().getIndexes()) {
+            index.remove(table.column(index.getColumn()).get(recordId), recordId);
+        }
+    }
+}
@@ -7,26 +7,59 @@ import java.util.*;
 import java.util.concurrent.*;
 import java.nio.charset.StandardCharsets;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 public class LightweightAPIServer {
+    // FIXED_POOL runs handlers on a fixed number of platform threads, so handlers that block hold
+    // a thread each and cap the server at that many requests. VIRTUAL_THREADS runs every exchange
+    // on its own virtual thread, which gives its carrier thread back while it blocks on I/O.
+    public enum ExecutionMode { FIXED_POOL, VIRTUAL_THREADS }
+
+    public static final int DEFAULT_POOL_SIZE = 10;
+
     private HttpServer server;
-    private Map<String, Map<String, Route>> routes;
+    private ExecutorService executor;
+    private Map<String, Router> routes;
     private Map<String, Object> dataStore;
-    private int requestCount;
+    private AtomicInteger requestCount;
+    // Caps handlers running at once in VIRTUAL_THREADS mode; null when unbounded
+    private Semaphore admission;
+    private volatile boolean logRequests = true;
 
     public LightweightAPIServer(int port) throws IOException {
-        server = HttpServer.create(new InetSocketAddress(port), 0);
+        this(port, ExecutionMode.FIXED_POOL, DEFAULT_POOL_SIZE);
+    }
+
+    // concurrency is the pool size for FIXED_POOL. For VIRTUAL_THREADS it is how many handlers may
+    // run at once (0 = no limit); requests over the limit wait for a turn on their own virtual
+    // thread, which costs no platform thread, so thousands can be in flight.
+    public LightweightAPIServer(int port, ExecutionMode mode, int concurrency) throws IOException {
+        if (concurrency < 0 || (mode == ExecutionMode.FIXED_POOL && concurrency == 0)) {
+            throw new IllegalArgumentException("Invalid concurrency " + concurrency + " for " + mode);
+        }
+        // A deep backlog, so a burst of connections waits to be accepted instead of being refused
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
         routes = new ConcurrentHashMap<>();
         dataStore = new ConcurrentHashMap<>();
-        requestCount = 0;
+        requestCount = new AtomicInteger();
 
-        // Use a thread pool
-        server.setExecutor(Executors.newFixedThreadPool(10));
+        if (mode == ExecutionMode.VIRTUAL_THREADS) {
+            executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("api-", 0).factory());
+            admission = concurrency > 0 ? new Semaphore(concurrency, true) : null;
+        } else {
+            executor = Executors.newFixedThreadPool(concurrency);
+        }
+        server.setExecutor(executor);
 
         // Root handler that routes requests
         server.createContext("/", this::handleRequest);
     }
 
+    // Prints a line per request; on by default
+    public void setRequestLogging(boolean enabled) {
+        logRequests = enabled;
+    }
+
     // Route registration methods
     public void get(String path, RouteHandler handler) {
         addRoute("GET", path, handler);
@@ -44,38 +77,56 @@ public class LightweightAPIServer {
         addRoute("DELETE", path, handler);
     }
 
+    // Path patterns are made of static segments, :name segments that capture one segment, and an
+    // optional final *name (or bare *) that captures the rest of the path
     private void addRoute(String method, String path, RouteHandler handler) {
-        routes.computeIfAbsent(method, k -> new ConcurrentHashMap<>())
-                .put(path, new Route(path, handler));
+        routes.computeIfAbsent(method, k -> new Router()).add(new Route(path, handler));
     }
 
     private void handleRequest(HttpExchange exchange) throws IOException {
-        requestCount++;
+        if (admission == null) {
+            dispatch(exchange);
+            return;
+        }
+        try {
+            admission.acquire();
+        } catch (InterruptedException e) {
+            // Server is stopping
+            Thread.currentThread().interrupt();
+            sendResponse(exchange, 503, "{\"error\": \"Service unavailable\"}");
+            return;
+        }
+        try {
+            dispatch(exchange);
+        } finally {
+            admission.release();
+        }
+    }
+
+    private void dispatch(HttpExchange exchange) throws IOException {
+        int count = requestCount.incrementAndGet();
         String method = exchange.getRequestMethod();
         String path = exchange.getRequestURI().getPath();
 
-        System.out.println("[" + requestCount + "] " + method + " " + path);
+        if (logRequests) {
+            System.out.println("[" + count + "] " + method + " " + path);
+        }
 
         try {
             // Find matching route
-            Map<String, Route> methodRoutes = routes.get(method);
-            if (methodRoutes == null) {
-                sendResponse(exchange, 404, "{\"error\": \"Not found\"}");
-                return;
-            }
-
-            Route route = findMatchingRoute(methodRoutes, path);
-            if (route == null) {
+            Router router = routes.get(method);
+            Router.Match match = router == null ? null : router.match(path);
+            if (match == null) {
                 sendResponse(exchange, 404, "{\"error\": \"Not found\"}");
                 return;
             }
 
             // Create request/response objects
-            Request req = new Request(exchange, route.extractParams(path));
+            Request req = new Request(exchange, match);
             Response res = new Response(exchange);
 
             // Execute handler
-            route.handler.handle(req, res);
+            match.route.handler.handle(req, res);
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -83,22 +134,6 @@ public class LightweightAPIServer {
         }
     }
 
-    private Route findMatchingRoute(Map<String, Route> routes, String path) {
-        // Exact match first
-        if (routes.containsKey(path)) {
-            return routes.get(path);
-        }
-
-        // Pattern match
-        for (Route route : routes.values()) {
-            if (route.matches(path)) {
-                return route;
-            }
-        }
-
-        return null;
-    }
-
     private void sendResponse(HttpExchange exchange, int code, String body) throws IOException {
         byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
         exchange.sendResponseHeaders(code, bytes.length);
@@ -112,18 +147,32 @@ public class LightweightAPIServer {
         System.out.println("Server started on port " + server.getAddress().getPort());
     }
 
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
     public void stop() {
         server.stop(0);
+        executor.shutdownNow();
         System.out.println("Server stopped");
     }
 
     // Request class
     public static class Request {
         private HttpExchange exchange;
-        private Map<String, String> params;
+        private Function<String, String> params;
         private String body;
 
         public Request(HttpExchange exchange, Map<String, String> params) throws IOException {
+            this(exchange, params::get);
+        }
+
+        // Path parameters are cut out of the path only when asked for
+        Request(HttpExchange exchange, Router.Match match) throws IOException {
+            this(exchange, match::param);
+        }
+
+        private Request(HttpExchange exchange, Function<String, String> params) throws IOException {
             this.exchange = exchange;
             this.params = params;
 
@@ -133,7 +182,7 @@ public class LightweightAPIServer {
         }
 
         public String getParam(String key) {
-            return params.get(key);
+            return params.apply(key);
         }
 
         public String getBody() {
@@ -207,58 +256,222 @@ public class LightweightAPIServer {
     static class Route {
         String pattern;
         RouteHandler handler;
-        List<String> paramNames;
+        String[] paramNames;
+        // Static text alternating with ":" and "*" placeholders for the captures
+        List<String> parts;
 
         Route(String pattern, RouteHandler handler) {
-            this.pattern = pattern;
+            if (!pattern.startsWith("/")) {
+                throw new IllegalArgumentException("Route must start with /: " + pattern);
+            }
+            // A trailing slash is optional, as it is in requests
+            this.pattern = pattern.length() > 1 && pattern.endsWith("/") ? pattern.substring(0, pattern.length() - 1) : pattern;
             this.handler = handler;
-            this.paramNames = extractParamNames(pattern);
+            List<String> names = new ArrayList<>();
+            this.parts = parse(this.pattern, names);
+            this.paramNames = names.toArray(new String[0]);
         }
 
-        private List<String> extractParamNames(String pattern) {
-            List<String> names = new ArrayList<>();
-            String[] parts = pattern.split("/");
-            for (String part : parts) {
-                if (part.startsWith(":")) {
-                    names.add(part.substring(1));
+        private static List<String> parse(String pattern, List<String> names) {
+            List<String> parts = new ArrayList<>();
+            StringBuilder text = new StringBuilder();
+            String[] segments = pattern.substring(1).split("/", -1);
+            for (int i = 0; i < segments.length; i++) {
+                String segment = segments[i];
+                text.append('/');
+                if (segment.startsWith(":") || segment.startsWith("*")) {
+                    boolean wildcard = segment.charAt(0) == '*';
+                    if (wildcard && i < segments.length - 1) {
+                        throw new IllegalArgumentException("Wildcard must be the last segment: " + pattern);
+                    }
+                    if (!wildcard && segment.length() == 1) {
+                        throw new IllegalArgumentException("Parameter without a name: " + pattern);
+                    }
+                    parts.add(text.toString());
+                    text.setLength(0);
+                    parts.add(segment.substring(0, 1));
+                    names.add(segment.length() == 1 ? "*" : segment.substring(1));
+                } else {
+                    text.append(segment);
                 }
             }
-            return names;
+            if (!text.isEmpty()) {
+                parts.add(text.toString());
+            }
+            return parts;
+        }
+
+        // Routes with the same shape replace each other, whatever their parameters are called
+        String shape() {
+            return String.join("", parts);
+        }
+    }
+
+    // Compiled radix tree over the routes of one method. Static text sits on compressed edges picked
+    // by their first character, so a lookup walks the path once and compares characters in place;
+    // :name and * captures are kept as offsets into the path and only become strings when a handler
+    // asks for them. At each position static text beats a :name segment, which beats a *wildcard.
+    // When the preferred branch dead-ends the next one is tried, so /users/new wins over /users/:id
+    // without hiding /users/:id/posts; only such overlaps make a lookup revisit characters.
+    static class Router {
+        private static final int[] NO_BOUNDS = new int[0];
+
+        private record Tree(Node root, int maxParams) {
+        }
+
+        private final Map<String, Route> routes = new LinkedHashMap<>();
+        // Rebuilt on every add and published whole, so lookups never see a tree being changed
+        private volatile Tree tree = new Tree(new Node(""), 0);
+
+        synchronized void add(Route route) {
+            routes.put(route.shape(), route);
+            Node root = new Node("");
+            int maxParams = 0;
+            for (Route r : routes.values()) {
+                root.insert(r, 0);
+                maxParams = Math.max(maxParams, r.paramNames.length);
+            }
+            tree = new Tree(root, maxParams);
         }
 
-        boolean matches(String path) {
-            String[] patternParts = pattern.split("/");
-            String[] pathParts = path.split("/");
+        // Null if no route matches; one trailing slash is ignored
+        Match match(String path) {
+            Tree current = tree;
+            int end = path.length() > 1 && path.charAt(path.length() - 1) == '/' ? path.length() - 1 : path.length();
+            int[] bounds = current.maxParams() == 0 ? NO_BOUNDS : new int[2 * current.maxParams()];
+            Route route = current.root().match(path, 0, end, bounds, 0);
+            return route == null ? null : new Match(route, path, bounds);
+        }
 
-            if (patternParts.length != pathParts.length) return false;
+        static final class Match {
+            final Route route;
+            private final String path;
+            // Start and end offset in path of each capture, in the order the pattern names them
+            private final int[] bounds;
 
-            for (int i = 0; i < patternParts.length; i++) {
-                if (!patternParts[i].startsWith(":") && !patternParts[i].equals(pathParts[i])) {
-                    return false;
+            Match(Route route, String path, int[] bounds) {
+                this.route = route;
+                this.path = path;
+                this.bounds = bounds;
+            }
+
+            String param(String name) {
+                String[] names = route.paramNames;
+                for (int i = 0; i < names.length; i++) {
+                    if (names[i].equals(name)) {
+                        return path.substring(bounds[2 * i], bounds[2 * i + 1]);
+                    }
                 }
+                return null;
             }
-            return true;
         }
 
-        Map<String, String> extractParams(String path) {
-            Map<String, String> params = new HashMap<>();
-            String[] patternParts = pattern.split("/");
-            String[] pathParts = path.split("/");
+        private static final class Node {
+            private String prefix;
+            // First character of each static child's prefix, at the same position as the child
+            private char[] indices = new char[0];
+            private Node[] children = new Node[0];
+            // Matches one non-empty segment
+            private Node param;
+            // Matches the non-empty rest of the path
+            private Node wildcard;
+            private Route route;
+
+            Node(String prefix) {
+                this.prefix = prefix;
+            }
 
-            for (int i = 0; i < patternParts.length; i++) {
-                if (patternParts[i].startsWith(":")) {
-                    String paramName = patternParts[i].substring(1);
-                    params.put(paramName, pathParts[i]);
+            // Adds the route's parts from index part on, below this node
+            void insert(Route route, int part) {
+                if (part == route.parts.size()) {
+                    this.route = route;
+                    return;
+                }
+                String text = route.parts.get(part);
+                switch (text) {
+                    case ":" -> {
+                        if (param == null) param = new Node("");
+                        param.insert(route, part + 1);
+                    }
+                    case "*" -> {
+                        if (wildcard == null) wildcard = new Node("");
+                        wildcard.route = route;
+                    }
+                    default -> insertStatic(text, 0).insert(route, part + 1);
                 }
             }
-            return params;
+
+            // Returns the node at which text ends, splitting an edge if text ends or turns off inside it
+            private Node insertStatic(String text, int pos) {
+                if (pos == text.length()) return this;
+                char c = text.charAt(pos);
+                for (int i = 0; i < indices.length; i++) {
+                    if (indices[i] != c) continue;
+                    Node child = children[i];
+                    int common = 1;
+                    while (common < child.prefix.length() && pos + common < text.length()
+                            && child.prefix.charAt(common) == text.charAt(pos + common)) {
+                        common++;
+                    }
+                    if (common < child.prefix.length()) {
+                        Node split = new Node(child.prefix.substring(0, common));
+                        child.prefix = child.prefix.substring(common);
+                        split.indices = new char[]{child.prefix.charAt(0)};
+                        split.children = new Node[]{child};
+                        children[i] = split;
+                        child = split;
+                    }
+                    return child.insertStatic(text, pos + common);
+                }
+                Node child = new Node(text.substring(pos));
+                indices = Arrays.copyOf(indices, indices.length + 1);
+                indices[indices.length - 1] = c;
+                children = Arrays.copyOf(children, children.length + 1);
+                children[children.length - 1] = child;
+                return child;
+            }
+
+            // path[0, pos) is matched up to and including this node; captured captures are in bounds
+            Route match(String path, int pos, int end, int[] bounds, int captured) {
+                if (pos == end) return route;
+                char c = path.charAt(pos);
+                for (int i = 0; i < indices.length; i++) {
+                    if (indices[i] != c) continue;
+                    Node child = children[i];
+                    int length = child.prefix.length();
+                    if (length <= end - pos && path.regionMatches(pos, child.prefix, 0, length)) {
+                        Route found = child.match(path, pos + length, end, bounds, captured);
+                        if (found != null) return found;
+                    }
+                    break;
+                }
+                if (param != null) {
+                    int stop = path.indexOf('/', pos);
+                    if (stop < 0 || stop > end) stop = end;
+                    if (stop > pos) {
+                        bounds[2 * captured] = pos;
+                        bounds[2 * captured + 1] = stop;
+                        Route found = param.match(path, stop, end, bounds, captured + 1);
+                        if (found != null) return found;
+                    }
+                }
+                if (wildcard != null) {
+                    bounds[2 * captured] = pos;
+                    bounds[2 * captured + 1] = end;
+                    return wildcard.route;
+                }
+                return null;
+            }
         }
     }
 
-    // Demo usage
+    // Demo usage: LightweightAPIServer [FIXED_POOL | VIRTUAL_THREADS] [concurrency]
     public static void main(String[] args) {
         try {
-            LightweightAPIServer api = new LightweightAPIServer(8080);
+            ExecutionMode mode = args.length > 0 ? ExecutionMode.valueOf(args[0].toUpperCase()) : ExecutionMode.FIXED_POOL;
+            int concurrency = args.length > 1 ? Integer.parseInt(args[1])
+                    : mode == ExecutionMode.FIXED_POOL ? DEFAULT_POOL_SIZE : 0;
+            LightweightAPIServer api = new LightweightAPIServer(8080, mode, concurrency);
             Map<Integer, Map<String, Object>> users = new ConcurrentHashMap<>();
             AtomicInteger userId = new AtomicInteger(1);
 